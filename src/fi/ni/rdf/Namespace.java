@@ -5,7 +5,7 @@ public class Namespace {
 	public static final String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
 	public static final String OWL = "http://www.w3.org/2002/07/owl#";
 	public static final String XSD = "http://www.w3.org/2001/XMLSchema#";
-	public static String IFC = "http://ifcowl.openbimstandards.org/";
+	public static final String IFC = "http://ifcowl.openbimstandards.org/";
 	public static final String DCE = "http://purl.org/dc/elements/1.1/";
 	public static final String VANN = "http://purl.org/vocab/vann/";
 	public static final String CC = "http://creativecommons.org/ns#";
@@ -0,0 +1,313 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/*
+ * BatchConverter converts several EXPRESS schemas into ifcOWL in one JVM. Every schema
+ * is read, written as a compiled schema and as OWL in TTL, RDF/XML and RDF Thrift,
+ * exactly as by the main method of the ExpressReader, on a bounded pool of threads.
+ * Each conversion has its own SchemaContext, so the schemas do not share any state,
+ * except for the static registries that the constructors of EntityVO, TypeVO and
+ * PrimaryTypeVO still fill: those objects are created under a lock of the SchemaContext,
+ * and since the registries are never cleared, every schema of the batch stays in memory
+ * until the JVM ends, so a very large batch needs a larger heap or several runs.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.BatchConverter [-threads n] [-cache cacheDirectory]
+ *     [-outputs ser,compiled,proplist,proptable,ttl,rdf,rt] [-canonical] [-date yyyy/MM/dd]
+ *     [-ntriples|-nquads chunkSizeInMB] outputDirectory schema.exp|glob ...
+ * java org.openbimstandards.ifcowl.BatchConverter out data/IFC4.exp "data/IFC2X3_*.exp"
+ *
+ * With -cache the outputs are kept in a BuildCache and taken from there as long as
+ * the schema and the converter did not change; -outputs limits the generated files.
+ * With -canonical the OWL is written in a canonical order, and with -date it has that
+ * dce:date, so that the same schema always gives the same bytes. With -ntriples or
+ * -nquads the ontology is also written as rolling N-Triples or N-Quads files for a
+ * parallel bulk load, like out/IFC4-00000.nt; those are not kept in the cache.
+ * With more than one thread, the .ttl of every schema is also rendered in shards on a
+ * shared ForkJoinPool of that many threads; the files are the same for any number of
+ * threads, in the canonical order with -canonical and in that of the model without.
+ *
+ * The name of the schema (and of the output files) is the name of the .exp file, e.g.
+ * data/IFC4_ADD2.exp is converted into out/IFC4_ADD2.ttl, out/IFC4_ADD2.rdf and the RDF
+ * Thrift snapshot out/IFC4_ADD2.rt in the namespace
+ * http://ifcowl.openbimstandards.org/IFC4_ADD2. The wall time of every schema and of
+ * the whole batch is reported at the end.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class BatchConverter {
+
+	private static final String USAGE = "Usage: java BatchConverter [-threads n] [-cache cacheDirectory] [-outputs ser,compiled,proplist,proptable,ttl,rdf,rt] [-canonical] [-date yyyy/MM/dd] [-ntriples|-nquads chunkSizeInMB] outputDirectory schema.exp|glob ... \nExample: java BatchConverter -cache .ifcowl-cache out data/*.exp";
+
+	private final File outputDirectory;
+	private final int threads;
+	private BuildCache cache = null;
+	private Set<BuildCache.Output> outputs = EnumSet.allOf(BuildCache.Output.class);
+	private boolean canonical = false;
+	private String date = null;
+	private int chunkSize = 0;
+	private boolean quads = false;
+
+	public BatchConverter(File outputDirectory, int threads) {
+		this.outputDirectory = outputDirectory;
+		this.threads = threads;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		BuildCache cache = null;
+		Set<BuildCache.Output> outputs = EnumSet.allOf(BuildCache.Output.class);
+		boolean canonical = false;
+		String date = null;
+		int chunkSize = 0;
+		boolean quads = false;
+		int n = 0;
+		for (; n < args.length && args[n].startsWith("-"); n++) {
+			if (args[n].equals("-canonical"))
+				canonical = true;
+			else if (n + 1 == args.length) {
+				System.out.println(USAGE);
+				return;
+			} else if (args[n].equals("-threads"))
+				threads = Integer.parseInt(args[++n]);
+			else if (args[n].equals("-cache"))
+				cache = new BuildCache(new File(args[++n]));
+			else if (args[n].equals("-date"))
+				date = args[++n];
+			else if (args[n].equals("-ntriples") || args[n].equals("-nquads")) {
+				quads = args[n].equals("-nquads");
+				chunkSize = Integer.parseInt(args[++n]) << 20;
+			}
+			else if (args[n].equals("-outputs")) {
+				outputs = EnumSet.noneOf(BuildCache.Output.class);
+				for (String output : args[++n].split(","))
+					outputs.add(BuildCache.Output.valueOf(output.trim().toUpperCase()));
+			} else {
+				System.out.println(USAGE);
+				return;
+			}
+		}
+		if (args.length - n < 2) {
+			System.out.println(USAGE);
+			return;
+		}
+		File outputDirectory = new File(args[n++]);
+		List<File> schemas = new ArrayList<File>();
+		for (; n < args.length; n++)
+			schemas.addAll(expand(args[n]));
+		if (schemas.isEmpty()) {
+			System.out.println("No EXPRESS schemas found");
+			return;
+		}
+		BatchConverter converter = new BatchConverter(outputDirectory, threads);
+		converter.setCache(cache);
+		converter.setOutputs(outputs);
+		converter.setCanonical(canonical);
+		converter.setDate(date);
+		converter.setChunks(chunkSize, quads);
+		converter.convert(schemas);
+	}
+
+	// the outputs are taken from the cache when the schema did not change, null for no cache
+	public void setCache(BuildCache cache) {
+		this.cache = cache;
+	}
+
+	public void setOutputs(Set<BuildCache.Output> outputs) {
+		this.outputs = outputs;
+	}
+
+	// see OWLWriter.setCanonical and OWLWriter.setDate
+	public void setCanonical(boolean canonical) {
+		this.canonical = canonical;
+	}
+
+	public void setDate(String date) {
+		this.date = date;
+	}
+
+	// writes the ontology also as N-Triples, or N-Quads, in chunks of about chunkSize
+	// bytes; 0 for none
+	public void setChunks(int chunkSize, boolean quads) {
+		this.chunkSize = chunkSize;
+		this.quads = quads;
+	}
+
+	public void convert(List<File> schemas) {
+		outputDirectory.mkdirs();
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, schemas.size())));
+		// the pool that renders the shards of the .ttl files, shared by the conversions
+		ForkJoinPool renderPool = threads > 1 ? new ForkJoinPool(threads) : null;
+		List<Future<Long>> results = new ArrayList<Future<Long>>();
+		try {
+			for (final File schema : schemas)
+				results.add(pool.submit(() -> convert(schema, renderPool)));
+
+			List<String> report = new ArrayList<String>();
+			for (int n = 0; n < schemas.size(); n++) {
+				String name = schemaName(schemas.get(n));
+				try {
+					report.add(name + " : " + results.get(n).get() / 1000000 + " ms");
+				} catch (Exception e) {
+					e.printStackTrace();
+					report.add(name + " : FAILED (" + e.getCause() + ")");
+				}
+			}
+			for (String line : report)
+				System.out.println(line);
+			System.out.println("total : " + (System.nanoTime() - start) / 1000000 + " ms for "
+					+ schemas.size() + " schemas on " + threads + " threads");
+		} finally {
+			pool.shutdown();
+			if (renderPool != null)
+				renderPool.shutdown();
+		}
+	}
+
+	// converts one schema and returns the wall time in nanoseconds; renderPool is null to
+	// render the .ttl on the thread of the conversion
+	private long convert(File schema, ForkJoinPool renderPool) throws IOException {
+		long start = System.nanoTime();
+		String name = schemaName(schema);
+		String namespace = SchemaContext.DEFAULT_NAMESPACE + name;
+		String filePathNoExt = new File(outputDirectory, name).getPath();
+
+		// the order of the files is in the key; the number of threads does not change them
+		String key = cache == null ? null : cache.key(schema, name, namespace,
+				(canonical ? "canonical" : "model order") + "\n" + (date == null ? "" : date));
+		Set<BuildCache.Output> missing = EnumSet.noneOf(BuildCache.Output.class);
+		for (BuildCache.Output output : outputs) {
+			if (cache == null || !cache.restore(key, output, outputDirectory, name))
+				missing.add(output);
+		}
+		if (missing.isEmpty() && chunkSize == 0) {
+			System.out.println(name + " : unchanged, all outputs taken from the build cache");
+			return System.nanoTime() - start;
+		}
+
+		SchemaContext context = new SchemaContext(namespace);
+		ExpressReader er = new ExpressReader(schema, context);
+		if (!er.readAndBuild())
+			throw new IOException("could not read the schema " + schema);
+
+		// only the outputs that were written without an error are stored in the cache
+		Set<BuildCache.Output> written = EnumSet.noneOf(BuildCache.Output.class);
+		if (missing.contains(BuildCache.Output.SER) && er.outputEntitiesAndTypes(filePathNoExt, name))
+			written.add(BuildCache.Output.SER);
+		if (missing.contains(BuildCache.Output.COMPILED) && er.outputCompiledSchema(filePathNoExt, name))
+			written.add(BuildCache.Output.COMPILED);
+		if (missing.contains(BuildCache.Output.PROPLIST) && er.outputEntityPropertyList(filePathNoExt, name))
+			written.add(BuildCache.Output.PROPLIST);
+		if (missing.contains(BuildCache.Output.PROPTABLE) && er.outputPropertyTable(filePathNoExt, name))
+			written.add(BuildCache.Output.PROPTABLE);
+
+		OWLWriter ow = new OWLWriter(context, name, er.getEntities(), er.getTypes(),
+				er.getSiblings(), er.getEnumIndividuals(), er.getProperties());
+		ow.setCanonical(canonical);
+		ow.setDate(date);
+		if (missing.contains(BuildCache.Output.TTL) || missing.contains(BuildCache.Output.RDF)
+				|| missing.contains(BuildCache.Output.RT)) {
+			// the .ttl, the .rdf and the .rt from one stream of triples
+			missing.add(BuildCache.Output.TTL);
+			missing.add(BuildCache.Output.RDF);
+			missing.add(BuildCache.Output.RT);
+			if (ow.outputOWL(filePathNoExt, renderPool)) {
+				written.add(BuildCache.Output.TTL);
+				written.add(BuildCache.Output.RDF);
+				written.add(BuildCache.Output.RT);
+			}
+		}
+		if (chunkSize > 0) {
+			NTriplesChunkWriter writer = new NTriplesChunkWriter(outputDirectory, name, chunkSize,
+					quads ? namespace : null, 2);
+			try {
+				ow.outputNTriples(writer);
+			} finally {
+				writer.close();
+			}
+		}
+
+		if (cache != null) {
+			for (BuildCache.Output output : written)
+				cache.store(key, output, outputDirectory, name);
+		}
+		missing.removeAll(written);
+		if (!missing.isEmpty())
+			throw new IOException("could not write the outputs " + missing + " of " + name);
+		return System.nanoTime() - start;
+	}
+
+	static String schemaName(File schema) {
+		String name = schema.getName();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+
+	// a path, or a glob like data/*.exp or data/**/IFC4*.exp, in file name order
+	static List<File> expand(String arg) throws IOException {
+		int glob = indexOfGlob(arg);
+		if (glob < 0) {
+			List<File> files = new ArrayList<File>();
+			files.add(new File(arg));
+			return files;
+		}
+		int separator = Math.max(arg.lastIndexOf('/', glob), arg.lastIndexOf(File.separatorChar, glob));
+		Path base = Paths.get(separator < 0 ? "." : arg.substring(0, separator + 1));
+		String pattern = separator < 0 ? arg : arg.substring(separator + 1);
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+		List<File> files = new ArrayList<File>();
+		try (Stream<Path> paths = Files.walk(base)) {
+			paths.filter(p -> Files.isRegularFile(p) && matcher.matches(base.relativize(p)))
+					.sorted()
+					.forEach(p -> files.add(p.toFile()));
+		}
+		return files;
+	}
+
+	private static int indexOfGlob(String arg) {
+		for (int n = 0; n < arg.length(); n++) {
+			switch (arg.charAt(n)) {
+			case '*':
+			case '?':
+			case '[':
+			case '{':
+				return n;
+			default:
+			}
+		}
+		return -1;
+	}
+}
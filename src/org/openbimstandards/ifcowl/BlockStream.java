@@ -0,0 +1,38 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+
+import org.apache.jena.riot.system.StreamRDF;
+
+/*
+ * BlockStream is a StreamRDF that is told where the blocks of the OWLWriter end: one
+ * for every named individual, type, entity and property, after the header of the
+ * ontology. The blank nodes of a block never leave it, so a block can be rendered or
+ * stored on its own.
+ *
+ * The usage:
+ * BlockStream stream = new TurtleStreamWriter(out);
+ * ow.outputOWL(stream); // calls stream.endBlock() before every block
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public interface BlockStream extends StreamRDF {
+
+	// the triples so far make up a block, the next block begins after them
+	void endBlock() throws IOException;
+}
@@ -0,0 +1,138 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * BuildCache keeps the files that were generated for an EXPRESS schema, so that they do
+ * not have to be generated again when neither the schema nor the converter changed.
+ * The key of a build is a SHA-256 hash of the content of the .exp file, the converter
+ * version, the schema name and the namespace. Every output is cached on its own under
+ * cacheDirectory/key/, so when only some outputs are requested, or only some are
+ * missing from the cache, only the missing ones have to be generated.
+ *
+ * The usage:
+ * BuildCache cache = new BuildCache(new File(".ifcowl-cache"));
+ * String key = cache.key(schemaFile, schemaName, namespace);
+ * if (!cache.restore(key, BuildCache.Output.TTL, outputDirectory, schemaName)) {
+ *     ... generate the .ttl ...
+ *     cache.store(key, BuildCache.Output.TTL, outputDirectory, schemaName);
+ * }
+ *
+ * CONVERTER_VERSION has to be changed whenever a change of the converter changes its
+ * output, so that the cached files of the older version are not used any more.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class BuildCache {
+
+	public static final String CONVERTER_VERSION = "7";
+
+	// the files that are generated for a schema, %s is the name of the schema
+	public enum Output {
+		SER("ent%s.ser", "typ%s.ser"),
+		COMPILED("schema%s.bin"),
+		PROPLIST("proplist%s.csv"),
+		PROPTABLE("proplist%s.bin"),
+		TTL("%s.ttl"),
+		RDF("%s.rdf"),
+		RT("%s.rt");
+
+		private final String[] fileNames;
+
+		Output(String... fileNames) {
+			this.fileNames = fileNames;
+		}
+
+		public List<File> getFiles(File directory, String schemaName) {
+			List<File> files = new ArrayList<File>();
+			for (String fileName : fileNames)
+				files.add(new File(directory, String.format(fileName, schemaName)));
+			return files;
+		}
+	}
+
+	private final File cacheDirectory;
+
+	public BuildCache(File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	public String key(File schema, String schemaName, String namespace) throws IOException {
+		return key(schema, schemaName, namespace, "");
+	}
+
+	// the key of a build with options that change the output, like a canonical order
+	public String key(File schema, String schemaName, String namespace, String variant)
+			throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(Files.readAllBytes(schema.toPath()));
+			String implementation = BuildCache.class.getPackage() == null ? null
+					: BuildCache.class.getPackage().getImplementationVersion();
+			String options = CONVERTER_VERSION + "\n" + implementation + "\n" + schemaName
+					+ "\n" + namespace + "\n" + variant;
+			digest.update(options.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest())
+				sb.append(String.format("%02x", b & 0xff));
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	// copies the cached files of the output into the directory, false if they are not cached
+	public boolean restore(String key, Output output, File directory, String schemaName)
+			throws IOException {
+		List<File> cached = output.getFiles(new File(cacheDirectory, key), schemaName);
+		for (File file : cached)
+			if (!file.isFile())
+				return false;
+		List<File> targets = output.getFiles(directory, schemaName);
+		for (int n = 0; n < cached.size(); n++)
+			Files.copy(cached.get(n).toPath(), targets.get(n).toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+
+	// copies the generated files of the output from the directory into the cache
+	public void store(String key, Output output, File directory, String schemaName)
+			throws IOException {
+		File keyDirectory = new File(cacheDirectory, key);
+		keyDirectory.mkdirs();
+		List<File> generated = output.getFiles(directory, schemaName);
+		List<File> cached = output.getFiles(keyDirectory, schemaName);
+		for (int n = 0; n < generated.size(); n++) {
+			if (!generated.get(n).isFile())
+				continue;
+			// another conversion with the same key may be storing the same file
+			File tmp = File.createTempFile("store", ".tmp", keyDirectory);
+			Files.copy(generated.get(n).toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tmp.toPath(), cached.get(n).toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
@@ -0,0 +1,351 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * CompiledSchema reads a schema that was written by the CompiledSchemaWriter. The file
+ * is memory-mapped and every lookup reads the tables directly; only the strings that
+ * are asked for are decoded (and then kept). Entities, types, attributes and inverses
+ * are identified by their int index in their table, -1 means not found.
+ *
+ * The usage:
+ * CompiledSchema schema = CompiledSchema.open(new File("schemaIFC4.bin"));
+ * int wall = schema.getEntity("IFCWALL");
+ * for (int n = 0; n < schema.getAttributeCount(wall); n++) {
+ *     int attr = schema.getAttribute(wall, n);
+ *     String name = schema.getAttributeName(attr);
+ *     boolean list = schema.hasAttributeFlag(attr, CompiledSchema.LIST);
+ * }
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class CompiledSchema {
+
+	public static final int MAGIC = ('E' << 24) | ('X' << 16) | ('P' << 8) | 'C';
+	public static final int VERSION = 1;
+
+	// flags of entities, attributes and inverses
+	public static final int ABSTRACT = 1;
+	public static final int ARRAY = 1 << 1;
+	public static final int SET = 1 << 2;
+	public static final int LIST = 1 << 3;
+	public static final int LIST_OF_LIST = 1 << 4;
+	public static final int OPTIONAL = 1 << 5;
+	public static final int UNIQUE = 1 << 6;
+	public static final int ONE_TO_ONE = 1 << 7;
+	public static final int REVERSE_POINTER = 1 << 8;
+
+	// sizes in ints
+	static final int HEADER_SIZE = 16 * 4;
+	static final int ENTITY_SIZE = 8;
+	static final int TYPE_SIZE = 7;
+	static final int ATTRIBUTE_SIZE = 10;
+	static final int INVERSE_SIZE = 6;
+
+	private final ByteBuffer buffer;
+	private final String schemaName;
+	private final int stringCount;
+	private final int stringOffset;
+	private final int entityCount;
+	private final int entityOffset;
+	private final int typeCount;
+	private final int typeOffset;
+	private final int attributeCount;
+	private final int attributeOffset;
+	private final int inverseCount;
+	private final int inverseOffset;
+	private final int listOffset;
+	private final String[] strings;
+
+	public CompiledSchema(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a compiled EXPRESS schema");
+		int version = buffer.getInt(4);
+		if (version != VERSION)
+			throw new IOException("Unsupported compiled EXPRESS schema version " + version
+					+ ", expected " + VERSION);
+		stringCount = buffer.getInt(12);
+		stringOffset = buffer.getInt(16);
+		entityCount = buffer.getInt(20);
+		entityOffset = buffer.getInt(24);
+		typeCount = buffer.getInt(28);
+		typeOffset = buffer.getInt(32);
+		attributeCount = buffer.getInt(36);
+		attributeOffset = buffer.getInt(40);
+		inverseCount = buffer.getInt(44);
+		inverseOffset = buffer.getInt(48);
+		listOffset = buffer.getInt(56);
+		strings = new String[stringCount];
+		schemaName = getString(buffer.getInt(8));
+	}
+
+	public static CompiledSchema open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return new CompiledSchema(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
+		} finally {
+			raf.close();
+		}
+	}
+
+	public String getSchemaName() {
+		return schemaName;
+	}
+
+	// STRINGS
+	public int getStringCount() {
+		return stringCount;
+	}
+
+	public String getString(int index) {
+		if (index < 0)
+			return null;
+		String s = strings[index];
+		if (s == null) {
+			int start = buffer.getInt(stringOffset + 4 * index);
+			int end = buffer.getInt(stringOffset + 4 * index + 4);
+			byte[] bytes = new byte[end - start];
+			ByteBuffer b = buffer.duplicate();
+			b.position(stringOffset + start);
+			b.get(bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = s;
+		}
+		return s;
+	}
+
+	// ENTITIES
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	// the entity with the given key, e.g. IFCWALL
+	public int getEntity(String key) {
+		return search(key, entityOffset, entityCount, ENTITY_SIZE);
+	}
+
+	public String getEntityKey(int entity) {
+		return getString(entityInt(entity, 0));
+	}
+
+	public String getEntityName(int entity) {
+		return getString(entityInt(entity, 1));
+	}
+
+	public String getEntitySuperclass(int entity) {
+		return getString(entityInt(entity, 2));
+	}
+
+	public boolean isAbstract(int entity) {
+		return (entityInt(entity, 3) & ABSTRACT) != 0;
+	}
+
+	// the derived attributes of the entity, inherited ones first
+	public int getAttributeCount(int entity) {
+		return entityInt(entity, 5);
+	}
+
+	public int getAttribute(int entity, int n) {
+		return entityInt(entity, 4) + n;
+	}
+
+	public int getInverseCount(int entity) {
+		return entityInt(entity, 7);
+	}
+
+	public int getInverse(int entity, int n) {
+		return entityInt(entity, 6) + n;
+	}
+
+	// ATTRIBUTES
+	public int getTotalAttributeCount() {
+		return attributeCount;
+	}
+
+	public String getAttributeName(int attr) {
+		return getString(attributeInt(attr, 0));
+	}
+
+	public String getAttributeOriginalName(int attr) {
+		return getString(attributeInt(attr, 1));
+	}
+
+	public String getAttributeType(int attr) {
+		return getString(attributeInt(attr, 2));
+	}
+
+	public String getAttributeDomain(int attr) {
+		return getString(attributeInt(attr, 3));
+	}
+
+	public String getAttributeRangeNS(int attr) {
+		return getString(attributeInt(attr, 4));
+	}
+
+	public boolean hasAttributeFlag(int attr, int flag) {
+		return (attributeInt(attr, 5) & flag) != 0;
+	}
+
+	public int getAttributeMinCard(int attr) {
+		return attributeInt(attr, 6);
+	}
+
+	public int getAttributeMaxCard(int attr) {
+		return attributeInt(attr, 7);
+	}
+
+	public int getAttributeMinCardListOfList(int attr) {
+		return attributeInt(attr, 8);
+	}
+
+	public int getAttributeMaxCardListOfList(int attr) {
+		return attributeInt(attr, 9);
+	}
+
+	// INVERSES
+	public int getTotalInverseCount() {
+		return inverseCount;
+	}
+
+	public String getInverseName(int inv) {
+		return getString(inverseInt(inv, 0));
+	}
+
+	public String getInverseClassRange(int inv) {
+		return getString(inverseInt(inv, 1));
+	}
+
+	public String getInverseOfProperty(int inv) {
+		return getString(inverseInt(inv, 2));
+	}
+
+	public boolean hasInverseFlag(int inv, int flag) {
+		return (inverseInt(inv, 3) & flag) != 0;
+	}
+
+	public int getInverseMinCard(int inv) {
+		return inverseInt(inv, 4);
+	}
+
+	public int getInverseMaxCard(int inv) {
+		return inverseInt(inv, 5);
+	}
+
+	// TYPES
+	public int getTypeCount() {
+		return typeCount;
+	}
+
+	// the type with the given key, e.g. IFCLABEL
+	public int getType(String key) {
+		return search(key, typeOffset, typeCount, TYPE_SIZE);
+	}
+
+	public String getTypeKey(int type) {
+		return getString(typeInt(type, 0));
+	}
+
+	public String getTypeName(int type) {
+		return getString(typeInt(type, 1));
+	}
+
+	public String getTypePrimarytype(int type) {
+		return getString(typeInt(type, 2));
+	}
+
+	public int getSelectCount(int type) {
+		return typeInt(type, 4);
+	}
+
+	public String getSelect(int type, int n) {
+		return getString(buffer.getInt(listOffset + 4 * (typeInt(type, 3) + n)));
+	}
+
+	public int getEnumCount(int type) {
+		return typeInt(type, 6);
+	}
+
+	public String getEnum(int type, int n) {
+		return getString(buffer.getInt(listOffset + 4 * (typeInt(type, 5) + n)));
+	}
+
+	private int entityInt(int entity, int field) {
+		return buffer.getInt(entityOffset + 4 * (entity * ENTITY_SIZE + field));
+	}
+
+	private int typeInt(int type, int field) {
+		return buffer.getInt(typeOffset + 4 * (type * TYPE_SIZE + field));
+	}
+
+	private int attributeInt(int attr, int field) {
+		return buffer.getInt(attributeOffset + 4 * (attr * ATTRIBUTE_SIZE + field));
+	}
+
+	private int inverseInt(int inv, int field) {
+		return buffer.getInt(inverseOffset + 4 * (inv * INVERSE_SIZE + field));
+	}
+
+	// binary search on the UTF-8 bytes of the key, which is the first field of a row
+	private int search(String key, int offset, int count, int rowSize) {
+		byte[] target = key.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int c = compareString(buffer.getInt(offset + 4 * middle * rowSize), target);
+			if (c < 0)
+				low = middle + 1;
+			else if (c > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	private int compareString(int index, byte[] target) {
+		int start = stringOffset + buffer.getInt(stringOffset + 4 * index);
+		int length = stringOffset + buffer.getInt(stringOffset + 4 * index + 4) - start;
+		int n = Math.min(length, target.length);
+		for (int i = 0; i < n; i++) {
+			int c = (buffer.get(start + i) & 0xff) - (target[i] & 0xff);
+			if (c != 0)
+				return c;
+		}
+		return length - target.length;
+	}
+
+	static int compareUtf8(byte[] a, byte[] b) {
+		int n = Math.min(a.length, b.length);
+		for (int i = 0; i < n; i++) {
+			int c = (a[i] & 0xff) - (b[i] & 0xff);
+			if (c != 0)
+				return c;
+		}
+		return a.length - b.length;
+	}
+}
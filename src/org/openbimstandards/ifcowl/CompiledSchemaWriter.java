@@ -0,0 +1,274 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openbimstandards.ifcowl.vo.AttributeVO;
+import org.openbimstandards.ifcowl.vo.EntityVO;
+import org.openbimstandards.ifcowl.vo.InverseVO;
+import org.openbimstandards.ifcowl.vo.TypeVO;
+
+/*
+ * CompiledSchemaWriter writes the entities and types of an EXPRESS schema, as built by
+ * the ExpressReader, in the compiled schema format that is read by CompiledSchema.
+ * It is the portable and versioned replacement of the serialized entXXX.ser and
+ * typXXX.ser maps.
+ *
+ * The usage:
+ * new CompiledSchemaWriter(schemaName, entities, types).write(new File("schemaIFC4.bin"));
+ *
+ * The format (all numbers are big-endian ints, strings are indices in the string table
+ * and -1 stands for null):
+ *  - header:     magic 'EXPC', version, schema name, and the count and offset of
+ *                the string, entity, type, attribute, inverse and list tables
+ *  - strings:    count + 1 offsets into the UTF-8 bytes of all distinct strings
+ *  - entities:   key, name, superclass, flags, first attribute, attribute count,
+ *                first inverse, inverse count; sorted on the UTF-8 bytes of the key
+ *  - types:      key, name, primarytype, first select, select count, first enum,
+ *                enum count; sorted on the UTF-8 bytes of the key
+ *  - attributes: name, original name, type, domain, range namespace, flags,
+ *                min, max, min and max of the inner list of a list of lists
+ *  - inverses:   name, class range, inverse of property, flags, min, max
+ *  - lists:      the string indices of the select and enumeration items
+ *
+ * The keys are the keys of the entities and types maps (the names formatted with
+ * formatClassName); the attributes and inverses of an entity are its derived lists,
+ * so they include the inherited ones.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class CompiledSchemaWriter {
+
+	private final String schemaName;
+	private final Map<String, EntityVO> entities;
+	private final Map<String, TypeVO> types;
+
+	private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	public CompiledSchemaWriter(String schemaName, Map<String, EntityVO> entities,
+			Map<String, TypeVO> types) {
+		this.schemaName = schemaName;
+		this.entities = entities;
+		this.types = types;
+	}
+
+	public void write(File file) throws IOException {
+		List<String> entityKeys = sortedKeys(entities);
+		List<String> typeKeys = sortedKeys(types);
+
+		// the tables are built in memory first, they are small
+		int schema = intern(schemaName);
+		IntTable entityTable = new IntTable(CompiledSchema.ENTITY_SIZE);
+		IntTable typeTable = new IntTable(CompiledSchema.TYPE_SIZE);
+		IntTable attributeTable = new IntTable(CompiledSchema.ATTRIBUTE_SIZE);
+		IntTable inverseTable = new IntTable(CompiledSchema.INVERSE_SIZE);
+		IntTable listTable = new IntTable(1);
+
+		for (String key : entityKeys) {
+			EntityVO evo = entities.get(key);
+			List<AttributeVO> attrs = evo.getDerived_attribute_list();
+			List<InverseVO> invs = evo.getDerived_inverse_list();
+			entityTable.add(intern(key), intern(evo.getName()),
+					intern(evo.getSuperclass()),
+					evo.isAbstractSuperclass() ? CompiledSchema.ABSTRACT : 0,
+					attributeTable.rows(), attrs.size(),
+					inverseTable.rows(), invs.size());
+			for (AttributeVO attr : attrs) {
+				attributeTable.add(intern(attr.getName()),
+						intern(attr.getOriginalName()),
+						intern(attr.getType() == null ? null : attr.getType().getName()),
+						intern(attr.getDomain() == null ? null : attr.getDomain().getName()),
+						intern(attr.getRangeNS()), attributeFlags(attr),
+						attr.getMinCard(), attr.getMaxCard(),
+						attr.getMinCard_listoflist(), attr.getMaxCard_listoflist());
+			}
+			for (InverseVO inv : invs) {
+				inverseTable.add(intern(inv.getName()), intern(inv.getClassRange()),
+						intern(inv.getInverseOfProperty()),
+						(inv.isSet() ? CompiledSchema.SET : 0) | (inv.isUnique() ? CompiledSchema.UNIQUE : 0),
+						inv.getMinCard(), inv.getMaxCard());
+			}
+		}
+
+		for (String key : typeKeys) {
+			TypeVO tvo = types.get(key);
+			int firstSelect = listTable.rows();
+			for (String s : tvo.getSelect_entities())
+				listTable.add(intern(s));
+			int firstEnum = listTable.rows();
+			for (String s : tvo.getEnum_entities())
+				listTable.add(intern(s));
+			typeTable.add(intern(key), intern(tvo.getName()),
+					intern(tvo.getPrimarytype()),
+					firstSelect, tvo.getSelect_entities().size(),
+					firstEnum, tvo.getEnum_entities().size());
+		}
+
+		byte[][] utf8 = new byte[strings.size()][];
+		int stringBytes = 0;
+		for (int n = 0; n < utf8.length; n++) {
+			utf8[n] = strings.get(n).getBytes(StandardCharsets.UTF_8);
+			stringBytes += utf8[n].length;
+		}
+
+		int offset = CompiledSchema.HEADER_SIZE;
+		int stringOffset = offset;
+		offset += 4 * (utf8.length + 1) + stringBytes;
+		int entityOffset = align(offset);
+		offset = entityOffset + entityTable.bytes();
+		int typeOffset = offset;
+		offset += typeTable.bytes();
+		int attributeOffset = offset;
+		offset += attributeTable.bytes();
+		int inverseOffset = offset;
+		offset += inverseTable.bytes();
+		int listOffset = offset;
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try {
+			out.writeInt(CompiledSchema.MAGIC);
+			out.writeInt(CompiledSchema.VERSION);
+			out.writeInt(schema);
+			out.writeInt(utf8.length);
+			out.writeInt(stringOffset);
+			out.writeInt(entityTable.rows());
+			out.writeInt(entityOffset);
+			out.writeInt(typeTable.rows());
+			out.writeInt(typeOffset);
+			out.writeInt(attributeTable.rows());
+			out.writeInt(attributeOffset);
+			out.writeInt(inverseTable.rows());
+			out.writeInt(inverseOffset);
+			out.writeInt(listTable.rows());
+			out.writeInt(listOffset);
+			out.writeInt(0);
+
+			int position = 4 * (utf8.length + 1);
+			out.writeInt(position);
+			for (int n = 0; n < utf8.length; n++) {
+				position += utf8[n].length;
+				out.writeInt(position);
+			}
+			for (int n = 0; n < utf8.length; n++)
+				out.write(utf8[n]);
+			for (int n = stringOffset + 4 * (utf8.length + 1) + stringBytes; n < entityOffset; n++)
+				out.write(0);
+
+			entityTable.writeTo(out);
+			typeTable.writeTo(out);
+			attributeTable.writeTo(out);
+			inverseTable.writeTo(out);
+			listTable.writeTo(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static int attributeFlags(AttributeVO attr) {
+		int flags = 0;
+		if (attr.isArray())
+			flags |= CompiledSchema.ARRAY;
+		if (attr.isSet())
+			flags |= CompiledSchema.SET;
+		if (attr.isList())
+			flags |= CompiledSchema.LIST;
+		if (attr.isListOfList())
+			flags |= CompiledSchema.LIST_OF_LIST;
+		if (attr.isOptional())
+			flags |= CompiledSchema.OPTIONAL;
+		if (attr.isUnique())
+			flags |= CompiledSchema.UNIQUE;
+		if (attr.isOne2One())
+			flags |= CompiledSchema.ONE_TO_ONE;
+		if (attr.isReverse_pointer())
+			flags |= CompiledSchema.REVERSE_POINTER;
+		return flags;
+	}
+
+	private int intern(String s) {
+		if (s == null)
+			return -1;
+		Integer index = stringIndex.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndex.put(s, index);
+		}
+		return index;
+	}
+
+	private static int align(int offset) {
+		return (offset + 3) & ~3;
+	}
+
+	// the order in which CompiledSchema searches the keys
+	private static List<String> sortedKeys(Map<String, ?> map) {
+		List<String> keys = new ArrayList<String>(map.keySet());
+		Collections.sort(keys, new Comparator<String>() {
+			public int compare(String a, String b) {
+				return CompiledSchema.compareUtf8(a.getBytes(StandardCharsets.UTF_8),
+						b.getBytes(StandardCharsets.UTF_8));
+			}
+		});
+		return keys;
+	}
+
+	// a growing table of rows of ints
+	private static class IntTable {
+		private final int width;
+		private int[] values = new int[1024];
+		private int size = 0;
+
+		IntTable(int width) {
+			this.width = width;
+		}
+
+		void add(int... row) {
+			if (size + row.length > values.length)
+				values = Arrays.copyOf(values, Math.max(values.length * 2, size + row.length));
+			System.arraycopy(row, 0, values, size, row.length);
+			size += row.length;
+		}
+
+		int rows() {
+			return size / width;
+		}
+
+		int bytes() {
+			return size * 4;
+		}
+
+		void writeTo(DataOutputStream out) throws IOException {
+			for (int n = 0; n < size; n++)
+				out.writeInt(values[n]);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * ConversionDiagnostics collects the decisions that the ExpressReader takes while it
+ * builds the internals of a schema, like the inverse properties that are removed
+ * because they cannot be expressed in OWL, instead of printing each of them.
+ *
+ * The usage:
+ * er.readAndBuild();
+ * er.getDiagnostics().print(System.out);
+ * List<ConversionDiagnostics.Entry> removed = er.getDiagnostics().getEntries(ConversionDiagnostics.Kind.REMOVED_PROPERTY);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ConversionDiagnostics {
+
+	public enum Kind {
+		// a property was removed from the property list
+		REMOVED_PROPERTY,
+		// a property that should be removed was not in the property list
+		PROPERTY_NOT_FOUND,
+		// the inverse of a property was unset
+		REMOVED_INVERSE
+	}
+
+	public static class Entry {
+		private final Kind kind;
+		private final String property;
+		private final String message;
+
+		Entry(Kind kind, String property, String message) {
+			this.kind = kind;
+			this.property = property;
+			this.message = message;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public String getProperty() {
+			return property;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return kind + " " + property + ": " + message;
+		}
+	}
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	public void add(Kind kind, String property, String message) {
+		entries.add(new Entry(kind, property, message));
+	}
+
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	public List<Entry> getEntries(Kind kind) {
+		List<Entry> result = new ArrayList<Entry>();
+		for (Entry entry : entries)
+			if (entry.getKind() == kind)
+				result.add(entry);
+		return result;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public void print(PrintStream out) {
+		for (Entry entry : entries)
+			out.println(entry);
+	}
+}
@@ -0,0 +1,133 @@
+package org.openbimstandards.ifcowl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/*
+ * EmissionPlan tells the StepConverter how the parameters of an instance of one entity
+ * are written. It has one Slot for every position in the derived attribute list of the
+ * entity (inherited attributes first), which holds the ifcOWL property of that
+ * attribute, like globalId_IfcRoot, already encoded as the UTF-8 bytes of the
+ * predicate, the kind of its values and its cardinality. The plans are made once per
+ * schema by the EmissionPlanner and do not change after that, so they can be shared by
+ * threads.
+ *
+ * The usage:
+ * EmissionPlan[] plans = new EmissionPlanner(schema, ontologyNamespace, instanceNamespace).plan();
+ * EmissionPlan wall = plans[schema.getEntity("IFCWALL")];
+ * for (int n = 0; n < wall.getSlotCount(); n++) {
+ *     EmissionPlan.Slot slot = wall.getSlot(n);
+ *     if (slot.kind == EmissionPlan.SET) ...
+ * }
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public final class EmissionPlan {
+
+	// the kinds of slots and values
+	public static final int ENTITY = 0;
+	public static final int ENUMERATION = 1;
+	public static final int SELECT = 2;
+	public static final int SIMPLE = 3;
+	public static final int LIST = 4;
+	public static final int SET = 5;
+
+	// what a value of an attribute or defined type is written as
+	public static final class ValueType {
+		public final int kind;
+		// the IRI of the class of the value, between < and >
+		public final String classIri;
+		// REAL, INTEGER, STRING, BOOLEAN, LOGICAL or BINARY for SIMPLE values
+		public final String primitive;
+		// the type of the elements of a LIST or SET
+		public final ValueType element;
+		final byte[] classBytes;
+		// <ontologyNamespace#ITEM> of every item of an ENUMERATION, by the item as in a STEP file
+		final Map<String, byte[]> items;
+
+		ValueType(int kind, String classIri, String primitive, ValueType element) {
+			this(kind, classIri, primitive, element, null);
+		}
+
+		ValueType(int kind, String classIri, String primitive, ValueType element, Map<String, byte[]> items) {
+			this.kind = kind;
+			this.classIri = classIri;
+			this.primitive = primitive;
+			this.element = element;
+			this.classBytes = classIri.getBytes(StandardCharsets.UTF_8);
+			this.items = items;
+		}
+
+		boolean isBooleanOrLogical() {
+			return kind == SIMPLE && (primitive.equals("BOOLEAN") || primitive.equals("LOGICAL"));
+		}
+	}
+
+	// one position of the derived attribute list
+	public static final class Slot {
+		// the index of the attribute in the CompiledSchema
+		public final int attribute;
+		// the name of the property in the ontology, like globalId_IfcRoot
+		public final String property;
+		public final ValueType type;
+		// the kind of type, SET for an attribute that is a SET of elements of type.element
+		public final int kind;
+		public final boolean optional;
+		// the bounds of an aggregate, -1 when unbounded
+		public final int minCard;
+		public final int maxCard;
+		// " <property> ", ready to go between a subject and an object
+		final byte[] predicate;
+
+		Slot(int attribute, String property, String propertyIri, ValueType type, boolean optional, int minCard,
+				int maxCard) {
+			this.attribute = attribute;
+			this.property = property;
+			this.type = type;
+			this.kind = type.kind;
+			this.optional = optional;
+			this.minCard = minCard;
+			this.maxCard = maxCard;
+			this.predicate = (" " + propertyIri + " ").getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	public final int entity;
+	public final String name;
+	// <ontologyNamespace#IfcWall>
+	final byte[] entityIri;
+	// <instanceNamespaceIfcWall_, the id and > follow
+	final byte[] instancePrefix;
+	private final Slot[] slots;
+
+	EmissionPlan(int entity, String name, String entityIri, String instancePrefix, Slot[] slots) {
+		this.entity = entity;
+		this.name = name;
+		this.entityIri = entityIri.getBytes(StandardCharsets.UTF_8);
+		this.instancePrefix = instancePrefix.getBytes(StandardCharsets.UTF_8);
+		this.slots = slots;
+	}
+
+	public int getSlotCount() {
+		return slots.length;
+	}
+
+	public Slot getSlot(int n) {
+		return slots[n];
+	}
+}
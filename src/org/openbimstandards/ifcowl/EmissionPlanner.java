@@ -0,0 +1,174 @@
+package org.openbimstandards.ifcowl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fi.ni.rdf.Namespace;
+
+/*
+ * EmissionPlanner makes the EmissionPlan of every entity of a CompiledSchema: the
+ * attributes of the derived attribute list, as the ExpressReader wrote them, are
+ * resolved to their ifcOWL property and value type once, so that converting an
+ * instance only indexes into its plan.
+ *
+ * The usage:
+ * EmissionPlanner planner = new EmissionPlanner(schema, SchemaContext.DEFAULT_NAMESPACE + "IFC4",
+ *     "http://example.org/model#");
+ * EmissionPlan[] plans = planner.plan();                        // by entity index
+ * EmissionPlan.ValueType label = planner.valueType("IFCLABEL"); // for IFCLABEL('x') in a SELECT
+ *
+ * The value types of all types of the schema are made with the plans; a name that is
+ * neither an entity nor a type is written as a string and noted in getWarnings().
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class EmissionPlanner {
+
+	private final CompiledSchema schema;
+	private final String ontologyNamespace;
+	private final String instanceNamespace;
+	private final String expressNamespace = Namespace.EXPRESS;
+
+	// looked up by the threads of a parallel conversion for the typed values
+	private final Map<String, EmissionPlan.ValueType> valueTypes = new ConcurrentHashMap<String, EmissionPlan.ValueType>();
+	private final List<String> warnings = new ArrayList<String>();
+
+	// ontologyNamespace is the namespace of the ontology without '#', as in SchemaContext
+	public EmissionPlanner(CompiledSchema schema, String ontologyNamespace, String instanceNamespace) {
+		this.schema = schema;
+		this.ontologyNamespace = ontologyNamespace + "#";
+		this.instanceNamespace = instanceNamespace;
+	}
+
+	public EmissionPlan[] plan() {
+		for (int t = 0; t < schema.getTypeCount(); t++)
+			valueType(schema.getTypeKey(t), "ifc");
+		EmissionPlan[] plans = new EmissionPlan[schema.getEntityCount()];
+		for (int entity = 0; entity < plans.length; entity++) {
+			EmissionPlan.Slot[] slots = new EmissionPlan.Slot[schema.getAttributeCount(entity)];
+			for (int n = 0; n < slots.length; n++)
+				slots[n] = slot(schema.getAttribute(entity, n));
+			String name = schema.getEntityName(entity);
+			plans[entity] = new EmissionPlan(entity, name, classIri(name, "ifc"), "<" + instanceNamespace + name
+					+ "_", slots);
+		}
+		return plans;
+	}
+
+	// the notes about names that could not be resolved
+	public List<String> getWarnings() {
+		return warnings;
+	}
+
+	private EmissionPlan.Slot slot(int attr) {
+		String name = schema.getAttributeType(attr);
+		String ns = schema.getAttributeRangeNS(attr);
+		EmissionPlan.ValueType base = valueType(name, ns);
+		String prefix = classIri(name, ns);
+		prefix = prefix.substring(0, prefix.length() - 1);
+		EmissionPlan.ValueType type;
+		if (schema.hasAttributeFlag(attr, CompiledSchema.LIST_OF_LIST)) {
+			EmissionPlan.ValueType inner = new EmissionPlan.ValueType(EmissionPlan.LIST, prefix + "_List>", null, base);
+			type = new EmissionPlan.ValueType(EmissionPlan.LIST, prefix + "_List_List>", null, inner);
+		} else if (schema.hasAttributeFlag(attr, CompiledSchema.LIST)
+				|| schema.hasAttributeFlag(attr, CompiledSchema.ARRAY)) {
+			type = new EmissionPlan.ValueType(EmissionPlan.LIST, prefix + "_List>", null, base);
+		} else if (schema.hasAttributeFlag(attr, CompiledSchema.SET)) {
+			type = new EmissionPlan.ValueType(EmissionPlan.SET, base.classIri, null, base);
+		} else
+			type = base;
+		String property = schema.getAttributeName(attr);
+		property = property.substring(0, 1).toLowerCase() + property.substring(1);
+		return new EmissionPlan.Slot(attr, property, "<" + ontologyNamespace + property + ">", type,
+				schema.hasAttributeFlag(attr, CompiledSchema.OPTIONAL), schema.getAttributeMinCard(attr),
+				schema.getAttributeMaxCard(attr));
+	}
+
+	private String classIri(String name, String ns) {
+		return "<" + ("expr".equals(ns) ? expressNamespace : ontologyNamespace) + name + ">";
+	}
+
+	// the value type of a defined type, by the name of a typed value like IFCLABEL('x')
+	public EmissionPlan.ValueType valueType(String name) {
+		return valueType(name, "ifc");
+	}
+
+	// the value type of an entity, defined type or primary type, by its name in the schema
+	private EmissionPlan.ValueType valueType(String name, String ns) {
+		String key = ExpressReader.formatClassName(name);
+		EmissionPlan.ValueType type = valueTypes.get(key);
+		if (type != null)
+			return type;
+		int entity = schema.getEntity(key);
+		int t = schema.getType(key);
+		if (entity >= 0) {
+			type = new EmissionPlan.ValueType(EmissionPlan.ENTITY, classIri(schema.getEntityName(entity), "ifc"),
+					null, null);
+		} else if (t >= 0) {
+			String classIri = classIri(schema.getTypeName(t), "ifc");
+			String underlying = schema.getTypePrimarytype(t);
+			if (schema.getEnumCount(t) > 0) {
+				Map<String, byte[]> items = new HashMap<String, byte[]>();
+				for (int n = 0; n < schema.getEnumCount(t); n++) {
+					String item = schema.getEnum(t, n).toUpperCase();
+					items.put(item, ("<" + ontologyNamespace + item + ">").getBytes(StandardCharsets.UTF_8));
+				}
+				type = new EmissionPlan.ValueType(EmissionPlan.ENUMERATION, classIri, null, null, items);
+			}
+			else if (schema.getSelectCount(t) > 0 || "SELECT".equalsIgnoreCase(underlying))
+				type = new EmissionPlan.ValueType(EmissionPlan.SELECT, classIri, null, null);
+			else if (underlying != null && underlying.contains(" OF ")) {
+				String element = underlying.substring(underlying.lastIndexOf(" OF ") + 4).replace(";", "").trim();
+				type = new EmissionPlan.ValueType(EmissionPlan.LIST, classIri, null, valueType(element, null));
+			} else {
+				EmissionPlan.ValueType based = underlying == null ? null : valueType(underlying, null);
+				if (based != null && based.kind == EmissionPlan.LIST)
+					type = new EmissionPlan.ValueType(EmissionPlan.LIST, classIri, null, based.element);
+				else
+					type = new EmissionPlan.ValueType(EmissionPlan.SIMPLE, classIri, based == null ? "STRING"
+							: based.primitive, null);
+			}
+		} else {
+			String primitive = primitive(key);
+			type = new EmissionPlan.ValueType(EmissionPlan.SIMPLE, classIri(primitive == null ? name
+					: name.replaceAll("[^A-Za-z_]", ""), ns == null ? "expr" : ns), primitive == null ? "STRING"
+					: primitive, null);
+			if (primitive == null)
+				warn(name + " is neither an entity nor a type, its values are written as strings");
+		}
+		valueTypes.put(key, type);
+		return type;
+	}
+
+	// the primary type that a type like STRING255 or REAL starts with, NUMBER is a REAL
+	private static String primitive(String key) {
+		for (String primitive : new String[] { "REAL", "NUMBER", "INTEGER", "STRING", "BOOLEAN", "LOGICAL",
+				"BINARY" })
+			if (key.startsWith(primitive))
+				return primitive.equals("NUMBER") ? "REAL" : primitive;
+		return null;
+	}
+
+	private synchronized void warn(String warning) {
+		warnings.add(warning);
+	}
+}
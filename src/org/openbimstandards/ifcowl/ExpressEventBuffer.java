@@ -0,0 +1,109 @@
+package org.openbimstandards.ifcowl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * ExpressEventBuffer is an ExpressListener that keeps the events it receives, so that
+ * they can be handed to another listener later on. The ParallelExpressParser uses one
+ * buffer per block and replays the buffers in file order.
+ *
+ * The usage:
+ * ExpressEventBuffer events = new ExpressEventBuffer();
+ * new ExpressParser(events).parse(lexer);
+ * events.replay(listener);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ExpressEventBuffer implements ExpressListener {
+
+	private final List<Consumer<ExpressListener>> events = new ArrayList<Consumer<ExpressListener>>();
+
+	public void replay(ExpressListener listener) {
+		for (int n = 0; n < events.size(); n++)
+			events.get(n).accept(listener);
+	}
+
+	public int size() {
+		return events.size();
+	}
+
+	public void onType(String name) {
+		events.add(l -> l.onType(name));
+	}
+
+	public void onUnderlyingType(String primarytype) {
+		events.add(l -> l.onUnderlyingType(primarytype));
+	}
+
+	public void onPrimaryType(String name) {
+		events.add(l -> l.onPrimaryType(name));
+	}
+
+	public void onSelectItem(String name) {
+		events.add(l -> l.onSelectItem(name));
+	}
+
+	public void onEnumerationItem(String name) {
+		events.add(l -> l.onEnumerationItem(name));
+	}
+
+	public void onEntity(String name) {
+		events.add(l -> l.onEntity(name));
+	}
+
+	public void onAbstract() {
+		events.add(l -> l.onAbstract());
+	}
+
+	public void onSupertype(String supertype) {
+		events.add(l -> l.onSupertype(supertype));
+	}
+
+	public void onOneOf() {
+		events.add(l -> l.onOneOf());
+	}
+
+	public void onOneOfItem(String subtype, boolean last) {
+		events.add(l -> l.onOneOfItem(subtype, last));
+	}
+
+	public void onAttribute(String name, String typeName, boolean primaryType,
+			boolean isArray, boolean isSet, boolean isList, boolean isListOfList,
+			int minCard, int maxCard, int minCardListOfList, int maxCardListOfList,
+			boolean isOptional) {
+		events.add(l -> l.onAttribute(name, typeName, primaryType, isArray, isSet,
+				isList, isListOfList, minCard, maxCard, minCardListOfList,
+				maxCardListOfList, isOptional));
+	}
+
+	public void onInverse(String name, String classRange, String inverseOfProperty,
+			boolean isSet, int minCard, int maxCard) {
+		events.add(l -> l.onInverse(name, classRange, inverseOfProperty, isSet,
+				minCard, maxCard));
+	}
+
+	public void onUnique(String attributeName) {
+		events.add(l -> l.onUnique(attributeName));
+	}
+
+	public void onEndEntity() {
+		events.add(l -> l.onEndEntity());
+	}
+}
@@ -0,0 +1,178 @@
+package org.openbimstandards.ifcowl;
+
+/*
+ * ExpressKeywords recognizes the EXPRESS keywords that drive the state machine of the
+ * ExpressReader. A token is hashed once, case-insensitively, and looked up in a
+ * precomputed perfect hash table, so every state can switch on an int code instead of
+ * running a chain of equalsIgnoreCase comparisons.
+ *
+ * The usage:
+ * int kw = ExpressKeywords.lookup(token);            // e.g. ExpressKeywords.END_ENTITY
+ * int pt = ExpressKeywords.lookupFiltered(token, true); // "STRING(255);" -> ExpressKeywords.STRING
+ * boolean p = ExpressKeywords.isPrimaryType(pt);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public final class ExpressKeywords {
+
+	public static final int NONE = 0;
+
+	// schema level
+	public static final int TYPE = 1;
+	public static final int ENTITY = 2;
+	public static final int FUNCTION = 3;
+	public static final int RULE = 4;
+	public static final int END_SCHEMA = 5;
+
+	// type declarations
+	public static final int SELECT = 10;
+	public static final int ENUMERATION = 11;
+	public static final int OF = 12;
+	public static final int END_TYPE = 13;
+
+	// entity declarations
+	public static final int SUBTYPE = 20;
+	public static final int SUPERTYPE = 21;
+	public static final int ABSTRACT = 22;
+	public static final int ONEOF = 23;
+	public static final int INVERSE = 24;
+	public static final int UNIQUE = 25;
+	public static final int WHERE = 26;
+	public static final int DERIVE = 27;
+	public static final int END_ENTITY = 28;
+	public static final int OPTIONAL = 29;
+	public static final int FOR = 30;
+	public static final int COLON = 31;
+
+	// aggregation types
+	public static final int ARRAY = 40;
+	public static final int SET = 41;
+	public static final int LIST = 42;
+
+	// primary types
+	public static final int NUMBER = 50;
+	public static final int REAL = 51;
+	public static final int INTEGER = 52;
+	public static final int LOGICAL = 53;
+	public static final int BOOLEAN = 54;
+	public static final int STRING = 55;
+	public static final int BINARY = 56;
+
+	// keywords as they appear as whitespace separated tokens in the schema
+	private static final String[] KEYWORDS = { "TYPE", "ENTITY", "FUNCTION", "RULE", "END_SCHEMA;",
+			"SELECT", "ENUMERATION", "OF", "END_TYPE;", "SUBTYPE", "SUPERTYPE", "ABSTRACT", "(ONEOF", "INVERSE",
+			"UNIQUE", "WHERE", "DERIVE", "END_ENTITY;", "OPTIONAL", "FOR", ":", "ARRAY", "SET", "LIST",
+			"NUMBER", "REAL", "INTEGER", "LOGICAL", "BOOLEAN", "STRING", "BINARY" };
+	private static final int[] CODES = { TYPE, ENTITY, FUNCTION, RULE, END_SCHEMA,
+			SELECT, ENUMERATION, OF, END_TYPE, SUBTYPE, SUPERTYPE, ABSTRACT, ONEOF, INVERSE,
+			UNIQUE, WHERE, DERIVE, END_ENTITY, OPTIONAL, FOR, COLON, ARRAY, SET, LIST,
+			NUMBER, REAL, INTEGER, LOGICAL, BOOLEAN, STRING, BINARY };
+
+	private static final int TABLE_SIZE = 64;
+	private static final int LONGEST = 11;
+	private static final char[][] table = new char[TABLE_SIZE][];
+	private static final int[] codes = new int[TABLE_SIZE];
+	private static final int seed = findSeed();
+
+	private ExpressKeywords() {
+	}
+
+	public static int lookup(CharSequence token) {
+		return lookup(token, false, false);
+	}
+
+	/*
+	 * Looks up the token while skipping the characters ( ; , ) like filter_extras does and,
+	 * if skipDigits is set, the digits like filter_PTypeExtras does.
+	 */
+	public static int lookupFiltered(CharSequence token, boolean skipDigits) {
+		return lookup(token, true, skipDigits);
+	}
+
+	public static boolean isPrimaryType(int code) {
+		return code >= NUMBER && code <= BINARY;
+	}
+
+	public static boolean isPrimaryType(CharSequence name) {
+		return isPrimaryType(lookup(name));
+	}
+
+	private static int lookup(CharSequence token, boolean skipExtras, boolean skipDigits) {
+		int length = token.length();
+		int h = seed;
+		int count = 0;
+		for (int n = 0; n < length; n++) {
+			char ch = token.charAt(n);
+			if (skipExtras && (ch == '(' || ch == ';' || ch == ',' || ch == ')'))
+				continue;
+			if (skipDigits && ch >= '0' && ch <= '9')
+				continue;
+			if (++count > LONGEST)
+				return NONE;
+			h = (h ^ upper(ch)) * 0x01000193;
+		}
+		int slot = (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+		char[] keyword = table[slot];
+		if (keyword == null || keyword.length != count)
+			return NONE;
+		int k = 0;
+		for (int n = 0; n < length; n++) {
+			char ch = token.charAt(n);
+			if (skipExtras && (ch == '(' || ch == ';' || ch == ',' || ch == ')'))
+				continue;
+			if (skipDigits && ch >= '0' && ch <= '9')
+				continue;
+			if (upper(ch) != keyword[k++])
+				return NONE;
+		}
+		return codes[slot];
+	}
+
+	private static char upper(char ch) {
+		return ch >= 'a' && ch <= 'z' ? (char) (ch - ('a' - 'A')) : ch;
+	}
+
+	// searches a hash seed for which all keywords land in a distinct slot
+	private static int findSeed() {
+		for (int candidate = 0x811c9dc5;; candidate += 0x9e3779b9) {
+			boolean[] used = new boolean[TABLE_SIZE];
+			boolean perfect = true;
+			for (int n = 0; n < KEYWORDS.length && perfect; n++) {
+				int slot = slot(candidate, KEYWORDS[n]);
+				if (used[slot])
+					perfect = false;
+				used[slot] = true;
+			}
+			if (perfect) {
+				for (int n = 0; n < KEYWORDS.length; n++) {
+					int slot = slot(candidate, KEYWORDS[n]);
+					table[slot] = KEYWORDS[n].toCharArray();
+					codes[slot] = CODES[n];
+				}
+				return candidate;
+			}
+		}
+	}
+
+	private static int slot(int seed, String keyword) {
+		int h = seed;
+		for (int n = 0; n < keyword.length(); n++)
+			h = (h ^ keyword.charAt(n)) * 0x01000193;
+		return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+	}
+}
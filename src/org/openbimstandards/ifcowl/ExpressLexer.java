@@ -0,0 +1,106 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * ExpressLexer splits an EXPRESS file into the whitespace separated tokens that are
+ * handed to the state machine of the ExpressReader. The schema is kept in one
+ * ByteBuffer (memory-mapped for files, direct for streams) and every token is
+ * reported as an offset and a length into that buffer.
+ *
+ * The usage:
+ * ExpressLexer lexer = ExpressLexer.open(schemaFile);
+ * while (lexer.next()) {
+ *     ExpressToken token = lexer.token();
+ * }
+ *
+ * Tokens are delimited exactly like the StringTokenizer that was used before:
+ * space, tab, newline, carriage return and form feed.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ExpressLexer {
+
+	private final ByteBuffer buffer;
+	private final ExpressToken token;
+	private final int limit;
+	private int position;
+
+	public ExpressLexer(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.token = new ExpressToken(buffer);
+		this.position = buffer.position();
+		this.limit = buffer.limit();
+	}
+
+	public static ExpressLexer open(File schemaFile) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(schemaFile, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return new ExpressLexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	public static ExpressLexer read(InputStream schemaInputStream) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocateDirect(1 << 19);
+		byte[] chunk = new byte[8192];
+		int len;
+		while ((len = schemaInputStream.read(chunk)) != -1) {
+			if (buf.remaining() < len) {
+				ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(buf.capacity() * 2, buf.position() + len));
+				buf.flip();
+				bigger.put(buf);
+				buf = bigger;
+			}
+			buf.put(chunk, 0, len);
+		}
+		buf.flip();
+		return new ExpressLexer(buf);
+	}
+
+	public boolean next() {
+		while (position < limit && isDelimiter(buffer.get(position)))
+			position++;
+		if (position >= limit)
+			return false;
+		int start = position;
+		while (position < limit && !isDelimiter(buffer.get(position)))
+			position++;
+		token.set(start, position - start);
+		return true;
+	}
+
+	public ExpressToken token() {
+		return token;
+	}
+
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	private static boolean isDelimiter(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+	}
+}
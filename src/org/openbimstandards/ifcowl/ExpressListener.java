@@ -0,0 +1,82 @@
+package org.openbimstandards.ifcowl;
+
+/*
+ * ExpressListener receives the declarations of an EXPRESS schema from the ExpressParser
+ * while the schema is being read, in the order in which they appear in the file.
+ * Nothing is kept in memory by the parser itself, so a listener that only needs part
+ * of a schema can process it in a single pass.
+ *
+ * ExpressModelBuilder is the listener that builds the entities, types and siblings maps
+ * of the ExpressReader. ExpressListenerAdapter can be extended by listeners that are
+ * only interested in some of the events.
+ *
+ * Names are passed as they appear in the schema, with the trailing ';' and the
+ * brackets removed. Cardinalities use the EXPRESS defaults: 0 for a missing lower
+ * bound and -1 for a missing or unbounded ('?') upper bound.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public interface ExpressListener {
+
+	// TYPE name = ...
+	void onType(String name);
+
+	// the underlying type of the current TYPE, e.g. SELECT, ENUMERATION, REAL,
+	// IfcLabel or the full aggregation 'LIST [1:?] OF IfcCartesianPoint;'
+	void onUnderlyingType(String primarytype);
+
+	// a simple type (REAL, INTEGER, STRING, ...) that is used in the schema
+	void onPrimaryType(String name);
+
+	// one item of the SELECT of the current TYPE
+	void onSelectItem(String name);
+
+	// one item of the ENUMERATION OF of the current TYPE, formatted with formatClassName
+	void onEnumerationItem(String name);
+
+	// ENTITY name
+	void onEntity(String name);
+
+	// ABSTRACT SUPERTYPE of the current ENTITY
+	void onAbstract();
+
+	// SUBTYPE OF (supertype) of the current ENTITY
+	void onSupertype(String supertype);
+
+	// SUPERTYPE OF (ONEOF ...) of the current ENTITY starts a new group of disjoint subtypes
+	void onOneOf();
+
+	// one subtype in the current ONEOF group, last is set for the token that closes the group
+	void onOneOfItem(String subtype, boolean last);
+
+	// an explicit attribute of the current ENTITY
+	void onAttribute(String name, String typeName, boolean primaryType,
+			boolean isArray, boolean isSet, boolean isList, boolean isListOfList,
+			int minCard, int maxCard, int minCardListOfList, int maxCardListOfList,
+			boolean isOptional);
+
+	// an INVERSE attribute of the current ENTITY
+	void onInverse(String name, String classRange, String inverseOfProperty,
+			boolean isSet, int minCard, int maxCard);
+
+	// an attribute of the current ENTITY that is part of a UNIQUE rule
+	void onUnique(String attributeName);
+
+	// END_ENTITY; (or the point where the parser stops reading the current ENTITY)
+	void onEndEntity();
+}
@@ -0,0 +1,71 @@
+package org.openbimstandards.ifcowl;
+
+/*
+ * ExpressListenerAdapter is an ExpressListener that ignores every event. Tools that
+ * only need part of a schema extend it and override the events they are interested in.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ExpressListenerAdapter implements ExpressListener {
+
+	public void onType(String name) {
+	}
+
+	public void onUnderlyingType(String primarytype) {
+	}
+
+	public void onPrimaryType(String name) {
+	}
+
+	public void onSelectItem(String name) {
+	}
+
+	public void onEnumerationItem(String name) {
+	}
+
+	public void onEntity(String name) {
+	}
+
+	public void onAbstract() {
+	}
+
+	public void onSupertype(String supertype) {
+	}
+
+	public void onOneOf() {
+	}
+
+	public void onOneOfItem(String subtype, boolean last) {
+	}
+
+	public void onAttribute(String name, String typeName, boolean primaryType,
+			boolean isArray, boolean isSet, boolean isList, boolean isListOfList,
+			int minCard, int maxCard, int minCardListOfList, int maxCardListOfList,
+			boolean isOptional) {
+	}
+
+	public void onInverse(String name, String classRange, String inverseOfProperty,
+			boolean isSet, int minCard, int maxCard) {
+	}
+
+	public void onUnique(String attributeName) {
+	}
+
+	public void onEndEntity() {
+	}
+}
@@ -0,0 +1,164 @@
+package org.openbimstandards.ifcowl;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.openbimstandards.ifcowl.vo.AttributeVO;
+import org.openbimstandards.ifcowl.vo.EntityVO;
+import org.openbimstandards.ifcowl.vo.InverseVO;
+import org.openbimstandards.ifcowl.vo.TypeVO;
+
+/*
+ * ExpressModelBuilder is the ExpressListener that builds the in-memory representation
+ * of an EXPRESS schema: the entities, types and siblings maps of the ExpressReader.
+ * Every EntityVO, TypeVO and PrimaryTypeVO is created and registered by the SchemaContext.
+ *
+ * The usage:
+ * ExpressModelBuilder builder = new ExpressModelBuilder(context, entities, types, siblings);
+ * new ExpressParser(builder).parse(ExpressLexer.open(schemaFile));
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ExpressModelBuilder implements ExpressListener {
+
+	private final SchemaContext context;
+	private final Map<String, EntityVO> entities;
+	private final Map<String, TypeVO> types;
+	private final Map<String, Set<String>> siblings;
+
+	private EntityVO current_entity = null;
+	private TypeVO current_type;
+	private Set<String> current_sibling_set;
+
+	public ExpressModelBuilder(SchemaContext context, Map<String, EntityVO> entities,
+			Map<String, TypeVO> types, Map<String, Set<String>> siblings) {
+		this.context = context;
+		this.entities = entities;
+		this.types = types;
+		this.siblings = siblings;
+	}
+
+	// 1. TYPE
+	public void onType(String name) {
+		context.getSymbols().intern(name);
+		String txt_t = context.formatClassName(name);
+		TypeVO t = types.get(txt_t);
+		if (t == null) {
+			current_type = context.newTypeVO(name);
+			types.put(txt_t, current_type);
+		}
+	}
+
+	public void onUnderlyingType(String primarytype) {
+		if (current_type != null)
+			current_type.setPrimarytype(primarytype);
+	}
+
+	public void onPrimaryType(String name) {
+		context.addPrimaryTypeVO(name);
+	}
+
+	public void onSelectItem(String name) {
+		if (current_type != null)
+			current_type.getSelect_entities().add(name);
+	}
+
+	public void onEnumerationItem(String name) {
+		if (current_type != null)
+			current_type.getEnum_entities().add(name);
+	}
+
+	// 2. ENTITY
+	public void onEntity(String name) {
+		context.getSymbols().intern(name);
+		String entity_name = context.formatClassName(name);
+		current_entity = entities.get(entity_name);
+		if (current_entity == null) {
+			current_entity = context.newEntityVO(name);
+			entities.put(entity_name, current_entity);
+		}
+	}
+
+	public void onAbstract() {
+		current_entity.setAbstractSuperclass(true);
+	}
+
+	public void onSupertype(String supertype) {
+		current_entity.setSuperclass(supertype);
+	}
+
+	public void onOneOf() {
+		current_sibling_set = new HashSet<String>();
+	}
+
+	public void onOneOfItem(String subtype, boolean last) {
+		if (last)
+			current_entity.setSubClassList(current_sibling_set);
+		current_sibling_set.add(subtype);
+		Set<String> s = siblings.get(subtype);
+		if (s != null)
+			System.err.println("DUPLICATE: " + subtype);
+		else
+			siblings.put(subtype, current_sibling_set);
+	}
+
+	public void onAttribute(String name, String typeName, boolean primaryType,
+			boolean isArray, boolean isSet, boolean isList, boolean isListOfList,
+			int minCard, int maxCard, int minCardListOfList, int maxCardListOfList,
+			boolean isOptional) {
+		TypeVO type;
+		if (primaryType)
+			type = types.get(typeName);
+		else
+			type = types.get(context.formatClassName(typeName));
+		if (type == null) {
+			type = context.newTypeVO(typeName, "CLASS");
+		}
+		context.getSymbols().intern(name);
+		current_entity.getAttributes().add(
+				new AttributeVO(name, type, isArray, isSet, isList,
+						isListOfList, minCard, maxCard,
+						minCardListOfList, maxCardListOfList,
+						isOptional));
+	}
+
+	public void onInverse(String name, String classRange, String inverseOfProperty,
+			boolean isSet, int minCard, int maxCard) {
+		SymbolTable symbols = context.getSymbols();
+		symbols.intern(name);
+		symbols.intern(classRange);
+		symbols.intern(inverseOfProperty);
+		current_entity.getInverses().add(
+				new InverseVO(name, classRange, inverseOfProperty, isSet,
+						minCard, maxCard));
+	}
+
+	public void onUnique(String attributeName) {
+		for (int j = 0; j < current_entity.getAttributes().size(); j++) {
+			AttributeVO ao = current_entity.getAttributes().get(j);
+			if (ao.getName().equals(attributeName)) {
+				ao.setUnique(true);
+			}
+		}
+	}
+
+	public void onEndEntity() {
+		// nothing to finish, the entity is complete
+	}
+}
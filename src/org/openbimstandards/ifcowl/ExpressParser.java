@@ -0,0 +1,505 @@
+package org.openbimstandards.ifcowl;
+
+/*
+ * ExpressParser runs the state machine that recognizes the TYPE and ENTITY declarations
+ * of an EXPRESS schema, and reports them to an ExpressListener while the tokens of
+ * the ExpressLexer are consumed. The parser keeps only the state of the declaration
+ * it is currently reading.
+ *
+ * The usage:
+ * ExpressParser parser = new ExpressParser(listener);
+ * parser.parse(ExpressLexer.open(schemaFile));
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ExpressParser {
+
+	private final ExpressListener listener;
+
+	public ExpressParser(ExpressListener listener) {
+		this.listener = listener;
+	}
+
+	public void parse(ExpressLexer lexer) {
+		while (lexer.next()) {
+			state_machine(lexer.token());
+		}
+	}
+
+	// STATE_MACHINE FOR PARSING EXPRESS FILES
+	private static final int INIT_STATE = 0;
+	private static final int TYPE_STATE = 1;
+	private static final int TYPE_SWITCH = 101;
+	private static final int TYPE_SELECT = 102;
+	private static final int TYPE_ENUMERATION = 103;
+	private static final int TYPE_ENUMERATION_OF = 104;
+	private static final int TYPE_LIST = 105;
+	private static final int TYPE_ARRAY = 106;
+
+	private static final int ENTITY_STATE = 2;
+	private static final int ENTITY_READY = 201;
+	private static final int ENTITY_SUBTYPE_STATE = 3;
+	private static final int ENTITY_SUBTYPE_OF_STATE = 4;
+	private static final int ENTITY_UNIQUE = 50;
+	private static final int ENTITY_UNIQUE_TYPE = 51;
+	private static final int ENTITY_WHERE = 7;
+	private static final int ENTITY_DERIVE = 8;
+	private static final int ENTITY_SUPERTYPE = 90;
+	private static final int ENTITY_SUPERTYPE_OF_ONEOF = 91;
+	private static final int ENTITY_NAME_STATE = 11;
+	private static final int ENTITY_INVERSE_STATE = 111;
+	private static final int ENTITY_INVERSE_SET_OF = 112;
+	private static final int ENTITY_INVERSE_FOR = 113;
+
+	private int state = INIT_STATE;
+	private String tmp_inverse_name;
+	private String tmp_inverse_classnamerange;
+	private String tmp_inverse_inverseprop;
+	private int tmp_inverse_mincard = 0;  //default value according to EXPRESS spec
+	private int tmp_inverse_maxcard = -1;  //default value according to EXPRESS spec
+
+	private String tmp_entity_name;
+	private StringBuilder tmp_aggregation;
+
+	private boolean is_set = false;
+	private boolean is_array = false;
+	private boolean is_list = false;
+	private int tmp_mincard = 0; //default value according to EXPRESS spec
+	private int tmp_maxcard = -1; //default value according to EXPRESS spec
+	private boolean is_optional = false;
+
+	private boolean is_listoflist = false;
+	private int tmp_listoflist_mincard = 0;  //default value according to EXPRESS spec
+	private int tmp_listoflist_maxcard = -1; //default value according to EXPRESS spec
+
+	private void endEntity() {
+		state = INIT_STATE;
+		listener.onEndEntity();
+	}
+
+	private void state_machine(ExpressToken txt) {
+		int kw = ExpressKeywords.lookup(txt);
+
+		switch (state) {
+		case INIT_STATE:
+			switch (kw) {
+			case ExpressKeywords.TYPE:
+				state = TYPE_STATE;
+				break;
+			case ExpressKeywords.ENTITY:
+				state = ENTITY_NAME_STATE;
+				break;
+			default:
+				// FUNCTION, RULE and END_SCHEMA; are skipped
+			}
+			break;
+
+		// 1. TYPE
+		case TYPE_STATE:
+			if (txt.endsWith('=')) {
+				state = TYPE_SWITCH;
+			} else {
+				listener.onType(txt.toString());
+			}
+			break;
+
+		case TYPE_SWITCH:
+			String primarytype = txt.toString();
+			switch (kw) {
+			case ExpressKeywords.SELECT:
+				state = TYPE_SELECT;
+				listener.onUnderlyingType(primarytype);
+				break;
+			case ExpressKeywords.ENUMERATION:
+				state = TYPE_ENUMERATION;
+				listener.onUnderlyingType(primarytype);
+				break;
+			default:
+				if (ExpressReader.isAllUpper(txt, txt.length() - 1)) {
+					primarytype = ExpressReader.formatClassName(primarytype);
+					if (txt.startsWith("ARRAY")) {
+						state = TYPE_ARRAY;
+						tmp_aggregation = new StringBuilder(primarytype);
+					} else if (txt.startsWith("SET")
+							|| txt.startsWith("LIST")) {
+						state = TYPE_LIST;
+						tmp_aggregation = new StringBuilder(primarytype);
+					} else {
+						// primarytypes like REAL/INTEGER/STRING/...
+						if (ExpressKeywords.isPrimaryType(ExpressKeywords.lookupFiltered(txt, false)))
+							listener.onPrimaryType(primarytype);
+						listener.onUnderlyingType(primarytype);
+						state = INIT_STATE;
+					}
+				} else {
+					// references to TypeVOs
+					if (txt.endsWith(';'))
+						primarytype = txt.toString(0, txt.length() - 1);
+					listener.onUnderlyingType(primarytype);
+					state = INIT_STATE;
+				}
+			}
+			break;
+
+		case TYPE_ARRAY:
+		case TYPE_LIST:
+			tmp_aggregation.append(' ').append(txt);
+			if (txt.endsWith(';')) {
+				listener.onUnderlyingType(tmp_aggregation.toString());
+				state = INIT_STATE;
+			}
+			break;
+
+		case TYPE_SELECT:
+			listener.onSelectItem(ExpressReader.filter_extras(txt));
+			if (txt.endsWith(';'))
+				state = INIT_STATE;
+			break;
+
+		case TYPE_ENUMERATION:
+			if (kw == ExpressKeywords.OF) {
+				state = TYPE_ENUMERATION_OF;
+			}
+			break;
+
+		case TYPE_ENUMERATION_OF:
+			listener.onEnumerationItem(ExpressReader.formatClassName(txt.toString()));
+			if (txt.endsWith(';'))
+				state = INIT_STATE;
+			break;
+
+		// 2. ENTITY
+		case ENTITY_NAME_STATE:
+			if (txt.endsWith(';'))
+				listener.onEntity(txt.toString(0, txt.length() - 1));
+			else
+				listener.onEntity(txt.toString());
+			state = ENTITY_STATE;
+			break;
+
+		case ENTITY_STATE:
+			is_array = false;
+			is_set = false;
+			is_list = false;
+			is_optional = false;
+			tmp_mincard = 0;
+			tmp_maxcard = -1;
+			is_listoflist = false;
+			tmp_listoflist_mincard = 0;
+			tmp_listoflist_maxcard = -1;
+
+			switch (kw) {
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			case ExpressKeywords.SUPERTYPE:
+				state = ENTITY_SUPERTYPE;
+				break;
+			case ExpressKeywords.ABSTRACT:
+				listener.onAbstract();
+				state = ENTITY_SUPERTYPE;
+				break;
+			case ExpressKeywords.INVERSE:
+				state = ENTITY_INVERSE_STATE;
+				break;
+			case ExpressKeywords.UNIQUE:
+				state = ENTITY_UNIQUE;
+				break;
+			case ExpressKeywords.WHERE:
+				state = ENTITY_WHERE;
+				break;
+			case ExpressKeywords.DERIVE:
+				state = ENTITY_DERIVE;
+				break;
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			default:
+				String name = txt.toString();
+				if (is_listoflist == true)
+					tmp_entity_name = ExpressReader.formatProperty(
+							ExpressReader.formatProperty(name, true), true);
+				else if (is_list == true && is_set == false)
+					tmp_entity_name = ExpressReader.formatProperty(name, true);
+				else
+					tmp_entity_name = ExpressReader.formatProperty(name, false);
+				state = ENTITY_READY;
+			}
+			break;
+
+		// 2.1 PROPERTIES
+		case ENTITY_READY:
+			switch (kw) {
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			case ExpressKeywords.OPTIONAL:
+				is_optional = true;
+				break;
+			case ExpressKeywords.ARRAY:
+				is_array = true;
+				break;
+			case ExpressKeywords.SET:
+				is_set = true;
+				break;
+			case ExpressKeywords.LIST:
+				if (is_listoflist == true) {
+					System.out
+							.println("WARNING: LIST of LIST of LIST property found in EXPRESS for : "
+									+ tmp_entity_name
+									+ " - this is currently not supported by the converter!!");
+				}
+				if (is_list == true)
+					is_listoflist = true;
+				is_list = true;
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			default:
+				if (txt.endsWith(']') && txt.startsWith('[')) {
+					// //[3:4] or similar parsed
+					int colon = txt.indexOf(':');
+					if (is_listoflist == true) {
+						if (!isUnbounded(txt, 1, colon))
+							tmp_listoflist_mincard = parseInt(txt, 1, colon);
+						if (!isUnbounded(txt, colon + 1, txt.length() - 1))
+							tmp_listoflist_maxcard = parseInt(txt, colon + 1, txt.length() - 1);
+					} else {
+						if (!isUnbounded(txt, 1, colon))
+							tmp_mincard = parseInt(txt, 1, colon);
+						if (!isUnbounded(txt, colon + 1, txt.length() - 1))
+							tmp_maxcard = parseInt(txt, colon + 1, txt.length() - 1);
+					}
+				} else if (txt.contains(';')) {
+					String type_name;
+					boolean primary = ExpressKeywords.isPrimaryType(ExpressKeywords.lookupFiltered(txt, true));
+					if (primary) {
+						// primarytypes like REAL/INTEGER/STRING/...
+						type_name = ExpressReader.filter_PTypeExtras(txt);
+						System.out.println("Filtering : " + txt + " -> " + type_name);
+						listener.onPrimaryType(ExpressReader.formatClassName(type_name));
+					} else {
+						type_name = txt.toString(0, txt.length() - 1);
+					}
+					listener.onAttribute(tmp_entity_name, type_name, primary,
+							is_array, is_set, is_list, is_listoflist,
+							tmp_mincard, tmp_maxcard,
+							tmp_listoflist_mincard, tmp_listoflist_maxcard,
+							is_optional);
+					state = ENTITY_STATE;
+				}
+			}
+			break;
+
+		// 2.2 SUBTYPE
+		case ENTITY_SUBTYPE_STATE:
+			if (kw == ExpressKeywords.OF)
+				state = ENTITY_SUBTYPE_OF_STATE;
+			else
+				state = ENTITY_STATE;
+			break;
+
+		case ENTITY_SUBTYPE_OF_STATE:
+			listener.onSupertype(ExpressReader.filter_extras(txt));
+
+			state = ENTITY_STATE;
+			break;
+
+		// 2.3 SUPERTYPE
+		case ENTITY_SUPERTYPE:
+			switch (kw) {
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			case ExpressKeywords.ONEOF:
+				state = ENTITY_SUPERTYPE_OF_ONEOF;
+				listener.onOneOf();
+				break;
+			default:
+				if (txt.contains(';'))
+					state = ENTITY_STATE;
+			}
+			break;
+
+		case ENTITY_SUPERTYPE_OF_ONEOF:
+			switch (kw) {
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			default:
+				boolean last = txt.contains(';') || txt.contains(')');
+				if (last)
+					state = ENTITY_STATE;
+				listener.onOneOfItem(ExpressReader.filter_extras(txt), last);
+			}
+			break;
+
+		// 2.4 INVERSE
+		case ENTITY_INVERSE_STATE:
+			is_set = false;
+			tmp_inverse_mincard = 0;
+			tmp_inverse_maxcard = -1;
+			switch (kw) {
+			case ExpressKeywords.WHERE:
+				state = ENTITY_WHERE;
+				break;
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			case ExpressKeywords.COLON:
+				// the name of the inverse attribute
+				state = ENTITY_INVERSE_SET_OF;
+				break;
+			default:
+				tmp_inverse_name = ExpressReader.formatProperty(txt.toString(), false);
+			}
+			break;
+
+		case ENTITY_INVERSE_SET_OF:
+			switch (kw) {
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			case ExpressKeywords.SET:
+				is_set = true;
+				break;
+			case ExpressKeywords.FOR:
+				state = ENTITY_INVERSE_FOR;
+				break;
+			default:
+				if (txt.startsWith('[') && txt.endsWith(']')) {
+					int colon = txt.indexOf(':');
+					if (!isUnbounded(txt, 1, colon))
+						tmp_inverse_mincard = parseInt(txt, 1, colon);
+					if (!isUnbounded(txt, colon + 1, txt.length() - 1))
+						tmp_inverse_maxcard = parseInt(txt, colon + 1, txt.length() - 1);
+				}
+				tmp_inverse_classnamerange = txt.toString();
+			}
+			break;
+
+		case ENTITY_INVERSE_FOR:
+			switch (kw) {
+			case ExpressKeywords.END_ENTITY:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			default:
+				if (txt.contains(';')) {
+					tmp_inverse_inverseprop = txt.toString(0, txt.length() - 1);
+					listener.onInverse(tmp_inverse_name,
+							tmp_inverse_classnamerange,
+							tmp_inverse_inverseprop, is_set,
+							tmp_inverse_mincard, tmp_inverse_maxcard);
+					state = ENTITY_INVERSE_STATE;
+				}
+			}
+			break;
+
+		// 2.5 UNIQUE RESTRICTIONS
+		case ENTITY_UNIQUE:
+			switch (kw) {
+			case ExpressKeywords.COLON:
+				state = ENTITY_UNIQUE_TYPE;
+				break;
+			case ExpressKeywords.END_ENTITY:
+			case ExpressKeywords.WHERE:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			default:
+			}
+			break;
+
+		case ENTITY_UNIQUE_TYPE:
+			switch (kw) {
+			case ExpressKeywords.END_ENTITY:
+			case ExpressKeywords.WHERE:
+				endEntity();
+				break;
+			case ExpressKeywords.SUBTYPE:
+				state = ENTITY_SUBTYPE_STATE;
+				break;
+			default:
+				if (!txt.contains(','))
+					listener.onUnique(txt.toString(0, txt.length() - 1));
+				state = ENTITY_UNIQUE;
+			}
+			break;
+
+		// 2.6 UNHANLDED WHERE AND DERIVE LINES
+		case ENTITY_WHERE:
+			// not parsed
+			if (kw == ExpressKeywords.END_ENTITY) {
+				endEntity();
+			} else if (kw == ExpressKeywords.SUBTYPE) {
+				state = ENTITY_SUBTYPE_STATE;
+			}
+			break;
+
+		case ENTITY_DERIVE:
+			// not parsed
+			if (kw == ExpressKeywords.END_ENTITY) {
+				endEntity();
+			} else if (kw == ExpressKeywords.SUBTYPE) {
+				state = ENTITY_SUBTYPE_STATE;
+			} else if (kw == ExpressKeywords.INVERSE) {
+				state = ENTITY_INVERSE_STATE;
+			}
+			break;
+
+		default:
+			// Do nothing
+		}
+	}
+
+	// '?' stands for an unbounded cardinality in EXPRESS
+	private static boolean isUnbounded(ExpressToken txt, int start, int end) {
+		return end - start == 1 && txt.charAt(start) == '?';
+	}
+
+	private static int parseInt(ExpressToken txt, int start, int end) {
+		if (start >= end)
+			throw new NumberFormatException("For input string: \"\"");
+		int value = 0;
+		for (int n = start; n < end; n++) {
+			int digit = Character.digit(txt.charAt(n), 10);
+			if (digit < 0)
+				throw new NumberFormatException("For input string: \"" + txt.toString(start, end) + "\"");
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+}
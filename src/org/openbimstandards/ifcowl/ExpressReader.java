@@ -1,32 +1,27 @@
 package org.openbimstandards.ifcowl;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.ObjectOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.StringTokenizer;
 
-import org.apache.jena.ontology.OntModel;
-import org.apache.jena.ontology.OntModelSpec;
-import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
 import org.openbimstandards.ifcowl.vo.AttributeVO;
 import org.openbimstandards.ifcowl.vo.EntityVO;
 import org.openbimstandards.ifcowl.vo.InverseVO;
@@ -35,18 +30,34 @@ import org.openbimstandards.ifcowl.vo.PrimaryTypeVO;
 import org.openbimstandards.ifcowl.vo.PropertyVO;
 import org.openbimstandards.ifcowl.vo.TypeVO;
 
-import fi.ni.rdf.Namespace;
-
 /*
  * ExpressReader reads EXPRESS file11 specification of the IFC files and creates 
  * an internal representation of it.
  * 
  * The usage:
  * ExpressReader er = new ExpressReader(InputStream schemaInputStream);
+ * ExpressReader er = new ExpressReader(File schemaFile); // memory-maps the schema
+ * ExpressReader er = new ExpressReader(File schemaFile, SchemaContext context);
  * 
  *  - readAndBuild() - parses the file and builds up all data required to write an OWL file or convert an IFC file to RDF
+ *  - outputEntitiesAndTypes, outputCompiledSchema, outputEntityPropertyList and outputPropertyTable - write the files of the schema
+ *
+ * readAndBuild and the output methods print the stack trace of an IOException and
+ * return false, so a caller like the BatchConverter keeps only the files that were
+ * written without an error.
  *  - getEntities() - gives map of Entities in IFC
  *  - getTypes()    - gives map of Types in IFC
+ *  - getContext()  - gives the SchemaContext with the namespace and the registries of this conversion
+ *  - getDiagnostics() - gives the properties and inverses that were removed while building the internals
+ *
+ * The schema itself is parsed by the ExpressParser, which reports the declarations
+ * to an ExpressModelBuilder. Other tools can pass their own ExpressListener to the
+ * ExpressParser to process a schema in a single pass without building these maps.
+ * With setParallelParse(true) the TYPE and ENTITY blocks are parsed concurrently by
+ * the ParallelExpressParser; the resulting maps are the same.
+ * The phases of readAndBuild declare which data they read and write and are run by a
+ * StageScheduler, so the phases that only work on the types run in parallel with the
+ * ones that work on the entities; the time of every phase is printed at the end.
  *   
  * @author Jyrki Oraskari
  * @author of modifications Pieter Pauwels (pipauwel.pauwels@ugent.be / pipauwel@gmail.com)
@@ -73,35 +84,81 @@ import fi.ni.rdf.Namespace;
 
 public class ExpressReader {
 
-	private static final Map<String, String> formattedClassNameCache = new HashMap<>();
 	private Map<String, EntityVO> entities = new HashMap<String, EntityVO>();
 	private Map<String, TypeVO> types = new HashMap<String, TypeVO>();
 	private List<NamedIndividualVO> enumIndividuals = new ArrayList<NamedIndividualVO>();
-	private Map<String, AttributeVO> attributes = new HashMap<String, AttributeVO>();
+	// the derived attributes of the entities, by the pair of entity and attribute name IDs
+	private Map<Long, AttributeVO> attributes = new HashMap<Long, AttributeVO>();
 	private Map<String, PropertyVO> properties = new HashMap<String, PropertyVO>();
+	// the properties, by the pair of original name and domain name IDs
+	private Map<Long, PropertyVO> propertiesByDomain = new HashMap<Long, PropertyVO>();
 	private Map<String, Set<String>> siblings = new HashMap<String, Set<String>>();
 
 	private InputStream schemaInputStream;
+	private File schemaFile;
+	private SchemaContext context;
+	private boolean parallelParse = false;
+	private ConversionDiagnostics diagnostics = new ConversionDiagnostics();
 
 	public ExpressReader(InputStream schemaInputStream) {
+		this(schemaInputStream, new SchemaContext());
+	}
+
+	public ExpressReader(InputStream schemaInputStream, SchemaContext context) {
 		this.schemaInputStream = schemaInputStream;
-		Namespace.IFC = "http://ifcowl.openbimstandards.org/";
+		this.context = context;
+	}
+
+	public ExpressReader(File schemaFile) {
+		this(schemaFile, new SchemaContext());
+	}
+
+	public ExpressReader(File schemaFile, SchemaContext context) {
+		this.schemaFile = schemaFile;
+		this.context = context;
 	}
 	
-	public void readAndBuild(){		
+	// the data that the phases of readAndBuild read and write
+	private enum Data {
+		// the entities and types maps and the registries of the context
+		ENTITIES, TYPES,
+		// the attributes map
+		ATTRIBUTES,
+		// the properties map and the inverses of the properties
+		PROPERTIES,
+		ENUM_INDIVIDUALS,
+		// the parent select types of the types, entities and primary types
+		SELECT_PARENTS,
+		// the SymbolTable of the context, which is not synchronized: the names that are
+		// interned in it and looked up
+		SYMBOLS
+	}
+
+	public boolean readAndBuild(){		
 		try {			
-			this.readSpec();
-			this.buildExpressStructure();
-			this.generateNamedIndividualsWithoutRenaming();
-	
-			this.rearrangeAttributesWithFullRenaming();
-			this.rearrangeProperties();
-			this.addInverses();
-			this.interpretSelects();
+			StageScheduler<Data> scheduler = new StageScheduler<Data>();
+			scheduler.add("readSpec", EnumSet.noneOf(Data.class),
+					EnumSet.of(Data.ENTITIES, Data.TYPES, Data.SYMBOLS), this::readSpec);
+			scheduler.add("buildExpressStructure", EnumSet.noneOf(Data.class),
+					EnumSet.of(Data.ENTITIES, Data.ATTRIBUTES, Data.SYMBOLS), this::buildExpressStructure);
+			scheduler.add("generateNamedIndividualsWithoutRenaming", EnumSet.of(Data.TYPES),
+					EnumSet.of(Data.ENUM_INDIVIDUALS), this::generateNamedIndividualsWithoutRenaming);
+			scheduler.add("rearrangeAttributesWithFullRenaming", EnumSet.noneOf(Data.class),
+					EnumSet.of(Data.ENTITIES, Data.PROPERTIES, Data.SYMBOLS), this::rearrangeAttributesWithFullRenaming);
+			scheduler.add("rearrangeProperties", EnumSet.of(Data.ENTITIES, Data.TYPES),
+					EnumSet.of(Data.PROPERTIES, Data.SYMBOLS), this::rearrangeProperties);
+			scheduler.add("addInverses", EnumSet.of(Data.ENTITIES, Data.SYMBOLS),
+					EnumSet.of(Data.PROPERTIES), this::addInverses);
+			// looks the names up in the registries of the entities, types and primary types
+			scheduler.add("interpretSelects", EnumSet.of(Data.TYPES, Data.ENTITIES),
+					EnumSet.of(Data.SELECT_PARENTS), this::interpretSelects);
+			scheduler.run();
 			System.out.println("Ended reading the EXPRESS file and building internals");
+			scheduler.printTimes(System.out);
+			return true;
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
 			e.printStackTrace();
+			return false;
 		}
 	}
 
@@ -121,24 +178,23 @@ public class ExpressReader {
 				try {
 					InputStream instr = ExpressReader.class
 							.getResourceAsStream("/" + in + ".exp");
-					ExpressReader er = new ExpressReader(instr);
-					Namespace.IFC = "http://ifcowl.openbimstandards.org/"
-							+ in;
+					SchemaContext context = new SchemaContext(
+							SchemaContext.DEFAULT_NAMESPACE + in);
+					ExpressReader er = new ExpressReader(instr, context);
 					er.readAndBuild();
 					
 
 					er.outputEntitiesAndTypes(args[1], in);
+					er.outputCompiledSchema(args[1], in);
 					er.outputEntityPropertyList(args[1], in);
+					er.outputPropertyTable(args[1], in);
 
-					OWLWriter ow = new OWLWriter(in, er.entities, er.types,
+					OWLWriter ow = new OWLWriter(context, in, er.entities, er.types,
 							er.getSiblings(), er.getEnumIndividuals(),
 							er.getProperties());
 					ow.outputOWL(args[1]);
 					System.out
 							.println("Ended converting the EXPRESS schema into corresponding OWL file");
-
-					// modify location when using
-					er.CleanModelAndRewrite(args[1]);
 				} catch (Exception e) {
 					e.printStackTrace();
 				}
@@ -148,49 +204,28 @@ public class ExpressReader {
 		}
 	}
 	
-	public void CleanModelAndRewrite(String filePathNoExt){		
+	// rewrites an existing .ttl file and the .rdf and .rt files next to it by streaming the
+	// triples of the .ttl through an OntologyFileSink; OWLWriter.outputOWL writes the files
+	// already, so this is only needed for a .ttl that was written or edited elsewhere
+	public void CleanModelAndRewrite(String filePathNoExt){
+		File ttl = new File(filePathNoExt + ".ttl");
+		File rewritten = new File(filePathNoExt + ".ttl.tmp");
 		try {
-			OntModel om = ModelFactory.createOntologyModel(OntModelSpec.OWL_DL_MEM);
-			BufferedReader instr = new BufferedReader(new InputStreamReader(new FileInputStream(filePathNoExt + ".ttl"), "UTF-8"));
-			om.read(instr, null, "TTL");		
-		
-		//InfModel infModel = ModelFactory.createInfModel(ReasonerRegistry.getRDFSReasoner(), om);
-		//ValidityReport validity = om.validate();
-//		if (validity.isValid()) {
 			System.out
-					.println("generated RDF graph is OK! Writing TTL and RDF file...");
+					.println("Writing TTL and RDF file...");
+			OntologyFileSink sink = new OntologyFileSink(rewritten, new File(filePathNoExt + ".rdf"),
+					new File(filePathNoExt + ".rt"));
 			try {
-				OutputStreamWriter char_output = new OutputStreamWriter(
-						new FileOutputStream(filePathNoExt + ".ttl"), Charset.forName("UTF-8")
-								.newEncoder());
-				BufferedWriter out = new BufferedWriter(char_output);
-				om.write(out, "TTL");
-			
-				char_output = new OutputStreamWriter(
-						new FileOutputStream(filePathNoExt + ".rdf"), Charset.forName(
-								"UTF-8").newEncoder());
-				out = new BufferedWriter(char_output);
-				om.write(out, "RDF/XML");
-				System.out.println("OK!");
-			} catch (IOException e) {
-				System.err
-						.println("Something went wrong while writing the RDF file");
-				System.exit(1);
-				e.printStackTrace();
+				RDFParser.create().source(ttl.getPath()).lang(Lang.TURTLE).parse(sink);
+			} finally {
+				sink.close();
 			}
-//		} else {
-//			System.out
-//					.println("generated RDF model contains conflicts. No TTL or RDF file produced.");
-//			for (Iterator<Report> i = validity.getReports(); i.hasNext();) {
-//				System.out.println(" - " + i.next());
-//			}
-//		}
-		} catch (UnsupportedEncodingException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		} catch (FileNotFoundException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
+			Files.move(rewritten.toPath(), ttl.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			System.out.println("OK!");
+		} catch (IOException e) {
+			System.err
+					.println("Something went wrong while writing the RDF file");
+			e.printStackTrace();
 		}
 	}
 
@@ -233,17 +268,14 @@ public class ExpressReader {
 				prop.setOriginalName(prop.getName());
 				prop.setName(prop.getName() + "_" + evo.getName()); //this used to be "_of_"
 				
-				if(inv.getClassRange().equalsIgnoreCase("NUMBER") || inv.getClassRange().equalsIgnoreCase("REAL") || 
-						inv.getClassRange().equalsIgnoreCase("INTEGER") || inv.getClassRange().equalsIgnoreCase("LOGICAL") || 
-						inv.getClassRange().equalsIgnoreCase("BOOLEAN") || inv.getClassRange().equalsIgnoreCase("STRING") || 
-						inv.getClassRange().equalsIgnoreCase("BINARY")){
+				if(ExpressKeywords.isPrimaryType(inv.getClassRange())){
 					prop.setRangeNS("expr");
 				}
 				else {
 					prop.setRangeNS("ifc");
 				}
 				
-				getProperties().put(prop.getName(), prop);
+				putProperty(prop);
 			}			
 		}
 	}
@@ -291,20 +323,44 @@ public class ExpressReader {
 					prop.setSelectEntities(type.getSelect_entities());
 				} else if (type_primaryType.equalsIgnoreCase("class"))
 					prop.setType(PropertyVO.propertyType.EntityVO);
-				else if (PrimaryTypeVO.getPrimaryTypeVO(type_primaryType) != null)
+				else if (context.getPrimaryTypeVO(type_primaryType) != null)
 					prop.setType(PropertyVO.propertyType.TypeVO);
 				else {
 					prop.setType(PropertyVO.propertyType.TypeVO);
 				}
 				
-				getProperties().put(prop.getName(), prop);
+				putProperty(prop);
 			}
 		}
 	}
 	
+	private void putProperty(PropertyVO prop) {
+		getProperties().put(prop.getName(), prop);
+		SymbolTable symbols = context.getSymbols();
+		propertiesByDomain.put(SymbolTable.pair(symbols.intern(prop.getOriginalName()),
+				symbols.intern(prop.getDomain().getName())), prop);
+	}
+
+	// the property that is named originalName_domain, without building that name
+	private PropertyVO getProperty(String originalName, String domain) {
+		SymbolTable symbols = context.getSymbols();
+		int nameId = symbols.getId(originalName);
+		int domainId = symbols.getId(domain);
+		if (nameId != SymbolTable.NONE && domainId != SymbolTable.NONE) {
+			PropertyVO prop = propertiesByDomain.get(SymbolTable.pair(nameId, domainId));
+			// the property may have been removed from the property list again
+			if (prop != null && getProperties().get(prop.getName()) == prop)
+				return prop;
+		}
+		return getProperties().get(originalName + "_" + domain);
+	}
+
+	// pairs every inverse with the property it is the inverse of; the properties that
+	// cannot be paired are removed and reported to the diagnostics
 	private void addInverses() {
 		Iterator<Entry<String, EntityVO>> iter = entities.entrySet().iterator();
-		ArrayList<PropertyVO> listOfAddedObjectProperties = new ArrayList<PropertyVO>();
+		// the object properties that are paired, to the property that is their inverse
+		Map<PropertyVO, PropertyVO> addedObjectProperties = new IdentityHashMap<PropertyVO, PropertyVO>();
 		while (iter.hasNext()) {
 			Entry<String, EntityVO> pairs = iter.next();
 			EntityVO evo = pairs.getValue();
@@ -316,49 +372,55 @@ public class ExpressReader {
 						.getInverseOfProperty());		
 				
 				if (inverseOfInv == null) {
-					inverseOfInv = getProperties().get(inv.getInverseOfProperty()
-							+ "_" + prop.getRange());
+					inverseOfInv = getProperty(inv.getInverseOfProperty(), prop.getRange());
 				}	
 				
-				if(!listOfAddedObjectProperties.contains(inverseOfInv) && inverseOfInv!=null){	
-					listOfAddedObjectProperties.add(inverseOfInv);
-						prop.setInverseProp(inverseOfInv);
-						inverseOfInv.setInverseProp(prop);
+				if(inverseOfInv!=null && !addedObjectProperties.containsKey(inverseOfInv)){	
+					addedObjectProperties.put(inverseOfInv, prop);
+					prop.setInverseProp(inverseOfInv);
+					inverseOfInv.setInverseProp(prop);
 					
 					if(inverseOfInv.isList() || inverseOfInv.isListOfList() || inverseOfInv.isArray()){
 						//Property needs to be deleted again to counter inconsistencies in the eventual OWL ontology
 						getProperties().remove(prop.getName());
 						inverseOfInv.setInverseProp(null);
-						listOfAddedObjectProperties.remove(inverseOfInv);
+						addedObjectProperties.remove(inverseOfInv);
 					}
 				}
 				else{
 					PropertyVO origprop = inverseOfInv;
 					if(origprop!=null){			
 						PropertyVO originv = inverseOfInv.getInverseProperty();			 
-						 if(originv!=null){
-							 System.out.println("removing property 2 from property list: " + originv.getName());
-							 if(getProperties().remove(originv.getName())==null){
-								 System.out.println("could not remove property 2 from list: " + originv.getName());
-								 getProperties().remove(originv.getOriginalName());
-							 }
-							 System.out.println("removing property 2 from property list: " + origprop.getName());
-							 originv.setInverseProp(null);
-							 System.out.println("removed inverses of property: " + originv.getName());
-						 }	
-						 else{
-							 System.out.println("removing property 3: " + origprop.getName());	
-							 origprop.setInverseProp(null);								
-						 }
-						 
-						 System.out.println("removing property 4: " + prop.getName());	
-						 if(getProperties().remove(prop.getName())==null)
-							 System.out.println("could not remove property 4 from list: " + prop.getName());
-						 inverseOfInv.setInverseProp(null);
-						 System.out.println("removed inverses of property: " + inverseOfInv.getName());
+						if(originv!=null){
+							diagnostics.add(ConversionDiagnostics.Kind.REMOVED_PROPERTY, originv.getName(),
+									"inverse of " + origprop.getName() + " that is already paired");
+							if(getProperties().remove(originv.getName())==null){
+								diagnostics.add(ConversionDiagnostics.Kind.PROPERTY_NOT_FOUND, originv.getName(),
+										"removed by its original name " + originv.getOriginalName() + " instead");
+								getProperties().remove(originv.getOriginalName());
+							}
+							originv.setInverseProp(null);
+							diagnostics.add(ConversionDiagnostics.Kind.REMOVED_INVERSE, originv.getName(),
+									"inverse " + origprop.getName() + " unset");
+						}	
+						else{
+							diagnostics.add(ConversionDiagnostics.Kind.REMOVED_INVERSE, origprop.getName(),
+									"inverse unset, it has no inverse property");
+							origprop.setInverseProp(null);								
+						}
+						
+						diagnostics.add(ConversionDiagnostics.Kind.REMOVED_PROPERTY, prop.getName(),
+								"inverse of " + inverseOfInv.getName() + " that is already paired");
+						if(getProperties().remove(prop.getName())==null)
+							diagnostics.add(ConversionDiagnostics.Kind.PROPERTY_NOT_FOUND, prop.getName(),
+									"not in the property list");
+						inverseOfInv.setInverseProp(null);
+						diagnostics.add(ConversionDiagnostics.Kind.REMOVED_INVERSE, inverseOfInv.getName(),
+								"inverse " + prop.getName() + " unset");
 					}	
 					else{
-						System.out.println("removing property 5: " + prop.getName());	
+						diagnostics.add(ConversionDiagnostics.Kind.REMOVED_PROPERTY, prop.getName(),
+								"the inverse of property " + inv.getInverseOfProperty() + " does not exist");
 						getProperties().remove(prop.getName());							
 					}
 				}
@@ -374,19 +436,18 @@ public class ExpressReader {
 			for (int n = 0; n < parent.getSelect_entities().size(); n++) {
 				String entString = parent.getSelect_entities().get(n);
 
-				TypeVO type = TypeVO.getTypeVO(entString);
+				TypeVO type = context.getTypeVO(entString);
 				if (type != null && !type.getPrimarytype().equalsIgnoreCase("CLASS")){
 					type.addParentSelectType(parent);
 				}
 
 				else {
-					EntityVO ent = EntityVO.getEntityVO(entString);
+					EntityVO ent = context.getEntityVO(entString);
 					if (ent != null){
 						ent.addParentSelectType(parent);
 					}
 					else {						
-						PrimaryTypeVO ptype = PrimaryTypeVO
-								.getPrimaryTypeVO(entString);
+						PrimaryTypeVO ptype = context.getPrimaryTypeVO(entString);
 						if (ptype != null){
 							System.out.println("Warning: PTYPE is part of select : " + parent.getName());
 							ptype.addParentSelectType(parent);
@@ -403,17 +464,22 @@ public class ExpressReader {
 	// CONVERTING
 	private void readSpec() {
 		try {
-			BufferedReader br = new BufferedReader(new InputStreamReader(schemaInputStream));
-			try {
-				String strLine;
-				while ((strLine = br.readLine()) != null) {
-					if (strLine.length() > 0) {
-						parse_level(strLine);
-					}
+			ExpressLexer lexer;
+			if (schemaFile != null)
+				lexer = ExpressLexer.open(schemaFile);
+			else {
+				try {
+					lexer = ExpressLexer.read(schemaInputStream);
+				} finally {
+					schemaInputStream.close();
 				}
-			} finally {
-				br.close();
 			}
+			ExpressModelBuilder builder = new ExpressModelBuilder(context,
+					entities, types, siblings);
+			if (parallelParse)
+				new ParallelExpressParser(builder).parse(lexer.getBuffer());
+			else
+				new ExpressParser(builder).parse(lexer);
 		} catch (FileNotFoundException fe) {
 			System.err.println("The IFC Express file is missing.");
 			System.exit(1);
@@ -423,37 +489,65 @@ public class ExpressReader {
 	}
 
 	private void buildExpressStructure() throws IOException {
-		generate_derived_attribute_list();
-		generate_derived_inverse_list();
+		generate_derived_lists();
+		add_inverse_pointers();
 	}
 
-	private void outputEntitiesAndTypes(String filePathNoExt, String schemaName) {
-		String filePath = filePathNoExt.substring(0,filePathNoExt.lastIndexOf("\\"));
-		System.out.println("writing output to : " + filePath+"ent"+schemaName+".ser and " + filePath+"typ"+schemaName+".ser");
+	public boolean outputEntitiesAndTypes(String filePathNoExt, String schemaName) {
+		File filePath = new File(filePathNoExt).getAbsoluteFile().getParentFile();
+		System.out.println("writing output to : " + new File(filePath, "ent"+schemaName+".ser") + " and " + new File(filePath, "typ"+schemaName+".ser"));
 		
 		FileOutputStream fos;
 		try {
-			fos = new FileOutputStream(filePath+"\\"+"ent"+schemaName+".ser");
+			fos = new FileOutputStream(new File(filePath, "ent"+schemaName+".ser"));
 
 			ObjectOutputStream oos = new ObjectOutputStream(fos);
 			oos.writeObject(entities);
 			oos.close();
 
-			fos = new FileOutputStream(filePath+"\\"+"typ"+schemaName+".ser");
+			fos = new FileOutputStream(new File(filePath, "typ"+schemaName+".ser"));
 
 			oos = new ObjectOutputStream(fos);
 			oos.writeObject(types);
 			oos.close();
+			return true;
 		} catch (IOException e) {
 			e.printStackTrace();
+			return false;
 		}
 	}	
 	
-	private void outputEntityPropertyList(String filePathNoExt, String schemaName){
-		String filePath = filePathNoExt.substring(0,filePathNoExt.lastIndexOf("\\"));
-		System.out.println("writing output to : " + filePath+"proplist"+schemaName+".csv and " + filePath+"proplist"+schemaName+".csv");
+	// the compiled schema that is read by CompiledSchema, next to the .ser files
+	public boolean outputCompiledSchema(String filePathNoExt, String schemaName) {
+		File file = new File(new File(filePathNoExt).getAbsoluteFile().getParentFile(), "schema"+schemaName+".bin");
+		System.out.println("writing output to : " + file);
+		try {
+			new CompiledSchemaWriter(schemaName, entities, types).write(file);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	// the property list of outputEntityPropertyList in the format that is read by PropertyTable
+	public boolean outputPropertyTable(String filePathNoExt, String schemaName) {
+		File file = new File(new File(filePathNoExt).getAbsoluteFile().getParentFile(), "proplist"+schemaName+".bin");
+		System.out.println("writing output to : " + file);
+		try {
+			new PropertyTableWriter(schemaName, entities).write(file);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	public boolean outputEntityPropertyList(String filePathNoExt, String schemaName){
+		File filePath = new File(filePathNoExt).getAbsoluteFile().getParentFile();
+		File file = new File(filePath, "proplist"+schemaName+".csv");
+		System.out.println("writing output to : " + file);
 		try {
-			File file = new File(filePath+"\\"+"proplist"+schemaName+".csv");
 			FileWriter fw = new FileWriter(file);
 			BufferedWriter bw = new BufferedWriter(fw);	
 			
@@ -485,71 +579,70 @@ public class ExpressReader {
 			}
 			bw.close();
 			fw.close();
+			return true;
 		} catch (IOException e) {
 			e.printStackTrace();
+			return false;
 		}
 	}
 	
 	// WRITING ATTRIBUTE AND INVERSE STRUCTURE
-	private void generate_derived_attribute_list() throws IOException {
-		Iterator<Entry<String, EntityVO>> it = entities.entrySet().iterator();
-		while (it.hasNext()) {
-			Entry<String, EntityVO> pairs = it.next();
-			EntityVO evo = pairs.getValue();
-			add_attribute_entries(evo, evo);
+	// builds the derived attribute and inverse lists of all entities in one topological
+	// pass: the lists of a supertype are finished first and a subtype starts from them
+	// instead of walking up the supertype chain again
+	private void generate_derived_lists() {
+		Map<EntityVO, Boolean> finished = new IdentityHashMap<EntityVO, Boolean>();
+		for (EntityVO evo : entities.values())
+			add_derived_entries(evo, finished);
+	}
+
+	private void add_derived_entries(EntityVO evo, Map<EntityVO, Boolean> finished) {
+		Boolean done = finished.get(evo);
+		if (done != null) {
+			if (!done)
+				System.err.println("WARNING: cyclic SUBTYPE OF found for : " + evo.getName());
+			return;
 		}
-	}
+		finished.put(evo, Boolean.FALSE);
 
-	private void add_attribute_entries(EntityVO evo, EntityVO top)
-			throws IOException {
 		if (evo.getSuperclass() != null) {
-			EntityVO sup = entities.get(formatClassName(evo.getSuperclass()));
-			if (sup != null)
-				add_attribute_entries(sup, top);
+			EntityVO sup = entities.get(context.formatClassName(evo.getSuperclass()));
+			if (sup != null) {
+				add_derived_entries(sup, finished);
+				evo.getDerived_attribute_list().addAll(sup.getDerived_attribute_list());
+				evo.getDerived_inverse_list().addAll(sup.getDerived_inverse_list());
+			}
 		}
+		evo.getDerived_attribute_list().addAll(evo.getAttributes());
+		evo.getDerived_inverse_list().addAll(evo.getInverses());
 
-		for (int n = 0; n < evo.getAttributes().size(); n++) {
-			attributes.put(top.getName() + "#"
-					+ evo.getAttributes().get(n).getName(), evo.getAttributes()
-					.get(n));
-			top.getDerived_attribute_list().add(evo.getAttributes().get(n));
-		}
+		SymbolTable symbols = context.getSymbols();
+		int entityId = symbols.intern(evo.getName());
+		for (AttributeVO avo : evo.getDerived_attribute_list())
+			attributes.put(SymbolTable.pair(entityId, symbols.intern(avo.getName())), avo);
+		finished.put(evo, Boolean.TRUE);
 	}
 
-	private void generate_derived_inverse_list() throws IOException {
-		Iterator<Entry<String, EntityVO>> it = entities.entrySet().iterator();
-		while (it.hasNext()) {
-			Entry<String, EntityVO> pairs = it.next();
-			EntityVO evo = (EntityVO) pairs.getValue();
-			add_inverse_entries(evo, evo);
-		}
-	}
-
-	private void add_inverse_entries(EntityVO evo, EntityVO top)
-			throws IOException {
-		if (evo.getSuperclass() != null) {
-			EntityVO sup = entities.get(evo.getSuperclass());
-			if (sup != null)
-				add_inverse_entries(sup, top);
-		}
-
-		for (int n = 0; n < evo.getInverses().size(); n++) {
-			AttributeVO avo = attributes.get(evo.getInverses().get(n)
-					.getClassRange()
-					+ "#" + evo.getInverses().get(n).getInverseOfProperty());
-			boolean unique = false;
-			if (avo != null) {
+	// marks the attributes that the inverses point at, each inverse is visited once
+	private void add_inverse_pointers() {
+		SymbolTable symbols = context.getSymbols();
+		for (EntityVO evo : entities.values()) {
+			for (int n = 0; n < evo.getInverses().size(); n++) {
 				InverseVO ivo = evo.getInverses().get(n);
-				if (ivo.getMaxCard() == 1)
-					if (!avo.isSet())
-						avo.setOne2One(true);
-				if (avo.isUnique())
-					unique = true;
-				avo.setReverse_pointer(true);
-				avo.setPoints_from(evo.getInverses().get(n));
+				AttributeVO avo = attributes.get(SymbolTable.pair(symbols.getId(ivo.getClassRange()),
+						symbols.getId(ivo.getInverseOfProperty())));
+				boolean unique = false;
+				if (avo != null) {
+					if (ivo.getMaxCard() == 1)
+						if (!avo.isSet())
+							avo.setOne2One(true);
+					if (avo.isUnique())
+						unique = true;
+					avo.setReverse_pointer(true);
+					avo.setPoints_from(ivo);
+				}
+				ivo.setUnique(unique);
 			}
-			evo.getInverses().get(n).setUnique(unique);
-			top.getDerived_inverse_list().add(evo.getInverses().get(n));
 		}
 	}
 
@@ -558,12 +651,7 @@ public class ExpressReader {
 		if (unformatted == null) {
 			return null;
 		}
-		String formatted = formattedClassNameCache.get(unformatted);
-		if (formatted == null) {
-			formatted = filter_extras(unformatted).toUpperCase();
-			formattedClassNameCache.put(unformatted, formatted);
-		}
-		return formatted;
+		return filter_extras(unformatted).toUpperCase();
 	}
 
 	static public String formatProperty(String s, boolean isList) {
@@ -576,487 +664,7 @@ public class ExpressReader {
 			return s;
 	}
 
-	// STATE_MACHINE FOR PARSING EXPRESS FILES
-	private static final int INIT_STATE = 0;
-	private static final int TYPE_STATE = 1;
-	private static final int TYPE_SWITCH = 101;
-	private static final int TYPE_SELECT = 102;
-	private static final int TYPE_ENUMERATION = 103;
-	private static final int TYPE_ENUMERATION_OF = 104;
-	private static final int TYPE_LIST = 105;
-	private static final int TYPE_ARRAY = 106;
-
-	private static final int ENTITY_STATE = 2;
-	private static final int ENTITY_READY = 201;
-	private static final int ENTITY_SUBTYPE_STATE = 3;
-	private static final int ENTITY_SUBTYPE_OF_STATE = 4;
-	private static final int ENTITY_UNIQUE = 50;
-	private static final int ENTITY_UNIQUE_TYPE = 51;
-	private static final int ENTITY_WHERE = 7;
-	private static final int ENTITY_DERIVE = 8;
-	private static final int ENTITY_SUPERTYPE = 90;
-	private static final int ENTITY_SUPERTYPE_OF_ONEOF = 91;
-	private static final int ENTITY_NAME_STATE = 11;
-	private static final int ENTITY_INVERSE_STATE = 111;
-	private static final int ENTITY_INVERSE_SET_OF = 112;
-	private static final int ENTITY_INVERSE_FOR = 113;
-
-	private int state = INIT_STATE;
-	private EntityVO current_entity = null;
-	private String tmp_inverse_name;
-	private String tmp_inverse_classnamerange;
-	private String tmp_inverse_inverseprop;
-	private int tmp_inverse_mincard = 0;  //default value according to EXPRESS spec	
-	private int tmp_inverse_maxcard = -1;  //default value according to EXPRESS spec	
-
-	private String tmp_entity_name;
-	private String tmp_entity_type;
-	private TypeVO current_type;
-	private Set<String> current_sibling_set;
-
-	private boolean is_set = false;
-	private boolean is_array = false;
-	private boolean is_list = false;
-	private int tmp_mincard = 0; //default value according to EXPRESS spec	
-	private int tmp_maxcard = -1; //default value according to EXPRESS spec
-	private boolean is_optional = false;
-
-	private boolean is_listoflist = false;
-	private int tmp_listoflist_mincard = 0;  //default value according to EXPRESS spec
-	private int tmp_listoflist_maxcard = -1; //default value according to EXPRESS spec
-
-	private void state_machine(String txt) {
-		
-		switch (state) {
-		case INIT_STATE:
-			if (txt.equalsIgnoreCase("TYPE"))
-				state = TYPE_STATE;
-			if (txt.equalsIgnoreCase("ENTITY"))
-				state = ENTITY_NAME_STATE;
-			if (txt.equalsIgnoreCase("FUNCTION")) {
-				break;
-			}
-			if (txt.equalsIgnoreCase("RULE")) {
-				break;
-			}
-			if (txt.equalsIgnoreCase("END_SCHEMA;"))
-				break;
-			break;
-
-		// 1. TYPE
-		case TYPE_STATE:
-			if (txt.endsWith("=")) {
-				state = TYPE_SWITCH;
-			} else {
-				String txt_t = formatClassName(txt);
-				TypeVO t = types.get(txt_t);
-				if (t == null) {
-					current_type = new TypeVO(txt);
-					types.put(txt_t, current_type);
-				}
-			}
-			break;
-
-		case TYPE_SWITCH:
-			if (txt.equalsIgnoreCase("SELECT")) {
-				state = TYPE_SELECT;
-//				selectTypesToExpand_temp.add(current_type);
-				current_type.setPrimarytype(formatClassName(txt));
-			} else if (txt.equalsIgnoreCase("ENUMERATION")) {
-				state = TYPE_ENUMERATION;
-			} else if (isAllUpper(txt.substring(0, txt.length() - 1))) {
-				if (txt.startsWith("ARRAY"))
-					state = TYPE_ARRAY;
-				else if (txt.startsWith("SET")
-						|| txt.startsWith("LIST"))
-					state = TYPE_LIST;
-				else {
-					// primarytypes like REAL/INTEGER/STRING/...
-					if(formatClassName(txt).equalsIgnoreCase("NUMBER") || formatClassName(txt).equalsIgnoreCase("REAL") || 
-							formatClassName(txt).equalsIgnoreCase("INTEGER") || formatClassName(txt).equalsIgnoreCase("LOGICAL") || 
-							formatClassName(txt).equalsIgnoreCase("BOOLEAN") || formatClassName(txt).equalsIgnoreCase("STRING") || 
-							formatClassName(txt).equalsIgnoreCase("BINARY"))
-					new PrimaryTypeVO(formatClassName(txt));
-					state = INIT_STATE;
-				}
-				txt = formatClassName(txt);
-			} else {
-				// references to TypeVOs
-				if (txt.endsWith(";"))
-					txt = txt.substring(0, txt.length() - 1);
-				state = INIT_STATE;
-			}
-			current_type.setPrimarytype(txt);
-			break;
-
-		case TYPE_ARRAY:
-			if (!txt.endsWith(";")) {
-				if (current_type != null)
-					current_type.setPrimarytype(current_type.getPrimarytype()
-							+ " " + txt);
-			} else {
-				if (current_type != null)
-					current_type.setPrimarytype(current_type.getPrimarytype()
-							+ " " + txt);
-				state = INIT_STATE;
-			}
-			break;
-		
-		case TYPE_LIST:
-			if (!txt.endsWith(";")) {
-				if (current_type != null)
-					current_type.setPrimarytype(current_type.getPrimarytype()
-							+ " " + txt);
-			} else {
-				if (current_type != null)
-					current_type.setPrimarytype(current_type.getPrimarytype()
-							+ " " + txt);
-				state = INIT_STATE;
-			}
-			break;
-
-		case TYPE_SELECT:
-			if (txt.endsWith(";")) {
-				String txt_t = filter_extras(txt);
-				if (current_type != null)
-					current_type.getSelect_entities().add(txt_t);
-				state = INIT_STATE;
-			} else {
-				String txt_t = filter_extras(txt);
-				if (current_type != null)
-					current_type.getSelect_entities().add(txt_t);
-			}
-			break;
-
-		case TYPE_ENUMERATION:
-			if (txt.equals("OF")) {
-				state = TYPE_ENUMERATION_OF;
-			}
-			break;
-
-		case TYPE_ENUMERATION_OF:
-			if (txt.endsWith(";")) {
-				String txt_t = formatClassName(txt);
-				if (current_type != null)
-					current_type.getEnum_entities().add(txt_t);
-				state = INIT_STATE;
-			} else {
-				String txt_t = formatClassName(txt);
-				if (current_type != null)
-					current_type.getEnum_entities().add(txt_t);
-			}
-			break;
-
-		// 2. ENTITY
-		case ENTITY_NAME_STATE:
-			// replaces all non-letter characters with nothing
-			String org_name = txt;
-			if (org_name.endsWith(";"))
-				org_name = org_name.substring(0, org_name.length() - 1);
-			String entity_name = ExpressReader.formatClassName(org_name);
-			current_entity = entities.get(entity_name);
-			if (current_entity == null) {
-				current_entity = new EntityVO(org_name);
-				entities.put(entity_name, current_entity);
-			}
-			state = ENTITY_STATE;
-			break;
-
-		case ENTITY_STATE:
-			is_array = false;
-			is_set = false;
-			is_list = false;
-			is_optional = false;
-			tmp_mincard = 0;
-			tmp_maxcard = -1;
-			is_listoflist = false;
-			tmp_listoflist_mincard = 0;
-			tmp_listoflist_maxcard = -1;
-
-			if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.equalsIgnoreCase("SUPERTYPE")) {
-				state = ENTITY_SUPERTYPE;
-			} else if (txt.equalsIgnoreCase("ABSTRACT")) {
-				current_entity.setAbstractSuperclass(true);
-				state = ENTITY_SUPERTYPE;
-			} else if (txt.equalsIgnoreCase("INVERSE")) {
-				state = ENTITY_INVERSE_STATE;
-			} else if (txt.equalsIgnoreCase("UNIQUE")) {
-				state = ENTITY_UNIQUE;
-			} else if (txt.equalsIgnoreCase("WHERE")) {
-				state = ENTITY_WHERE;
-			} else if (txt.equalsIgnoreCase("DERIVE")) {
-				state = ENTITY_DERIVE;
-			} else if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else {
-				if (is_listoflist == true)
-					tmp_entity_name = ExpressReader.formatProperty(
-							ExpressReader.formatProperty(txt, true), true);
-				else if (is_list == true && is_set == false)
-					tmp_entity_name = ExpressReader.formatProperty(txt, true);
-				else
-					tmp_entity_name = ExpressReader.formatProperty(txt, false);
-				state = ENTITY_READY;
-			}
-			break;
-
-		// 2.1 PROPERTIES
-		case ENTITY_READY:			
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("OPTIONAL")) {
-				is_optional = true;
-			} else if (txt.equalsIgnoreCase("ARRAY")) {
-				is_array = true;
-			} else if (txt.equalsIgnoreCase("SET")) {
-				is_set = true;
-			} else if (txt.equalsIgnoreCase("LIST")) {
-				if (is_listoflist == true) {
-					System.out
-							.println("WARNING: LIST of LIST of LIST property found in EXPRESS for : "
-									+ tmp_entity_name
-									+ " - this is currently not supported by the converter!!");
-				}
-				if (is_list == true)
-					is_listoflist = true;
-				is_list = true;
-			} else if (txt.endsWith("]") && txt.startsWith("[")) {
-				// //[3:4] or similar parsed
-				String[] tempCards = txt.split(":");
-				String mincard = txt.split(":")[0].substring(1);
-				String maxcard = txt.split(":")[1].substring(0,
-						tempCards[1].length() - 1);
-				if (is_listoflist == true) {
-					if (!mincard.equalsIgnoreCase("?"))
-						tmp_listoflist_mincard = Integer.parseInt(mincard);
-					if (!maxcard.equalsIgnoreCase("?"))
-						tmp_listoflist_maxcard = Integer.parseInt(maxcard);
-				} else {
-					if (!mincard.equalsIgnoreCase("?"))
-						tmp_mincard = Integer.parseInt(mincard);
-					if (!maxcard.equalsIgnoreCase("?"))
-						tmp_maxcard = Integer.parseInt(maxcard);
-				}
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.contains(";")) {
-				tmp_entity_type = ExpressReader.formatClassName(txt.substring(
-						0, txt.length() - 1));
-				
-				String txt_filtered = filter_PTypeExtras(txt);
-				if(txt_filtered.equalsIgnoreCase("NUMBER") || txt_filtered.equalsIgnoreCase("REAL") || 
-						txt_filtered.equalsIgnoreCase("INTEGER") || txt_filtered.equalsIgnoreCase("LOGICAL") || 
-						txt_filtered.equalsIgnoreCase("BOOLEAN") || txt_filtered.equalsIgnoreCase("STRING") || 
-						txt_filtered.equalsIgnoreCase("BINARY")){
-					// primarytypes like REAL/INTEGER/STRING/...
-					System.out.println("Filtering : " + txt + " -> " + txt_filtered);
-					new PrimaryTypeVO(formatClassName(txt_filtered));
-					TypeVO type = types.get(txt_filtered);
-					
-					if (type == null) {
-						type = new TypeVO(txt_filtered,
-								"CLASS");
-					}
-					current_entity.getAttributes().add(
-							new AttributeVO(tmp_entity_name, type, is_array, is_set, is_list,
-									is_listoflist, tmp_mincard, tmp_maxcard,
-									tmp_listoflist_mincard, tmp_listoflist_maxcard,
-									is_optional));
-					state = ENTITY_STATE;
-				}
-				else{
-					TypeVO type = types.get(tmp_entity_type);
-					
-					if (type == null) {
-						type = new TypeVO(txt.substring(0, txt.length() - 1),
-								"CLASS");
-					}
-					current_entity.getAttributes().add(
-							new AttributeVO(tmp_entity_name, type, is_array, is_set, is_list,
-									is_listoflist, tmp_mincard, tmp_maxcard,
-									tmp_listoflist_mincard, tmp_listoflist_maxcard,
-									is_optional));
-					state = ENTITY_STATE;
-				}
-			}
-			break;
-
-		// 2.2 SUBTYPE
-		case ENTITY_SUBTYPE_STATE:
-			if (txt.equalsIgnoreCase("OF"))
-				state = ENTITY_SUBTYPE_OF_STATE;
-			else
-				state = ENTITY_STATE;
-			break;
-
-		case ENTITY_SUBTYPE_OF_STATE:
-			current_entity.setSuperclass(filter_extras(txt));
-
-			state = ENTITY_STATE;
-			break;
-
-		// 2.3 SUPERTYPE
-		case ENTITY_SUPERTYPE:
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.equalsIgnoreCase("(ONEOF")) {
-				state = ENTITY_SUPERTYPE_OF_ONEOF;
-				current_sibling_set = new HashSet<String>();
-			} else {
-				if (txt.contains(";"))
-					state = ENTITY_STATE;
-			}
-			break;
-
-		case ENTITY_SUPERTYPE_OF_ONEOF:
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else {
-				if (txt.contains(";")) {
-					current_entity.setSubClassList(current_sibling_set);
-					state = ENTITY_STATE;
-				}
-				if (txt.contains(")")) {
-					current_entity.setSubClassList(current_sibling_set);
-					state = ENTITY_STATE;
-				}
-				String sibstr = filter_extras(txt);
-				current_sibling_set.add(sibstr);
-				Set<String> s = this.getSiblings().get(sibstr);
-				if (s != null)
-					System.err.println("DUPLICATE: " + sibstr);
-				else
-					this.getSiblings().put(sibstr, current_sibling_set);
-			}
-			break;
-
-		// 2.4 INVERSE
-		case ENTITY_INVERSE_STATE:
-			is_set = false;
-			tmp_inverse_mincard = 0;
-			tmp_inverse_maxcard = -1;
-			if (txt.equalsIgnoreCase("WHERE")) {
-				state = ENTITY_WHERE;
-			} else if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.equalsIgnoreCase(":")) {
-				// the name of the inverse attribute
-				state = ENTITY_INVERSE_SET_OF;
-			} else
-				tmp_inverse_name = ExpressReader.formatProperty(txt, false);
-			break;
-
-		case ENTITY_INVERSE_SET_OF:
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.equalsIgnoreCase("SET")) {
-				is_set = true;
-			} else if (txt.equalsIgnoreCase("FOR")) {
-				state = ENTITY_INVERSE_FOR;
-			} else {
-				if (txt.startsWith("[") && txt.endsWith("]")) {
-					String[] tempCards = txt.split(":");
-					String mincard = txt.split(":")[0].substring(1);
-					String maxcard = txt.split(":")[1].substring(0,
-							tempCards[1].length() - 1);
-					if (!mincard.equalsIgnoreCase("?"))
-						tmp_inverse_mincard = Integer.parseInt(mincard);
-					if (!maxcard.equalsIgnoreCase("?"))
-						tmp_inverse_maxcard = Integer.parseInt(maxcard);
-				}
-				tmp_inverse_classnamerange = txt;
-			}
-			break;
-
-		case ENTITY_INVERSE_FOR:
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.contains(";")) {
-				tmp_inverse_inverseprop = txt.substring(0, txt.length() - 1);
-				current_entity.getInverses().add(
-						new InverseVO(tmp_inverse_name,
-								tmp_inverse_classnamerange,
-								tmp_inverse_inverseprop, is_set,
-								tmp_inverse_mincard, tmp_inverse_maxcard));
-				state = ENTITY_INVERSE_STATE;
-			}
-			break;
-
-		// 2.5 UNIQUE RESTRICTIONS
-		case ENTITY_UNIQUE:
-			if (txt.equals(":"))
-				state = ENTITY_UNIQUE_TYPE;
-			else if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("WHERE")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			}
-			break;
-
-		case ENTITY_UNIQUE_TYPE:
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("WHERE")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else {
-				if (!txt.contains(",")) {
-					String unique_attribute = txt
-							.substring(0, txt.length() - 1);
-
-					for (int j = 0; j < current_entity.getAttributes().size(); j++) {
-						AttributeVO ao = current_entity.getAttributes().get(j);
-						if (ao.getName().equals(unique_attribute)) {
-							ao.setUnique(true);
-						}
-					}
-				}
-				state = ENTITY_UNIQUE;
-			}
-			break;
-
-		// 2.6 UNHANLDED WHERE AND DERIVE LINES
-		case ENTITY_WHERE:
-			// not parsed
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			}
-			break;
-
-		case ENTITY_DERIVE:
-			// not parsed
-			if (txt.equalsIgnoreCase("END_ENTITY;")) {
-				state = INIT_STATE;
-			} else if (txt.equalsIgnoreCase("SUBTYPE")) {
-				state = ENTITY_SUBTYPE_STATE;
-			} else if (txt.equalsIgnoreCase("INVERSE")) {
-				state = ENTITY_INVERSE_STATE;
-			}
-			break;
-
-		default:
-			// Do nothing
-		}
-	}
-
-	static public String filter_extras(String txt) {
+	static public String filter_extras(CharSequence txt) {
 		StringBuffer sb = new StringBuffer();
 		for (int n = 0; n < txt.length(); n++) {
 			char ch = txt.charAt(n);
@@ -1076,7 +684,7 @@ public class ExpressReader {
 		return sb.toString();
 	}
 	
-	static public String filter_PTypeExtras(String txt) {
+	static public String filter_PTypeExtras(CharSequence txt) {
 		StringBuffer sb = new StringBuffer();
 		for (int n = 0; n < txt.length(); n++) {
 			char ch = txt.charAt(n);
@@ -1116,15 +724,13 @@ public class ExpressReader {
 		return sb.toString();
 	}
 
-	private void parse_level(String txt) {
-		StringTokenizer st = new StringTokenizer(txt);
-		while (st.hasMoreTokens()) {
-			state_machine(st.nextToken());
-		}
+	public static boolean isAllUpper(String s) {
+		return isAllUpper(s, s.length());
 	}
 
-	public static boolean isAllUpper(String s) {
-		for (char c : s.toCharArray()) {
+	static boolean isAllUpper(CharSequence s, int length) {
+		for (int n = 0; n < length; n++) {
+			char c = s.charAt(n);
 			if (Character.isLetter(c) && Character.isLowerCase(c)) {
 				return false;
 			}
@@ -1133,6 +739,23 @@ public class ExpressReader {
 	}
 
 	// ACCESSORS
+	public SchemaContext getContext() {
+		return context;
+	}
+
+	public ConversionDiagnostics getDiagnostics() {
+		return diagnostics;
+	}
+
+	public boolean isParallelParse() {
+		return parallelParse;
+	}
+
+	// parses the TYPE and ENTITY blocks of the schema on the common ForkJoinPool
+	public void setParallelParse(boolean parallelParse) {
+		this.parallelParse = parallelParse;
+	}
+
 	public Map<String, TypeVO> getTypes() {
 		return types;
 	}
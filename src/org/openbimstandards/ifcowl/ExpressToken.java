@@ -0,0 +1,126 @@
+package org.openbimstandards.ifcowl;
+
+import java.nio.ByteBuffer;
+
+/*
+ * ExpressToken is a view on one whitespace separated token of an EXPRESS schema.
+ * It only holds an offset and a length into the buffer of the ExpressLexer, and it is
+ * reused for every token, so no String is created unless toString() is called.
+ *
+ * EXPRESS schemas are plain ASCII, so every byte is interpreted as one character.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public final class ExpressToken implements CharSequence {
+
+	private final ByteBuffer buffer;
+	private int offset;
+	private int length;
+
+	ExpressToken(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	void set(int offset, int length) {
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public int offset() {
+		return offset;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (buffer.get(offset + index) & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString(start, end);
+	}
+
+	public boolean contentEquals(String s) {
+		if (s.length() != length)
+			return false;
+		for (int n = 0; n < length; n++) {
+			if (charAt(n) != s.charAt(n))
+				return false;
+		}
+		return true;
+	}
+
+	public boolean equalsIgnoreCase(String s) {
+		if (s.length() != length)
+			return false;
+		for (int n = 0; n < length; n++) {
+			char a = charAt(n);
+			char b = s.charAt(n);
+			if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b))
+				return false;
+		}
+		return true;
+	}
+
+	public boolean startsWith(String prefix) {
+		if (prefix.length() > length)
+			return false;
+		for (int n = 0; n < prefix.length(); n++) {
+			if (charAt(n) != prefix.charAt(n))
+				return false;
+		}
+		return true;
+	}
+
+	public boolean startsWith(char ch) {
+		return length > 0 && charAt(0) == ch;
+	}
+
+	public boolean endsWith(char ch) {
+		return length > 0 && charAt(length - 1) == ch;
+	}
+
+	public int indexOf(char ch) {
+		for (int n = 0; n < length; n++) {
+			if (charAt(n) == ch)
+				return n;
+		}
+		return -1;
+	}
+
+	public boolean contains(char ch) {
+		return indexOf(ch) >= 0;
+	}
+
+	public String toString(int start, int end) {
+		char[] chars = new char[end - start];
+		for (int n = start; n < end; n++)
+			chars[n - start] = charAt(n);
+		return new String(chars);
+	}
+
+	@Override
+	public String toString() {
+		return toString(0, length);
+	}
+}
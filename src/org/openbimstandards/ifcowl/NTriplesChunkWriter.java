@@ -0,0 +1,250 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+
+import org.apache.jena.atlas.io.AWriter;
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFormatter;
+import org.apache.jena.riot.out.NodeFormatterNT;
+import org.apache.jena.sparql.core.Quad;
+
+/*
+ * NTriplesChunkWriter writes a stream of triples as N-Triples, or as N-Quads in one named
+ * graph, into rolling files of a bounded size: name-00000.nt, name-00001.nt, ... The
+ * triples are collected in memory, and a chunk is cut only at the end of a block, so
+ * that all the triples of a blank node are in the same file even for a loader that
+ * reads every file on its own. A chunk is as large as chunkSize, or as its only block.
+ *
+ * The usage:
+ * NTriplesChunkWriter writer = new NTriplesChunkWriter(new File("out"), "IFC4", 64 << 20, null, 4);
+ * try {
+ *     ow.outputNTriples(writer);
+ * } finally {
+ *     writer.close();
+ * }
+ * List<File> chunks = writer.getChunks();
+ *
+ * The chunks are written on their own threads while the next ones are being filled,
+ * with at most two chunks per thread in memory. A chunk is written as name-00000.nt.tmp
+ * and renamed when it is complete, so a bulk loader can take every .nt file that it
+ * finds while the conversion goes on. The blank nodes keep the labels of the stream,
+ * which OWLWriter.outputNTriples makes unique for the schema, like _:IFC4_b12.
+ *
+ * The chunks of an earlier run with the same name, .nt or .nq and complete or not, are
+ * deleted when the writer is made, so that the directory holds only the chunks of this
+ * run, even when it has fewer of them.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class NTriplesChunkWriter implements BlockStream, Closeable {
+
+	// the text of the chunk that is being filled
+	private static class Chunk extends ByteArrayOutputStream {
+		Chunk(int size) {
+			super(size);
+		}
+
+		void copyTo(Chunk chunk, int start) {
+			chunk.write(buf, start, count - start);
+		}
+
+		void writeTo(OutputStream os, int end) throws IOException {
+			os.write(buf, 0, end);
+		}
+	}
+
+	// writes the labels of the blank nodes as they are, not encoded like Jena does
+	private static final NodeFormatter FORMATTER = new NodeFormatterNT() {
+		@Override
+		public void formatBNode(AWriter w, String label) {
+			w.print("_:");
+			w.print(label);
+		}
+	};
+
+	private final File directory;
+	private final String name;
+	private final String extension;
+	private final int chunkSize;
+	private final Node graph;
+	private final ExecutorService writers;
+	private final Semaphore inMemory;
+	private final List<Future<File>> written = new ArrayList<Future<File>>();
+	private List<File> chunks = null;
+
+	private Chunk chunk;
+	private AWriter out;
+	// the end of the last complete block in the chunk
+	private int blockEnd = 0;
+
+	// graph is the IRI of the named graph of the N-Quads, null for N-Triples
+	public NTriplesChunkWriter(File directory, String name, int chunkSize, String graph, int threads)
+			throws IOException {
+		directory.mkdirs();
+		deleteChunks(directory, name);
+		this.directory = directory;
+		this.name = name;
+		this.extension = graph == null ? ".nt" : ".nq";
+		this.chunkSize = chunkSize;
+		this.graph = graph == null ? null : NodeFactory.createURI(graph);
+		this.writers = Executors.newFixedThreadPool(Math.max(1, threads));
+		this.inMemory = new Semaphore(2 * Math.max(1, threads));
+		newChunk(0);
+	}
+
+	// deletes the chunks that an earlier run left, like name-00012.nt or name-00003.nq.tmp
+	private static void deleteChunks(File directory, String name) throws IOException {
+		Pattern chunk = Pattern.compile(Pattern.quote(name) + "-\\d{5}\\.n[tq](\\.tmp)?");
+		File[] files = directory.listFiles();
+		if (files == null)
+			throw new IOException("not a directory: " + directory);
+		for (File file : files)
+			if (chunk.matcher(file.getName()).matches())
+				Files.delete(file.toPath());
+	}
+
+	private void newChunk(int size) {
+		chunk = new Chunk(Math.max(size, Math.min(chunkSize, 1 << 24)) + 1024);
+		out = IO.wrapUTF8(chunk);
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public void base(String base) {
+	}
+
+	@Override
+	public void prefix(String prefix, String iri) {
+	}
+
+	@Override
+	public void triple(Triple triple) {
+		write(triple.getSubject(), triple.getPredicate(), triple.getObject(), graph);
+	}
+
+	@Override
+	public void quad(Quad quad) {
+		write(quad.getSubject(), quad.getPredicate(), quad.getObject(),
+				quad.isDefaultGraph() ? graph : quad.getGraph());
+	}
+
+	private void write(Node subject, Node predicate, Node object, Node graph) {
+		FORMATTER.format(out, subject);
+		out.print(' ');
+		FORMATTER.format(out, predicate);
+		out.print(' ');
+		FORMATTER.format(out, object);
+		if (graph != null) {
+			out.print(' ');
+			FORMATTER.format(out, graph);
+		}
+		out.print(" .\n");
+	}
+
+	@Override
+	public void finish() {
+	}
+
+	// the next chunk can begin after the triples so far
+	@Override
+	public void endBlock() throws IOException {
+		out.flush();
+		if (chunk.size() > chunkSize && blockEnd > 0)
+			cut(blockEnd);
+		blockEnd = chunk.size();
+	}
+
+	// hands the text up to the end to a writer thread and keeps the rest for the next chunk
+	private void cut(int end) throws IOException {
+		try {
+			inMemory.acquire();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+		final Chunk full = chunk;
+		final File file = new File(directory, String.format("%s-%05d%s", name, written.size(), extension));
+		newChunk(full.size() - end);
+		full.copyTo(chunk, end);
+		written.add(writers.submit(() -> {
+			try {
+				File tmp = new File(file.getPath() + ".tmp");
+				OutputStream os = new FileOutputStream(tmp);
+				try {
+					full.writeTo(os, end);
+				} finally {
+					os.close();
+				}
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				return file;
+			} finally {
+				inMemory.release();
+			}
+		}));
+	}
+
+	// the files of the chunks, in order, once the writer is closed
+	public List<File> getChunks() {
+		return chunks;
+	}
+
+	// writes the last chunk and waits until all the chunks are in their files
+	public void close() throws IOException {
+		if (chunks != null)
+			return;
+		try {
+			out.flush();
+			if (chunk.size() > 0)
+				cut(chunk.size());
+			List<File> files = new ArrayList<File>();
+			for (Future<File> file : written)
+				files.add(file.get());
+			chunks = files;
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} finally {
+			writers.shutdown();
+		}
+	}
+}
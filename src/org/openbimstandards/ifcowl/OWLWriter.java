@@ -1,19 +1,37 @@
 package org.openbimstandards.ifcowl;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Map.Entry;
-
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.core.Quad;
 import org.openbimstandards.ifcowl.vo.AttributeVO;
 import org.openbimstandards.ifcowl.vo.EntityVO;
 import org.openbimstandards.ifcowl.vo.NamedIndividualVO;
@@ -27,9 +45,29 @@ import fi.ni.rdf.Namespace;
  * OWLWriter writes .ttl files representing OWL ontologies, thereby relying on the in-memory EXPRESS model that is parsed by the ExpressReader class.
  * 
  * The usage:
- * OWLWriter ow = new OWLWriter(expressSchemaName, entities, types, siblings);
+ * OWLWriter ow = new OWLWriter(context, expressSchemaName, entities, types, siblings, enumIndividuals, properties);
+ *
+ * The namespace of the ontology and the primary types are taken from the SchemaContext
+ * that was used by the ExpressReader.
  * 
- *  - outputOWL() - writes the OWL ontology in TTL files in appropriate 'schema' package
+ *  - outputOWL(filePath) - writes the OWL ontology in TTL, RDF/XML and RDF Thrift files in appropriate 'schema' package, from one stream of triples
+ *  - outputOWL(filePath, pool) - the same, with the TTL rendered on the threads of a ForkJoinPool
+ *  - outputOWL(sink) - streams the triples of the OWL ontology to a Jena StreamRDF
+ *  - outputTurtle(file) - writes the Turtle as it is rendered, through a pooled direct buffer into a FileChannel
+ *  - outputTurtle(file, pool) - the same bytes, rendered in shards on the threads of a ForkJoinPool
+ *  - outputNTriples(writer) - streams the triples into the rolling N-Triples files of a NTriplesChunkWriter
+ *  - getGraph() - a read-only Jena Graph of the ontology that renders its triples only when they are queried
+ *
+ * With setCanonical(true) the output is sorted by name instead of following the hash
+ * maps of the ExpressReader, and with setDate(date) it has a fixed dce:date, so that the
+ * same schema gives the same bytes in every run and two versions of a schema can be
+ * compared block by block.
+ *
+ * The triples are made straight from the model by the emit methods, through a
+ * TripleOutput, and every output is made from them: the Turtle is rendered from the
+ * triples by a TurtleStreamWriter as UTF-8 bytes into a TurtleOutput, so a change to an
+ * emit method changes all the outputs alike. Only the EXPRESS ontology of
+ * outputExpressOWL is written as Turtle text.
  *   
  * @author Jyrki Oraskari
  * @author of modifications Pieter Pauwels (pipauwel.pauwels@ugent.be / pipauwel@gmail.com)
@@ -56,23 +94,42 @@ import fi.ni.rdf.Namespace;
 
 public class OWLWriter {
 
+	// the shards that a thread renders in outputTurtle(file, pool)
+	private static final int SHARDS_PER_THREAD = 4;
+
+	// the triples of a part of the ontology, given straight to a TripleOutput
+	private interface Emitter {
+		void emit(TripleOutput out);
+	}
+
 	private String expressSchemaName;
+	private SchemaContext context;
 
 	private Map<String, EntityVO> entities = new HashMap<String, EntityVO>();
 	private Map<String, PropertyVO> properties = new HashMap<String, PropertyVO>();
 	private Map<String, TypeVO> types = new HashMap<String, TypeVO>();
 	private Map<String, Set<String>> siblings = new HashMap<String, Set<String>>();
 	private List<NamedIndividualVO> enumIndividuals = new ArrayList<NamedIndividualVO>();
-	private List<String> listPropertiesOutput = new ArrayList<String>();
+
+	private boolean canonical = false;
+	private String date = null;
+	// the canonical order, built once: the emitters of the blocks, their keys and the
+	// sorted siblings
+	private List<Emitter> sortedEmitters;
+	private List<String> blockKeys;
+	private Map<String, Set<String>> sortedSiblings;
+	private Map<String, long[]> blockRanges = new LinkedHashMap<String, long[]>();
 
 	public OWLWriter() {
 		// UNUSED
 	}
 
-	public OWLWriter(String expressSchemaName, Map<String, EntityVO> entities,
-			Map<String, TypeVO> types, Map<String, Set<String>> siblings,
+	public OWLWriter(SchemaContext context, String expressSchemaName,
+			Map<String, EntityVO> entities, Map<String, TypeVO> types,
+			Map<String, Set<String>> siblings,
 			List<NamedIndividualVO> enumIndividuals,
 			Map<String, PropertyVO> properties) {
+		this.context = context;
 		this.expressSchemaName = expressSchemaName;
 		this.entities = entities;
 		this.types = types;
@@ -80,245 +137,355 @@ public class OWLWriter {
 		this.enumIndividuals = enumIndividuals;
 		this.properties = properties;
 	}	
+
+	// with canonical, the blocks are written sorted by name, and so are the disjoint
+	// siblings of the entities, so that the same schema always gives the same bytes
+	public void setCanonical(boolean canonical) {
+		this.canonical = canonical;
+	}
+
+	// the dce:date of the ontology, like 2016/01/31; when it is not set, the day of the
+	// SOURCE_DATE_EPOCH environment variable (in UTC) or today is used
+	public void setDate(String date) {
+		this.date = date;
+	}
+
+	// the byte ranges { start, end } of the blocks in the .ttl of the last canonical
+	// outputTurtle or outputOWL(filePath), with or without a pool, by key:
+	// individual:NAME/EnumName, type:Name, entity:Name and property:name; a changed block
+	// can be found and replaced without rendering the rest. outputOWL(sink) and
+	// outputNTriples write no Turtle, so they leave the ranges as they are
+	public Map<String, long[]> getBlockRanges() {
+		return blockRanges;
+	}
 	
-	public void outputOWL(String filePath) {
+	// writes filePath.ttl, filePath.rdf and the RDF Thrift snapshot filePath.rt from one
+	// stream of triples, through an OntologyFileSink; the .ttl has the same bytes as that
+	// of outputTurtle. false when a file could not be written
+	public boolean outputOWL(String filePath) {
+		return outputOWL(filePath, null);
+	}
+
+	// the same, with the .ttl rendered in shards on the threads of the pool, like
+	// outputTurtle(file, pool); null for no pool
+	public boolean outputOWL(String filePath, ForkJoinPool pool) {
 		try {
-			BufferedWriter out = new BufferedWriter(new FileWriter(filePath + ".ttl"));
-			out.write("@base <" + Namespace.IFC + "> .\r\n");
-			out.write("@prefix : <" + Namespace.IFC + "#> .\r\n");
-			out.write("@prefix ifc: <" + Namespace.IFC + "#> .\r\n");
-			out.write(getOwl_header());
-
-//			writePrimaryTypes(out);
-			writeNamedIndividuals(out);
-//			writeHelperClasses(out);
-
-			Iterator<Entry<String, TypeVO>> it_type = types.entrySet()
-					.iterator();
-			writeTypesToOWL(it_type, out);
-			
-			Iterator<Entry<String, EntityVO>> it = entities.entrySet().iterator();
-			writeEntitiesToOWL(it, out);
-
-			for (Map.Entry<String, PropertyVO> entry : properties.entrySet()) {
-				PropertyVO property = entry.getValue();
-				outputOWLproperty(out, property);
+			File ttl = new File(filePath + ".ttl");
+			OntologyFileSink sink = new OntologyFileSink(pool == null ? ttl : null, new File(filePath + ".rdf"),
+					new File(filePath + ".rt"));
+			try {
+				if (pool == null) {
+					TripleOutput out = new TripleOutput(sink, context.getNamespace() + "#", "");
+					out.setWarnings(true);
+					sink.start();
+					emitBlocks(out, sink);
+					sink.finish();
+				} else
+					outputTurtle(ttl, sink, pool);
+			} finally {
+				sink.close();
 			}
-			
-			out.close();
+			if (pool == null && canonical)
+				setBlockRanges(sink.getBlockStarts(), ttl.length());
+			return true;
+		} catch (IOException | RuntimeIOException e) {
+			// the writers of the stream give their IOException as a RuntimeIOException
+			e.printStackTrace();
+			return false;
+		}
+	}
 
+	// streams the triples of the ontology to the sink, made straight from the model without
+	// any Turtle text; the blank nodes are labeled in order, like _:b12. A BlockStream is
+	// told where every block begins
+	public void outputOWL(StreamRDF sink) {
+		TripleOutput out = new TripleOutput(sink, context.getNamespace() + "#", "");
+		out.setWarnings(true);
+		sink.start();
+		try {
+			emitBlocks(out, sink instanceof BlockStream ? (BlockStream) sink : null);
 		} catch (IOException e) {
-			e.printStackTrace();
+			IO.exception(e);
 		}
+		sink.finish();
 	}
-	
-	public void outputExpressOWL(String filePath){
+
+	// the triples of the header and then of every block; blocks, when it is not null, is
+	// told where every block begins
+	private void emitBlocks(TripleOutput out, BlockStream blocks) throws IOException {
+		emitHeader(out);
+		for (Emitter emitter : getEmitters()) {
+			if (blocks != null)
+				blocks.endBlock();
+			emitter.emit(out);
+		}
+	}
+
+	// the emitters of the blocks, in the canonical order or in that of the maps
+	private List<Emitter> getEmitters() {
+		if (canonical) {
+			buildIndex();
+			return sortedEmitters;
+		}
+		List<Emitter> emitters = new ArrayList<Emitter>();
+		for (NamedIndividualVO ni : enumIndividuals)
+			emitters.add(out -> emitNamedIndividual(ni, out));
+		for (TypeVO tvo : types.values())
+			emitters.add(out -> emitType(tvo, out));
+		for (EntityVO evo : entities.values())
+			emitters.add(out -> emitEntity(evo, false, out));
+		for (PropertyVO property : properties.values())
+			emitters.add(out -> emitProperty(property, out));
+		return emitters;
+	}
+
+	// streams the triples of the ontology to the writer block by block, so that the writer
+	// can begin a new chunk between two blocks; the blank nodes of a block never leave it,
+	// and they are labeled with the name of the schema, like _:IFC4_b12
+	public void outputNTriples(NTriplesChunkWriter writer) throws IOException {
+		TripleOutput out = new TripleOutput(writer, context.getNamespace() + "#", expressSchemaName + "_");
+		out.setWarnings(true);
+		writer.start();
+		emitBlocks(out, writer);
+		writer.endBlock();
+		writer.finish();
+	}
+
+	// a read-only Jena graph of the ontology that makes the triples from the model only
+	// when they are asked for, with the same triples as outputOWL in the canonical order
+	public OntologyGraph getGraph() {
+		buildIndex();
+		return new OntologyGraph((block, out) -> {
+			if (block == 0)
+				emitHeader(out);
+			else
+				sortedEmitters.get(block - 1).emit(out);
+		}, sortedEmitters.size() + 1, context.getNamespace() + "#");
+	}
+
+	// writes the ontology as Turtle, rendered from its triples by a TurtleStreamWriter
+	// straight into the file
+	public void outputTurtle(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			TurtleOutput out = new TurtleOutput(channel);
+			try {
+				TurtleStreamWriter writer = new TurtleStreamWriter(out);
+				TripleOutput triples = new TripleOutput(writer, context.getNamespace() + "#", "");
+				triples.setWarnings(true);
+				writer.start();
+				emitBlocks(triples, writer);
+				writer.finish();
+			} finally {
+				out.close();
+			}
+			if (canonical)
+				setBlockRanges(out.getBlockStarts(), out.getWritten());
+		} finally {
+			channel.close();
+		}
+	}
+
+	// writes the same Turtle as outputTurtle(file): the triples are made in order, and the
+	// blocks are rendered in shards on the threads of the pool, so the bytes are the same
+	// for any number of threads
+	public void outputTurtle(File file, ForkJoinPool pool) throws IOException {
+		outputTurtle(file, StreamRDFLib.sinkNull(), pool);
+	}
+
+	// the same, while the triples are given to the sink as well
+	private void outputTurtle(File file, StreamRDF sink, ForkJoinPool pool) throws IOException {
+		TurtleOutput header = new TurtleOutput();
+		BlockCollector collector = new BlockCollector(sink, new TurtleStreamWriter(header));
 		try {
-			BufferedWriter out = new BufferedWriter(new FileWriter(filePath + ".ttl"));
-			out.write("@base <" + Namespace.EXPRESS + "> .\r\n");
-			out.write("@prefix : <" + Namespace.EXPRESS + "#> .\r\n");
-			out.write("@prefix expr: <" + Namespace.EXPRESS + "#> .\r\n");
-			out.write(getExpressOwl_header());
-
-			writePrimaryTypes(out);
-			writeHelperClasses(out);
-			
+			TripleOutput triples = new TripleOutput(collector, context.getNamespace() + "#", "");
+			triples.setWarnings(true);
+			collector.start();
+			emitBlocks(triples, collector);
+			collector.finish();
+		} finally {
+			header.close();
+		}
+
+		List<List<Triple>> blocks = collector.blocks;
+		Map<String, String> prefixes = collector.header.getPrefixes();
+		int shardCount = Math.max(1, Math.min(blocks.size(), SHARDS_PER_THREAD * pool.getParallelism()));
+		List<ForkJoinTask<TurtleOutput>> tasks = new ArrayList<ForkJoinTask<TurtleOutput>>();
+		List<TurtleOutput> shards = new ArrayList<TurtleOutput>();
+		shards.add(header);
+		try {
+			for (int n = 0; n < shardCount; n++) {
+				List<List<Triple>> shard = blocks.subList(n * blocks.size() / shardCount,
+						(n + 1) * blocks.size() / shardCount);
+				tasks.add(pool.submit(() -> render(shard, prefixes)));
+			}
+			for (ForkJoinTask<TurtleOutput> task : tasks)
+				shards.add(task.get());
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		} finally {
+			for (ForkJoinTask<TurtleOutput> task : tasks)
+				task.cancel(false);
+		}
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			long[] starts = TurtleOutput.writeShards(shards, channel);
+			if (canonical)
+				setBlockRanges(starts, channel.size());
+		} finally {
+			channel.close();
+		}
+	}
+
+	// the Turtle of the blocks of a shard, as the writer of the whole file renders them
+	private static TurtleOutput render(List<List<Triple>> blocks, Map<String, String> prefixes) throws IOException {
+		TurtleOutput out = new TurtleOutput();
+		try {
+			TurtleStreamWriter writer = new TurtleStreamWriter(out, prefixes);
+			for (List<Triple> block : blocks) {
+				writer.endBlock();
+				for (Triple triple : block)
+					writer.triple(triple);
+			}
+			writer.finish();
+		} finally {
 			out.close();
+		}
+		return out;
+	}
 
-		} catch (IOException e) {
-			e.printStackTrace();
+	// gives the triples to the sink, renders the header of the ontology with its own
+	// writer, and keeps the triples of every block after it to be rendered on the pool
+	private static class BlockCollector implements BlockStream {
+		private final StreamRDF sink;
+		private final TurtleStreamWriter header;
+		private final List<List<Triple>> blocks = new ArrayList<List<Triple>>();
+		private List<Triple> block = null;
+
+		BlockCollector(StreamRDF sink, TurtleStreamWriter header) {
+			this.sink = sink;
+			this.header = header;
+		}
+
+		@Override
+		public void start() {
+			sink.start();
+			header.start();
+		}
+
+		@Override
+		public void base(String base) {
+			sink.base(base);
+			header.base(base);
+		}
+
+		@Override
+		public void prefix(String prefix, String iri) {
+			sink.prefix(prefix, iri);
+			header.prefix(prefix, iri);
+		}
+
+		@Override
+		public void triple(Triple triple) {
+			sink.triple(triple);
+			if (block == null)
+				header.triple(triple);
+			else
+				block.add(triple);
+		}
+
+		@Override
+		public void quad(Quad quad) {
+			triple(quad.asTriple());
+		}
+
+		@Override
+		public void endBlock() {
+			if (block == null)
+				header.finish();
+			block = new ArrayList<Triple>();
+			blocks.add(block);
+		}
+
+		@Override
+		public void finish() {
+			if (block == null)
+				header.finish();
+			sink.finish();
 		}
 	}
 
-	private void outputOWLproperty(BufferedWriter out, PropertyVO property) {
+	// sorts the named individuals, types, entities, properties and siblings by name
+	private void buildIndex() {
+		if (sortedEmitters != null)
+			return;
+		List<Emitter> emitters = new ArrayList<Emitter>();
+		List<String> keys = new ArrayList<String>();
+		List<NamedIndividualVO> individuals = new ArrayList<NamedIndividualVO>(enumIndividuals);
+		Collections.sort(individuals, Comparator.comparing(NamedIndividualVO::getNamedIndividual)
+				.thenComparing(NamedIndividualVO::getEnumName)
+				.thenComparing(NamedIndividualVO::getOriginalNameOfIndividual));
+		for (NamedIndividualVO ni : individuals) {
+			emitters.add(out -> emitNamedIndividual(ni, out));
+			keys.add("individual:" + ni.getNamedIndividual() + "/" + ni.getEnumName());
+		}
+		for (TypeVO tvo : new TreeMap<String, TypeVO>(types).values()) {
+			emitters.add(out -> emitType(tvo, out));
+			keys.add("type:" + tvo.getName());
+		}
+		for (EntityVO evo : new TreeMap<String, EntityVO>(entities).values()) {
+			emitters.add(out -> emitEntity(evo, true, out));
+			keys.add("entity:" + evo.getName());
+		}
+		for (PropertyVO property : new TreeMap<String, PropertyVO>(properties).values()) {
+			emitters.add(out -> emitProperty(property, out));
+			keys.add("property:" + property.getName());
+		}
+		Map<String, Set<String>> sorted = new HashMap<String, Set<String>>();
+		for (Map.Entry<String, Set<String>> entry : siblings.entrySet())
+			sorted.put(entry.getKey(), new TreeSet<String>(entry.getValue()));
+		sortedSiblings = sorted;
+		blockKeys = keys;
+		sortedEmitters = emitters;
+	}
+
+	private void setBlockRanges(long[] starts, long end) {
+		blockRanges = new LinkedHashMap<String, long[]>();
+		for (int n = 0; n < starts.length; n++)
+			blockRanges.put(blockKeys.get(n), new long[] { starts[n], n + 1 < starts.length ? starts[n + 1] : end });
+	}
+
+	public void outputExpressOWL(String filePath){
 		try {
-			if (property.isList() || property.isArray()) {
-					out.write("ifc:" + property.getLowerCaseName() + "\r\n");
-					out.write("\trdfs:label \"" + property.getOriginalName()//getOriginalNameLowerCase()
-							+ "\" ;\r\n");
-					out.write("\trdfs:domain ifc:" + property.getDomain().getName()
-							+ " ;\r\n");
-	
-					// range
-					if (property.isListOfList())
-						out.write("\trdfs:range "+property.getRangeNS()+":" + property.getRange()
-								+ "_List_List ;\r\n");
-					else if (property.isSet())
-						out.write("\trdfs:range "+property.getRangeNS()+":" + property.getRange()
-								+ " ;\r\n");
-					else
-						out.write("\trdfs:range "+property.getRangeNS()+":" + property.getRange()
-								+ "_List ;\r\n");
-	
-					// inverse
-					if (property.getInverseProperty() != null)
-						out.write("\towl:inverseOf ifc:"
-								+ property.getInverseProperty().getLowerCaseName()
-								+ " ;\r\n");
-					
-					// typesetting
-					if (!property.isSet())
-						out.write("\trdf:type owl:FunctionalProperty, owl:ObjectProperty .\r\n\r\n");
-					else
-						out.write("\trdf:type owl:ObjectProperty .\r\n\r\n");
-
-					if(!property.getRangeNS().equalsIgnoreCase("expr")){						
-						// write List range if necessary
-						if (!property.isSet()) {
-							if (property.isListOfList()) {
-								if (!listPropertiesOutput.contains(property.getRange()
-										+ "_List")) {
-									// property not already contained in resulting OWL file
-									// (.TTL) -> no need to write additional property
-								
-									listPropertiesOutput.add(property.getRange()
-											+ "_List");
-		
-									out.write(property.getRangeNS()+":" + property.getRange() + "_List_EmptyList" + "\r\n");
-									out.write("\trdf:type owl:Class ;" + "\r\n");
-									out.write("\trdfs:subClassOf list:EmptyList, "+property.getRangeNS()+":" + property.getRange() + "_List_List"+" ." + "\r\n" + "\r\n");
-																	
-									out.write(property.getRangeNS()+":" + property.getRange()
-											+ "_List_List" + "\r\n");
-									out.write("\trdf:type owl:Class ;" + "\r\n");
-									out.write("\trdfs:subClassOf list:OWLList ;" + "\r\n");								
-									
-									out.write("\trdfs:subClassOf" + "\r\n");
-									out.write("\t\t[" + "\r\n");
-									out.write("\t\t\trdf:type owl:Restriction ;"
-											+ "\r\n");
-									out.write("\t\t\towl:onProperty list:hasContents ;"
-											+ "\r\n");
-									out.write("\t\t\towl:allValuesFrom "+property.getRangeNS()+":"
-											+ property.getRange() + "_List" + "\r\n");
-									out.write("\t\t] ;" + "\r\n");
-									
-	//								out.write("\trdfs:subClassOf" + "\r\n");
-	//								out.write("\t\t[" + "\r\n");
-	//								out.write("\t\t\trdf:type owl:Restriction ;"
-	//										+ "\r\n");
-	//								out.write("\t\t\towl:onProperty list:hasContents ;"
-	//										+ "\r\n");
-	//								out.write("\t\t\towl:someValuesFrom "+property.getRangeNS()+":"
-	//										+ property.getRange() + "_List" + "\r\n");
-	//								out.write("\t\t] ;" + "\r\n");
-									
-									out.write("\trdfs:subClassOf" + "\r\n");
-									out.write("\t\t[" + "\r\n");
-									out.write("\t\t\trdf:type owl:Restriction ;"
-											+ "\r\n");
-									out.write("\t\t\towl:onProperty list:isFollowedBy ;"
-											+ "\r\n");	
-									out.write("\t\t\towl:allValuesFrom "+property.getRangeNS()+":" + property.getRange() + "_List_List\r\n");
-									out.write("\t\t] ;" + "\r\n");
-									
-									out.write("\trdfs:subClassOf" + "\r\n");
-									out.write("\t\t[" + "\r\n");
-									out.write("\t\t\trdf:type owl:Restriction ;"
-											+ "\r\n");
-									out.write("\t\t\towl:onProperty list:hasNext ;"
-											+ "\r\n");
-									out.write("\t\t\towl:allValuesFrom "+property.getRangeNS()+":" + property.getRange() + "_List_List\r\n");
-									out.write("\t\t] ." + "\r\n\r\n");
-								}
-							}
-		
-							if (!listPropertiesOutput.contains(property.getRange())) {
-								// property not already contained in resulting OWL file
-								// (.TTL)
-								// -> no need to write additional property
-							
-								listPropertiesOutput.add(property.getRange());
-								
-								String ns = "ifc";
-								//check namespace of range
-								if(property.getRange().equalsIgnoreCase("NUMBER") || property.getRange().equalsIgnoreCase("REAL") || 
-										property.getRange().equalsIgnoreCase("INTEGER") || property.getRange().equalsIgnoreCase("LOGICAL") || 
-										property.getRange().equalsIgnoreCase("BOOLEAN") || property.getRange().equalsIgnoreCase("STRING") || 
-										property.getRange().equalsIgnoreCase("BINARY"))
-									ns="expr";
-		
-								out.write(property.getRangeNS()+":" + property.getRange() + "_EmptyList" + "\r\n");
-								out.write("\trdf:type owl:Class ;" + "\r\n");
-								out.write("\trdfs:subClassOf list:EmptyList, "+property.getRangeNS()+":" + property.getRange() + "_List"+" ." + "\r\n" + "\r\n");							
-							
-								out.write(property.getRangeNS()+":" + property.getRange() + "_List"
-										+ "\r\n");
-								out.write("\trdf:type owl:Class ;" + "\r\n");
-								out.write("\trdfs:subClassOf list:OWLList ;" + "\r\n");
-								
-	//							out.write("\trdfs:subClassOf" + "\r\n");
-	//							out.write("\t\t[" + "\r\n");
-	//							out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-	//							out.write("\t\t\towl:onProperty list:hasContents ;"
-	//									+ "\r\n");
-	//							out.write("\t\t\towl:someValuesFrom "
-	//									+ ns + ":"
-	//									+ property.getRange() + "\r\n");
-	//							out.write("\t\t] ;" + "\r\n");
-								
-								out.write("\trdfs:subClassOf" + "\r\n");
-								out.write("\t\t[" + "\r\n");
-								out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-								out.write("\t\t\towl:onProperty list:hasContents ;"
-										+ "\r\n");
-								out.write("\t\t\towl:allValuesFrom "
-										+ ns + ":"
-										+ property.getRange() + "\r\n");
-								out.write("\t\t] ;" + "\r\n");
-								
-								out.write("\trdfs:subClassOf" + "\r\n");
-								out.write("\t\t[" + "\r\n");
-								out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-								out.write("\t\t\towl:onProperty list:isFollowedBy ;"
-										+ "\r\n");
-								out.write("\t\t\towl:allValuesFrom "+property.getRangeNS()+":" + property.getRange() + "_List\r\n");
-								out.write("\t\t] ;" + "\r\n");
-								
-								out.write("\trdfs:subClassOf" + "\r\n");
-								out.write("\t\t[" + "\r\n");
-								out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-								out.write("\t\t\towl:onProperty list:hasNext ;" + "\r\n");
-								out.write("\t\t\towl:allValuesFrom "+property.getRangeNS()+":" + property.getRange() + "_List\r\n");
-								out.write("\t\t] ." + "\r\n\r\n");
-							}
-						} else {
-							// do nothing additional for a set
-						}
-					
-					return;
-					}
-
-			} else {				
-					out.write("ifc:" + property.getLowerCaseName() + "\r\n");
-					out.write("\trdfs:label \"" + property.getOriginalName()//getOriginalNameLowerCase()
-							+ "\" ;\r\n");
-					out.write("\trdfs:domain ifc:" + property.getDomain().getName()
-							+ " ;\r\n");
-					out.write("\trdfs:range "+property.getRangeNS()+":" + property.getRange() + " ;\r\n");
-					if (property.getInverseProperty() != null)
-						out.write("\towl:inverseOf ifc:"
-								+ property.getInverseProperty().getLowerCaseName()
-								+ " ;\r\n");
-					if (property.isSet() && property.getMaxCardinality() != 1) {
-						// System.out.println("Set Prop found : " +
-						// property.getName()
-						// + " - " + property.getMinCardinality() + " - "
-						// + property.getMaxCardinality());
-						out.write("\trdf:type owl:ObjectProperty .\r\n\r\n");
-					} else
-						out.write("\trdf:type owl:FunctionalProperty, owl:ObjectProperty .\r\n\r\n");
-				
-				return;
+			FileChannel channel = FileChannel.open(new File(filePath + ".ttl").toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			TurtleOutput out = new TurtleOutput(channel);
+			try {
+				out.write("@base <").name(Namespace.EXPRESS).write("> .\r\n");
+				out.write("@prefix : <").name(Namespace.EXPRESS).write("#> .\r\n");
+				out.write("@prefix expr: <").name(Namespace.EXPRESS).write("#> .\r\n");
+				out.text(getExpressOwl_header());
+
+				writePrimaryTypes(out);
+				writeHelperClasses(out);
+			} finally {
+				out.close();
+				channel.close();
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
-	
-	private void writePrimaryTypes(BufferedWriter out) throws IOException {
+
+	private void writePrimaryTypes(TurtleOutput out) throws IOException {
 		HashMap<String, String> hm = new HashMap<String, String>();
-		for (PrimaryTypeVO pt : PrimaryTypeVO.getListOfPrimaryTypes()) {
+		for (PrimaryTypeVO pt : context.getListOfPrimaryTypes()) {
 //			if (pt.getPTypeName().equalsIgnoreCase("BOOLEAN")) {
 //				out.write("express:" + pt.getPTypeName() + "\r\n");
 //				out.write("\trdf:type owl:Class ;" + "\r\n");
@@ -335,45 +502,43 @@ public class OWLWriter {
 //			} else 
 				if (pt.getPTypeName().equalsIgnoreCase("LOGICAL")) {
 					
-				out.write("expr:" + pt.getPTypeName() + "\r\n");
-				out.write("\trdf:type owl:Class ." + "\r\n" + "\r\n");
-				out.write("\trdfs:subClassOf " + "\r\n");
-				out.write("\t\t[ " + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty expr:hasLogical ;" + "\r\n");
-				out.write("\t\t\towl:allValuesFrom expr:LogicalEnum" + "\r\n");
-				out.write("\t\t] ." + "\r\n" + "\r\n");				
-
-				out.write("expr:LogicalEnum " + "\r\n");
-				out.write("\trdf:type owl:Class ;" + "\r\n");
-				out.write("\trdfs:subClassOf expr:ENUMERATION ." + "\r\n" + "\r\n");
+				out.write("expr:").name(pt.getPTypeName()).write("\r\n");
+				out.write("\trdf:type owl:Class .\r\n\r\n");
+				out.write("\trdfs:subClassOf \r\n");
+				out.write("\t\t[ \r\n");
+				out.write("\t\t\trdf:type owl:Restriction ;\r\n");
+				out.write("\t\t\towl:onProperty expr:hasLogical ;\r\n");
+				out.write("\t\t\towl:allValuesFrom expr:LogicalEnum\r\n");
+				out.write("\t\t] .\r\n\r\n");				
+
+				out.write("expr:LogicalEnum \r\n");
+				out.write("\trdf:type owl:Class ;\r\n");
+				out.write("\trdfs:subClassOf expr:ENUMERATION .\r\n\r\n");
 				
-				out.write("expr:TRUE" + "\r\n");
+				out.write("expr:TRUE\r\n");
 				out.write("\trdfs:label \"TRUE\" ;");
-				out.write("\trdf:type expr:LogicalEnum ;" + "\r\n");
-				out.write("\trdf:type owl:NamedIndividual ." + "\r\n" + "\r\n");
+				out.write("\trdf:type expr:LogicalEnum ;\r\n");
+				out.write("\trdf:type owl:NamedIndividual .\r\n\r\n");
 				
-				out.write("expr:FALSE" + "\r\n");
+				out.write("expr:FALSE\r\n");
 				out.write("\trdfs:label \"FALSE\" ;");
-				out.write("\trdf:type expr:LogicalEnum ;" + "\r\n");
-				out.write("\trdf:type owl:NamedIndividual ." + "\r\n" + "\r\n");
+				out.write("\trdf:type expr:LogicalEnum ;\r\n");
+				out.write("\trdf:type owl:NamedIndividual .\r\n\r\n");
 
-				out.write("expr:UNKNOWN" + "\r\n");
+				out.write("expr:UNKNOWN\r\n");
 				out.write("\trdfs:label \"UNKNOWN\" ;");
-				out.write("\trdf:type expr:LogicalEnum ;" + "\r\n");
-				out.write("\trdf:type owl:NamedIndividual ." + "\r\n" + "\r\n");
+				out.write("\trdf:type expr:LogicalEnum ;\r\n");
+				out.write("\trdf:type owl:NamedIndividual .\r\n\r\n");
 			} else {
-				out.write("expr:" + pt.getPTypeName() + "\r\n");
-				out.write("\trdf:type owl:Class ;" + "\r\n");
-
-				out.write("\trdfs:subClassOf " + "\r\n");
-				out.write("\t\t[ " + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:allValuesFrom xsd:" + pt.getXSDType()
-						+ " ;" + "\r\n");
-				out.write("\t\t\towl:onProperty expr:has" + pt.getXSDType().substring(0, 1).toUpperCase() + pt.getXSDType().substring(1)
-						+ "\r\n");
-				out.write("\t\t] ." + "\r\n" + "\r\n");
+				out.write("expr:").name(pt.getPTypeName()).write("\r\n");
+				out.write("\trdf:type owl:Class ;\r\n");
+
+				out.write("\trdfs:subClassOf \r\n");
+				out.write("\t\t[ \r\n");
+				out.write("\t\t\trdf:type owl:Restriction ;\r\n");
+				out.write("\t\t\towl:allValuesFrom xsd:").name(pt.getXSDType()).write(" ;\r\n");
+				out.write("\t\t\towl:onProperty expr:has").name(pt.getXSDType().substring(0, 1).toUpperCase()).name(pt.getXSDType().substring(1)).write("\r\n");
+				out.write("\t\t] .\r\n\r\n");
 
 				// Added to allow writing multiple primary types that refer to
 				// the same XSD type
@@ -391,609 +556,431 @@ public class OWLWriter {
 		while (it.hasNext()) {
 			Map.Entry<String, String> pairs = (Map.Entry<String, String>) it
 					.next();
-			out.write("expr:has" + pairs.getKey().substring(0, 1).toUpperCase() + pairs.getKey().substring(1) + "\r\n");
-			out.write("\trdf:type owl:DatatypeProperty, owl:FunctionalProperty ;"
-					+ "\r\n");
-			out.write("\trdfs:label \"has" + pairs.getKey().substring(0, 1).toUpperCase() + pairs.getKey().substring(1) + "\" ;" + "\r\n");
-			out.write("\trdfs:range xsd:" + pairs.getKey() + " ;" + "\r\n");
-			out.write("\trdfs:domain " + "\r\n");
-			out.write("\t\t[ " + "\r\n");
-			out.write("\t\t\trdf:type owl:Class ;" + "\r\n");
-			out.write("\t\t\towl:unionOf ( " + pairs.getValue() + " )" + "\r\n");
-			out.write("\t\t] ." + "\r\n" + "\r\n");
+			out.write("expr:has").name(pairs.getKey().substring(0, 1).toUpperCase()).name(pairs.getKey().substring(1)).write("\r\n");
+			out.write("\trdf:type owl:DatatypeProperty, owl:FunctionalProperty ;\r\n");
+			out.write("\trdfs:label \"has").name(pairs.getKey().substring(0, 1).toUpperCase()).name(pairs.getKey().substring(1)).write("\" ;\r\n");
+			out.write("\trdfs:range xsd:").name(pairs.getKey()).write(" ;\r\n");
+			out.write("\trdfs:domain \r\n");
+			out.write("\t\t[ \r\n");
+			out.write("\t\t\trdf:type owl:Class ;\r\n");
+			out.write("\t\t\towl:unionOf ( ").name(pairs.getValue()).write(" )\r\n");
+			out.write("\t\t] .\r\n\r\n");
 			it.remove();
 		}
 	}
 
-	private void writeNamedIndividuals(BufferedWriter out) throws IOException {
-		for (NamedIndividualVO ni : enumIndividuals) {
-			out.write("ifc:" + ni.getNamedIndividual() + "\r\n");
-			out.write("\trdf:type owl:NamedIndividual ;" + "\r\n");
-			out.write("\trdf:type ifc:" + ni.getEnumName() + " ;" + "\r\n");
-			out.write("\trdfs:label \"" + ni.getOriginalNameOfIndividual()
-					+ "\" ." + "\r\n" + "\r\n");
-		}
-	}
-	
-	private void writeHelperClasses(BufferedWriter out) throws IOException {
+	private void writeHelperClasses(TurtleOutput out) throws IOException {
 		// enumeration class
-		out.write("expr:ENUMERATION" + "\r\n");
-		out.write("\trdf:type owl:Class ." + "\r\n\r\n");
+		out.write("expr:ENUMERATION\r\n");
+		out.write("\trdf:type owl:Class .\r\n\r\n");
 
 		// select class
-		out.write("expr:SELECT" + "\r\n");
-		out.write("\trdf:type owl:Class ." + "\r\n\r\n");
+		out.write("expr:SELECT\r\n");
+		out.write("\trdf:type owl:Class .\r\n\r\n");
 		
 		//hasSet object property
-		out.write("expr:hasSet" + "\r\n");
-		out.write("\trdf:type owl:ObjectProperty ;" + "\r\n");
-		out.write("\trdfs:label \"hasSet" + "\" ." + "\r\n" + "\r\n");        
+		out.write("expr:hasSet\r\n");
+		out.write("\trdf:type owl:ObjectProperty ;\r\n");
+		out.write("\trdfs:label \"hasSet\" .\r\n\r\n");        
 	}
 
-	private void writeEntitiesToOWL(Iterator<Entry<String, EntityVO>> it,
-			BufferedWriter out) throws IOException {
-		// out.write("# start writing entity classes\r\n");
-		while (it.hasNext()) {
-			
-			Entry<String, EntityVO> pairs = it.next();
-			EntityVO evo = pairs.getValue();
-
-			// Generate the disjoint set:
-			StringBuffer sibtxt = new StringBuffer();
-			Set<String> sibling_set = this.siblings.get(evo.getName());
-			if (sibling_set != null) {
-				Iterator<String> sib_it = sibling_set.iterator();
-				int ii = 0;
-				while (sib_it.hasNext()) {
-					String sib = sib_it.next().toString();
-					if (!sib.equalsIgnoreCase(evo.getName())) {
-						if (ii > 0)
-							sibtxt.append(",");
-						sibtxt.append(" ifc:");
-						sibtxt.append(sib);
-						ii++;
-					}
-				}
-			}
+	// THE TRIPLES of the blocks, given straight to a TripleOutput, from which every output
+	// of the ontology is made
+
+	private void emitHeader(TripleOutput out) {
+		StreamRDF sink = out.getSink();
+		sink.base(context.getNamespace());
+		sink.prefix("", context.getNamespace() + "#");
+		sink.prefix("ifc", context.getNamespace() + "#");
+		sink.prefix("xsd", Namespace.XSD);
+		sink.prefix("owl", Namespace.OWL);
+		sink.prefix("rdfs", Namespace.RDFS);
+		sink.prefix("dce", Namespace.DCE);
+		sink.prefix("vann", Namespace.VANN);
+		sink.prefix("list", Namespace.LIST);
+		sink.prefix("expr", Namespace.EXPRESS);
+		sink.prefix("cc", Namespace.CC);
+		sink.prefix("rdf", Namespace.RDF);
+
+		Node ontology = NodeFactory.createURI(context.getNamespace());
+		out.triple(ontology, TripleOutput.TYPE, TripleOutput.ONTOLOGY);
+		out.triple(ontology, TripleOutput.COMMENT, TripleOutput.literal(getOntologyComment()));
+		out.triple(ontology, out.dce("creator"), TripleOutput.literal("Pieter Pauwels (pipauwel.pauwels@ugent.be)"));
+		out.triple(ontology, out.dce("creator"), TripleOutput.literal("Walter Terkaj  (walter.terkaj@itia.cnr.it)"));
+		out.triple(ontology, out.dce("date"), TripleOutput.literal(getDate()));
+		out.triple(ontology, out.dce("contributor"), TripleOutput.literal("Aleksandra Sojic (aleksandra.sojic@itia.cnr.it)"));
+		out.triple(ontology, out.dce("contributor"), TripleOutput.literal("Maria Poveda Villalon (mpoveda@fi.upm.es)"));
+		out.triple(ontology, out.dce("contributor"), TripleOutput.literal("Jakob Beetz (j.beetz@tue.nl)"));
+		out.triple(ontology, out.dce("title"), TripleOutput.literal(expressSchemaName));
+		out.triple(ontology, out.dce("description"), TripleOutput.literal("OWL ontology for the IFC conceptual data schema and exchange file format for Building Information Model (BIM) data"));
+		out.triple(ontology, out.dce("identifier"), TripleOutput.literal(expressSchemaName));
+		out.triple(ontology, out.dce("language"), TripleOutput.literal("en"));
+		out.triple(ontology, NodeFactory.createURI(Namespace.VANN + "preferredNamespacePrefix"), TripleOutput.literal("ifc"));
+		out.triple(ontology, NodeFactory.createURI(Namespace.VANN + "preferredNamespaceUri"), TripleOutput.literal(context.getNamespace()));
+		out.triple(ontology, TripleOutput.IMPORTS, NodeFactory.createURI("http://purl.org/voc/express"));
+		out.triple(ontology, NodeFactory.createURI(Namespace.CC + "license"), NodeFactory.createURI("http://creativecommons.org/licenses/by/3.0/"));
+
+		for (String annotation : new String[] { "creator", "description", "date", "contributor", "title", "identifier", "language" })
+			out.triple(out.dce(annotation), TripleOutput.TYPE, TripleOutput.ANNOTATION_PROPERTY);
+	}
 
-			// Write classes
-			out.write("ifc:" + evo.getName() + "\r\n");
-			out.write("\trdf:type owl:Class");
-			if (evo.getSuperclass() != null) {
-				out.write(" ;\r\n");
-				out.write("\trdfs:subClassOf ifc:" + evo.getSuperclass());
-			}
-			
-			//Write select supertypes
-			if(evo.getParentSelectTypes() != null){
-				out.write(" ;\r\n");
-				out.write("\trdfs:subClassOf");
-				for (int i = 0;i<evo.getParentSelectTypes().size();i++){
-					if(i!=evo.getParentSelectTypes().size()-1)
-						out.write(" ifc:" + evo.getParentSelectTypes().get(i).getName() + ",");
-					else
-						out.write(" ifc:" + evo.getParentSelectTypes().get(i).getName());
-				}
-			}
+	private void emitNamedIndividual(NamedIndividualVO ni, TripleOutput out) {
+		Node individual = out.ifc(ni.getNamedIndividual());
+		out.triple(individual, TripleOutput.TYPE, TripleOutput.NAMED_INDIVIDUAL);
+		out.triple(individual, TripleOutput.TYPE, out.ifc(ni.getEnumName()));
+		out.triple(individual, TripleOutput.LABEL, TripleOutput.literal(ni.getOriginalNameOfIndividual()));
+	}
 
-			// Writing abstractness
-			if (evo.isAbstractSuperclass()) {
-				out.write(" ;\r\n");
-				out.write("\trdfs:subClassOf " + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Class ;" + "\r\n");
-				out.write("\t\t\towl:unionOf" + "\r\n");
-				out.write("\t\t\t\t(" + "\r\n");
-				Set<String> l = evo.getSubClassList();
-				for (Iterator<String> lit = l.iterator(); lit.hasNext();) {
-					String x = lit.next();
-					out.write("\t\t\t\t\tifc:" + x + "\r\n");
-				}
-				out.write("\t\t\t\t)" + "\r\n");
-				out.write("\t\t]");
-			}
+	private void emitType(TypeVO tvo, TripleOutput out) {
+		Node type = out.ifc(tvo.getName());
+		out.triple(type, TripleOutput.TYPE, TripleOutput.OWL_CLASS);
+		emitParentSelectTypes(type, tvo.getParentSelectTypes(), out);
+		String primarytype = tvo.getPrimarytype();
+		if (primarytype.equalsIgnoreCase("ENUMERATION"))
+			out.triple(type, TripleOutput.SUB_CLASS_OF, out.expr("ENUMERATION"));
+		else if (primarytype.equalsIgnoreCase("SELECT"))
+			out.triple(type, TripleOutput.SUB_CLASS_OF, out.expr("SELECT"));
+		else if (primarytype.startsWith("LIST") || primarytype.startsWith("ARRAY"))
+			emitListTypeVO(tvo, type, out);
+		else if (primarytype.startsWith("SET"))
+			emitSetTypeVO(tvo, type, out);
+		else
+			emitRegularTypeVO(tvo, type, out);
+	}
 
-			// Writing disjointness
-			if (sibtxt.length() > 0) {
-				out.write(" ;\r\n");
-				out.write("\towl:disjointWith " + sibtxt.toString());
-			}
+	private void emitParentSelectTypes(Node subject, List<TypeVO> parents, TripleOutput out) {
+		if (parents == null)
+			return;
+		for (TypeVO parent : parents)
+			out.triple(subject, TripleOutput.SUB_CLASS_OF, out.ifc(parent.getName()));
+	}
 
-			// Writing properties
-			for (int n = 0; n < evo.getAttributes().size(); n++) {
-				AttributeVO attr = evo.getAttributes().get(n);
-				if(properties.containsKey(attr.getName()))// || properties.containsKey(prop.getOriginalName())
-					writeRegularProperty(attr,out);
-			}
+	// a LIST or an ARRAY type, with the list classes of its content
+	private void emitListTypeVO(TypeVO tvo, Node type, TripleOutput out) {
+		String content = getContent(tvo);
+		String ns = ExpressKeywords.isPrimaryType(content) ? "expr" : "ifc";
+		out.triple(type, TripleOutput.SUB_CLASS_OF, out.name(ns, content + "_List"));
+
+		int[] bounds = getBounds(tvo.getPrimarytype());
+		if (tvo.getPrimarytype().startsWith("LIST"))
+			emitCardinalityRestrictionsForList(bounds[0], bounds[1], ns + ":" + content, "hasNext", type, out, false);
+		else
+			emitCardinalityRestrictionsForArray(bounds[0], bounds[1], ns + ":" + content, "hasNext", type, out, false);
+
+		if (ns.equalsIgnoreCase("ifc") && out.startOnce(content))
+			emitListClasses(out.name(ns, content + "_List"), out.name(ns, content + "_EmptyList"),
+					out.name(ns, content), out);
+	}
 
-			// write inverse properties
-			for (int n = 0; n < evo.getInverses().size(); n++) {
-				PropertyVO prop = evo.getInverses().get(n)
-						.getAssociatedProperty();
-				if(properties.containsKey(prop.getName()))// || properties.containsKey(prop.getOriginalName())
-					writeInverseProperty(prop, out);
-			}
+	private void emitSetTypeVO(TypeVO tvo, Node type, TripleOutput out) {
+		String content = getContent(tvo);
+		Node contentClass = out.name(ExpressKeywords.isPrimaryType(content) ? "expr" : "ifc", content);
 
-			out.write(" .\r\n");
-			out.write("\r\n");
-		}
+		Node values = out.restriction(out.expr("hasSet"));
+		out.triple(values, TripleOutput.ALL_VALUES_FROM, contentClass);
+		out.triple(type, TripleOutput.SUB_CLASS_OF, values);
+
+		Node cardinality = out.restriction(out.expr("hasSet"));
+		out.triple(cardinality, TripleOutput.MIN_QUALIFIED_CARDINALITY, TripleOutput.number(1));
+		out.triple(cardinality, TripleOutput.ON_CLASS, contentClass);
+		out.triple(type, TripleOutput.SUB_CLASS_OF, cardinality);
 	}
-	
-	private void writeRegularProperty(AttributeVO attr, BufferedWriter out) throws IOException {		
-		//write property range
-		out.write(" ;\r\n");
-		out.write("\trdfs:subClassOf" + "\r\n");//
-		out.write("\t\t[" + "\r\n");
-		out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-		if (attr.isSet()) {
-			out.write("\t\t\towl:allValuesFrom "+attr.getRangeNS()+":"
-					+ attr.getType().getName() + " ; \r\n");
-		} else if (attr.isListOfList()) {
-			out.write("\t\t\towl:allValuesFrom "+attr.getRangeNS()+":"
-					+ attr.getType().getName() + "_List_List"
-					+ " ; \r\n");
-		} else if (attr.isList() || attr.isArray()) {
-			out.write("\t\t\towl:allValuesFrom "+attr.getRangeNS()+":"
-					+ attr.getType().getName() + "_List" + " ; \r\n");
+
+	private void emitRegularTypeVO(TypeVO tvo, Node type, TripleOutput out) {
+		String ptype = tvo.getPrimarytype();
+		if (context.checkIfPType(ptype)) {
+			if (ptype.equalsIgnoreCase("LOGICAL"))
+				out.triple(type, TripleOutput.SUB_CLASS_OF, out.expr("LOGICAL"));
+			else if (ptype.equalsIgnoreCase("BOOLEAN"))
+				out.triple(type, TripleOutput.SUB_CLASS_OF, out.expr("BOOLEAN"));
+			else
+				out.triple(type, TripleOutput.SUB_CLASS_OF, out.expr(ptype));
+		} else if (context.checkIfType(ptype)) {
+			out.triple(type, TripleOutput.SUB_CLASS_OF, out.ifc(ptype));
 		} else {
-			out.write("\t\t\towl:allValuesFrom "+attr.getRangeNS()+":"
-					+ attr.getType().getName() + " ; \r\n");
+			PrimaryTypeVO t = context.getClosestResemblance(ptype);
+			if (t == null)
+				out.warn("OWLWriter::writeTypesToOWL - Did not find useful primarytype: " + ptype);
+			out.triple(type, TripleOutput.SUB_CLASS_OF, out.expr(t.getPTypeName()));
+		}
+	}
+
+	// the list class of a content, its empty list and their restrictions on list:hasContents,
+	// list:isFollowedBy and list:hasNext
+	private void emitListClasses(Node list, Node emptyList, Node contents, TripleOutput out) {
+		out.triple(emptyList, TripleOutput.TYPE, TripleOutput.OWL_CLASS);
+		out.triple(emptyList, TripleOutput.SUB_CLASS_OF, out.list("EmptyList"));
+		out.triple(emptyList, TripleOutput.SUB_CLASS_OF, list);
+
+		out.triple(list, TripleOutput.TYPE, TripleOutput.OWL_CLASS);
+		out.triple(list, TripleOutput.SUB_CLASS_OF, out.list("OWLList"));
+		Node hasContents = out.restriction(out.list("hasContents"));
+		out.triple(hasContents, TripleOutput.ALL_VALUES_FROM, contents);
+		out.triple(list, TripleOutput.SUB_CLASS_OF, hasContents);
+		Node isFollowedBy = out.restriction(out.list("isFollowedBy"));
+		out.triple(isFollowedBy, TripleOutput.ALL_VALUES_FROM, list);
+		out.triple(list, TripleOutput.SUB_CLASS_OF, isFollowedBy);
+		Node hasNext = out.restriction(out.list("hasNext"));
+		out.triple(hasNext, TripleOutput.ALL_VALUES_FROM, list);
+		out.triple(list, TripleOutput.SUB_CLASS_OF, hasNext);
+	}
+
+	private void emitEntity(EntityVO evo, boolean sorted, TripleOutput out) {
+		Node entity = out.ifc(evo.getName());
+		out.triple(entity, TripleOutput.TYPE, TripleOutput.OWL_CLASS);
+		if (evo.getSuperclass() != null)
+			out.triple(entity, TripleOutput.SUB_CLASS_OF, out.ifc(evo.getSuperclass()));
+		emitParentSelectTypes(entity, evo.getParentSelectTypes(), out);
+
+		if (evo.isAbstractSuperclass()) {
+			List<Node> subclasses = new ArrayList<Node>();
+			for (String subclass : getSubClassList(evo, sorted))
+				subclasses.add(out.ifc(subclass));
+			Node union = out.blank();
+			out.triple(union, TripleOutput.TYPE, TripleOutput.OWL_CLASS);
+			out.triple(union, TripleOutput.UNION_OF, out.collection(subclasses));
+			out.triple(entity, TripleOutput.SUB_CLASS_OF, union);
 		}
-		out.write("\t\t\towl:onProperty ifc:" + attr.getLowerCaseName() + "\r\n");
-		out.write("\t\t]");
 
-		if (attr.isUnique()) {
-			// this is ignored
+		Set<String> sibling_set = (sorted ? sortedSiblings : this.siblings).get(evo.getName());
+		if (sibling_set != null) {
+			for (String sib : sibling_set) {
+				if (!sib.equalsIgnoreCase(evo.getName()))
+					out.triple(entity, TripleOutput.DISJOINT_WITH, out.ifc(sib));
+			}
 		}
-		
-		//cardinality restrictions for lists
-		if(attr.isArray())
-			writeCardinalityRestrictionsForArray(attr.getMinCard(),attr.getMaxCard(),attr.getRangeNS() + ":"+ attr.getType().getName(),attr.getLowerCaseName(), out,true);
+
+		for (AttributeVO attr : evo.getAttributes()) {
+			if (properties.containsKey(attr.getName()))
+				emitRegularProperty(attr, entity, out);
+		}
+		for (int n = 0; n < evo.getInverses().size(); n++) {
+			PropertyVO prop = evo.getInverses().get(n).getAssociatedProperty();
+			if (properties.containsKey(prop.getName()))
+				emitInverseProperty(prop, entity, out);
+		}
+	}
+
+	private void emitRegularProperty(AttributeVO attr, Node entity, TripleOutput out) {
+		Node property = out.ifc(attr.getLowerCaseName());
+		String range = attr.getType().getName();
+		String suffix = attr.isListOfList() ? "_List_List" : attr.isList() || attr.isArray() ? "_List" : "";
+
+		Node values = out.restriction(property);
+		out.triple(values, TripleOutput.ALL_VALUES_FROM, out.name(attr.getRangeNS(), range + (attr.isSet() ? "" : suffix)));
+		out.triple(entity, TripleOutput.SUB_CLASS_OF, values);
+
+		String className = attr.getRangeNS() + ":" + range;
+		if (attr.isArray())
+			emitCardinalityRestrictionsForArray(attr.getMinCard(), attr.getMaxCard(), className, attr.getLowerCaseName(), entity, out, true);
 		else if (attr.isListOfList() && !attr.isSet())
-			writeCardinalityRestrictionsForListOfList(attr.getMinCard(),attr.getMaxCard(),attr.getRangeNS() + ":"+ attr.getType().getName(),attr.getLowerCaseName(), out,true);
+			emitCardinalityRestrictionsForListOfList(attr.getMinCard(), attr.getMaxCard(), className, attr.getLowerCaseName(), entity, out, true);
 		else if (attr.isList() && !attr.isSet())
-			writeCardinalityRestrictionsForList(attr.getMinCard(),attr.getMaxCard(),attr.getRangeNS() + ":"+ attr.getType().getName(),attr.getLowerCaseName(), out,true);
-//		else 
-//			System.out.println("not a set, not a list, not a list of list: " + attr.getLowerCaseName());
-
-		// cardinality restriction for property (depends on optional /
-		// set / list etc.)
-		if (attr.isSet() && attr.getMaxCard() == -1
-				&& attr.getMinCard() ==0 ) {
+			emitCardinalityRestrictionsForList(attr.getMinCard(), attr.getMaxCard(), className, attr.getLowerCaseName(), entity, out, true);
+
+		if (attr.isSet() && attr.getMaxCard() == -1 && attr.getMinCard() == 0) {
 			// no cardinality restrictions needed
+		} else if (!attr.isSet()) {
+			emitQualifiedCardinality(entity, property, out.name(attr.getRangeNS(), range + suffix),
+					attr.isOptional() ? TripleOutput.MAX_QUALIFIED_CARDINALITY : TripleOutput.QUALIFIED_CARDINALITY, 1, out);
+		} else if (attr.isOptional() && attr.getMaxCard() == -1) {
+			// do nothing
+		} else if (attr.getMinCard() == 1 && attr.getMaxCard() == 1 && !attr.isOptional()) {
+			emitQualifiedCardinality(entity, property, out.name(attr.getRangeNS(), range),
+					TripleOutput.QUALIFIED_CARDINALITY, attr.getMinCard(), out);
 		} else {
-			if (!attr.isSet()) {
-				out.write(" ;\r\n");
-				out.write("\t" + "rdfs:subClassOf " + "\r\n");
-				out.write("\t\t" + "[" + "\r\n");
-				out.write("\t\t\t" + "rdf:type owl:Restriction ;"
-						+ "\r\n");
-				if (!attr.isOptional()) {
-					out.write("\t\t\t"
-							+ "owl:qualifiedCardinality \"1\"^^xsd:nonNegativeInteger ;"
-							+ "\r\n");
-				} else {
-					out.write("\t\t\t"
-							+ "owl:maxQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ;"
-							+ "\r\n");
-				}
-				out.write("\t\t\t" + "owl:onProperty ifc:"
-						+ attr.getLowerCaseName() + " ;\r\n");
-				
-				if (attr.isListOfList()) {
-					out.write("\t\t\t" + "owl:onClass "+attr.getRangeNS()+":"
-							+ attr.getType().getName() + "_List_List"
-							+ "\r\n");
-				} else if (attr.isList() || attr.isArray()) {
-					out.write("\t\t\t" + "owl:onClass "+attr.getRangeNS()+":"
-							+ attr.getType().getName() + "_List"
-							+ "\r\n");
-				} else {
-					out.write("\t\t\t" + "owl:onClass "+attr.getRangeNS()+":"
-							+ attr.getType().getName() + "\r\n");
-				}
-				out.write("\t\t" + "]");
-			} else {
-				if(attr.isOptional()&&attr.getMaxCard()==-1){
-					//do nothing
-				}
-				else{	
-					if(attr.getMinCard()==1 && attr.getMaxCard()==1 && !attr.isOptional()){
-						//UNICUM CASE: RelatedObjects_of_IfcRelDefinesByProperties Property in IFC4 SET[1:1]
-						out.write(" ;\r\n");
-						out.write("\t" + "rdfs:subClassOf " + "\r\n");
-						out.write("\t\t" + "[" + "\r\n");
-						out.write("\t\t\t" + "rdf:type owl:Restriction ;"
-								+ "\r\n");				
-							out.write("\t\t\t"
-									+ "owl:qualifiedCardinality \"" + attr.getMinCard() + "\"^^xsd:nonNegativeInteger ;"
-									+ "\r\n");
-						out.write("\t\t\t" + "owl:onProperty ifc:"
-								+ attr.getLowerCaseName() + " ;\r\n");
-						out.write("\t\t\t" + "owl:onClass "+attr.getRangeNS()+":"
-								+ attr.getType().getName() + "\r\n");					
-						out.write("\t\t" + "]");
-					}
-					else{
-					
-						if(attr.getMinCard()>0&&!attr.isOptional()){
-							out.write(" ;\r\n");
-							out.write("\t" + "rdfs:subClassOf " + "\r\n");
-							out.write("\t\t" + "[" + "\r\n");
-							out.write("\t\t\t" + "rdf:type owl:Restriction ;"
-									+ "\r\n");				
-								out.write("\t\t\t"
-										+ "owl:minQualifiedCardinality \"" + attr.getMinCard() + "\"^^xsd:nonNegativeInteger ;"
-										+ "\r\n");
-							out.write("\t\t\t" + "owl:onProperty ifc:"
-									+ attr.getLowerCaseName() + " ;\r\n");
-							out.write("\t\t\t" + "owl:onClass "+attr.getRangeNS()+":"
-									+ attr.getType().getName() + "\r\n");					
-							out.write("\t\t" + "]");
-						}
-	
-						if(attr.getMaxCard()!=-1){
-							out.write(" ;\r\n");
-							out.write("\t" + "rdfs:subClassOf " + "\r\n");
-							out.write("\t\t" + "[" + "\r\n");
-							out.write("\t\t\t" + "rdf:type owl:Restriction ;"
-									+ "\r\n");	
-								out.write("\t\t\t"
-										+ "owl:maxQualifiedCardinality \"" + attr.getMaxCard() + "\"^^xsd:nonNegativeInteger ;"
-										+ "\r\n");
-							out.write("\t\t\t" + "owl:onProperty ifc:"
-									+ attr.getLowerCaseName() + " ;\r\n");
-							out.write("\t\t\t" + "owl:onClass "+attr.getRangeNS()+":"
-									+ attr.getType().getName() + "\r\n");					
-							out.write("\t\t" + "]");
-						}
-					}
-				}
-			}
+			if (attr.getMinCard() > 0 && !attr.isOptional())
+				emitQualifiedCardinality(entity, property, out.name(attr.getRangeNS(), range),
+						TripleOutput.MIN_QUALIFIED_CARDINALITY, attr.getMinCard(), out);
+			if (attr.getMaxCard() != -1)
+				emitQualifiedCardinality(entity, property, out.name(attr.getRangeNS(), range),
+						TripleOutput.MAX_QUALIFIED_CARDINALITY, attr.getMaxCard(), out);
 		}
 	}
 
-	private void writeInverseProperty(PropertyVO prop, BufferedWriter out)
-			throws IOException {		
-		out.write(" ;\r\n");
-		out.write("\trdfs:subClassOf" + "\r\n");
-		out.write("\t\t[" + "\r\n");
-		out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-		out.write("\t\t\towl:allValuesFrom ifc:" + prop.getRange() + " ; \r\n");
-		out.write("\t\t\towl:onProperty ifc:" + prop.getLowerCaseName() + "\r\n");
-		out.write("\t\t]");
-
-		if (prop.getMinCardinality() == -1 && prop.getMaxCardinality() == -1) {
-			System.out.println("This should be impossible");
-			// [?:?]
-			// no cardinality restrictions explicitly stated (but default is (0, -1))
-			// however, as there is no OPTIONAL statement listed for any INVERSE
-			// property, this property is considered to be required
-			// qualifiedCadinality = 1
-		} else if (prop.getMinCardinality() == -1
-				&& prop.getMaxCardinality() != -1) {
-			// [?:2]
-			// This is not supposed to happen
-			System.out
-					.println("WARNING - IMPOSSIBLE: found 'unlimited' mincardinality restriction combined with a bounded maxcardinality restriction for :"
-							+ prop.getLowerCaseName());
-		} else if (prop.getMinCardinality() != -1
-				&& prop.getMaxCardinality() == -1) {
-			int start = prop.getMinCardinality();
-			// [2:?]
-			if (start != 0) {
-				out.write(" ;" + "\r\n");
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty ifc:" + prop.getLowerCaseName() + " ;"
-						+ "\r\n");
-				out.write("\t\t\towl:onClass ifc:" + prop.getRange() + " ;"
-						+ "\r\n");
-				out.write("\t\t\towl:minQualifiedCardinality \"" + start
-						+ "\"^^xsd:nonNegativeInteger" + "\r\n");
-				out.write("\t\t]");
-			}
-			else{
-				//this is the regular option / default in EXPRESS
-				if(!prop.isSet()){
-				out.write(" ;" + "\r\n");
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty ifc:" + prop.getLowerCaseName() + " ;"
-						+ "\r\n");
-				out.write("\t\t\towl:onClass ifc:" + prop.getRange() + " ;"
-						+ "\r\n");
-				out.write("\t\t\towl:qualifiedCardinality \"1\"^^xsd:nonNegativeInteger"
-						+ "\r\n");
-				out.write("\t\t]");
-				}
-			}
+	private void emitInverseProperty(PropertyVO prop, Node entity, TripleOutput out) {
+		Node property = out.ifc(prop.getLowerCaseName());
+		Node range = out.ifc(prop.getRange());
+		Node values = out.restriction(property);
+		out.triple(values, TripleOutput.ALL_VALUES_FROM, range);
+		out.triple(entity, TripleOutput.SUB_CLASS_OF, values);
+
+		int start = prop.getMinCardinality();
+		int end = prop.getMaxCardinality();
+		if (start == -1 && end == -1) {
+			out.warn("This should be impossible");
+		} else if (start == -1) {
+			out.warn("WARNING - IMPOSSIBLE: found 'unlimited' mincardinality restriction combined with a bounded maxcardinality restriction for :"
+					+ prop.getLowerCaseName());
+		} else if (end == -1) {
+			if (start != 0)
+				emitQualifiedCardinality(entity, property, range, TripleOutput.MIN_QUALIFIED_CARDINALITY, start, out);
+			else if (!prop.isSet())
+				emitQualifiedCardinality(entity, property, range, TripleOutput.QUALIFIED_CARDINALITY, 1, out);
+		} else if (start == end) {
+			if (end != 0)
+				emitQualifiedCardinality(entity, property, range, TripleOutput.QUALIFIED_CARDINALITY, end, out);
+		} else if (start < end) {
+			if (end != 0)
+				emitQualifiedCardinality(entity, property, range, TripleOutput.MAX_QUALIFIED_CARDINALITY, end, out);
+			if (start != 0)
+				emitQualifiedCardinality(entity, property, range, TripleOutput.MIN_QUALIFIED_CARDINALITY, start, out);
 		} else {
-			int start = prop.getMinCardinality();
-			int end = prop.getMaxCardinality();
-			if (start == end) {
-				// [3:3]
-				// explicitly qualified cardinality
-				if (end != 0) {
-					out.write(" ;" + "\r\n");
-					out.write("\trdfs:subClassOf" + "\r\n");
-					out.write("\t\t[" + "\r\n");
-					out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-					out.write("\t\t\towl:onProperty ifc:" + prop.getLowerCaseName()
-							+ " ;" + "\r\n");
-					out.write("\t\t\towl:onClass ifc:" + prop.getRange() + " ;"
-							+ "\r\n");
-					out.write("\t\t\towl:qualifiedCardinality \"" + end
-							+ "\"^^xsd:nonNegativeInteger" + "\r\n");
-					out.write("\t\t]");
-				}
-			} else if (start < end) {
-				// [1:2]
-				// min-max qualified cardinality
-
-				if (end != 0) {
-					out.write(" ;" + "\r\n");
-					out.write("\trdfs:subClassOf" + "\r\n");
-					out.write("\t\t[" + "\r\n");
-					out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-					out.write("\t\t\towl:onProperty ifc:" + prop.getLowerCaseName()
-							+ " ;" + "\r\n");
-					out.write("\t\t\towl:onClass ifc:" + prop.getRange() + " ;"
-							+ "\r\n");
-					out.write("\t\t\towl:maxQualifiedCardinality \"" + end
-							+ "\"^^xsd:nonNegativeInteger" + "\r\n");
-					out.write("\t\t]");
-				}
-				if (start != 0) {
-					out.write(" ;" + "\r\n");
-					out.write("\trdfs:subClassOf" + "\r\n");
-					out.write("\t\t[" + "\r\n");
-					out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-					out.write("\t\t\towl:onProperty ifc:" + prop.getLowerCaseName()
-							+ " ;" + "\r\n");
-					out.write("\t\t\towl:onClass ifc:" + prop.getRange() + " ;"
-							+ "\r\n");
-					out.write("\t\t\towl:minQualifiedCardinality \"" + start
-							+ "\"^^xsd:nonNegativeInteger" + "\r\n");
-					out.write("\t\t]");
-				}
-			} else {
-				// This is not supposed to happen
-				System.out
-						.println("WARNING - IMPOSSIBLE: found mincardinality restriction that is greater than maxcardinality restriction for :"
-								+ prop.getLowerCaseName());
-			}
+			out.warn("WARNING - IMPOSSIBLE: found mincardinality restriction that is greater than maxcardinality restriction for :"
+					+ prop.getLowerCaseName());
 		}
 	}
 
-	private void writeTypesToOWL(Iterator<Entry<String, TypeVO>> it,
-			BufferedWriter out) throws IOException {
-		while (it.hasNext()) {
-			Entry<String, TypeVO> pairs = it.next();
-			TypeVO tvo = pairs.getValue();
-
-			if (tvo.getPrimarytype().equalsIgnoreCase("ENUMERATION"))
-				writeEnumerations(tvo, out);
-			else if (tvo.getPrimarytype().equalsIgnoreCase("SELECT"))
-				writeSelects(tvo, out);
-			else {
-				String type = tvo.getPrimarytype();
-				if (type.startsWith("LIST"))
-					writeListTypeVO(tvo, out);
-				else if (type.startsWith("ARRAY"))
-					writeArrayTypeVO(tvo, out);
-				else if (type.startsWith("SET"))
-					writeSetTypeVO(tvo, out);
-				else
-					writeRegularTypeVO(tvo, out);
-			}
-		}
+	// subject rdfs:subClassOf [ owl:onProperty property ; owl:onClass onClass ; cardinality n ]
+	private void emitQualifiedCardinality(Node subject, Node property, Node onClass, Node cardinality, int n,
+			TripleOutput out) {
+		Node restriction = out.restriction(property);
+		out.triple(restriction, cardinality, TripleOutput.number(n));
+		out.triple(restriction, TripleOutput.ON_CLASS, onClass);
+		out.triple(subject, TripleOutput.SUB_CLASS_OF, restriction);
 	}
-	
-	private void writeEnumerations(TypeVO tvo, BufferedWriter out) throws IOException{
-		out.write("ifc:" + tvo.getName() + "\r\n");
-		out.write("\trdf:type owl:Class ;" + "\r\n");
-		if(tvo.getParentSelectTypes()!=null){
-			//System.out.println("Warning: Enum underneath Select : " + tvo.getName());
-			out.write("\trdfs:subClassOf");
-			for (int i = 0;i<tvo.getParentSelectTypes().size();i++){
-				if(i!=tvo.getParentSelectTypes().size()-1)
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + ",");
-				else
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + " ;" + "\r\n");
-			}
-		}
-		
-		boolean writingEnumsAsOneOfs = false;
-		if(writingEnumsAsOneOfs){
-			out.write("\towl:equivalentClass " + "\r\n");
-			out.write("\t\t[" + "\r\n");
-			out.write("\t\t\trdf:type owl:Class ;" + "\r\n");
-			out.write("\t\t\towl:oneOf " + "\r\n");
-			out.write("\t\t\t\t( " + "\r\n");
-			for (int i = 0; i < tvo.getEnum_entities().size(); i++) {
-				if (i != tvo.getEnum_entities().size() - 1)
-					out.write("\t\t\t\t\tifc:"
-							+ getNamedIndividual(
-									tvo.getEnum_entities().get(i),
-									tvo.getName()).getNamedIndividual()
-							+ " " + "\r\n");
-				else
-					out.write("\t\t\t\t\tifc:"
-							+ getNamedIndividual(
-									tvo.getEnum_entities().get(i),
-									tvo.getName()).getNamedIndividual()
-							+ "\r\n");
-			}
-			out.write("\t\t\t\t) " + "\r\n");
-			out.write("\t\t] ; " + "\r\n");
+
+	private void emitProperty(PropertyVO property, TripleOutput out) {
+		Node subject = out.ifc(property.getLowerCaseName());
+		out.triple(subject, TripleOutput.LABEL, TripleOutput.literal(property.getOriginalName()));
+		out.triple(subject, TripleOutput.DOMAIN, out.ifc(property.getDomain().getName()));
+		String rangeNS = property.getRangeNS();
+		String range = property.getRange();
+		boolean list = property.isList() || property.isArray();
+		if (list && property.isListOfList())
+			out.triple(subject, TripleOutput.RANGE, out.name(rangeNS, range + "_List_List"));
+		else if (list && !property.isSet())
+			out.triple(subject, TripleOutput.RANGE, out.name(rangeNS, range + "_List"));
+		else
+			out.triple(subject, TripleOutput.RANGE, out.name(rangeNS, range));
+		if (property.getInverseProperty() != null)
+			out.triple(subject, TripleOutput.INVERSE_OF, out.ifc(property.getInverseProperty().getLowerCaseName()));
+
+		boolean functional = list ? !property.isSet() : !(property.isSet() && property.getMaxCardinality() != 1);
+		if (functional)
+			out.triple(subject, TripleOutput.TYPE, TripleOutput.FUNCTIONAL_PROPERTY);
+		out.triple(subject, TripleOutput.TYPE, TripleOutput.OBJECT_PROPERTY);
+
+		if (list && !rangeNS.equalsIgnoreCase("expr") && !property.isSet()) {
+			if (property.isListOfList() && out.startOnce(range + "_List"))
+				emitListClasses(out.name(rangeNS, range + "_List_List"), out.name(rangeNS, range + "_List_EmptyList"),
+						out.name(rangeNS, range + "_List"), out);
+			if (out.startOnce(range))
+				emitListClasses(out.name(rangeNS, range + "_List"), out.name(rangeNS, range + "_EmptyList"),
+						out.name(ExpressKeywords.isPrimaryType(range) ? "expr" : "ifc", range), out);
 		}
-		
-		out.write("\trdfs:subClassOf expr:ENUMERATION ." + "\r\n\r\n");
 	}
-	
-	private void writeSelects(TypeVO tvo, BufferedWriter out) throws IOException{
-		out.write("ifc:" + tvo.getName() + "\r\n");
-		out.write("\trdf:type owl:Class ;" + "\r\n");
-		if(tvo.getParentSelectTypes()!=null){
-			out.write("\trdfs:subClassOf");
-			for (int i = 0;i<tvo.getParentSelectTypes().size();i++){
-				if(i!=tvo.getParentSelectTypes().size()-1)
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + ",");
-				else
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + " ;" + "\r\n");
-			}
-		}
-		boolean writingSelectsAsUnionOfs = false;
-		if(writingSelectsAsUnionOfs){
-			out.write("\towl:equivalentClass" + "\r\n");
-			out.write("\t\t[" + "\r\n");
-			out.write("\t\t\trdf:type owl:Class ;" + "\r\n");
-			out.write("\t\t\towl:unionOf " + "\r\n");
-			out.write("\t\t\t\t( " + "\r\n");
-			List<String> selects = tvo.getSelect_entities();
-			for (int i = 0; i < selects.size(); i++) {
-				out.write("\t\t\t\t\tifc:" + selects.get(i) + " " + "\r\n");
-			}
-			out.write("\t\t\t\t) " + "\r\n");
-			out.write("\t\t] ; " + "\r\n");
+
+	private void emitCardinalityRestrictionsForArray(int minCard, int maxCard, String className, String attrName,
+			Node subject, TripleOutput out, boolean asEntity) {
+		if (minCard == -1 || maxCard == -1) {
+			out.warn("WARNING - IMPOSSIBLE: did not find required cardinality restrictions for ARRAY property : "
+					+ attrName);
+		} else {
+			if (minCard >= 1)
+				emitMinCardRestr(className + "_List", attrName, subject, out, minCard + 1, asEntity);
+			if (maxCard > 1)
+				emitMaxCardRestr(className + "_EmptyList", attrName, subject, out, maxCard, asEntity);
 		}
-		
-		out.write("\trdfs:subClassOf expr:SELECT ." + "\r\n\r\n");
 	}
 
-	private void writeListTypeVO(TypeVO tvo, BufferedWriter out) throws IOException{
-		
-		String[] cList = tvo.getPrimarytype().split(" ");
-		String content = cList[cList.length - 1];		
-		
-			out.write("ifc:" + tvo.getName() + "\r\n");
-			out.write("\trdf:type owl:Class ;" + "\r\n");
-			
-			if (content.endsWith(";"))
-				content = content.substring(0, content.length() - 1);			
-
-			String ns = "ifc";
-			if(content.equalsIgnoreCase("NUMBER") || content.equalsIgnoreCase("REAL") || 
-					content.equalsIgnoreCase("INTEGER") || content.equalsIgnoreCase("LOGICAL") || 
-					content.equalsIgnoreCase("BOOLEAN") || content.equalsIgnoreCase("STRING") || 
-					content.equalsIgnoreCase("BINARY"))
-				ns = "expr";
-			
-			out.write("\trdfs:subClassOf "+ns+":" + content + "_List ");
-			
-			if(tvo.getParentSelectTypes() != null){
-				out.write(" ;\r\n");
-				out.write("\trdfs:subClassOf");
-				for (int i = 0;i<tvo.getParentSelectTypes().size();i++){
-					if(i!=tvo.getParentSelectTypes().size()-1)
-						out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + ",");
-					else
-						out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName());
-				}
-				out.write(" ;\r\n");
-			}
-							
-		// check for cardinality restrictions and add if available
-			
-			String type = tvo.getPrimarytype();
-			String startIndex = type.substring(type.indexOf('[') + 1,
-					type.indexOf('[') + 2);
-			String endIndex = type.substring(type.indexOf(']') - 1,
-					type.indexOf(']'));
-			
-			int start = -1;		
-			int end = -1;
-			try {
-				start = Integer.parseInt(startIndex);
-			} catch (NumberFormatException e) {	}
+	private void emitCardinalityRestrictionsForList(int minCard, int maxCard, String className, String attrName,
+			Node subject, TripleOutput out, boolean asEntity) {
+		emitCardinalityRestrictionsForList(minCard, maxCard, className + "_List", className + "_EmptyList",
+				attrName + " - " + className, attrName, subject, out, asEntity);
+	}
 
-			try {
-				end = Integer.parseInt(endIndex);
-			} catch (NumberFormatException e) {	}
+	private void emitCardinalityRestrictionsForListOfList(int minCard, int maxCard, String className, String attrName,
+			Node subject, TripleOutput out, boolean asEntity) {
+		emitCardinalityRestrictionsForList(minCard, maxCard, className + "_List_List", className + "_List_EmptyList",
+				attrName, attrName, subject, out, asEntity);
+	}
 
-			writeCardinalityRestrictionsForList(start,end,ns+":" + content,"hasNext",out,false);
-		
-		out.write("." + "\r\n\r\n");
+	// the restrictions of a LIST, or of the outer LIST of a LIST OF LIST, on its list class
+	// and its empty list class; unbounded names the list in the warning about [?:?]
+	private void emitCardinalityRestrictionsForList(int minCard, int maxCard, String listClass, String emptyListClass,
+			String unbounded, String attrName, Node subject, TripleOutput out, boolean asEntity) {
+		if (minCard == -1 && maxCard == -1) {
+			out.warn("WARNING: [?,?] found for : " + unbounded);
+		} else if (minCard == -1) {
+			out.warn("WARNING - IMPOSSIBLE: found 'unlimited' mincardinality restriction combined with a bounded maxcardinality restriction for :"
+					+ attrName);
+		} else if (maxCard == -1) {
+			if (minCard >= 1)
+				emitMinCardRestr(listClass, attrName, subject, out, minCard, asEntity);
+		} else if (minCard == maxCard && maxCard >= 1) {
+			emitMinCardRestr(listClass, attrName, subject, out, minCard, asEntity);
+			emitMaxCardRestr(emptyListClass, attrName, subject, out, maxCard, asEntity);
+		} else if (minCard < maxCard) {
+			if (maxCard > 1)
+				emitMaxCardRestr(emptyListClass, attrName, subject, out, maxCard, asEntity);
+			if (minCard >= 1)
+				emitMinCardRestr(listClass, attrName, subject, out, minCard, asEntity);
+		} else {
+			out.warn("WARNING - IMPOSSIBLE: found mincardinality restriction that is greater than maxcardinality restriction for :"
+					+ attrName);
+		}
+	}
 
-		if(ns.equalsIgnoreCase("ifc")){	
-			if (!listPropertiesOutput.contains(content)) {
-				// property already contained in resulting OWL file
-				// (.TTL) -> no need to write additional property		
-				listPropertiesOutput.add(content);
-	
-				out.write(ns+":" + content + "_EmptyList" + "\r\n");
-				out.write("\trdf:type owl:Class ;" + "\r\n");
-				out.write("\trdfs:subClassOf list:EmptyList, "+ns+":" + content + "_List"+" ." + "\r\n" + "\r\n");				
-				
-				out.write(ns+":" + content + "_List" + "\r\n");
-				out.write("\trdf:type owl:Class ;" + "\r\n");
-				
-				out.write("\trdfs:subClassOf list:OWLList ;" + "\r\n");
-				
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty list:hasContents ;"
-						+ "\r\n");
-				out.write("\t\t\towl:allValuesFrom "+ns+":" + content
-						+ "\r\n");
-				out.write("\t\t] ;" + "\r\n");				
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty list:isFollowedBy ;"
-						+ "\r\n");
-				out.write("\t\t\towl:allValuesFrom "+ns+":" + content + "_List\r\n");				
-				out.write("\t\t] ;" + "\r\n");
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty list:hasNext ;" + "\r\n");
-				out.write("\t\t\towl:allValuesFrom "+ns+":" + content + "_List\r\n");		
-				out.write("\t\t] ." + "\r\n\r\n");
-			}
+	// minCard restrictions on list:hasNext nested in each other with owl:someValuesFrom,
+	// the innermost one of className
+	private void emitMinCardRestr(String className, String attrName, Node subject, TripleOutput out, int minCard,
+			boolean asEntity) {
+		Node restriction = out.name(className);
+		for (int i = 0; i < minCard; i++) {
+			Node outer = out.restriction(out.list("hasNext"));
+			out.triple(outer, TripleOutput.SOME_VALUES_FROM, restriction);
+			restriction = outer;
 		}
+		emitListRestriction(restriction, attrName, subject, out, asEntity);
 	}
-	
-	private void writeArrayTypeVO(TypeVO tvo, BufferedWriter out) throws IOException{
+
+	// maxCard restrictions on list:hasNext nested in each other with owl:allValuesFrom, the
+	// innermost one with exactly one className
+	private void emitMaxCardRestr(String className, String attrName, Node subject, TripleOutput out, int maxCard,
+			boolean asEntity) {
+		Node restriction = out.restriction(out.list("hasNext"));
+		out.triple(restriction, TripleOutput.ON_CLASS, out.name(className));
+		out.triple(restriction, TripleOutput.QUALIFIED_CARDINALITY, TripleOutput.number(1));
+		for (int i = 0; i < maxCard - 1; i++) {
+			Node outer = out.restriction(out.list("hasNext"));
+			out.triple(outer, TripleOutput.ALL_VALUES_FROM, restriction);
+			restriction = outer;
+		}
+		emitListRestriction(restriction, attrName, subject, out, asEntity);
+	}
+
+	// the restriction on the list itself, or on all the values of the property of an entity
+	private void emitListRestriction(Node restriction, String attrName, Node subject, TripleOutput out,
+			boolean asEntity) {
+		if (asEntity) {
+			Node values = out.restriction(out.ifc(attrName));
+			out.triple(values, TripleOutput.ALL_VALUES_FROM, restriction);
+			restriction = values;
+		}
+		out.triple(subject, TripleOutput.SUB_CLASS_OF, restriction);
+	}
+
+	// the subclasses of the owl:unionOf of an abstract entity, sorted by name for the
+	// canonical order
+	private static Set<String> getSubClassList(EntityVO evo, boolean sorted) {
+		return sorted ? new TreeSet<String>(evo.getSubClassList()) : evo.getSubClassList();
+	}
+
+	// the content of a LIST, ARRAY or SET type, the last word of its primary type
+	private static String getContent(TypeVO tvo) {
 		String[] cList = tvo.getPrimarytype().split(" ");
 		String content = cList[cList.length - 1];
-							
-		out.write("ifc:" + tvo.getName() + "\r\n");
-		out.write("\trdf:type owl:Class ;" + "\r\n");
-		
 		if (content.endsWith(";"))
-			content = content.substring(0, content.length() - 1);		
-
-		String ns = "ifc";
-		if(content.equalsIgnoreCase("NUMBER") || content.equalsIgnoreCase("REAL") || 
-				content.equalsIgnoreCase("INTEGER") || content.equalsIgnoreCase("LOGICAL") || 
-				content.equalsIgnoreCase("BOOLEAN") || content.equalsIgnoreCase("STRING") || 
-				content.equalsIgnoreCase("BINARY"))
-			ns = "expr";		
-		
-		out.write("\trdfs:subClassOf "+ns+":" + content + "_List ");
-		
-		if(tvo.getParentSelectTypes() != null){
-			out.write(" ;\r\n");
-			out.write("\trdfs:subClassOf");
-			for (int i = 0;i<tvo.getParentSelectTypes().size();i++){
-				if(i!=tvo.getParentSelectTypes().size()-1)
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + ",");
-				else
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName());
-			}
-			out.write(" ;\r\n");
-		}
-		
-		// check for cardinality restrictions and add if available
-		String type = tvo.getPrimarytype();
+			content = content.substring(0, content.length() - 1);
+		return content;
+	}
+
+	// the { start, end } of a LIST or ARRAY type, like LIST [1:3] OF ..., -1 for ?
+	private static int[] getBounds(String type) {
 		String startIndex = type.substring(type.indexOf('[') + 1, type.indexOf('[') + 2);
 		String endIndex = type.substring(type.indexOf(']') - 1, type.indexOf(']'));
-		int start = -1;		
+		int start = -1;
 		int end = -1;
 		try {
 			start = Integer.parseInt(startIndex);
@@ -1002,217 +989,32 @@ public class OWLWriter {
 		try {
 			end = Integer.parseInt(endIndex);
 		} catch (NumberFormatException e) {	}
-
-		//cardinality restrictions
-		writeCardinalityRestrictionsForArray(start,end,ns+":" + content,"hasNext",out,false);
-
-		out.write("." + "\r\n\r\n");
-	
-		if(ns.equalsIgnoreCase("ifc")){
-		
-			if (!listPropertiesOutput.contains(content)) {
-				// property already contained in resulting OWL file
-				// (.TTL) -> no need to write additional property
-				listPropertiesOutput.add(content);
-
-				out.write(ns+":" + content + "_EmptyList" + "\r\n");
-				out.write("\trdf:type owl:Class ;" + "\r\n");
-				out.write("\trdfs:subClassOf list:EmptyList, "+ns+":" + content + "_List"+" ." + "\r\n" + "\r\n");
-	
-				out.write(ns+":" + content + "_List" + "\r\n");
-				out.write("\trdf:type owl:Class ;" + "\r\n");
-				out.write("\trdfs:subClassOf list:OWLList ;" + "\r\n");
-				
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty list:hasContents ;"
-						+ "\r\n");
-				out.write("\t\t\towl:allValuesFrom "+ns+":" + content
-						+ "\r\n");
-				out.write("\t\t] ;" + "\r\n");
-								
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty list:isFollowedBy ;"
-						+ "\r\n");
-					out.write("\t\t\towl:allValuesFrom "+ns+":" + content
-							+ "_List\r\n");		
-				out.write("\t\t] ;" + "\r\n");
-				out.write("\trdfs:subClassOf" + "\r\n");
-				out.write("\t\t[" + "\r\n");
-				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-				out.write("\t\t\towl:onProperty list:hasNext ;" + "\r\n");
-					out.write("\t\t\towl:allValuesFrom "+ns+":" + content
-							+ "_List\r\n");		
-				out.write("\t\t] ." + "\r\n\r\n");
-			}		
-		}
+		return new int[] { start, end };
 	}
-	
-	private void writeSetTypeVO(TypeVO tvo, BufferedWriter out)
-			throws IOException {
-		String[] cList = tvo.getPrimarytype().split(" ");
-		String content = cList[cList.length - 1];
-		if (content.endsWith(";"))
-			content = content.substring(0, content.length() - 1);
 
-		String ns = "ifc";
-		if (content.equalsIgnoreCase("NUMBER")
-				|| content.equalsIgnoreCase("REAL")
-				|| content.equalsIgnoreCase("INTEGER")
-				|| content.equalsIgnoreCase("LOGICAL")
-				|| content.equalsIgnoreCase("BOOLEAN")
-				|| content.equalsIgnoreCase("STRING")
-				|| content.equalsIgnoreCase("BINARY"))
-			ns = "expr";
-
-		out.write("ifc:" + tvo.getName() + "\r\n");
-		out.write("\trdf:type owl:Class ;" + "\r\n");
-		
-		if(tvo.getParentSelectTypes() != null){
-			out.write(" ;\r\n");
-			out.write("\trdfs:subClassOf");
-			for (int i = 0;i<tvo.getParentSelectTypes().size();i++){
-				if(i!=tvo.getParentSelectTypes().size()-1)
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + ",");
-				else
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName());
+	private String getDate() {
+		if (date != null)
+			return date;
+		DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd");
+		String epoch = System.getenv("SOURCE_DATE_EPOCH");
+		if (epoch != null) {
+			try {
+				dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+				return dateFormat.format(new Date(Long.parseLong(epoch.trim()) * 1000));
+			} catch (NumberFormatException e) {
+				System.err.println("SOURCE_DATE_EPOCH is not a number of seconds: " + epoch);
 			}
-			out.write(" ;\r\n");
 		}
-		
-		out.write("\trdfs:subClassOf " + "\r\n");
-		out.write("\t\t[ " + "\r\n");
-		out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-		out.write("\t\t\towl:allValuesFrom " + ns + ":" + content + " ;"
-				+ "\r\n");
-		out.write("\t\t\towl:onProperty expr:hasSet" + "\r\n");
-		out.write("\t\t] ;" + "\r\n");
-		out.write("\t" + "rdfs:subClassOf " + "\r\n");
-		out.write("\t\t" + "[" + "\r\n");
-		out.write("\t\t\t" + "rdf:type owl:Restriction ;" + "\r\n");
-		out.write("\t\t\t" + "owl:minQualifiedCardinality \"" + 1
-				+ "\"^^xsd:nonNegativeInteger ;" + "\r\n");
-		out.write("\t\t\towl:onProperty expr:hasSet ;" + "\r\n");
-		out.write("\t\t\t" + "owl:onClass " + ns + ":" + content + "\r\n");
-		out.write("\t\t] ." + "\r\n" + "\r\n");
+		return dateFormat.format(new Date());
 	}
 
-	private void writeRegularTypeVO(TypeVO tvo, BufferedWriter out) throws IOException{
-		out.write("ifc:" + tvo.getName() + "\r\n");
-		out.write("\trdf:type owl:Class ;" + "\r\n");
-		
-		//parent selects
-		if(tvo.getParentSelectTypes()!=null){
-			out.write("\trdfs:subClassOf");
-			for (int i = 0;i<tvo.getParentSelectTypes().size();i++){
-				if(i!=tvo.getParentSelectTypes().size()-1)
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + ",");
-				else
-					out.write(" ifc:" + tvo.getParentSelectTypes().get(i).getName() + " ;" + "\r\n");
-			}
-		}
-
-		String ptype = tvo.getPrimarytype();
-		if(PrimaryTypeVO.checkIfPType(ptype)){
-			String pType = tvo.getPrimarytype();
-			if(pType.equalsIgnoreCase("LOGICAL")){
-				out.write("\trdfs:subClassOf expr:LOGICAL ." + "\r\n" + "\r\n");
-//				out.write("\trdfs:subClassOf " + "\r\n");
-//				out.write("\t\t[ " + "\r\n");
-//				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-//				out.write("\t\t\towl:allValuesFrom expr:LOGICAL" + " ;" + "\r\n");
-//				out.write("\t\t\towl:onProperty expr:hasLogical" + "\r\n");
-//				out.write("\t\t] ." + "\r\n" + "\r\n");
-			}
-			else if(pType.equalsIgnoreCase("BOOLEAN")){
-				out.write("\trdfs:subClassOf expr:BOOLEAN ." + "\r\n" + "\r\n");
-//				out.write("\trdfs:subClassOf " + "\r\n");
-//				out.write("\t\t[ " + "\r\n");
-//				out.write("\t\t\trdf:type owl:Restriction ;" + "\r\n");
-//				out.write("\t\t\towl:allValuesFrom expr:BOOLEAN" + " ;" + "\r\n");
-//				out.write("\t\t\towl:onProperty expr:hasBoolean" + "\r\n");
-//				out.write("\t\t] ." + "\r\n" + "\r\n");
-			}
-			else
-				out.write("\trdfs:subClassOf expr:" + tvo.getPrimarytype()
-					+ " .\r\n\r\n");
-		}
-		else{
-			if(TypeVO.checkIfType(ptype)){
-				out.write("\trdfs:subClassOf ifc:" + tvo.getPrimarytype()
-						+ " .\r\n\r\n");
-			}
-			else{
-				PrimaryTypeVO t = PrimaryTypeVO.getClosestResemblance(ptype);
-				if(t==null)
-					System.out.println("OWLWriter::writeTypesToOWL - Did not find useful primarytype: " + ptype);
-				out.write("\trdfs:subClassOf expr:" + t.getPTypeName()
-					+ " .\r\n\r\n");
-				}
-		}
-	}
-	
-	private NamedIndividualVO getNamedIndividual(String originalIndividualName,
-			String enumName) {
-		for (NamedIndividualVO ni : enumIndividuals) {
-			if (ni.getOriginalNameOfIndividual() == originalIndividualName
-					&& ni.getEnumName() == enumName) {
-				return ni;
-			}
-		}
-		return null;
+	private String getOntologyComment() {
+		return "Ontology automatically generated from the EXPRESS schema '" + expressSchemaName
+				+ "' using the 'IFC-to-RDF' converter developed by Pieter Pauwels (pipauwel.pauwels@ugent.be), based on the earlier versions from Jyrki Oraskari (jyrki.oraskari@aalto.fi) and Davy Van Deursen (davy.vandeursen@ugent.be)";
 	}
 
-	private String getOwl_header() {
-		String s = "";
-		DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd");
-		Date date = new Date();
-		
-		s += "@prefix xsd: <" + Namespace.XSD + "> .\r\n" 
-				+ "@prefix owl: <" + Namespace.OWL + "> .\r\n"
-				+ "@prefix rdfs: <"	+ Namespace.RDFS + "> .\r\n"
-				+ "@prefix dce: <" + Namespace.DCE + "> .\r\n"
-				+ "@prefix vann: <" + Namespace.VANN + "> .\r\n"
-				+ "@prefix list: <" + Namespace.LIST + "> .\r\n"
-				+ "@prefix expr: <" + Namespace.EXPRESS + "> .\r\n"
-				+ "@prefix cc: <" + Namespace.CC + "> .\r\n"
-				+ "@prefix rdf: <" + Namespace.RDF + "> .\r\n"
-				+ "\r\n"
-				+ "<" + Namespace.IFC + ">\r\n"
-				+ "\trdf:type owl:Ontology ;\r\n"
-				+ "\trdfs:comment \"Ontology automatically generated from the EXPRESS schema '"+expressSchemaName + "' using the 'IFC-to-RDF' converter developed by Pieter Pauwels (pipauwel.pauwels@ugent.be), based on the earlier versions from Jyrki Oraskari (jyrki.oraskari@aalto.fi) and Davy Van Deursen (davy.vandeursen@ugent.be)\" ;" + "\r\n"
-				+ "\tdce:creator \"Pieter Pauwels (pipauwel.pauwels@ugent.be)\" ;\r\n"
-				+ "\tdce:creator \"Walter Terkaj  (walter.terkaj@itia.cnr.it)\" ;\r\n"
-				+ "\tdce:date \""+dateFormat.format(date)+"\" ;\r\n"
-				+ "\tdce:contributor \"Aleksandra Sojic (aleksandra.sojic@itia.cnr.it)\" ;\r\n"
-				+ "\tdce:contributor \"Maria Poveda Villalon (mpoveda@fi.upm.es)\" ;\r\n"
-				+ "\tdce:contributor \"Jakob Beetz (j.beetz@tue.nl)\" ;\r\n"
-				+ "\tdce:title \"" + expressSchemaName + "\" ;\r\n"
-				+ "\tdce:description \"OWL ontology for the IFC conceptual data schema and exchange file format for Building Information Model (BIM) data\" ;\r\n"
-				+ "\tdce:identifier \"" + expressSchemaName + "\" ;\r\n"
-				+ "\tdce:language \"en\" ; \r\n"
-				+ "\tvann:preferredNamespacePrefix \"ifc\" ; \r\n"
-				+ "\tvann:preferredNamespaceUri \""+Namespace.IFC+"\" ; \r\n"
-				+ "\towl:imports <http://purl.org/voc/express> ; \r\n"
-				+ "\tcc:license <http://creativecommons.org/licenses/by/3.0/> . \r\n\r\n";
-		
-		s += "dce:creator \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		s += "dce:description \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		s += "dce:date \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		s += "dce:contributor \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		s += "dce:title \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		s += "dce:identifier \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		s += "dce:language \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
-		return s;
-	}
-	
 	private String getExpressOwl_header() {
 		String s = "";
-		DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd");
-		Date date = new Date();
 		
 		s += "@prefix xsd: <" + Namespace.XSD + "> .\r\n" 
 				+ "@prefix owl: <" + Namespace.OWL + "> .\r\n"
@@ -1224,11 +1026,11 @@ public class OWLWriter {
 				+ "@prefix rdf: <" + Namespace.RDF + "> .\r\n" + "\r\n"
 				+ "<" + Namespace.EXPRESS + ">\r\n"
 				+ "\trdf:type owl:Ontology ;\r\n"
-				+ "\trdfs:comment \"Ontology automatically generated from the EXPRESS schema '"+expressSchemaName + "' using the 'IFC-to-RDF' converter developed by Pieter Pauwels (pipauwel.pauwels@ugent.be), based on the earlier versions from Jyrki Oraskari (jyrki.oraskari@aalto.fi) and Davy Van Deursen (davy.vandeursen@ugent.be)\" ;" + "\r\n"
+				+ "\trdfs:comment \"" + getOntologyComment() + "\" ;" + "\r\n"
 				+ "\tdce:creator \"Pieter Pauwels (pipauwel.pauwels@ugent.be)\" ;\r\n"
 				+ "\tdce:creator \"Walter Terkaj  (walter.terkaj@itia.cnr.it)\" ;\r\n"
 				+ "\tdce:creator \"Nam Vu Hoang  (nam.vuhoang@gmail.com)\" ;\r\n"
-				+ "\tdce:date \""+dateFormat.format(date)+"\" ;\r\n"
+				+ "\tdce:date \""+getDate()+"\" ;\r\n"
 				+ "\tdce:contributor \"Aleksandra Sojic (aleksandra.sojic@itia.cnr.it)\" ;\r\n"
 				+ "\tdce:contributor \"Maria Poveda Villalon (mpoveda@fi.upm.es)\" ;\r\n"
 				+ "\tdce:contributor \"Jakob Beetz (j.beetz@tue.nl)\" ;\r\n"
@@ -1250,492 +1052,4 @@ public class OWLWriter {
 		s += "dce:language \r\n\trdf:type owl:AnnotationProperty .\r\n\r\n";
 		return s;
 	}
-
-	private void writeCardinalityRestrictionsForArray(int minCard, int maxCard, String className, String attrName, BufferedWriter out, boolean asEntity) throws IOException {
-		// write cardinality restrictions for the referenced array
-		if ((minCard == -1 && maxCard == -1)
-				|| (minCard != -1 && maxCard == -1)
-				|| (minCard == -1 && maxCard != -1)) {
-			System.out
-					.println("WARNING - IMPOSSIBLE: did not find required cardinality restrictions for ARRAY property : "
-							+ attrName);
-		} else {
-			// [3:3]
-			// explicitly qualified cardinality
-			//writeQualCardRestr(attr.getType().getName() + "_List", attr.getName(), out, (end - start + 1));	
-			if (minCard >= 1) 
-				writeMinCardRestr(className + "_List", attrName, out, minCard+1, asEntity);	
-			if (maxCard > 1)
-				writeMaxCardRestr(className + "_EmptyList", attrName, out, maxCard, asEntity);
-		}
-	}
-
-	private void writeCardinalityRestrictionsForList(int minCard, int maxCard, String className, String attrName, BufferedWriter out, boolean asEntity) throws IOException {
-		if (minCard == -1 && maxCard == -1) {
-			System.out.println("WARNING: [?,?] found for : " + attrName + " - " + className);
-		} else if (minCard == -1 && maxCard != -1) {
-			// [?:2]
-			// This is not supposed to happen
-			System.out.println("WARNING - IMPOSSIBLE: found 'unlimited' mincardinality restriction combined with a bounded maxcardinality restriction for :"
-					+ attrName);
-		} else if (minCard != -1 && maxCard == -1) {
-			// [2:?]
-			if (minCard >= 1) 
-				writeMinCardRestr(className + "_List", attrName, out, minCard, asEntity);
-			else {
-				// [1:?]
-				// no cardinality restriction can be set on the hasNext property, as the minimum card restr says that it is allowed to set only one element.
-			}
-		} else {
-			if (minCard == maxCard && maxCard >= 1) {
-				// [3:3]
-				// explicitly qualified cardinality
-//				writeQualCardRestr(attr.getType().getName() + "_List", attr.getName(),out,start);				
-				writeMinCardRestr(className + "_List", attrName, out, minCard, asEntity);	
-				writeMaxCardRestr(className + "_EmptyList", attrName, out, maxCard, asEntity);
-			} else if (minCard < maxCard) {
-				// [1:2]
-				// min-max qualified cardinality
-
-				if (maxCard > 1)
-					writeMaxCardRestr(className + "_EmptyList", attrName,out,maxCard, asEntity);
-				if (minCard >= 1)
-					writeMinCardRestr(className + "_List", attrName,out,minCard, asEntity);	
-			} else {
-				// This is not supposed to happen
-				System.out.println("WARNING - IMPOSSIBLE: found mincardinality restriction that is greater than maxcardinality restriction for :"
-						+ attrName);
-			}
-		}
-	}
-	
-	private void writeCardinalityRestrictionsForListOfList(int minCard, int maxCard, String className, String attrName,
-			BufferedWriter out, boolean asEntity) throws IOException {
-		// write cardinality restrictions for the referenced list	
-		
-		if (minCard == -1 && maxCard == -1) {
-			System.out.println("WARNING: [?,?] found for : " + attrName);
-			return;
-		} else if (minCard == -1 && maxCard != -1) {
-			// [?:2]
-			// This is not supposed to happen
-			System.out
-					.println("WARNING - IMPOSSIBLE: found 'unlimited' mincardinality restriction combined with a bounded maxcardinality restriction for :"
-							+ attrName);
-			return;
-		} else if (minCard != -1 && maxCard == -1) {
-				int start = minCard;
-				// [2:?]
-				if (start >= 1)
-					writeMinCardRestr(className + "_List_List", attrName, out, start, asEntity);
-				
-				//extra cardinality restrictions (for the second LIST in a LIST OF LIST) are not set, they cannot be set in the current conversion procedure.
-				//writeExtraCardinalityRestrictionsForListOfList(attr, out);
-				return;
-			} else {
-			if (minCard == maxCard && maxCard >= 1) {
-				// [3:3]
-				// explicitly qualified cardinality
-//				writeQualCardRestr(attr.getType().getName() + "_List_List", attr.getName(), out, start);		
-				writeMinCardRestr(className + "_List_List", attrName, out, minCard, asEntity);	
-				writeMaxCardRestr(className + "_List_EmptyList", attrName, out, maxCard, asEntity);			
-			} else if (minCard < maxCard) {				
-				// [1:2]
-				// min-max qualified cardinality	
-				if (maxCard > 1) 
-					writeMaxCardRestr(className + "_List_EmptyList", attrName, out, maxCard, asEntity);
-				if (minCard >= 1)
-					writeMinCardRestr(className + "_List_List", attrName, out, minCard, asEntity);
-			} else {
-				// This is not supposed to happen
-				System.out
-						.println("WARNING - IMPOSSIBLE: found mincardinality restriction that is greater than maxcardinality restriction for :"
-								+ attrName);
-			}
-			//extra cardinality restrictions (for the second LIST in a LIST OF LIST) are not set, they cannot be set in the current conversion procedure.
-			//writeExtraCardinalityRestrictionsForListOfList(attr, out);
-			return;
-		}
-	}
-
-	@SuppressWarnings("unused")
-	private void writeQualCardRestr(String className, String attrName, BufferedWriter out, int qualCard) throws IOException{
-		out.write(" ;\r\n");
-		out.write("\trdfs:subClassOf" + "\r\n");
-		out.write("\t\t[" + "\r\n");
-		out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-		out.write("\t\t\towl:onProperty ifc:" + attrName + " ;"
-				+ "\r\n");
-		out.write("\t\t\towl:allValuesFrom" + "\r\n");
-		String tab = "\t\t\t";
-		for (int i = 0; i < qualCard - 1; i++) {
-			tab += "\t";
-			out.write(tab + "[" + "\r\n");
-			out.write(tab + "\trdf:type owl:Restriction ; " + "\r\n");
-			out.write(tab + "\towl:onProperty list:hasNext ; " + "\r\n");
-			out.write(tab + "\towl:someValuesFrom " + "\r\n");
-		}
-
-		tab += "\t";
-		out.write(tab + "[" + "\r\n");
-		out.write(tab + "\trdf:type owl:Restriction ; " + "\r\n");
-		out.write(tab + "\towl:onProperty list:hasNext ; " + "\r\n");
-		out.write(tab + "\towl:onClass "
-				+ className + " ;" + "\r\n");
-		out.write(tab
-				+ "\towl:qualifiedCardinality \"0\"^^xsd:nonNegativeInteger "
-				+ "\r\n");
-
-		tab = tab.substring(1);
-		out.write(tab + "\t]" + "\r\n");
-
-		for (int i = 0; i < qualCard - 1; i++) {
-			tab = tab.substring(1);
-			out.write(tab + "\t]" + "\r\n");
-		}
-		out.write("\t\t]");		
-	}
-
-	private void writeMinCardRestr(String className, String attrName, BufferedWriter out,
-			int minCard, boolean asEntity) throws IOException {
-		out.write(" ;\r\n");
-		out.write("\trdfs:subClassOf" + "\r\n");
-		String tab = "\t";
-		if(asEntity==true){
-			out.write("\t\t[" + "\r\n");
-			out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-			out.write("\t\t\towl:onProperty ifc:" + attrName + " ;\r\n");
-			out.write("\t\t\towl:allValuesFrom" + "\r\n");
-			tab += "\t\t";
-		}
-		for (int i = 0; i <= minCard -1; i++) {
-			tab += "\t";
-			out.write(tab + "[" + "\r\n");
-			out.write(tab + "\trdf:type owl:Restriction ; " + "\r\n");
-			out.write(tab + "\towl:onProperty list:hasNext ; " + "\r\n");
-			out.write(tab + "\towl:someValuesFrom ");
-		}
-		out.write(className + "\r\n");
-		for (int i = 0; i <= minCard - 1; i++) {
-				tab = tab.substring(1);
-				out.write(tab + "\t]" + "\r\n");
-		}
-		if(asEntity==true){
-			out.write("\t\t]");
-		}
-	}
-
-	private void writeMaxCardRestr(String className, String attrName, BufferedWriter out, int maxCard, boolean asEntity) throws IOException{
-		out.write(" ;\r\n");
-		out.write("\trdfs:subClassOf" + "\r\n");
-		String tab = "\t";
-		if(asEntity==true){
-			out.write("\t\t[" + "\r\n");
-			out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-			out.write("\t\t\towl:onProperty ifc:" + attrName + " ;"
-					+ "\r\n");
-			out.write("\t\t\towl:allValuesFrom" + "\r\n");
-			tab += "\t\t";
-		}
-		for(int i = 0; i<maxCard-1;i++){
-			tab += "\t";
-			out.write(tab + "[" + "\r\n");
-			out.write(tab + "\trdf:type owl:Restriction ; " + "\r\n");
-			out.write(tab + "\towl:onProperty list:hasNext ; " + "\r\n");
-			out.write(tab + "\towl:allValuesFrom " + "\r\n");
-		}
-
-		tab += "\t";
-		out.write(tab + "[" + "\r\n");		
-		out.write(tab + "\trdf:type owl:Restriction ; " + "\r\n");
-		out.write(tab + "\towl:onProperty list:hasNext ; " + "\r\n");	
-		out.write(tab + "\towl:onClass " + className + " ;" + "\r\n");	
-		out.write(tab + "\towl:qualifiedCardinality \"1\"^^xsd:nonNegativeInteger " + "\r\n");	
-		
-		tab=tab.substring(1);
-		out.write(tab + "\t]" + "\r\n");	
-		
-		for(int i = 0; i<maxCard-1;i++){		
-			tab=tab.substring(1);
-			out.write(tab + "\t]" + "\r\n");	
-		}		
-		if(asEntity==true)
-			out.write("\t\t]");
-	}
-	
-	@SuppressWarnings("unused")
-	private void writeExtraCardinalityRestrictionsForListOfList(
-			AttributeVO attr, BufferedWriter out) throws IOException {
-		if (attr.getMinCard_listoflist() == -1 && attr.getMaxCard_listoflist() == -1) {
-			System.out.println("WARNING: [?,?] found for : " + attr.getLowerCaseName()
-					+ " - " + attr.getType().getName());
-		} else if (attr.getMinCard_listoflist() == -1 && attr.getMaxCard_listoflist() != -1) {
-			// [?:2]
-			// This is not supposed to happen
-			System.out
-					.println("WARNING - IMPOSSIBLE: found 'unlimited' mincardinality restriction combined with a bounded maxcardinality restriction for :"
-							+ attr.getLowerCaseName());
-		} else if (attr.getMinCard_listoflist() != -1 && attr.getMaxCard_listoflist() == -1) {
-			int start = attr.getMinCard_listoflist();
-			// [2:?]
-			if (start > 1) {
-				// REMARK: below is an old option, but it can not be used in the current setup
-				
-	//			out.write(" ;\r\n");
-	//			out.write("\trdfs:subClassOf" + "\r\n");
-	//			out.write("\t\t[" + "\r\n");
-	//			out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//					+ " ; \r\n");
-	//			out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:onClass ifc:"
-	//					+ attr.getType().getName() + "_List ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:minQualifiedCardinality \""
-	//					+ (start - 1) + "\"^^xsd:nonNegativeInteger " + "\r\n");
-	//			out.write("\t\t\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t]");
-	
-				
-	//			out.write(" ;\r\n");
-	//			out.write("\trdfs:subClassOf" + "\r\n");
-	//			out.write("\t\t[" + "\r\n");
-	//			out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//					+ " ; \r\n");
-	//			out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\towl:onClass ifc:"
-	//					+ attr.getType().getName() + "_List ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\towl:minQualifiedCardinality \""
-	//					+ (start - 1) + "\"^^xsd:nonNegativeInteger " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t]");
-			}
-		} else {
-			int start = attr.getMinCard_listoflist();
-			int end = attr.getMaxCard_listoflist();
-			if (start == end && end > 1) {
-				// REMARK: below is an old option, but it can not be used in the current setup
-				
-				// [3:3]
-				// explicitly qualified cardinality
-	//			out.write(" ;\r\n");
-	//			out.write("\trdfs:subClassOf" + "\r\n");
-	//			out.write("\t\t[" + "\r\n");
-	//			out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//					+ " ; \r\n");
-	//			out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:onClass ifc:"
-	//					+ attr.getType().getName() + "_List ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:qualifiedCardinality \""
-	//					+ (start - 1) + "\"^^xsd:nonNegativeInteger " + "\r\n");
-	//			out.write("\t\t\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t]");
-	//
-	//			out.write(" ;\r\n");
-	//			out.write("\trdfs:subClassOf" + "\r\n");
-	//			out.write("\t\t[" + "\r\n");
-	//			out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//					+ " ; \r\n");
-	//			out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t[" + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//					+ "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\towl:onClass ifc:"
-	//					+ attr.getType().getName() + "_List ; " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t\towl:qualifiedCardinality \""
-	//					+ (start - 1) + "\"^^xsd:nonNegativeInteger " + "\r\n");
-	//			out.write("\t\t\t\t\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t\t\t]" + "\r\n");
-	//			out.write("\t\t]");
-			} else if (start < end) {
-				// [1:2]
-				// min-max qualified cardinality
-	
-				if (end > 1) {
-					// REMARK: below is an old option, but it can not be used in the current setup
-	
-	//				out.write(" ;\r\n");
-	//				out.write("\trdfs:subClassOf" + "\r\n");
-	//				out.write("\t\t[" + "\r\n");
-	//				out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//						+ " ; \r\n");
-	//				out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:onClass ifc:"
-	//						+ attr.getType().getName() + "_List ; " + "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:maxQualifiedCardinality \""
-	//						+ (end - 1) + "\"^^xsd:nonNegativeInteger "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t]");
-	//
-	//				out.write(" ;\r\n");
-	//				out.write("\trdfs:subClassOf" + "\r\n");
-	//				out.write("\t\t[" + "\r\n");
-	//				out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//						+ " ; \r\n");
-	//				out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\towl:onClass ifc:"
-	//						+ attr.getType().getName() + "_List ; " + "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\towl:maxQualifiedCardinality \""
-	//						+ (end - 1)
-	//						+ "\"^^xsd:nonNegativeInteger "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t]");
-	
-				}
-				if (start > 1) {
-					// REMARK: below is an old option, but it can not be used in the current setup
-					
-	//				out.write(" ;\r\n");
-	//				out.write("\trdfs:subClassOf" + "\r\n");
-	//				out.write("\t\t[" + "\r\n");
-	//				out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//						+ " ; \r\n");
-	//				out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:onClass ifc:"
-	//						+ attr.getType().getName() + "_List ; " + "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:minQualifiedCardinality \""
-	//						+ (start - 1) + "\"^^xsd:nonNegativeInteger "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t]");
-	//
-	//				out.write(" ;\r\n");
-	//				out.write("\trdfs:subClassOf" + "\r\n");
-	//				out.write("\t\t[" + "\r\n");
-	//				out.write("\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\towl:onProperty ifc:" + attr.getName()
-	//						+ " ; \r\n");
-	//				out.write("\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\trdf:type owl:Restriction ; " + "\r\n");
-	//				out.write("\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:onProperty ifc:hasListContent ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\towl:allValuesFrom" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t[" + "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\trdf:type owl:Restriction ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\towl:onProperty ifc:isFollowedBy ; "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\towl:onClass ifc:"
-	//						+ attr.getType().getName() + "_List ; " + "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t\towl:minQualifiedCardinality \""
-	//						+ (start - 1)
-	//						+ "\"^^xsd:nonNegativeInteger "
-	//						+ "\r\n");
-	//				out.write("\t\t\t\t\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t\t\t]" + "\r\n");
-	//				out.write("\t\t]");
-				}
-			} else {
-				// This is not supposed to happen
-				System.out
-						.println("WARNING - IMPOSSIBLE: found mincardinality restriction that is greater than maxcardinality restriction for :"
-								+ attr.getName());
-			}
-		}
-	}	
-}
\ No newline at end of file
+}
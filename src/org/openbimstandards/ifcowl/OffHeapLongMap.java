@@ -0,0 +1,186 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/*
+ * OffHeapLongMap maps long keys to long values without a Java object per entry. The
+ * entries are kept outside the heap in an open-addressing table with linear probing,
+ * in direct buffers or in a memory-mapped temporary file, so the heap does not grow
+ * with the number of entries. The StepConverter keeps the entity of every instance id
+ * of a model in one.
+ *
+ * The usage:
+ * OffHeapLongMap map = new OffHeapLongMap(1 << 20, null);           // direct buffers
+ * OffHeapLongMap map = new OffHeapLongMap(1 << 20, tempDirectory);  // a mapped file
+ * map.put(12, 3);
+ * long value = map.get(12, -1);                                     // -1 when missing
+ * map.close();
+ *
+ * The table has 16 bytes per slot and is doubled when it is three quarters full, in
+ * segments of 64K slots so that it is not limited to the 2 GB of one buffer. Direct
+ * buffers count against -XX:MaxDirectMemorySize, which is the size of the heap unless
+ * it is set; a mapped file is only limited by the disk and the page cache. Concurrent
+ * gets are safe while nothing is put.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class OffHeapLongMap implements Closeable {
+
+	private static final int SLOT = 16;
+	private static final int SEGMENT_BITS = 16;
+
+	// where the table is kept, null for direct buffers
+	private final File directory;
+	private File file;
+	private ByteBuffer[] segments;
+	private int segmentBits;
+	private long mask;
+	private long size;
+	// the key 0 marks an empty slot, so its value is kept here
+	private boolean hasZero;
+	private long zeroValue;
+
+	public OffHeapLongMap(long expectedSize, File directory) throws IOException {
+		this.directory = directory;
+		long capacity = 1 << 4;
+		while (capacity * 3 < expectedSize * 4)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	public long size() {
+		return size;
+	}
+
+	// the bytes of the table outside the heap
+	public long getTableBytes() {
+		return (mask + 1) * SLOT;
+	}
+
+	public void put(long key, long value) throws IOException {
+		if (key == 0) {
+			if (!hasZero)
+				size++;
+			hasZero = true;
+			zeroValue = value;
+			return;
+		}
+		if ((size + 1) * 4 > (mask + 1) * 3)
+			grow();
+		if (insert(key, value))
+			size++;
+	}
+
+	public long get(long key, long missing) {
+		if (key == 0)
+			return hasZero ? zeroValue : missing;
+		int segmentMask = (1 << segmentBits) - 1;
+		for (long slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			ByteBuffer segment = segments[(int) (slot >>> segmentBits)];
+			int offset = (int) (slot & segmentMask) * SLOT;
+			long k = segment.getLong(offset);
+			if (k == key)
+				return segment.getLong(offset + 8);
+			if (k == 0)
+				return missing;
+		}
+	}
+
+	// releases the mapped file; the direct buffers are freed with the map
+	public void close() {
+		segments = new ByteBuffer[0];
+		if (file != null)
+			file.delete();
+		file = null;
+	}
+
+	// true when the key was new
+	private boolean insert(long key, long value) {
+		int segmentMask = (1 << segmentBits) - 1;
+		for (long slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			ByteBuffer segment = segments[(int) (slot >>> segmentBits)];
+			int offset = (int) (slot & segmentMask) * SLOT;
+			long k = segment.getLong(offset);
+			if (k == 0 || k == key) {
+				segment.putLong(offset, key);
+				segment.putLong(offset + 8, value);
+				return k == 0;
+			}
+		}
+	}
+
+	private void grow() throws IOException {
+		ByteBuffer[] old = segments;
+		int oldBits = segmentBits;
+		long oldCapacity = mask + 1;
+		File oldFile = file;
+		allocate(oldCapacity * 2);
+		int oldMask = (1 << oldBits) - 1;
+		for (long slot = 0; slot < oldCapacity; slot++) {
+			ByteBuffer segment = old[(int) (slot >>> oldBits)];
+			int offset = (int) (slot & oldMask) * SLOT;
+			long k = segment.getLong(offset);
+			if (k != 0)
+				insert(k, segment.getLong(offset + 8));
+		}
+		if (oldFile != null)
+			oldFile.delete();
+	}
+
+	// an empty table of capacity slots, a power of 2
+	private void allocate(long capacity) throws IOException {
+		segmentBits = Math.min(SEGMENT_BITS, Long.numberOfTrailingZeros(capacity));
+		int count = (int) (capacity >>> segmentBits);
+		int bytes = (1 << segmentBits) * SLOT;
+		segments = new ByteBuffer[count];
+		if (directory == null) {
+			for (int n = 0; n < count; n++)
+				segments[n] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+		} else {
+			file = File.createTempFile("ids", ".map", directory);
+			file.deleteOnExit();
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(capacity * SLOT);
+				FileChannel channel = raf.getChannel();
+				for (int n = 0; n < count; n++)
+					segments[n] = channel.map(FileChannel.MapMode.READ_WRITE, (long) n * bytes, bytes).order(
+							ByteOrder.nativeOrder());
+			} finally {
+				raf.close();
+			}
+		}
+		mask = capacity - 1;
+	}
+
+	// the finalizer of MurmurHash3, ids that follow each other spread over the table
+	private static long hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb53fe63e9a85L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
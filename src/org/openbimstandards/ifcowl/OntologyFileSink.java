@@ -0,0 +1,186 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+
+/*
+ * OntologyFileSink writes one stream of triples to a .ttl and a .rdf file at the same
+ * time: the Turtle with a TurtleStreamWriter, the RDF/XML with the RdfXmlStreamWriter.
+ * Nothing is collected in a model. The Turtle is rendered block by block, so for a
+ * stream of the OWLWriter, which tells the sink where every block ends, only the
+ * triples of one block are kept; a stream without blocks is kept until finish().
+ *
+ * It can write an RDF Thrift file (.rt) from the same stream as well, a binary snapshot
+ * that Jena loads faster than the Turtle, because no text has to be parsed:
+ * RDFDataMgr.read(graph, "IFC4.rt"). OWLWriter.outputOWL(filePath) writes the three
+ * files this way, so they always hold the same triples. The .ttl can be left out, as
+ * outputOWL(filePath, pool) does, which renders it in shards instead.
+ *
+ * The usage:
+ * OntologyFileSink sink = new OntologyFileSink(new File("IFC4.ttl"), new File("IFC4.rdf"));
+ * OntologyFileSink sink = new OntologyFileSink(new File("IFC4.ttl"), new File("IFC4.rdf"),
+ *     new File("IFC4.rt"));
+ * OntologyFileSink sink = new OntologyFileSink(null, new File("IFC4.rdf"), new File("IFC4.rt"));
+ * try {
+ *     ow.outputOWL(sink);
+ * } finally {
+ *     sink.close();
+ * }
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class OntologyFileSink implements BlockStream, Closeable {
+
+	private final FileChannel ttlChannel;
+	private final TurtleOutput ttlOut;
+	private final Writer rdfOut;
+	private final TurtleStreamWriter ttl;
+	private final StreamRDF rdf;
+	private final OutputStream thriftOut;
+	private final StreamRDF thrift;
+
+	public OntologyFileSink(File ttlFile, File rdfFile) throws IOException {
+		this(ttlFile, rdfFile, null);
+	}
+
+	// ttlFile is null for no Turtle file, thriftFile for no RDF Thrift file
+	public OntologyFileSink(File ttlFile, File rdfFile, File thriftFile) throws IOException {
+		ttlChannel = ttlFile == null ? null : FileChannel.open(ttlFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		ttlOut = ttlChannel == null ? null : new TurtleOutput(ttlChannel);
+		try {
+			rdfOut = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(rdfFile),
+					StandardCharsets.UTF_8), 1 << 16);
+		} catch (IOException e) {
+			closeTurtle();
+			throw e;
+		}
+		try {
+			thriftOut = thriftFile == null ? null
+					: new BufferedOutputStream(new FileOutputStream(thriftFile), 1 << 16);
+		} catch (IOException e) {
+			closeTurtle();
+			rdfOut.close();
+			throw e;
+		}
+		ttl = ttlOut == null ? null : new TurtleStreamWriter(ttlOut);
+		rdf = new RdfXmlStreamWriter(rdfOut);
+		thrift = thriftOut == null ? null
+				: StreamRDFWriter.getWriterStream(thriftOut, RDFFormat.RDF_THRIFT, null);
+	}
+
+	@Override
+	public void start() {
+		if (ttl != null)
+			ttl.start();
+		rdf.start();
+		if (thrift != null)
+			thrift.start();
+	}
+
+	@Override
+	public void base(String base) {
+		if (ttl != null)
+			ttl.base(base);
+		rdf.base(base);
+		if (thrift != null)
+			thrift.base(base);
+	}
+
+	@Override
+	public void prefix(String prefix, String iri) {
+		if (ttl != null)
+			ttl.prefix(prefix, iri);
+		rdf.prefix(prefix, iri);
+		if (thrift != null)
+			thrift.prefix(prefix, iri);
+	}
+
+	@Override
+	public void triple(Triple triple) {
+		if (ttl != null)
+			ttl.triple(triple);
+		rdf.triple(triple);
+		if (thrift != null)
+			thrift.triple(triple);
+	}
+
+	@Override
+	public void quad(Quad quad) {
+		triple(quad.asTriple());
+	}
+
+	@Override
+	public void endBlock() throws IOException {
+		if (ttl != null)
+			ttl.endBlock();
+	}
+
+	// the offsets of the blocks in the .ttl, or null without one
+	public long[] getBlockStarts() {
+		return ttlOut == null ? null : ttlOut.getBlockStarts();
+	}
+
+	@Override
+	public void finish() {
+		if (ttl != null)
+			ttl.finish();
+		rdf.finish();
+		if (thrift != null)
+			thrift.finish();
+	}
+
+	public void close() throws IOException {
+		try {
+			closeTurtle();
+		} finally {
+			try {
+				rdfOut.close();
+			} finally {
+				if (thriftOut != null)
+					thriftOut.close();
+			}
+		}
+	}
+
+	private void closeTurtle() throws IOException {
+		if (ttlChannel == null)
+			return;
+		try {
+			ttlOut.close();
+		} finally {
+			ttlChannel.close();
+		}
+	}
+}
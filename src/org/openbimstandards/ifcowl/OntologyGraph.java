@@ -0,0 +1,254 @@
+package org.openbimstandards.ifcowl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.apache.jena.graph.Capabilities;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.AllCapabilities;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.shared.impl.PrefixMappingImpl;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+/*
+ * OntologyGraph is a read-only Jena Graph of the ontology that the OWLWriter writes,
+ * backed by the in-memory model of the ExpressReader instead of by a graph of parsed
+ * triples. The ontology is divided into the blocks of the canonical order of the
+ * OWLWriter, one for every named individual, type, entity and property, and the triples
+ * of a block are made from the model by the emitter of the block only when find() needs
+ * them, as Node and Triple objects without any text to parse; the last blocks that were
+ * used are kept in a small cache. They are the same triples as those of outputOWL.
+ *
+ * The usage:
+ * Graph graph = ow.getGraph();
+ * Model model = ModelFactory.createModelForGraph(graph);
+ * QueryExecution qe = QueryExecutionFactory.create("SELECT ...", model);
+ *
+ * When the graph is created, the triples of every block are made once to index the
+ * blocks by the subjects, the predicates and the IRI objects of their triples, so
+ * find(s, p, o) makes only the triples of the blocks that have the subject, or else of
+ * the fewest blocks of those with the predicate and with the object; a pattern with none
+ * of them, or with only a literal object, goes through all the blocks. A triple that
+ * more than one block gives is kept only in the first one, and so is a part that is
+ * given only once, like the list classes of a range. The blank nodes of a block never
+ * leave it, and they are labeled with the number of their block, like _:12_b3, so that
+ * they can be found again later. The model must not change while the graph is used.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class OntologyGraph extends GraphBase {
+
+	// gives the triples of a block to the output, block 0 is the header of the ontology
+	interface Emitter {
+		void emit(int block, TripleOutput out);
+	}
+
+	private static final int CACHED_BLOCKS = 256;
+	private static final int[] NONE = new int[0];
+
+	private final Emitter emitter;
+	private final int blockCount;
+	// the namespace of the ontology, with the #
+	private final String ifc;
+	// the block that gives each once part, the first one in the canonical order
+	private final Map<String, Integer> onceOwners = new HashMap<String, Integer>();
+	private final Map<Node, int[]> bySubject = new HashMap<Node, int[]>();
+	private final Map<Node, int[]> byPredicate = new HashMap<Node, int[]>();
+	private final Map<Node, int[]> byObject = new HashMap<Node, int[]>();
+	// the triples of a block that an earlier block has already, like the rdfs:subClassOf
+	// of a select that both the select and the entity write
+	private final Map<Integer, Set<Triple>> repeated = new HashMap<Integer, Set<Triple>>();
+	private final PrefixMapping prefixes = new PrefixMappingImpl();
+	private final List<Triple> header;
+	private int tripleCount = 0;
+
+	private final Map<Integer, List<Triple>> cache = new LinkedHashMap<Integer, List<Triple>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, List<Triple>> eldest) {
+			return size() > CACHED_BLOCKS;
+		}
+	};
+
+	OntologyGraph(Emitter emitter, int blockCount, String ifc) {
+		this.emitter = emitter;
+		this.blockCount = blockCount;
+		this.ifc = ifc;
+		List<Triple> header = null;
+		Set<Triple> seen = new HashSet<Triple>();
+		for (int block = 0; block < blockCount; block++) {
+			List<Triple> triples = emit(block);
+			for (Iterator<Triple> it = triples.iterator(); it.hasNext();) {
+				Triple triple = it.next();
+				if (!triple.getSubject().isBlank() && !seen.add(triple)) {
+					repeated.computeIfAbsent(block, b -> new HashSet<Triple>()).add(triple);
+					it.remove();
+				}
+			}
+			if (block == 0)
+				header = triples;
+			for (Triple triple : triples) {
+				index(bySubject, triple.getSubject(), block);
+				index(byPredicate, triple.getPredicate(), block);
+				if (triple.getObject().isURI())
+					index(byObject, triple.getObject(), block);
+			}
+			tripleCount += triples.size();
+		}
+		this.header = header == null ? Collections.<Triple> emptyList() : header;
+	}
+
+	private static void index(Map<Node, int[]> index, Node node, int block) {
+		if (node.isBlank())
+			return;
+		int[] blocks = index.get(node);
+		if (blocks == null)
+			index.put(node, new int[] { block });
+		else if (blocks[blocks.length - 1] != block) {
+			blocks = Arrays.copyOf(blocks, blocks.length + 1);
+			blocks[blocks.length - 1] = block;
+			index.put(node, blocks);
+		}
+	}
+
+	// the triples of the block, with only the once parts that the block owns
+	private List<Triple> emit(int block) {
+		Set<Triple> skipped = repeated.getOrDefault(block, Collections.<Triple> emptySet());
+		List<Triple> triples = new ArrayList<Triple>();
+		StreamRDFBase collector = new StreamRDFBase() {
+			@Override
+			public void triple(Triple triple) {
+				if (!skipped.contains(triple))
+					triples.add(triple);
+			}
+
+			@Override
+			public void prefix(String prefix, String iri) {
+				prefixes.setNsPrefix(prefix, iri);
+			}
+		};
+		emitter.emit(block, new TripleOutput(collector, ifc, block + "_",
+				key -> onceOwners.computeIfAbsent(key, k -> block) == block));
+		return triples;
+	}
+
+	private synchronized List<Triple> getTriples(int block) {
+		if (block == 0)
+			return header;
+		List<Triple> triples = cache.get(block);
+		if (triples == null) {
+			triples = emit(block);
+			cache.put(block, triples);
+		}
+		return triples;
+	}
+
+	// the block of a blank node of this graph, from its label like 12_b3, or -1
+	private int blockOf(Node node) {
+		String label = node.getBlankNodeLabel();
+		int end = label.indexOf('_');
+		try {
+			int block = end < 0 ? -1 : Integer.parseInt(label.substring(0, end));
+			return block < blockCount ? block : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	@Override
+	protected ExtendedIterator<Triple> graphBaseFind(Triple pattern) {
+		Node subject = pattern.getMatchSubject();
+		Node predicate = pattern.getMatchPredicate();
+		Node object = pattern.getMatchObject();
+		int[] blocks = null;
+		if (subject != null && subject.isBlank()) {
+			int block = blockOf(subject);
+			blocks = block < 0 ? NONE : new int[] { block };
+		} else if (subject != null)
+			blocks = bySubject.getOrDefault(subject, NONE);
+		else {
+			if (predicate != null)
+				blocks = byPredicate.getOrDefault(predicate, NONE);
+			if (object != null && object.isURI()) {
+				int[] withObject = byObject.getOrDefault(object, NONE);
+				if (blocks == null || withObject.length < blocks.length)
+					blocks = withObject;
+			}
+			if (blocks == null)
+				blocks = IntStream.range(0, blockCount).toArray();
+		}
+		return WrappedIterator.create(Arrays.stream(blocks).boxed()
+				.flatMap(block -> getTriples(block).stream()).filter(pattern::matches).iterator());
+	}
+
+	@Override
+	protected int graphBaseSize() {
+		return tripleCount;
+	}
+
+	@Override
+	protected PrefixMapping createPrefixMapping() {
+		PrefixMapping pm = new PrefixMappingImpl();
+		pm.setNsPrefixes(prefixes);
+		return pm;
+	}
+
+	@Override
+	public Capabilities getCapabilities() {
+		return new AllCapabilities() {
+			@Override
+			public boolean addAllowed() {
+				return false;
+			}
+
+			@Override
+			public boolean addAllowed(boolean every) {
+				return false;
+			}
+
+			@Override
+			public boolean deleteAllowed() {
+				return false;
+			}
+
+			@Override
+			public boolean deleteAllowed(boolean every) {
+				return false;
+			}
+
+			@Override
+			public boolean iteratorRemoveAllowed() {
+				return false;
+			}
+		};
+	}
+}
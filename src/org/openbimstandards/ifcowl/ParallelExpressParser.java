@@ -0,0 +1,124 @@
+package org.openbimstandards.ifcowl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * ParallelExpressParser parses the TYPE ... END_TYPE; and ENTITY ... END_ENTITY; blocks
+ * of an EXPRESS schema on a ForkJoinPool. A fast scan over the schema buffer finds the
+ * block boundaries, every block is parsed by its own ExpressParser (so the state of
+ * the state machine stays local to the block) into an ExpressEventBuffer, and the
+ * buffers are replayed to the listener in file order. The listener therefore sees
+ * exactly the events of a sequential ExpressParser and does not need to be thread-safe.
+ *
+ * The usage:
+ * ParallelExpressParser parser = new ParallelExpressParser(listener);
+ * parser.parse(ExpressLexer.open(schemaFile).getBuffer());
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ParallelExpressParser {
+
+	// number of blocks that one task parses without splitting any further
+	private static final int BLOCKS_PER_TASK = 32;
+
+	private final ExpressListener listener;
+	private final ForkJoinPool pool;
+
+	public ParallelExpressParser(ExpressListener listener) {
+		this(listener, ForkJoinPool.commonPool());
+	}
+
+	public ParallelExpressParser(ExpressListener listener, ForkJoinPool pool) {
+		this.listener = listener;
+		this.pool = pool;
+	}
+
+	public void parse(ByteBuffer schema) {
+		int[] bounds = findBlocks(schema);
+		ExpressEventBuffer[] events = new ExpressEventBuffer[bounds.length - 1];
+		pool.invoke(new BlockTask(schema, bounds, events, 0, events.length));
+		for (int n = 0; n < events.length; n++)
+			events[n].replay(listener);
+	}
+
+	// offsets of the block boundaries: the start of the schema, the end of every
+	// END_TYPE; and END_ENTITY; token and the end of the schema
+	static int[] findBlocks(ByteBuffer schema) {
+		int[] bounds = new int[256];
+		int count = 0;
+		bounds[count++] = schema.position();
+		ExpressLexer lexer = new ExpressLexer(schema.duplicate());
+		while (lexer.next()) {
+			ExpressToken txt = lexer.token();
+			// only END_TYPE; and END_ENTITY; need to be looked up
+			if ((txt.length() == 9 || txt.length() == 11)
+					&& (txt.charAt(0) == 'E' || txt.charAt(0) == 'e')) {
+				int kw = ExpressKeywords.lookup(txt);
+				if (kw == ExpressKeywords.END_TYPE || kw == ExpressKeywords.END_ENTITY) {
+					if (count == bounds.length)
+						bounds = Arrays.copyOf(bounds, count * 2);
+					bounds[count++] = txt.offset() + txt.length();
+				}
+			}
+		}
+		if (count == bounds.length)
+			bounds = Arrays.copyOf(bounds, count + 1);
+		bounds[count++] = schema.limit();
+		return Arrays.copyOf(bounds, count);
+	}
+
+	private static class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ByteBuffer schema;
+		private final int[] bounds;
+		private final ExpressEventBuffer[] events;
+		private final int from;
+		private final int to;
+
+		BlockTask(ByteBuffer schema, int[] bounds, ExpressEventBuffer[] events,
+				int from, int to) {
+			this.schema = schema;
+			this.bounds = bounds;
+			this.events = events;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BLOCKS_PER_TASK) {
+				for (int n = from; n < to; n++) {
+					ByteBuffer block = schema.duplicate();
+					block.limit(bounds[n + 1]);
+					block.position(bounds[n]);
+					events[n] = new ExpressEventBuffer();
+					new ExpressParser(events[n]).parse(new ExpressLexer(block));
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new BlockTask(schema, bounds, events, from, middle),
+						new BlockTask(schema, bounds, events, middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * PropertyTable reads the property list of a schema that was written by the
+ * PropertyTableWriter: the same rows as proplistXXX.csv, the original name, the
+ * ifcOWL property name and the kind of every attribute in the derived attribute list
+ * of every entity, but in a file that is memory-mapped and looked up in place. Opening
+ * it reads the header only, so a short-lived process does not pay for parsing the
+ * whole list into maps before the first lookup.
+ *
+ * The usage:
+ * PropertyTable table = PropertyTable.open(new File("proplistIFC4.bin"));
+ * int wall = table.getEntity("IfcWall");                 // -1 when not found
+ * for (int n = 0; n < table.getAttributeCount(wall); n++) {
+ *     String original = table.getOriginalName(wall, n);  // GlobalId
+ *     String property = table.getPropertyName(wall, n);  // GlobalId_IfcRoot
+ *     int kind = table.getKind(wall, n);                 // PropertyTable.ENTITY
+ * }
+ *
+ * An entity name is found with a minimal perfect hash: the hash of the name picks a
+ * bucket, the seed of that bucket picks the slot of the entity, and the name in the
+ * slot is compared with the one that is looked for, so a lookup reads one seed, one
+ * slot and one string.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class PropertyTable {
+
+	public static final int MAGIC = ('P' << 24) | ('R' << 16) | ('O' << 8) | 'P';
+	public static final int VERSION = 1;
+
+	// the kinds of attributes, the last column of proplistXXX.csv
+	public static final int ENTITY = 0;
+	public static final int SET = 1;
+	public static final int ARRAY = 2;
+	public static final int LIST_OF_LIST = 3;
+	public static final int LIST = 4;
+	private static final String[] KIND_NAMES = { "ENTITY", "SET", "ARRAY", "LISTOFLIST", "LIST" };
+
+	// sizes in ints
+	static final int HEADER_SIZE = 12 * 4;
+	static final int SLOT_SIZE = 3;
+	static final int ATTRIBUTE_SIZE = 3;
+
+	private final ByteBuffer buffer;
+	private final int entityCount;
+	private final int bucketCount;
+	private final int seedOffset;
+	private final int slotOffset;
+	private final int attributeCount;
+	private final int attributeOffset;
+	private final int stringCount;
+	private final int stringOffset;
+	private final String[] strings;
+	private final String schemaName;
+
+	public PropertyTable(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a property table");
+		int version = buffer.getInt(4);
+		if (version != VERSION)
+			throw new IOException("Unsupported property table version " + version + ", expected " + VERSION);
+		entityCount = buffer.getInt(12);
+		bucketCount = buffer.getInt(16);
+		seedOffset = buffer.getInt(20);
+		slotOffset = buffer.getInt(24);
+		attributeCount = buffer.getInt(28);
+		attributeOffset = buffer.getInt(32);
+		stringCount = buffer.getInt(36);
+		stringOffset = buffer.getInt(40);
+		strings = new String[stringCount];
+		schemaName = getString(buffer.getInt(8));
+	}
+
+	public static PropertyTable open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return new PropertyTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
+		} finally {
+			raf.close();
+		}
+	}
+
+	public String getSchemaName() {
+		return schemaName;
+	}
+
+	// ENTITIES
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	// the entity with the name as it is written in the schema, like IfcWall, or -1
+	public int getEntity(String name) {
+		if (entityCount == 0)
+			return -1;
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		int bucket = (int) Long.remainderUnsigned(hash(key, 0), bucketCount);
+		int seed = buffer.getInt(seedOffset + 4 * bucket);
+		int slot = (int) Long.remainderUnsigned(hash(key, seed), entityCount);
+		return equalsString(buffer.getInt(slotOffset + 4 * SLOT_SIZE * slot), key) ? slot : -1;
+	}
+
+	public String getEntityName(int entity) {
+		return getString(buffer.getInt(slotOffset + 4 * SLOT_SIZE * entity));
+	}
+
+	public int getAttributeCount(int entity) {
+		return buffer.getInt(slotOffset + 4 * (SLOT_SIZE * entity + 2));
+	}
+
+	// ATTRIBUTES, by entity and position in its derived attribute list
+	public String getOriginalName(int entity, int n) {
+		return getString(attributeInt(entity, n, 0));
+	}
+
+	public String getPropertyName(int entity, int n) {
+		return getString(attributeInt(entity, n, 1));
+	}
+
+	public int getKind(int entity, int n) {
+		return attributeInt(entity, n, 2);
+	}
+
+	// ENTITY, SET, ARRAY, LISTOFLIST or LIST, as in proplistXXX.csv
+	public static String getKindName(int kind) {
+		return KIND_NAMES[kind];
+	}
+
+	public int getTotalAttributeCount() {
+		return attributeCount;
+	}
+
+	private int attributeInt(int entity, int n, int column) {
+		int first = buffer.getInt(slotOffset + 4 * (SLOT_SIZE * entity + 1));
+		return buffer.getInt(attributeOffset + 4 * (ATTRIBUTE_SIZE * (first + n) + column));
+	}
+
+	// STRINGS
+	public String getString(int index) {
+		if (index < 0)
+			return null;
+		String s = strings[index];
+		if (s == null) {
+			int start = buffer.getInt(stringOffset + 4 * index);
+			int end = buffer.getInt(stringOffset + 4 * index + 4);
+			byte[] bytes = new byte[end - start];
+			ByteBuffer b = buffer.duplicate();
+			b.position(stringOffset + start);
+			b.get(bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = s;
+		}
+		return s;
+	}
+
+	private boolean equalsString(int index, byte[] key) {
+		int start = stringOffset + buffer.getInt(stringOffset + 4 * index);
+		int length = stringOffset + buffer.getInt(stringOffset + 4 * index + 4) - start;
+		if (length != key.length)
+			return false;
+		for (int i = 0; i < length; i++)
+			if (buffer.get(start + i) != key[i])
+				return false;
+		return true;
+	}
+
+	// FNV-1a over the UTF-8 bytes, started from the seed and mixed at the end
+	static long hash(byte[] key, int seed) {
+		long h = 0xcbf29ce484222325L ^ (seed * 0x9e3779b97f4a7c15L);
+		for (byte b : key) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,226 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openbimstandards.ifcowl.vo.AttributeVO;
+import org.openbimstandards.ifcowl.vo.EntityVO;
+
+/*
+ * PropertyTableWriter writes the property list of the entities of an EXPRESS schema, as
+ * built by the ExpressReader, in the format that is read by PropertyTable. It holds the
+ * same rows as proplistXXX.csv.
+ *
+ * The usage:
+ * new PropertyTableWriter(schemaName, entities).write(new File("proplistIFC4.bin"));
+ *
+ * The format (all numbers are big-endian ints, strings are indices in the string table):
+ *  - header:     magic 'PROP', version, schema name, entity count, bucket count, and
+ *                the offsets of the seeds and slots, the count and offset of the
+ *                attributes and the count and offset of the strings
+ *  - seeds:      one per bucket, the seed that places the entities of the bucket
+ *  - slots:      name, first attribute, attribute count; one per entity, in the order
+ *                of the perfect hash
+ *  - attributes: original name, property name, kind; the derived attribute list of
+ *                each entity
+ *  - strings:    count + 1 offsets into the UTF-8 bytes of all distinct strings
+ *
+ * The perfect hash is built by hash and displace: the entity names are spread over
+ * buckets of about two names, and the buckets, largest first, get the first seed that
+ * puts all their names in slots that are still free.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class PropertyTableWriter {
+
+	// the seeds that are tried for one bucket before giving up
+	private static final int MAX_SEED = 1 << 24;
+
+	private final String schemaName;
+	private final Map<String, EntityVO> entities;
+
+	private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	public PropertyTableWriter(String schemaName, Map<String, EntityVO> entities) {
+		this.schemaName = schemaName;
+		this.entities = entities;
+	}
+
+	public void write(File file) throws IOException {
+		List<EntityVO> list = new ArrayList<EntityVO>(entities.values());
+		int n = list.size();
+		byte[][] keys = new byte[n][];
+		for (int i = 0; i < n; i++)
+			keys[i] = list.get(i).getName().getBytes(StandardCharsets.UTF_8);
+		int bucketCount = Math.max(1, (n + 1) / 2);
+		int[] seeds = new int[bucketCount];
+		int[] slotOf = place(keys, seeds);
+
+		// the entities in the order of their slots
+		EntityVO[] slots = new EntityVO[n];
+		for (int i = 0; i < n; i++)
+			slots[slotOf[i]] = list.get(i);
+		int schema = intern(schemaName);
+		int[] slotTable = new int[n * PropertyTable.SLOT_SIZE];
+		int[] attributeTable = new int[0];
+		int attributes = 0;
+		for (int slot = 0; slot < n; slot++) {
+			List<AttributeVO> attrs = slots[slot].getDerived_attribute_list();
+			slotTable[slot * PropertyTable.SLOT_SIZE] = intern(slots[slot].getName());
+			slotTable[slot * PropertyTable.SLOT_SIZE + 1] = attributes;
+			slotTable[slot * PropertyTable.SLOT_SIZE + 2] = attrs.size();
+			attributeTable = Arrays.copyOf(attributeTable, (attributes + attrs.size()) * PropertyTable.ATTRIBUTE_SIZE);
+			for (AttributeVO attr : attrs) {
+				int row = attributes++ * PropertyTable.ATTRIBUTE_SIZE;
+				attributeTable[row] = intern(attr.getOriginalName());
+				attributeTable[row + 1] = intern(attr.getName());
+				attributeTable[row + 2] = kind(attr);
+			}
+		}
+
+		byte[][] utf8 = new byte[strings.size()][];
+		int stringBytes = 0;
+		for (int i = 0; i < utf8.length; i++) {
+			utf8[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+			stringBytes += utf8[i].length;
+		}
+
+		int seedOffset = PropertyTable.HEADER_SIZE;
+		int slotOffset = seedOffset + 4 * bucketCount;
+		int attributeOffset = slotOffset + 4 * slotTable.length;
+		int stringOffset = attributeOffset + 4 * attributeTable.length;
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			out.writeInt(PropertyTable.MAGIC);
+			out.writeInt(PropertyTable.VERSION);
+			out.writeInt(schema);
+			out.writeInt(n);
+			out.writeInt(bucketCount);
+			out.writeInt(seedOffset);
+			out.writeInt(slotOffset);
+			out.writeInt(attributes);
+			out.writeInt(attributeOffset);
+			out.writeInt(utf8.length);
+			out.writeInt(stringOffset);
+			out.writeInt(0);
+			for (int seed : seeds)
+				out.writeInt(seed);
+			for (int value : slotTable)
+				out.writeInt(value);
+			for (int value : attributeTable)
+				out.writeInt(value);
+
+			int position = 4 * (utf8.length + 1);
+			out.writeInt(position);
+			for (int i = 0; i < utf8.length; i++) {
+				position += utf8[i].length;
+				out.writeInt(position);
+			}
+			for (int i = 0; i < utf8.length; i++)
+				out.write(utf8[i]);
+		} finally {
+			out.close();
+		}
+	}
+
+	// fills in the seed of every bucket and returns the slot of every key
+	static int[] place(byte[][] keys, int[] seeds) throws IOException {
+		int n = keys.length;
+		int[] slotOf = new int[n];
+		if (n == 0)
+			return slotOf;
+		List<List<Integer>> buckets = new ArrayList<List<Integer>>();
+		for (int b = 0; b < seeds.length; b++)
+			buckets.add(new ArrayList<Integer>());
+		for (int i = 0; i < n; i++)
+			buckets.get((int) Long.remainderUnsigned(PropertyTable.hash(keys[i], 0), seeds.length)).add(i);
+		Integer[] order = new Integer[seeds.length];
+		for (int b = 0; b < order.length; b++)
+			order[b] = b;
+		Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+		boolean[] taken = new boolean[n];
+		int[] slots = new int[n];
+		for (int b : order) {
+			List<Integer> bucket = buckets.get(b);
+			if (bucket.isEmpty())
+				break;
+			int seed = 1;
+			while (!fits(keys, bucket, seed, taken, slots)) {
+				if (++seed == MAX_SEED)
+					throw new IOException("no perfect hash found for " + n + " entity names");
+			}
+			seeds[b] = seed;
+			for (int i = 0; i < bucket.size(); i++) {
+				taken[slots[i]] = true;
+				slotOf[bucket.get(i)] = slots[i];
+			}
+		}
+		return slotOf;
+	}
+
+	// true when the seed puts the keys of the bucket in free and different slots
+	private static boolean fits(byte[][] keys, List<Integer> bucket, int seed, boolean[] taken, int[] slots) {
+		for (int i = 0; i < bucket.size(); i++) {
+			int slot = (int) Long.remainderUnsigned(PropertyTable.hash(keys[bucket.get(i)], seed), taken.length);
+			if (taken[slot])
+				return false;
+			for (int j = 0; j < i; j++)
+				if (slots[j] == slot)
+					return false;
+			slots[i] = slot;
+		}
+		return true;
+	}
+
+	// the kind in the order that outputEntityPropertyList tests the flags
+	private static int kind(AttributeVO attr) {
+		if (attr.isSet())
+			return PropertyTable.SET;
+		if (attr.isArray())
+			return PropertyTable.ARRAY;
+		if (attr.isListOfList())
+			return PropertyTable.LIST_OF_LIST;
+		if (attr.isList())
+			return PropertyTable.LIST;
+		return PropertyTable.ENTITY;
+	}
+
+	private int intern(String s) {
+		if (s == null)
+			return -1;
+		Integer index = stringIndex.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndex.put(s, index);
+		}
+		return index;
+	}
+}
@@ -0,0 +1,219 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.impl.Util;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+/*
+ * RdfXmlStreamWriter writes the triples that it receives as RDF/XML while they arrive,
+ * so that an ontology can be written as RDF/XML without first collecting it in a Jena
+ * model. Consecutive triples with the same subject share one rdf:Description.
+ *
+ * The usage:
+ * Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("IFC4.rdf"), "UTF-8"));
+ * RDFParser.source("IFC4.ttl").parse(new RdfXmlStreamWriter(out));
+ * out.close();
+ *
+ * The prefixes that are received before the first triple are declared on rdf:RDF; the
+ * namespaces of other properties are declared on the property element itself. IRIs are
+ * written in full and blank nodes get an rdf:nodeID that is derived from their label.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class RdfXmlStreamWriter implements StreamRDF {
+
+	private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+	private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+	private final Writer out;
+	// namespace -> prefix
+	private final Map<String, String> prefixes = new HashMap<String, String>();
+	private final StringBuilder declarations = new StringBuilder();
+	private boolean started;
+	private Node subject;
+
+	public RdfXmlStreamWriter(Writer out) {
+		this.out = out;
+		prefixes.put(RDF, "rdf");
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public void base(String base) {
+	}
+
+	@Override
+	public void prefix(String prefix, String iri) {
+		if (started || prefix.isEmpty() || !isName(prefix) || prefixes.containsKey(iri)
+				|| prefixes.containsValue(prefix))
+			return;
+		prefixes.put(iri, prefix);
+		declarations.append("\n    xmlns:").append(prefix).append("=\"");
+		escape(iri, true, declarations);
+		declarations.append('"');
+	}
+
+	@Override
+	public void triple(Triple triple) {
+		try {
+			if (!started) {
+				out.write("<rdf:RDF\n    xmlns:rdf=\"" + RDF + "\"" + declarations + ">\n");
+				started = true;
+			}
+			if (!triple.getSubject().equals(subject)) {
+				if (subject != null)
+					out.write("  </rdf:Description>\n");
+				subject = triple.getSubject();
+				out.write("  <rdf:Description " + reference(subject, "rdf:about") + ">\n");
+			}
+			writeProperty(triple.getPredicate(), triple.getObject());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void quad(Quad quad) {
+		triple(quad.asTriple());
+	}
+
+	@Override
+	public void finish() {
+		try {
+			if (!started)
+				out.write("<rdf:RDF\n    xmlns:rdf=\"" + RDF + "\"" + declarations + ">\n");
+			else if (subject != null)
+				out.write("  </rdf:Description>\n");
+			out.write("</rdf:RDF>\n");
+			out.flush();
+			started = false;
+			subject = null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeProperty(Node predicate, Node object) throws IOException {
+		String iri = predicate.getURI();
+		int split = Util.splitNamespaceXML(iri);
+		if (split == iri.length())
+			throw new IllegalArgumentException("property cannot be written as RDF/XML: " + iri);
+		String namespace = iri.substring(0, split);
+		String prefix = prefixes.get(namespace);
+		String name;
+		StringBuilder s = new StringBuilder("    <");
+		if (prefix != null) {
+			name = prefix + ":" + iri.substring(split);
+			s.append(name);
+		} else {
+			name = "j.0:" + iri.substring(split);
+			s.append(name).append(" xmlns:j.0=\"");
+			escape(namespace, true, s);
+			s.append('"');
+		}
+		if (object.isLiteral()) {
+			String language = object.getLiteralLanguage();
+			String datatype = object.getLiteralDatatypeURI();
+			if (language != null && !language.isEmpty())
+				s.append(" xml:lang=\"").append(language).append('"');
+			else if (datatype != null && !datatype.equals(XSD_STRING)) {
+				s.append(" rdf:datatype=\"");
+				escape(datatype, true, s);
+				s.append('"');
+			}
+			s.append('>');
+			escape(object.getLiteralLexicalForm(), false, s);
+			s.append("</").append(name).append(">\n");
+		} else
+			s.append(' ').append(reference(object, "rdf:resource")).append("/>\n");
+		out.write(s.toString());
+	}
+
+	// rdf:about="iri" or rdf:resource="iri", or rdf:nodeID="id" for a blank node
+	private static String reference(Node node, String attribute) {
+		StringBuilder s = new StringBuilder();
+		if (node.isBlank()) {
+			s.append("rdf:nodeID=\"A");
+			// only letters, digits, '-' and '.' are kept, so that the id is an XML name
+			for (char ch : node.getBlankNodeLabel().toCharArray()) {
+				if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')
+						|| ch == '-' || ch == '.')
+					s.append(ch);
+				else
+					s.append('_').append(Integer.toHexString(ch)).append('_');
+			}
+		} else {
+			s.append(attribute).append("=\"");
+			escape(node.getURI(), true, s);
+		}
+		return s.append('"').toString();
+	}
+
+	private static void escape(String text, boolean attribute, StringBuilder s) {
+		for (int n = 0; n < text.length(); n++) {
+			char ch = text.charAt(n);
+			switch (ch) {
+			case '&':
+				s.append("&amp;");
+				break;
+			case '<':
+				s.append("&lt;");
+				break;
+			case '>':
+				s.append("&gt;");
+				break;
+			case '"':
+				s.append(attribute ? "&quot;" : "\"");
+				break;
+			case '\r':
+				s.append("&#xD;");
+				break;
+			case '\n':
+				s.append(attribute ? "&#xA;" : "\n");
+				break;
+			case '\t':
+				s.append(attribute ? "&#x9;" : "\t");
+				break;
+			default:
+				s.append(ch);
+			}
+		}
+	}
+
+	private static boolean isName(String prefix) {
+		if (!Character.isLetter(prefix.charAt(0)) && prefix.charAt(0) != '_')
+			return false;
+		for (int n = 1; n < prefix.length(); n++) {
+			char ch = prefix.charAt(n);
+			if (!Character.isLetterOrDigit(ch) && ch != '_' && ch != '-' && ch != '.')
+				return false;
+		}
+		return !prefix.toLowerCase().startsWith("xml");
+	}
+}
@@ -0,0 +1,202 @@
+package org.openbimstandards.ifcowl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openbimstandards.ifcowl.vo.EntityVO;
+import org.openbimstandards.ifcowl.vo.PrimaryTypeVO;
+import org.openbimstandards.ifcowl.vo.TypeVO;
+
+/*
+ * SchemaContext holds the state of one conversion: the namespace of the ontology, the
+ * cache of formatted class names, the SymbolTable with the interned names and the
+ * registries of the entities, types and primary types that were created while
+ * reading the schema. ExpressReader and OWLWriter look these up in the context they
+ * are given instead of in static fields, so several schemas can be converted at the
+ * same time in one JVM and nothing is kept from one conversion to the next.
+ *
+ * A context belongs to one conversion. The registries are filled while the schema is
+ * parsed and only read afterwards, by the phases of readAndBuild that may run in
+ * parallel; formatClassName is synchronized because its cache changes on every lookup.
+ * The constructors of EntityVO, TypeVO and PrimaryTypeVO still register every object in
+ * static maps of the vo classes as well, which are not synchronized, so the objects are
+ * created by newEntityVO, newTypeVO and addPrimaryTypeVO under one lock for all the
+ * contexts; those static maps are never cleared and keep every model until the JVM ends.
+ *
+ * The usage:
+ * SchemaContext context = new SchemaContext("http://ifcowl.openbimstandards.org/IFC4_ADD2");
+ * ExpressReader er = new ExpressReader(schemaFile, context);
+ * er.readAndBuild();
+ * OWLWriter ow = new OWLWriter(context, "IFC4_ADD2", er.getEntities(), er.getTypes(), ...);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class SchemaContext {
+
+	public static final String DEFAULT_NAMESPACE = "http://ifcowl.openbimstandards.org/";
+	// the IFC schemas have about 2000 distinct names that get formatted
+	public static final int DEFAULT_CACHE_SIZE = 8192;
+	// the lock of the static registries of the vo classes, shared by all the contexts
+	private static final Object VO_REGISTRIES = new Object();
+
+	private String namespace;
+	private final Map<String, String> formattedClassNameCache;
+	private final Map<String, EntityVO> entityVOs = new HashMap<String, EntityVO>();
+	private final Map<String, TypeVO> typeVOs = new HashMap<String, TypeVO>();
+	private final List<PrimaryTypeVO> primaryTypeVOs = new ArrayList<PrimaryTypeVO>();
+	private final SymbolTable symbols = new SymbolTable();
+
+	public SchemaContext() {
+		this(DEFAULT_NAMESPACE);
+	}
+
+	public SchemaContext(String namespace) {
+		this(namespace, DEFAULT_CACHE_SIZE);
+	}
+
+	public SchemaContext(String namespace, final int maxCachedNames) {
+		this.namespace = namespace;
+		this.formattedClassNameCache = new LinkedHashMap<String, String>(256, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > maxCachedNames;
+			}
+		};
+	}
+
+	// NAMESPACE
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public void setNamespace(String namespace) {
+		this.namespace = namespace;
+	}
+
+	// FORMATTING
+	public synchronized String formatClassName(String unformatted) {
+		if (unformatted == null) {
+			return null;
+		}
+		String formatted = formattedClassNameCache.get(unformatted);
+		if (formatted == null) {
+			formatted = ExpressReader.formatClassName(unformatted);
+			formattedClassNameCache.put(unformatted, formatted);
+		}
+		return formatted;
+	}
+
+	// SYMBOLS, the interned names of the schema
+	public SymbolTable getSymbols() {
+		return symbols;
+	}
+
+	// ENTITIES, by their name in the schema
+	public EntityVO newEntityVO(String name) {
+		EntityVO entity;
+		synchronized (VO_REGISTRIES) {
+			entity = new EntityVO(name);
+		}
+		addEntityVO(entity);
+		return entity;
+	}
+
+	public void addEntityVO(EntityVO entity) {
+		entityVOs.put(entity.getName(), entity);
+	}
+
+	public EntityVO getEntityVO(String name) {
+		return entityVOs.get(name);
+	}
+
+	// TYPES, by their name in the schema
+	public TypeVO newTypeVO(String name) {
+		TypeVO type;
+		synchronized (VO_REGISTRIES) {
+			type = new TypeVO(name);
+		}
+		addTypeVO(type);
+		return type;
+	}
+
+	public TypeVO newTypeVO(String name, String primarytype) {
+		TypeVO type;
+		synchronized (VO_REGISTRIES) {
+			type = new TypeVO(name, primarytype);
+		}
+		addTypeVO(type);
+		return type;
+	}
+
+	public void addTypeVO(TypeVO type) {
+		typeVOs.put(type.getName(), type);
+	}
+
+	public TypeVO getTypeVO(String name) {
+		return typeVOs.get(name);
+	}
+
+	public boolean checkIfType(String name) {
+		return typeVOs.containsKey(name);
+	}
+
+	// PRIMARY TYPES, like REAL, INTEGER, STRING, ...
+	public PrimaryTypeVO addPrimaryTypeVO(String name) {
+		PrimaryTypeVO ptype = getPrimaryTypeVO(name);
+		if (ptype == null) {
+			synchronized (VO_REGISTRIES) {
+				ptype = new PrimaryTypeVO(name);
+			}
+			primaryTypeVOs.add(ptype);
+		}
+		return ptype;
+	}
+
+	public PrimaryTypeVO getPrimaryTypeVO(String name) {
+		for (int n = 0; n < primaryTypeVOs.size(); n++) {
+			PrimaryTypeVO ptype = primaryTypeVOs.get(n);
+			if (ptype.getPTypeName().equalsIgnoreCase(name))
+				return ptype;
+		}
+		return null;
+	}
+
+	public boolean checkIfPType(String name) {
+		return getPrimaryTypeVO(name) != null;
+	}
+
+	// the primary type that a type like 'STRING(255)' or 'BINARY(32)' starts with
+	public PrimaryTypeVO getClosestResemblance(String name) {
+		String upper = name.toUpperCase();
+		for (int n = 0; n < primaryTypeVOs.size(); n++) {
+			PrimaryTypeVO ptype = primaryTypeVOs.get(n);
+			if (upper.startsWith(ptype.getPTypeName()))
+				return ptype;
+		}
+		return null;
+	}
+
+	public List<PrimaryTypeVO> getListOfPrimaryTypes() {
+		return primaryTypeVOs;
+	}
+}
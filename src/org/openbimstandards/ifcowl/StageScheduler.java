@@ -0,0 +1,146 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * StageScheduler runs a number of stages that each declare which data they read and
+ * which data they write. A stage waits for every earlier added stage that writes data
+ * it reads or writes, or that reads data it writes; stages that do not depend on each
+ * other in this way run in parallel. The result is therefore the same as when the
+ * stages are run one after another in the order they were added.
+ *
+ * The usage:
+ * StageScheduler<Data> scheduler = new StageScheduler<Data>();
+ * scheduler.add("readSpec", EnumSet.noneOf(Data.class), EnumSet.of(Data.ENTITIES, Data.TYPES), this::readSpec);
+ * scheduler.add("interpretSelects", EnumSet.of(Data.TYPES), EnumSet.of(Data.SELECT_PARENTS), this::interpretSelects);
+ * scheduler.run();
+ * scheduler.printTimes(System.out);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class StageScheduler<R> {
+
+	public interface Stage {
+		void run() throws IOException;
+	}
+
+	private static class Step<R> {
+		final String name;
+		final Set<R> reads;
+		final Set<R> writes;
+		final Stage stage;
+		final List<Step<R>> dependencies = new ArrayList<Step<R>>();
+		volatile long nanos;
+
+		Step(String name, Set<R> reads, Set<R> writes, Stage stage) {
+			this.name = name;
+			this.reads = reads;
+			this.writes = writes;
+			this.stage = stage;
+		}
+	}
+
+	private final List<Step<R>> steps = new ArrayList<Step<R>>();
+	private final Executor executor;
+	private long totalNanos;
+
+	public StageScheduler() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public StageScheduler(Executor executor) {
+		this.executor = executor;
+	}
+
+	public void add(String name, Set<R> reads, Set<R> writes, Stage stage) {
+		Step<R> step = new Step<R>(name, reads, writes, stage);
+		for (Step<R> earlier : steps)
+			if (overlaps(earlier.writes, reads) || overlaps(earlier.writes, writes)
+					|| overlaps(earlier.reads, writes))
+				step.dependencies.add(earlier);
+		steps.add(step);
+	}
+
+	// the stages that the stage waits for
+	public List<String> getDependencies(String name) {
+		for (Step<R> step : steps)
+			if (step.name.equals(name)) {
+				List<String> names = new ArrayList<String>();
+				for (Step<R> dependency : step.dependencies)
+					names.add(dependency.name);
+				return names;
+			}
+		return Collections.emptyList();
+	}
+
+	// runs all stages and returns when they are finished; the first exception of a
+	// stage is thrown and the stages that depend on it are not run
+	public void run() throws IOException {
+		long start = System.nanoTime();
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (final Step<R> step : steps) {
+			CompletableFuture<?>[] dependencies = new CompletableFuture<?>[step.dependencies.size()];
+			for (int n = 0; n < dependencies.length; n++)
+				dependencies[n] = futures.get(steps.indexOf(step.dependencies.get(n)));
+			futures.add(CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+				long stepStart = System.nanoTime();
+				try {
+					step.stage.run();
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				} finally {
+					step.nanos = System.nanoTime() - stepStart;
+				}
+			}, executor));
+		}
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
+		} finally {
+			totalNanos = System.nanoTime() - start;
+		}
+	}
+
+	// the time spent in every stage of the last run, and the elapsed time of all stages
+	public void printTimes(PrintStream out) {
+		for (Step<R> step : steps)
+			out.println("  " + step.name + ": " + step.nanos / 1000000 + " ms");
+		out.println("  total: " + totalNanos / 1000000 + " ms");
+	}
+
+	private static <R> boolean overlaps(Set<R> a, Set<R> b) {
+		return !Collections.disjoint(a, b);
+	}
+}
@@ -0,0 +1,194 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * StepChunker splits an ISO 10303-21 (STEP physical file, .ifc) file into pieces that
+ * start and end at record boundaries, so that the pieces can be parsed in parallel.
+ * A record ends at a ; that is not inside a 'string' or a comment.
+ *
+ * The usage:
+ * FileChannel channel = FileChannel.open(ifcFile.toPath(), StandardOpenOption.READ);
+ * long[] bounds = StepChunker.split(channel, 1 << 20, ForkJoinPool.commonPool());
+ * // piece n is bytes bounds[n] to bounds[n + 1] of the file
+ * MappedByteBuffer piece = StepChunker.map(channel, bounds[n], bounds[n + 1]);
+ *
+ * The file is cut into pieces of the given size and every piece is memory-mapped and
+ * scanned in a task of its own. A piece does not know whether it starts inside a string
+ * or a comment, so it is scanned for every state the scan can start in at once: the end
+ * state and the first record boundary are noted for each of them. A short pass over the
+ * pieces then follows the real state from the start of the file and picks the right
+ * boundary of each piece. A piece without a boundary is joined to the one before it.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class StepChunker {
+
+	// the states of the scan: outside strings and comments, after a / outside strings,
+	// inside a string, inside a comment and after a * inside a comment
+	private static final int NORMAL = 0;
+	private static final int SLASH = 1;
+	private static final int STRING = 2;
+	private static final int COMMENT = 3;
+	private static final int STAR = 4;
+	private static final int STATES = 5;
+
+	// the next state for every state and byte
+	private static final byte[][] NEXT = new byte[STATES][256];
+
+	static {
+		for (int c = 0; c < 256; c++) {
+			NEXT[NORMAL][c] = NORMAL;
+			NEXT[SLASH][c] = NORMAL;
+			NEXT[STRING][c] = STRING;
+			NEXT[COMMENT][c] = COMMENT;
+			NEXT[STAR][c] = COMMENT;
+		}
+		NEXT[NORMAL]['\''] = STRING;
+		NEXT[NORMAL]['/'] = SLASH;
+		NEXT[SLASH]['\''] = STRING;
+		NEXT[SLASH]['/'] = SLASH;
+		NEXT[SLASH]['*'] = COMMENT;
+		// '' inside a string leaves the string and enters it again
+		NEXT[STRING]['\''] = NORMAL;
+		NEXT[COMMENT]['*'] = STAR;
+		NEXT[STAR]['*'] = STAR;
+		NEXT[STAR]['/'] = NORMAL;
+	}
+
+	private StepChunker() {
+	}
+
+	// the offsets of the piece boundaries, from 0 to the size of the file
+	public static long[] split(FileChannel channel, int pieceSize, ForkJoinPool pool) throws IOException {
+		long size = channel.size();
+		int count = (int) Math.max(1, (size + pieceSize - 1) / pieceSize);
+		long[][] boundaries = new long[count][];
+		byte[][] ends = new byte[count][];
+		try {
+			pool.invoke(new ScanTask(channel, size, pieceSize, boundaries, ends, 0, count));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		long[] bounds = new long[count + 1];
+		int n = 0;
+		bounds[n++] = 0;
+		int state = NORMAL;
+		for (int piece = 0; piece < count; piece++) {
+			long boundary = boundaries[piece][state];
+			if (piece > 0 && boundary > bounds[n - 1] && boundary < size)
+				bounds[n++] = boundary;
+			state = ends[piece][state];
+		}
+		bounds[n++] = size;
+		return Arrays.copyOf(bounds, n);
+	}
+
+	public static MappedByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+	}
+
+	// scans one piece from every state at once; boundary[s] is the offset after the first
+	// ; that ends a record when the piece starts in state s, or -1
+	static void scan(MappedByteBuffer piece, long offset, long[] boundary, byte[] end) {
+		int[] state = new int[STATES];
+		for (int s = 0; s < STATES; s++) {
+			state[s] = s;
+			boundary[s] = -1;
+		}
+		int found = 0;
+		int limit = piece.limit();
+		for (int i = 0; i < limit; i++) {
+			int c = piece.get(i) & 0xff;
+			for (int s = 0; s < STATES; s++) {
+				int current = state[s];
+				if (c == ';' && current <= SLASH && boundary[s] < 0) {
+					boundary[s] = offset + i + 1;
+					found++;
+				}
+				state[s] = NEXT[current][c];
+			}
+			// once every start has its boundary and the states have met, one state is enough
+			if (found == STATES && converged(state)) {
+				int current = state[0];
+				for (i++; i < limit; i++)
+					current = NEXT[current][piece.get(i) & 0xff];
+				Arrays.fill(state, current);
+				break;
+			}
+		}
+		for (int s = 0; s < STATES; s++)
+			end[s] = (byte) state[s];
+	}
+
+	private static boolean converged(int[] state) {
+		for (int s = 1; s < STATES; s++)
+			if (state[s] != state[0])
+				return false;
+		return true;
+	}
+
+	private static class ScanTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long size;
+		private final int pieceSize;
+		private final long[][] boundaries;
+		private final byte[][] ends;
+		private final int from;
+		private final int to;
+
+		ScanTask(FileChannel channel, long size, int pieceSize, long[][] boundaries, byte[][] ends, int from,
+				int to) {
+			this.channel = channel;
+			this.size = size;
+			this.pieceSize = pieceSize;
+			this.boundaries = boundaries;
+			this.ends = ends;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				long offset = (long) from * pieceSize;
+				boundaries[from] = new long[STATES];
+				ends[from] = new byte[STATES];
+				try {
+					scan(map(channel, offset, Math.min(size, offset + pieceSize)), offset, boundaries[from],
+							ends[from]);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ScanTask(channel, size, pieceSize, boundaries, ends, from, middle),
+						new ScanTask(channel, size, pieceSize, boundaries, ends, middle, to));
+			}
+		}
+	}
+}
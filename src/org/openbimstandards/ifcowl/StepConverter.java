@@ -0,0 +1,781 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+import fi.ni.rdf.Namespace;
+
+/*
+ * StepConverter converts an IFC model, an ISO 10303-21 (STEP physical file, .ifc) file,
+ * into N-Triples that use the ifcOWL ontology generated from the same EXPRESS schema.
+ * The conversion is driven by the CompiledSchema that the ExpressReader writes: the
+ * parameters of every instance are matched with the derived attribute list of its
+ * entity (inherited attributes first) and become the properties of the ontology,
+ * like ifc:globalId_IfcRoot. The EmissionPlanner turns the schema into one
+ * EmissionPlan per entity before the conversion starts, so an instance is written by
+ * stepping through the slots of its plan, and the output is put together from UTF-8
+ * bytes that were encoded beforehand.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.StepConverter [-base instanceNamespace] [-threads n] schemaIFC4.bin model.ifc model.nt
+ *
+ * CompiledSchema schema = CompiledSchema.open(new File("schemaIFC4.bin"));
+ * StepConverter converter = new StepConverter(schema, SchemaContext.DEFAULT_NAMESPACE + "IFC4",
+ *     "http://example.org/model#");
+ * converter.convert(new FileInputStream("model.ifc"), out);
+ * converter.convert(new File("model.ifc"), out, ForkJoinPool.commonPool());
+ *
+ * The file is read and written as a stream, one instance at a time. Instance #12 of
+ * IFCWALL becomes <instanceNamespace>IfcWall_12, so a reference needs the entity of
+ * its target: the entity of every instance read so far is kept in an OffHeapLongMap
+ * from id to entity, in a memory-mapped file in the temporary directory, and the
+ * triples that refer to an instance further on in the file wait in a buffer until that
+ * instance has been read. A Bloom filter over the ids that are waited for spares most
+ * instances the lookup in that buffer. The heap holds only the references that are not
+ * resolved yet, whatever the size of the file.
+ *
+ * A file can also be converted on a ForkJoinPool. The StepChunker splits the memory-
+ * mapped file into pieces at record boundaries; a first pass over the pieces reads
+ * only the ids and types into the index, and a second pass converts the pieces in
+ * parallel. All references can be resolved at once then, so nothing waits. The output
+ * of the pieces is written in the order of the file while the next pieces are being
+ * converted, with at most two pieces per thread in memory. The triples are those of the
+ * stream conversion, only the blank node labels carry the number of their piece.
+ *
+ * Values follow the ifcOWL conventions: a value of a defined type is a blank node of
+ * that type with expr:hasString, expr:hasDouble, expr:hasInteger, expr:hasBoolean,
+ * expr:hasLogical or expr:hasHexBinary, enumeration items are the individuals
+ * ifc:ITEM, a SET is written as one triple per element and a LIST or ARRAY as a
+ * list:OWLList of list:hasContents and list:hasNext. Complex instances and empty
+ * lists are skipped and counted in the warnings.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class StepConverter {
+
+	private static final String USAGE = "Usage: java StepConverter [-base instanceNamespace] [-threads n] compiledSchema.bin model.ifc output.nt\nExample: java StepConverter -threads 8 data/schemaIFC4.bin model.ifc model.nt";
+	private static final int MAX_WARNINGS = 100;
+	private static final int PIECE_SIZE = 1 << 18;
+	// the output of a stream is written out when it is this large
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	private static final byte[] RDF_TYPE = utf8(" <" + Namespace.RDF + "type> ");
+	private static final byte[] HAS_CONTENTS = utf8(" <" + Namespace.LIST + "hasContents> ");
+	private static final byte[] HAS_NEXT = utf8(" <" + Namespace.LIST + "hasNext> ");
+	private static final byte[] HAS_DOUBLE = utf8(" <" + Namespace.EXPRESS + "hasDouble> ");
+	private static final byte[] HAS_INTEGER = utf8(" <" + Namespace.EXPRESS + "hasInteger> ");
+	private static final byte[] HAS_STRING = utf8(" <" + Namespace.EXPRESS + "hasString> ");
+	private static final byte[] HAS_BOOLEAN = utf8(" <" + Namespace.EXPRESS + "hasBoolean> ");
+	private static final byte[] HAS_LOGICAL = utf8(" <" + Namespace.EXPRESS + "hasLogical> ");
+	private static final byte[] HAS_HEX_BINARY = utf8(" <" + Namespace.EXPRESS + "hasHexBinary> ");
+	private static final byte[] DOUBLE = utf8("\"^^<" + Namespace.XSD + "double>");
+	private static final byte[] LONG = utf8("\"^^<" + Namespace.XSD + "long>");
+	private static final byte[] BOOLEAN = utf8("\"^^<" + Namespace.XSD + "boolean>");
+	private static final byte[] HEX_BINARY = utf8("\"^^<" + Namespace.XSD + "hexBinary>");
+	private static final byte[] TRUE = utf8("<" + Namespace.EXPRESS + "TRUE>");
+	private static final byte[] FALSE = utf8("<" + Namespace.EXPRESS + "FALSE>");
+	private static final byte[] UNKNOWN = utf8("<" + Namespace.EXPRESS + "UNKNOWN>");
+	private static final byte[] END = utf8(" .\n");
+
+	// a Bloom filter over the ids that references wait for, with two bit positions per id
+	static final class PendingFilter {
+		private final long[] bits;
+		private final int mask;
+		private int added;
+
+		// size is the number of bits, a power of 2
+		PendingFilter(int size) {
+			bits = new long[size >>> 6];
+			mask = size - 1;
+		}
+
+		void add(long id) {
+			long h = mix(id);
+			set((int) h & mask);
+			set((int) (h >>> 32) & mask);
+			added++;
+		}
+
+		// false when no reference waits for the id, true when one may
+		boolean mightContain(long id) {
+			long h = mix(id);
+			return isSet((int) h & mask) && isSet((int) (h >>> 32) & mask);
+		}
+
+		// true when so many more ids were added than are waited for that the filter should
+		// be built again from those
+		boolean isFull(int waiting) {
+			return added > bits.length * 4 && added > 2 * waiting;
+		}
+
+		void clear() {
+			Arrays.fill(bits, 0);
+			added = 0;
+		}
+
+		private void set(int bit) {
+			bits[bit >>> 6] |= 1L << bit;
+		}
+
+		private boolean isSet(int bit) {
+			return (bits[bit >>> 6] & (1L << bit)) != 0;
+		}
+
+		private static long mix(long id) {
+			id *= 0x9e3779b97f4a7c15L;
+			return id ^ (id >>> 29);
+		}
+	}
+
+	// a growing buffer of UTF-8 bytes
+	static final class Bytes {
+		private byte[] data = new byte[1 << 12];
+		private int length;
+
+		int length() {
+			return length;
+		}
+
+		Bytes put(byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, data, length, bytes.length);
+			length += bytes.length;
+			return this;
+		}
+
+		Bytes put(char ascii) {
+			ensure(1);
+			data[length++] = (byte) ascii;
+			return this;
+		}
+
+		Bytes putLong(long value) {
+			if (value < 0) {
+				if (value == Long.MIN_VALUE)
+					return putUtf8(Long.toString(value));
+				put('-');
+				value = -value;
+			}
+			ensure(19);
+			int start = length;
+			do {
+				data[length++] = (byte) ('0' + value % 10);
+				value /= 10;
+			} while (value > 0);
+			for (int i = start, j = length - 1; i < j; i++, j--) {
+				byte b = data[i];
+				data[i] = data[j];
+				data[j] = b;
+			}
+			return this;
+		}
+
+		Bytes putUtf8(String s) {
+			ensure(s.length() * 3);
+			for (int n = 0; n < s.length(); n++)
+				putChar(s, n, s.charAt(n));
+			return this;
+		}
+
+		// a literal between quotes, with the escapes of N-Triples; an escape takes two of
+		// the three bytes that a char may need
+		Bytes putQuoted(String s) {
+			ensure(s.length() * 3 + 2);
+			data[length++] = '"';
+			for (int n = 0; n < s.length(); n++) {
+				char ch = s.charAt(n);
+				switch (ch) {
+				case '"':
+				case '\\':
+					data[length++] = '\\';
+					data[length++] = (byte) ch;
+					break;
+				case '\n':
+				case '\r':
+				case '\t':
+					data[length++] = '\\';
+					data[length++] = (byte) (ch == '\n' ? 'n' : ch == '\r' ? 'r' : 't');
+					break;
+				default:
+					putChar(s, n, ch);
+				}
+			}
+			data[length++] = '"';
+			return this;
+		}
+
+		// room for the rest of the string is already there
+		private void putChar(String s, int n, char ch) {
+			if (ch < 0x80) {
+				data[length++] = (byte) ch;
+			} else if (ch < 0x800) {
+				data[length++] = (byte) (0xc0 | (ch >> 6));
+				data[length++] = (byte) (0x80 | (ch & 0x3f));
+			} else if (Character.isHighSurrogate(ch) && n + 1 < s.length()
+					&& Character.isLowSurrogate(s.charAt(n + 1))) {
+				// the second half writes nothing, the four bytes take the room of both
+				int cp = Character.toCodePoint(ch, s.charAt(n + 1));
+				data[length++] = (byte) (0xf0 | (cp >> 18));
+				data[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				data[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				data[length++] = (byte) (0x80 | (cp & 0x3f));
+			} else if (Character.isLowSurrogate(ch) && n > 0 && Character.isHighSurrogate(s.charAt(n - 1))) {
+				return;
+			} else {
+				data[length++] = (byte) (0xe0 | (ch >> 12));
+				data[length++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+				data[length++] = (byte) (0x80 | (ch & 0x3f));
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(data, length);
+		}
+
+		void writeTo(OutputStream out) throws IOException {
+			out.write(data, 0, length);
+		}
+
+		void clear() {
+			length = 0;
+		}
+
+		private void ensure(int more) {
+			if (length + more > data.length)
+				data = Arrays.copyOf(data, Math.max(data.length * 2, length + more));
+		}
+	}
+
+	private final CompiledSchema schema;
+	private final EmissionPlanner planner;
+	// the plan of every entity, by entity index
+	private final EmissionPlan[] plans;
+	private final byte[] ontologyNamespace;
+	private int pieceSize = PIECE_SIZE;
+	private File indexDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+	// the entity of every instance id, for the conversion that is running
+	private OffHeapLongMap index;
+
+	private long instances;
+	private long triples;
+	private long forwardReferences;
+	private long maxPendingCount;
+	private long warningCount;
+	private final List<String> warnings = new ArrayList<String>();
+
+	// ontologyNamespace is the namespace of the ontology without '#', as in SchemaContext
+	public StepConverter(CompiledSchema schema, String ontologyNamespace, String instanceNamespace) {
+		this.schema = schema;
+		this.ontologyNamespace = utf8(ontologyNamespace + "#");
+		this.planner = new EmissionPlanner(schema, ontologyNamespace, instanceNamespace);
+		this.plans = planner.plan();
+	}
+
+	public static void main(String[] args) throws IOException {
+		String base = null;
+		int threads = 1;
+		int n = 0;
+		while (args.length > n + 1 && args[n].startsWith("-")) {
+			if (args[n].equals("-base"))
+				base = args[n + 1];
+			else if (args[n].equals("-threads"))
+				threads = Integer.parseInt(args[n + 1]);
+			else
+				break;
+			n += 2;
+		}
+		if (args.length - n != 3) {
+			System.out.println(USAGE);
+			return;
+		}
+		File ifcFile = new File(args[n + 1]);
+		if (base == null)
+			base = ifcFile.getAbsoluteFile().toURI() + "#";
+		CompiledSchema schema = CompiledSchema.open(new File(args[n]));
+		StepConverter converter = new StepConverter(schema, SchemaContext.DEFAULT_NAMESPACE
+				+ schema.getSchemaName(), base);
+
+		long start = System.nanoTime();
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(args[n + 2]), 1 << 16);
+		try {
+			if (threads > 1) {
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				try {
+					converter.convert(ifcFile, out, pool);
+				} finally {
+					pool.shutdown();
+				}
+			} else {
+				InputStream in = new FileInputStream(ifcFile);
+				try {
+					converter.convert(in, out);
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			out.close();
+		}
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.out.println(converter.getInstanceCount() + " instances, " + converter.getTripleCount()
+				+ " triples in " + millis + " ms (" + ifcFile.length() / 1024 / Math.max(1, millis)
+				+ " MB/s)");
+		System.out.println(converter.getForwardReferenceCount() + " forward references, at most "
+				+ converter.getMaxPendingCount() + " waiting at the same time");
+		for (String warning : converter.getWarnings())
+			System.out.println(warning);
+		if (converter.getWarningCount() > converter.getWarnings().size())
+			System.out.println("... " + converter.getWarningCount() + " warnings in total");
+	}
+
+	public long getInstanceCount() {
+		return instances;
+	}
+
+	public long getTripleCount() {
+		return triples;
+	}
+
+	public long getForwardReferenceCount() {
+		return forwardReferences;
+	}
+
+	// the largest number of references that waited for their instance at the same time
+	public long getMaxPendingCount() {
+		return maxPendingCount;
+	}
+
+	public long getWarningCount() {
+		return warningCount + planner.getWarnings().size();
+	}
+
+	// the first warnings, getWarningCount() tells how many there were
+	public List<String> getWarnings() {
+		List<String> all = new ArrayList<String>(planner.getWarnings());
+		for (String warning : warnings)
+			if (all.size() < MAX_WARNINGS)
+				all.add(warning);
+		return all;
+	}
+
+	// the size in bytes of the pieces of a file that is converted in parallel
+	public void setPieceSize(int pieceSize) {
+		this.pieceSize = pieceSize;
+	}
+
+	// the directory of the file that the instance index is mapped to, null to keep the
+	// index in direct buffers
+	public void setIndexDirectory(File indexDirectory) {
+		this.indexDirectory = indexDirectory;
+	}
+
+	public void convert(InputStream in, OutputStream out) throws IOException {
+		index = new OffHeapLongMap(1 << 16, indexDirectory);
+		try {
+			Part part = new Part("b", false);
+			part.convert(new StepParser(in), out);
+			for (Map.Entry<Long, List<byte[]>> e : part.pending.entrySet())
+				part.warn("#" + e.getKey() + " is referred to " + e.getValue().size() + " times but does not exist");
+			collect(part);
+		} finally {
+			index.close();
+		}
+	}
+
+	// converts the file on the pool, the triples are the same as those of a stream
+	public void convert(File ifcFile, OutputStream out, ForkJoinPool pool) throws IOException {
+		FileChannel channel = FileChannel.open(ifcFile.toPath(), StandardOpenOption.READ);
+		// about one instance for every 100 bytes of a file
+		index = new OffHeapLongMap(channel.size() / 100, indexDirectory);
+		try {
+			final long[] bounds = StepChunker.split(channel, pieceSize, pool);
+			int pieces = bounds.length - 1;
+
+			// the first pass reads the id and type of every instance into the index
+			inOrder(pool, pieces, piece -> () -> indexPiece(channel, bounds, piece), ids -> {
+				for (long id : ids)
+					if (id != 0)
+						index.put(id >>> 16, (int) (id & 0xffff) - 1);
+			});
+			// the second pass converts the pieces against the complete index
+			inOrder(pool, pieces, piece -> () -> convertPiece(channel, bounds, piece), part -> {
+				part.out.writeTo(out);
+				collect(part);
+			});
+		} finally {
+			index.close();
+			channel.close();
+		}
+	}
+
+	// the id of every instance of a piece shifted left by 16 bits, plus the entity + 1
+	private long[] indexPiece(FileChannel channel, long[] bounds, int piece) throws IOException {
+		StepParser parser = new StepParser(StepChunker.map(channel, bounds[piece], bounds[piece + 1]));
+		long[] ids = new long[1024];
+		int count = 0;
+		try {
+			while (parser.skip()) {
+				int entity = parser.getType() == null ? -1 : schema.getEntity(parser.getType());
+				if (entity < 0)
+					continue;
+				if (count == ids.length)
+					ids = Arrays.copyOf(ids, count * 2);
+				ids[count++] = parser.getId() << 16 | (entity + 1);
+			}
+		} catch (IOException e) {
+			throw pieceError(bounds, piece, e);
+		}
+		return Arrays.copyOf(ids, count);
+	}
+
+	private Part convertPiece(FileChannel channel, long[] bounds, int piece) throws IOException {
+		Part part = new Part("b" + piece + "_", true);
+		try {
+			part.convert(new StepParser(StepChunker.map(channel, bounds[piece], bounds[piece + 1])), null);
+		} catch (IOException e) {
+			throw pieceError(bounds, piece, e);
+		}
+		return part;
+	}
+
+	private static IOException pieceError(long[] bounds, int piece, IOException e) {
+		return new IOException("in the piece starting at byte " + bounds[piece] + ", " + e.getMessage(), e);
+	}
+
+	private interface Sink<T> {
+		void accept(T result) throws IOException;
+	}
+
+	// runs the pieces on the pool, at most two per thread at the same time, and hands the
+	// results to the sink in the order of the pieces
+	private static <T> void inOrder(ForkJoinPool pool, int pieces, IntFunction<Callable<T>> task, Sink<T> sink)
+			throws IOException {
+		int window = 2 * pool.getParallelism();
+		ArrayDeque<ForkJoinTask<T>> running = new ArrayDeque<ForkJoinTask<T>>();
+		int next = 0;
+		try {
+			while (next < pieces || !running.isEmpty()) {
+				while (next < pieces && running.size() < window)
+					running.add(pool.submit(task.apply(next++)));
+				sink.accept(running.poll().get());
+			}
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			while (!(cause instanceof IOException) && cause.getCause() != null)
+				cause = cause.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		} finally {
+			for (ForkJoinTask<T> t : running)
+				t.cancel(false);
+		}
+	}
+
+	private void collect(Part part) {
+		instances += part.instances;
+		triples += part.triples;
+		forwardReferences += part.forwardReferences;
+		maxPendingCount = Math.max(maxPendingCount, part.maxPendingCount);
+		warningCount += part.warningCount;
+		for (String warning : part.warnings)
+			if (warnings.size() < MAX_WARNINGS)
+				warnings.add(warning);
+	}
+
+	private static byte[] utf8(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	// <instanceNamespaceIfcWall_12>
+	private static byte[] instanceIri(EmissionPlan plan, long id) {
+		byte[] prefix = plan.instancePrefix;
+		int digits = 1;
+		for (long v = id; v >= 10; v /= 10)
+			digits++;
+		byte[] iri = Arrays.copyOf(prefix, prefix.length + digits + 1);
+		for (int i = prefix.length + digits - 1; i >= prefix.length; i--, id /= 10)
+			iri[i] = (byte) ('0' + id % 10);
+		iri[iri.length - 1] = '>';
+		return iri;
+	}
+
+	// the output of a stream or of a piece of a file, with the counts and warnings
+	private final class Part {
+		private final Bytes out = new Bytes();
+		private final byte[] blankPrefix;
+		// true when the index holds every instance of the file
+		private final boolean complete;
+		// the starts of the triples "<subject> <predicate> " that refer to an instance not read yet
+		private final Map<Long, List<byte[]>> pending = new HashMap<Long, List<byte[]>>();
+		private final PendingFilter pendingFilter = new PendingFilter(1 << 20);
+		// the value types of the typed values, by the keyword of the parser, like IFCLABEL
+		private final Map<String, EmissionPlan.ValueType> typedTypes = new IdentityHashMap<String, EmissionPlan.ValueType>();
+		private long pendingCount;
+		private long maxPendingCount;
+
+		private long blankNodes;
+		private long instances;
+		private long triples;
+		private long forwardReferences;
+		private long warningCount;
+		private final List<String> warnings = new ArrayList<String>();
+
+		Part(String blankPrefix, boolean complete) {
+			this.blankPrefix = utf8("_:" + blankPrefix);
+			this.complete = complete;
+		}
+
+		// converts the instances; with a stream the output is written whenever it has grown
+		void convert(StepParser parser, OutputStream stream) throws IOException {
+			if (!parser.next())
+				return;
+			if (parser.getSchemaName() != null && !parser.getSchemaName().equalsIgnoreCase(schema.getSchemaName()))
+				warn("the file is written in " + parser.getSchemaName() + ", the schema is "
+						+ schema.getSchemaName());
+			do {
+				convert(parser);
+				if (stream != null && out.length() >= FLUSH_SIZE) {
+					out.writeTo(stream);
+					out.clear();
+				}
+			} while (parser.next());
+			if (stream != null) {
+				out.writeTo(stream);
+				out.clear();
+			}
+		}
+
+		private void convert(StepParser parser) throws IOException {
+			long id = parser.getId();
+			if (parser.getType() == null) {
+				warn("#" + id + " is a complex instance, which is not converted");
+				return;
+			}
+			int entity = schema.getEntity(parser.getType());
+			if (entity < 0) {
+				warn("#" + id + " is an instance of the unknown entity " + parser.getType());
+				return;
+			}
+			EmissionPlan plan = plans[entity];
+			instances++;
+			byte[] subject = instanceIri(plan, id);
+			triple(subject, RDF_TYPE, plan.entityIri);
+
+			if (!complete) {
+				index.put(id, entity);
+				List<byte[]> waiting = pendingCount > 0 && pendingFilter.mightContain(id) ? pending.remove(id)
+						: null;
+				if (waiting != null) {
+					pendingCount -= waiting.size();
+					for (byte[] start : waiting) {
+						out.put(start).put(subject).put(END);
+						triples++;
+					}
+				}
+			}
+
+			List<Object> parameters = parser.getParameters();
+			int count = plan.getSlotCount();
+			if (parameters.size() != count)
+				warn("#" + id + " has " + parameters.size() + " parameters, " + plan.name + " has " + count
+						+ " attributes");
+			for (int n = 0; n < count && n < parameters.size(); n++) {
+				Object value = parameters.get(n);
+				if (value == null || value == StepParser.DERIVED)
+					continue;
+				EmissionPlan.Slot slot = plan.getSlot(n);
+				if (slot.kind == EmissionPlan.SET && value instanceof List) {
+					for (Object element : (List<?>) value)
+						value(subject, slot.predicate, element, slot.type.element);
+				} else
+					value(subject, slot.predicate, value, slot.type);
+			}
+		}
+
+		// VALUES
+		private void value(byte[] subject, byte[] predicate, Object value, EmissionPlan.ValueType type) {
+			if (value == null || value == StepParser.DERIVED)
+				return;
+			if (value instanceof StepParser.Reference) {
+				reference(subject, predicate, ((StepParser.Reference) value).id);
+			} else if (value instanceof StepParser.Typed) {
+				StepParser.Typed typed = (StepParser.Typed) value;
+				EmissionPlan.ValueType typedType = typedTypes.get(typed.type);
+				if (typedType == null) {
+					typedType = planner.valueType(typed.type);
+					typedTypes.put(typed.type, typedType);
+				}
+				value(subject, predicate, typed.value, typedType);
+			} else if (value instanceof StepParser.Enumeration && !type.isBooleanOrLogical()) {
+				String name = ((StepParser.Enumeration) value).name;
+				byte[] item = type.items == null ? null : type.items.get(name);
+				if (item != null)
+					out.put(subject).put(predicate).put(item).put(END);
+				else
+					out.put(subject).put(predicate).put('<').put(ontologyNamespace).putUtf8(name).put('>').put(END);
+				triples++;
+			} else if (type.kind == EmissionPlan.SIMPLE) {
+				byte[] node = blankNode();
+				triple(subject, predicate, node);
+				triple(node, RDF_TYPE, type.classBytes);
+				literal(node, type.primitive, value);
+			} else if ((type.kind == EmissionPlan.LIST || type.kind == EmissionPlan.SET) && value instanceof List) {
+				list(subject, predicate, (List<?>) value, type);
+			} else
+				warn("the value " + value + " does not fit " + type.classIri);
+		}
+
+		private void reference(byte[] subject, byte[] predicate, long id) {
+			int entity = (int) index.get(id, -1);
+			if (entity >= 0) {
+				triple(subject, predicate, instanceIri(plans[entity], id));
+				return;
+			}
+			if (complete) {
+				warn(new String(subject, StandardCharsets.UTF_8) + " refers to #" + id + ", which does not exist");
+				return;
+			}
+			List<byte[]> waiting = pending.get(id);
+			if (waiting == null) {
+				waiting = new ArrayList<byte[]>(2);
+				pending.put(id, waiting);
+				if (pendingFilter.isFull(pending.size())) {
+					pendingFilter.clear();
+					for (Long waitedFor : pending.keySet())
+						pendingFilter.add(waitedFor);
+				} else
+					pendingFilter.add(id);
+			}
+			byte[] start = Arrays.copyOf(subject, subject.length + predicate.length);
+			System.arraycopy(predicate, 0, start, subject.length, predicate.length);
+			waiting.add(start);
+			forwardReferences++;
+			if (++pendingCount > maxPendingCount)
+				maxPendingCount = pendingCount;
+		}
+
+		private void list(byte[] subject, byte[] predicate, List<?> values, EmissionPlan.ValueType type) {
+			if (values.isEmpty()) {
+				warn("an empty " + type.classIri + " is not converted");
+				return;
+			}
+			byte[] node = blankNode();
+			triple(subject, predicate, node);
+			for (int n = 0; n < values.size(); n++) {
+				triple(node, RDF_TYPE, type.classBytes);
+				value(node, HAS_CONTENTS, values.get(n), type.element);
+				if (n + 1 < values.size()) {
+					byte[] next = blankNode();
+					triple(node, HAS_NEXT, next);
+					node = next;
+				}
+			}
+		}
+
+		private void literal(byte[] node, String primitive, Object value) {
+			if (value instanceof StepParser.Typed)
+				value = ((StepParser.Typed) value).value;
+			switch (primitive) {
+			case "REAL":
+				if (value instanceof Number) {
+					out.put(node).put(HAS_DOUBLE).put('"').putUtf8(Double.toString(((Number) value).doubleValue()))
+							.put(DOUBLE).put(END);
+					triples++;
+				}
+				break;
+			case "INTEGER":
+				if (value instanceof Number) {
+					out.put(node).put(HAS_INTEGER).put('"').putLong(((Number) value).longValue()).put(LONG).put(END);
+					triples++;
+				}
+				break;
+			case "BOOLEAN":
+				if (value instanceof StepParser.Enumeration) {
+					out.put(node).put(HAS_BOOLEAN).put('"')
+							.putUtf8(((StepParser.Enumeration) value).name.equals("T") ? "true" : "false")
+							.put(BOOLEAN).put(END);
+					triples++;
+				}
+				break;
+			case "LOGICAL":
+				if (value instanceof StepParser.Enumeration) {
+					String name = ((StepParser.Enumeration) value).name;
+					triple(node, HAS_LOGICAL, name.equals("T") ? TRUE : name.equals("F") ? FALSE : UNKNOWN);
+				}
+				break;
+			case "BINARY":
+				if (value instanceof StepParser.Binary) {
+					out.put(node).put(HAS_HEX_BINARY).put('"').putUtf8(((StepParser.Binary) value).hex)
+							.put(HEX_BINARY).put(END);
+					triples++;
+				}
+				break;
+			default:
+				out.put(node).put(HAS_STRING).putQuoted(String.valueOf(value)).put(END);
+				triples++;
+			}
+		}
+
+		// OUTPUT
+		private byte[] blankNode() {
+			long n = ++blankNodes;
+			int digits = 1;
+			for (long v = n; v >= 10; v /= 10)
+				digits++;
+			byte[] node = Arrays.copyOf(blankPrefix, blankPrefix.length + digits);
+			for (int i = node.length - 1; i >= blankPrefix.length; i--, n /= 10)
+				node[i] = (byte) ('0' + n % 10);
+			return node;
+		}
+
+		// the predicate holds the spaces around it
+		private void triple(byte[] subject, byte[] predicate, byte[] object) {
+			out.put(subject).put(predicate).put(object).put(END);
+			triples++;
+		}
+
+		private void warn(String warning) {
+			warningCount++;
+			if (warnings.size() < MAX_WARNINGS)
+				warnings.add(warning);
+		}
+	}
+}
@@ -0,0 +1,538 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * StepParser reads the instances of an ISO 10303-21 (STEP physical file, .ifc) file one
+ * record at a time. The file is read through a fixed size buffer, so only the record
+ * that is being handed out is kept in memory, whatever the size of the file.
+ *
+ * The usage:
+ * StepParser parser = new StepParser(new FileInputStream(ifcFile));
+ * while (parser.next()) {
+ *     long id = parser.getId();              // 12 for #12=IFCWALL(...);
+ *     String type = parser.getType();        // IFCWALL
+ *     List<Object> parameters = parser.getParameters();
+ * }
+ *
+ * The parameters are null for $, DERIVED for *, a Long or Double for numbers, a String
+ * (with the \X2\ and other escapes decoded) for strings, and a Reference, Enumeration,
+ * Binary, Typed (like IFCLABEL('x')) or List for the other values. Complex instances,
+ * #1=(IFCA(...)IFCB(...)), are handed out with the type null and one Typed value per
+ * part.
+ *
+ * A parser can also read a ByteBuffer, such as a piece of a memory-mapped file that
+ * starts and ends at a record boundary, and skip() reads only the id and the type of
+ * an instance, for a first pass that indexes the instances of a file.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class StepParser {
+
+	public static final Object DERIVED = new Object() {
+		public String toString() {
+			return "*";
+		}
+	};
+
+	// #12
+	public static final class Reference {
+		public final long id;
+
+		Reference(long id) {
+			this.id = id;
+		}
+
+		public String toString() {
+			return "#" + id;
+		}
+	}
+
+	// .ELEMENT.
+	public static final class Enumeration {
+		public final String name;
+
+		Enumeration(String name) {
+			this.name = name;
+		}
+
+		public String toString() {
+			return "." + name + ".";
+		}
+	}
+
+	// "0FF", the hexadecimal digits without the leading count of unused bits
+	public static final class Binary {
+		public final String hex;
+
+		Binary(String hex) {
+			this.hex = hex;
+		}
+
+		public String toString() {
+			return hex;
+		}
+	}
+
+	// IFCLABEL('x'), a value of a defined type in a SELECT
+	public static final class Typed {
+		public final String type;
+		public final Object value;
+
+		Typed(String type, Object value) {
+			this.type = type;
+			this.value = value;
+		}
+
+		public String toString() {
+			return type + "(" + value + ")";
+		}
+	}
+
+	private final InputStream in;
+	private final ByteBuffer source;
+	private final byte[] buffer = new byte[1 << 16];
+	private int position;
+	private int limit;
+	private long line = 1;
+	private final StringBuilder text = new StringBuilder();
+	// the keywords read so far, so that every IFCLABEL of a file is the same String
+	private String[] keywords = new String[1024];
+	private int keywordCount;
+
+	private String schemaName;
+	private long id;
+	private String type;
+	private List<Object> parameters;
+
+	public StepParser(InputStream in) {
+		this.in = in;
+		this.source = null;
+	}
+
+	// reads the bytes between the position and the limit of the buffer
+	public StepParser(ByteBuffer source) {
+		this.in = null;
+		this.source = source.duplicate();
+	}
+
+	// the first schema of FILE_SCHEMA in the header, e.g. IFC4
+	public String getSchemaName() {
+		return schemaName;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public List<Object> getParameters() {
+		return parameters;
+	}
+
+	// the line the parser has arrived at, for messages
+	public long getLine() {
+		return line;
+	}
+
+	// reads the next instance; the header records are read on the way
+	public boolean next() throws IOException {
+		while (true) {
+			int c = skipWhitespace();
+			if (c == -1)
+				return false;
+			if (c == '#') {
+				read();
+				id = readLong();
+				expect('=');
+				if (skipWhitespace() == '(') {
+					read();
+					type = null;
+					parameters = new ArrayList<Object>();
+					while (skipWhitespace() != ')') {
+						String part = readKeyword();
+						parameters.add(new Typed(part, readList()));
+					}
+					read();
+				} else {
+					type = readKeyword();
+					parameters = readList();
+				}
+				expect(';');
+				return true;
+			}
+			String keyword = readKeyword();
+			if (keyword.isEmpty())
+				throw error("unexpected character '" + (char) c + "'");
+			if (skipWhitespace() == '(') {
+				List<Object> header = readList();
+				if (keyword.equals("FILE_SCHEMA") && schemaName == null)
+					schemaName = firstString(header);
+			}
+			expect(';');
+		}
+	}
+
+	// reads the id and the type of the next instance and skips its parameters, the
+	// parameters are null; the type of a complex instance is null as in next()
+	public boolean skip() throws IOException {
+		while (true) {
+			int c = skipWhitespace();
+			if (c == -1)
+				return false;
+			if (c == '#') {
+				read();
+				id = readLong();
+				expect('=');
+				type = skipWhitespace() == '(' ? null : readKeyword();
+				parameters = null;
+				skipRecord();
+				return true;
+			}
+			if (readKeyword().isEmpty())
+				throw error("unexpected character '" + (char) c + "'");
+			skipRecord();
+		}
+	}
+
+	// reads up to and including the ; that ends the record, outside strings and comments
+	private void skipRecord() throws IOException {
+		while (true) {
+			int c = read();
+			if (c == -1)
+				throw error("expected ';' before the end of the file");
+			if (c == ';')
+				return;
+			if (c == '\'') {
+				while ((c = read()) != '\'')
+					if (c == -1)
+						throw error("unterminated string");
+			} else if (c == '/' && peek() == '*') {
+				read();
+				int previous = 0;
+				while ((c = read()) != -1 && !(previous == '*' && c == '/'))
+					previous = c;
+			}
+		}
+	}
+
+	private static String firstString(Object value) {
+		if (value instanceof String)
+			return (String) value;
+		if (value instanceof List)
+			for (Object o : (List<?>) value) {
+				String s = firstString(o);
+				if (s != null)
+					return s;
+			}
+		return null;
+	}
+
+	// VALUES
+	private List<Object> readList() throws IOException {
+		expect('(');
+		List<Object> list = new ArrayList<Object>();
+		if (skipWhitespace() == ')') {
+			read();
+			return list;
+		}
+		while (true) {
+			list.add(readValue());
+			int c = skipWhitespace();
+			read();
+			if (c == ')')
+				return list;
+			if (c != ',')
+				throw error("expected , or ) instead of '" + (char) c + "'");
+		}
+	}
+
+	private Object readValue() throws IOException {
+		int c = skipWhitespace();
+		switch (c) {
+		case '$':
+			read();
+			return null;
+		case '*':
+			read();
+			return DERIVED;
+		case '#':
+			read();
+			return new Reference(readLong());
+		case '\'':
+			return readString();
+		case '"':
+			return readBinary();
+		case '.':
+			return readEnumeration();
+		case '(':
+			return readList();
+		default:
+			if (c == '-' || c == '+' || (c >= '0' && c <= '9'))
+				return readNumber();
+			String keyword = readKeyword();
+			if (keyword.isEmpty())
+				throw error("unexpected character '" + (char) c + "'");
+			List<Object> value = readList();
+			return new Typed(keyword, value.size() == 1 ? value.get(0) : value);
+		}
+	}
+
+	private long readLong() throws IOException {
+		long value = 0;
+		int c = peek();
+		if (c < '0' || c > '9')
+			throw error("expected a number");
+		while (c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			read();
+			c = peek();
+		}
+		return value;
+	}
+
+	private Object readNumber() throws IOException {
+		text.setLength(0);
+		boolean real = false;
+		int c = peek();
+		while ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'E' || c == 'e') {
+			if (c == '.' || c == 'E' || c == 'e')
+				real = true;
+			text.append((char) read());
+			c = peek();
+		}
+		String s = text.toString();
+		try {
+			return real ? (Object) Double.valueOf(s) : (Object) Long.valueOf(s);
+		} catch (NumberFormatException e) {
+			throw error("not a number: " + s);
+		}
+	}
+
+	private Enumeration readEnumeration() throws IOException {
+		read();
+		text.setLength(0);
+		int c;
+		while ((c = read()) != '.') {
+			if (c == -1)
+				throw error("unterminated enumeration");
+			text.append((char) c);
+		}
+		return new Enumeration(text.toString());
+	}
+
+	private Binary readBinary() throws IOException {
+		read();
+		text.setLength(0);
+		int c;
+		while ((c = read()) != '"') {
+			if (c == -1)
+				throw error("unterminated binary");
+			text.append((char) c);
+		}
+		return new Binary(text.length() > 0 ? text.substring(1) : "");
+	}
+
+	// a string, '' is a quote; the bytes are taken as UTF-8 when they are valid UTF-8
+	private String readString() throws IOException {
+		read();
+		ByteBuffer bytes = ByteBuffer.allocate(64);
+		while (true) {
+			int c = read();
+			if (c == -1)
+				throw error("unterminated string");
+			if (c == '\'') {
+				if (peek() != '\'')
+					break;
+				read();
+			}
+			if (!bytes.hasRemaining()) {
+				ByteBuffer bigger = ByteBuffer.allocate(bytes.capacity() * 2);
+				bytes.flip();
+				bigger.put(bytes);
+				bytes = bigger;
+			}
+			bytes.put((byte) c);
+		}
+		bytes.flip();
+		String raw;
+		try {
+			CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT).decode(bytes);
+			raw = chars.toString();
+		} catch (CharacterCodingException e) {
+			bytes.rewind();
+			raw = StandardCharsets.ISO_8859_1.decode(bytes).toString();
+		}
+		return raw.indexOf('\\') < 0 ? raw : decode(raw);
+	}
+
+	// the control directives of ISO 10303-21: \\, \S\, \P?\, \X\hh, \X2\...\X0\ and \X4\...\X0\
+	static String decode(String s) {
+		StringBuilder out = new StringBuilder(s.length());
+		int n = 0;
+		while (n < s.length()) {
+			char ch = s.charAt(n);
+			if (ch != '\\') {
+				out.append(ch);
+				n++;
+			} else if (s.startsWith("\\\\", n)) {
+				out.append('\\');
+				n += 2;
+			} else if (s.startsWith("\\S\\", n) && n + 3 < s.length()) {
+				out.append((char) (s.charAt(n + 3) + 128));
+				n += 4;
+			} else if (s.startsWith("\\P", n) && n + 3 < s.length() && s.charAt(n + 3) == '\\') {
+				n += 4;
+			} else if (s.startsWith("\\X\\", n) && n + 5 <= s.length()) {
+				out.append((char) Integer.parseInt(s.substring(n + 3, n + 5), 16));
+				n += 5;
+			} else if (s.startsWith("\\X2\\", n) || s.startsWith("\\X4\\", n)) {
+				int width = s.charAt(n + 2) == '2' ? 4 : 8;
+				int end = s.indexOf("\\X0\\", n + 4);
+				if (end < 0)
+					end = s.length();
+				for (int i = n + 4; i + width <= end; i += width)
+					out.appendCodePoint(Integer.parseInt(s.substring(i, i + width), 16));
+				n = Math.min(end + 4, s.length());
+			} else {
+				out.append(ch);
+				n++;
+			}
+		}
+		return out.toString();
+	}
+
+	// an entity or header keyword, in upper case
+	private String readKeyword() throws IOException {
+		text.setLength(0);
+		int hash = 0;
+		int c = skipWhitespace();
+		while ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_'
+				|| c == '-') {
+			char upper = (char) Character.toUpperCase(read());
+			text.append(upper);
+			hash = 31 * hash + upper;
+			c = peek();
+		}
+		return keyword(hash);
+	}
+
+	// the keyword in text, the String of the first time it was read; hash is its hashCode()
+	private String keyword(int hash) {
+		int mask = keywords.length - 1;
+		for (int i = hash & mask;; i = (i + 1) & mask) {
+			String keyword = keywords[i];
+			if (keyword == null)
+				break;
+			if (keyword.hashCode() == hash && keyword.contentEquals(text))
+				return keyword;
+		}
+		if (2 * ++keywordCount > keywords.length) {
+			String[] old = keywords;
+			keywords = new String[2 * old.length];
+			mask = keywords.length - 1;
+			for (String keyword : old)
+				if (keyword != null)
+					keywords[free(keyword.hashCode(), mask)] = keyword;
+		}
+		String keyword = text.toString();
+		keywords[free(hash, mask)] = keyword;
+		return keyword;
+	}
+
+	private int free(int hash, int mask) {
+		int i = hash & mask;
+		while (keywords[i] != null)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	// CHARACTERS
+	private void expect(int expected) throws IOException {
+		int c = skipWhitespace();
+		if (c != expected)
+			throw error("expected '" + (char) expected + "'" + (c == -1 ? " before the end of the file"
+					: " instead of '" + (char) c + "'"));
+		read();
+	}
+
+	// skips whitespace and /* comments */, and returns the next character
+	private int skipWhitespace() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f') {
+				read();
+			} else if (c == '/') {
+				read();
+				if (peek() != '*')
+					return '/';
+				read();
+				int previous = 0;
+				while ((c = read()) != -1 && !(previous == '*' && c == '/'))
+					previous = c;
+			} else
+				return c;
+		}
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill())
+			return -1;
+		return buffer[position] & 0xff;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill())
+			return -1;
+		int c = buffer[position++] & 0xff;
+		if (c == '\n')
+			line++;
+		return c;
+	}
+
+	private boolean fill() throws IOException {
+		if (source != null) {
+			limit = Math.min(buffer.length, source.remaining());
+			source.get(buffer, 0, limit);
+		} else
+			limit = in.read(buffer, 0, buffer.length);
+		position = 0;
+		if (limit <= 0) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private IOException error(String message) {
+		return new IOException("line " + line + ": " + message);
+	}
+}
@@ -0,0 +1,84 @@
+package org.openbimstandards.ifcowl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * SymbolTable interns the names of a schema: every distinct entity, type, attribute
+ * and property name is stored once and gets a dense int ID, starting at 0. The IDs are
+ * used as keys of the internal maps of the ExpressReader, where a combined key like
+ * entity#attribute or property_domain would otherwise be built as a new String for
+ * every lookup; pair(a, b) combines two IDs into one long key instead.
+ *
+ * The usage:
+ * SymbolTable symbols = context.getSymbols();
+ * int wall = symbols.intern("IfcWall");
+ * int name = symbols.getId("Name");          // -1 when the name was never interned
+ * Map<Long, AttributeVO> attributes = ...;
+ * attributes.put(SymbolTable.pair(wall, name), attr);
+ *
+ * A table belongs to the SchemaContext of one conversion. It is filled while the
+ * schema is parsed and by the phases of readAndBuild that work on the entities and
+ * properties. Those phases declare it as their SYMBOLS data, so the StageScheduler
+ * runs them one after another, and it is not synchronized.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class SymbolTable {
+
+	public static final int NONE = -1;
+
+	private final Map<String, Integer> ids = new HashMap<String, Integer>(4096);
+	private final List<String> names = new ArrayList<String>(4096);
+
+	// the ID of the name, which is added when it is new
+	public int intern(String name) {
+		if (name == null)
+			return NONE;
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = names.size();
+			names.add(name);
+			ids.put(name, id);
+		}
+		return id;
+	}
+
+	// the ID of the name, or NONE when it was never interned
+	public int getId(String name) {
+		if (name == null)
+			return NONE;
+		Integer id = ids.get(name);
+		return id == null ? NONE : id;
+	}
+
+	public String getName(int id) {
+		return id < 0 ? null : names.get(id);
+	}
+
+	public int size() {
+		return names.size();
+	}
+
+	// one key for two IDs, e.g. an entity and one of its attributes
+	public static long pair(int first, int second) {
+		return ((long) first << 32) | (second & 0xffffffffL);
+	}
+}
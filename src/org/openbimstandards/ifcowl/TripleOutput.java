@@ -0,0 +1,193 @@
+package org.openbimstandards.ifcowl;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+
+import fi.ni.rdf.Namespace;
+
+/*
+ * TripleOutput gives the triples of the OWLWriter straight to a Jena StreamRDF, as Node
+ * and Triple objects that are made from the in-memory model, without rendering or parsing
+ * any text. Every output of the OWLWriter is made from these triples; the Turtle is
+ * rendered from them by a TurtleStreamWriter.
+ *
+ * The usage:
+ * TripleOutput out = new TripleOutput(sink, context.getNamespace() + "#", "");
+ * out.triple(out.ifc(evo.getName()), TripleOutput.TYPE, TripleOutput.OWL_CLASS);
+ *
+ * The blank nodes are labeled with the prefix and a counter, like _:b12 or _:IFC4_b12,
+ * so the same model always gives the same labels. A part that may be given only once
+ * per output, like the list classes of a range, is given only when startOnce(key) is
+ * true; the keep predicate can restrict it further, for instance to the one block that
+ * owns the part. The warnings about impossible cardinalities are printed only when
+ * setWarnings(true) was called, so that they are not printed twice when the same model
+ * is streamed to more than one output.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class TripleOutput {
+
+	public static final Node TYPE = NodeFactory.createURI(Namespace.RDF + "type");
+	public static final Node FIRST = NodeFactory.createURI(Namespace.RDF + "first");
+	public static final Node REST = NodeFactory.createURI(Namespace.RDF + "rest");
+	public static final Node NIL = NodeFactory.createURI(Namespace.RDF + "nil");
+	public static final Node LABEL = NodeFactory.createURI(Namespace.RDFS + "label");
+	public static final Node COMMENT = NodeFactory.createURI(Namespace.RDFS + "comment");
+	public static final Node SUB_CLASS_OF = NodeFactory.createURI(Namespace.RDFS + "subClassOf");
+	public static final Node DOMAIN = NodeFactory.createURI(Namespace.RDFS + "domain");
+	public static final Node RANGE = NodeFactory.createURI(Namespace.RDFS + "range");
+	public static final Node OWL_CLASS = NodeFactory.createURI(Namespace.OWL + "Class");
+	public static final Node ONTOLOGY = NodeFactory.createURI(Namespace.OWL + "Ontology");
+	public static final Node RESTRICTION = NodeFactory.createURI(Namespace.OWL + "Restriction");
+	public static final Node NAMED_INDIVIDUAL = NodeFactory.createURI(Namespace.OWL + "NamedIndividual");
+	public static final Node OBJECT_PROPERTY = NodeFactory.createURI(Namespace.OWL + "ObjectProperty");
+	public static final Node FUNCTIONAL_PROPERTY = NodeFactory.createURI(Namespace.OWL + "FunctionalProperty");
+	public static final Node ANNOTATION_PROPERTY = NodeFactory.createURI(Namespace.OWL + "AnnotationProperty");
+	public static final Node ON_PROPERTY = NodeFactory.createURI(Namespace.OWL + "onProperty");
+	public static final Node ON_CLASS = NodeFactory.createURI(Namespace.OWL + "onClass");
+	public static final Node ALL_VALUES_FROM = NodeFactory.createURI(Namespace.OWL + "allValuesFrom");
+	public static final Node SOME_VALUES_FROM = NodeFactory.createURI(Namespace.OWL + "someValuesFrom");
+	public static final Node QUALIFIED_CARDINALITY = NodeFactory.createURI(Namespace.OWL + "qualifiedCardinality");
+	public static final Node MIN_QUALIFIED_CARDINALITY = NodeFactory.createURI(Namespace.OWL + "minQualifiedCardinality");
+	public static final Node MAX_QUALIFIED_CARDINALITY = NodeFactory.createURI(Namespace.OWL + "maxQualifiedCardinality");
+	public static final Node UNION_OF = NodeFactory.createURI(Namespace.OWL + "unionOf");
+	public static final Node INVERSE_OF = NodeFactory.createURI(Namespace.OWL + "inverseOf");
+	public static final Node DISJOINT_WITH = NodeFactory.createURI(Namespace.OWL + "disjointWith");
+	public static final Node IMPORTS = NodeFactory.createURI(Namespace.OWL + "imports");
+
+	private final StreamRDF sink;
+	private final String ifc;
+	private final String blankPrefix;
+	private final Predicate<String> keep;
+	private final Set<String> once = new HashSet<String>();
+	private int blankCount = 0;
+	private boolean warnings = false;
+
+	// ifc is the namespace of the ontology, with the #
+	public TripleOutput(StreamRDF sink, String ifc, String blankPrefix) {
+		this(sink, ifc, blankPrefix, key -> true);
+	}
+
+	public TripleOutput(StreamRDF sink, String ifc, String blankPrefix, Predicate<String> keep) {
+		this.sink = sink;
+		this.ifc = ifc;
+		this.blankPrefix = blankPrefix;
+		this.keep = keep;
+	}
+
+	public void setWarnings(boolean warnings) {
+		this.warnings = warnings;
+	}
+
+	public StreamRDF getSink() {
+		return sink;
+	}
+
+	public void triple(Node subject, Node predicate, Node object) {
+		sink.triple(Triple.create(subject, predicate, object));
+	}
+
+	public Node ifc(String name) {
+		return NodeFactory.createURI(ifc + name);
+	}
+
+	public Node expr(String name) {
+		return NodeFactory.createURI(Namespace.EXPRESS + name);
+	}
+
+	public Node list(String name) {
+		return NodeFactory.createURI(Namespace.LIST + name);
+	}
+
+	public Node dce(String name) {
+		return NodeFactory.createURI(Namespace.DCE + name);
+	}
+
+	// a prefixed name of the Turtle, like ifc:IfcWall or expr:REAL
+	public Node name(String prefix, String name) {
+		if (prefix.equals("ifc"))
+			return ifc(name);
+		if (prefix.equals("expr"))
+			return expr(name);
+		if (prefix.equals("list"))
+			return list(name);
+		throw new IllegalArgumentException("Unknown prefix: " + prefix);
+	}
+
+	// a prefixed name in one string, like ifc:IfcWall_List
+	public Node name(String prefixedName) {
+		int colon = prefixedName.indexOf(':');
+		return name(prefixedName.substring(0, colon), prefixedName.substring(colon + 1));
+	}
+
+	public Node blank() {
+		return NodeFactory.createBlankNode(blankPrefix + "b" + blankCount++);
+	}
+
+	public static Node literal(String text) {
+		return NodeFactory.createLiteral(text);
+	}
+
+	public static Node number(int n) {
+		return NodeFactory.createLiteral(Integer.toString(n), XSDDatatype.XSDnonNegativeInteger);
+	}
+
+	// a new owl:Restriction on the property
+	public Node restriction(Node property) {
+		Node restriction = blank();
+		triple(restriction, TYPE, RESTRICTION);
+		triple(restriction, ON_PROPERTY, property);
+		return restriction;
+	}
+
+	// an RDF collection of the items, rdf:nil when there are none
+	public Node collection(List<Node> items) {
+		Node head = NIL;
+		Node previous = null;
+		for (Node item : items) {
+			Node cell = blank();
+			if (previous == null)
+				head = cell;
+			else
+				triple(previous, REST, cell);
+			triple(cell, FIRST, item);
+			previous = cell;
+		}
+		if (previous != null)
+			triple(previous, REST, NIL);
+		return head;
+	}
+
+	// true when the part with the key has to be given, the first time in this output
+	public boolean startOnce(String key) {
+		return once.add(key) && keep.test(key);
+	}
+
+	public void warn(String warning) {
+		if (warnings)
+			System.out.println(warning);
+	}
+}
@@ -0,0 +1,222 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * TurtleOutput writes Turtle text as UTF-8 bytes to a channel, through a direct
+ * ByteBuffer that is taken from a pool and given back on close(). The TurtleStreamWriter
+ * renders the triples of the OWLWriter into it, and the OWLWriter writes the EXPRESS
+ * ontology of outputExpressOWL with it.
+ *
+ * The usage:
+ * FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+ * TurtleOutput out = new TurtleOutput(channel);
+ * out.write("ifc:").name(evo.getName()).write("\r\n\trdf:type owl:Class .\r\n\r\n");
+ * out.close();
+ * channel.close();
+ *
+ * The text is written in three kinds of pieces:
+ *  - write(constant) - a fixed fragment of Turtle, a string literal in the code; it is
+ *    encoded once and kept for all outputs
+ *  - name(name)      - a name of the schema, like an entity or a namespace prefix; it is
+ *    encoded once per output
+ *  - text(text)      - anything else, encoded every time
+ * and number(n) for the cardinalities.
+ *
+ * For rendering in parallel, a shard of the text is rendered to memory with
+ * new TurtleOutput(), and writeShards writes the shards in order. The result is the same
+ * as rendering all the text to one output.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class TurtleOutput {
+
+	static final int BUFFER_SIZE = 1 << 16;
+
+	// the encoded fragments, by their string literal; the same literal is the same
+	// String instance, so a lookup is mostly an identity comparison
+	private static final Map<String, byte[]> CONSTANTS = new ConcurrentHashMap<String, byte[]>();
+	private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	// the bytes of a shard
+	private static class MemoryChannel implements WritableByteChannel {
+		byte[] bytes = new byte[BUFFER_SIZE];
+		int size;
+
+		public int write(ByteBuffer src) {
+			int n = src.remaining();
+			if (size + n > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + n));
+			src.get(bytes, size, n);
+			size += n;
+			return n;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+
+		public void close() {
+		}
+	}
+
+	private final WritableByteChannel channel;
+	private final Map<String, byte[]> names = new HashMap<String, byte[]>();
+	private long[] blockStarts = new long[64];
+	private int blockCount;
+	private final byte[] digits = new byte[20];
+	private ByteBuffer buffer;
+	private long written;
+
+	public TurtleOutput(WritableByteChannel channel) {
+		this.channel = channel;
+		buffer = POOL.poll();
+		if (buffer == null)
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	// a shard, rendered to memory
+	public TurtleOutput() {
+		this(new MemoryChannel());
+	}
+
+	public void startBlock() {
+		if (blockCount == blockStarts.length)
+			blockStarts = Arrays.copyOf(blockStarts, 2 * blockCount);
+		blockStarts[blockCount++] = getWritten();
+	}
+
+	// the offsets of the blocks in the channel
+	public long[] getBlockStarts() {
+		return Arrays.copyOf(blockStarts, blockCount);
+	}
+
+	public TurtleOutput write(String constant) throws IOException {
+		byte[] bytes = CONSTANTS.get(constant);
+		if (bytes == null) {
+			bytes = constant.getBytes(StandardCharsets.UTF_8);
+			CONSTANTS.put(constant, bytes);
+		}
+		return put(bytes);
+	}
+
+	public TurtleOutput name(String name) throws IOException {
+		byte[] bytes = names.get(name);
+		if (bytes == null) {
+			bytes = name.getBytes(StandardCharsets.UTF_8);
+			names.put(name, bytes);
+		}
+		return put(bytes);
+	}
+
+	public TurtleOutput text(String text) throws IOException {
+		return put(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public TurtleOutput number(long n) throws IOException {
+		if (buffer.remaining() < digits.length + 1)
+			flush();
+		if (n < 0) {
+			if (n == Long.MIN_VALUE)
+				return text(Long.toString(n));
+			buffer.put((byte) '-');
+			n = -n;
+		}
+		int i = digits.length;
+		do {
+			digits[--i] = (byte) ('0' + n % 10);
+			n /= 10;
+		} while (n != 0);
+		buffer.put(digits, i, digits.length - i);
+		return this;
+	}
+
+	private TurtleOutput put(byte[] bytes) throws IOException {
+		if (bytes.length > buffer.remaining()) {
+			flush();
+			if (bytes.length > buffer.capacity()) {
+				ByteBuffer b = ByteBuffer.wrap(bytes);
+				while (b.hasRemaining())
+					written += channel.write(b);
+				return this;
+			}
+		}
+		buffer.put(bytes);
+		return this;
+	}
+
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			written += channel.write(buffer);
+		buffer.clear();
+	}
+
+	// the bytes that were written to the channel so far
+	public long getWritten() {
+		return written + (buffer == null ? 0 : buffer.position());
+	}
+
+	// flushes the output and gives the buffer back; the channel is not closed
+	public void close() throws IOException {
+		if (buffer == null)
+			return;
+		try {
+			flush();
+		} finally {
+			buffer.clear();
+			POOL.offer(buffer);
+			buffer = null;
+		}
+	}
+
+	// writes the closed shards in their order and returns the offsets of the blocks of all
+	// shards in the channel
+	public static long[] writeShards(List<TurtleOutput> shards, GatheringByteChannel channel) throws IOException {
+		ByteBuffer[] buffers = new ByteBuffer[shards.size()];
+		long[] starts = new long[0];
+		long base = 0;
+		for (int n = 0; n < shards.size(); n++) {
+			TurtleOutput shard = shards.get(n);
+			MemoryChannel memory = (MemoryChannel) shard.channel;
+			int first = starts.length;
+			starts = Arrays.copyOf(starts, first + shard.blockCount);
+			for (int block = 0; block < shard.blockCount; block++)
+				starts[first + block] = base + shard.blockStarts[block];
+			buffers[n] = ByteBuffer.wrap(memory.bytes, 0, memory.size);
+			base += memory.size;
+		}
+		int first = 0;
+		while (first < buffers.length) {
+			channel.write(buffers, first, Math.min(buffers.length - first, 1024));
+			while (first < buffers.length && !buffers[first].hasRemaining())
+				first++;
+		}
+		return starts;
+	}
+}
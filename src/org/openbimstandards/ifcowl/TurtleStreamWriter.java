@@ -0,0 +1,329 @@
+package org.openbimstandards.ifcowl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+
+/*
+ * TurtleStreamWriter renders a stream of triples as Turtle into a TurtleOutput, one block
+ * at a time: the triples of a block are kept until endBlock() or finish() and then
+ * written by subject, with the blank nodes that are used once nested as [ ... ] and the
+ * RDF collections as ( ... ). The OWLWriter renders its .ttl this way, from the same
+ * triples that it gives to the other outputs.
+ *
+ * The usage:
+ * TurtleOutput out = new TurtleOutput(channel);
+ * TurtleStreamWriter writer = new TurtleStreamWriter(out);
+ * ow.outputOWL(writer);
+ * out.close();
+ *
+ * The IRIs are written as prefixed names of the prefixes of the stream. How a block is
+ * rendered depends only on its triples and the prefixes, so the blocks of a shard that
+ * is rendered by new TurtleStreamWriter(shard, writer.getPrefixes()) give the same bytes
+ * as they would in the writer itself.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class TurtleStreamWriter implements BlockStream {
+
+	private static final Node FIRST = TripleOutput.FIRST;
+	private static final Node REST = TripleOutput.REST;
+	private static final Node NIL = TripleOutput.NIL;
+	private static final String[] INDENTS = { "", "\t", "\t\t", "\t\t\t", "\t\t\t\t", "\t\t\t\t\t", "\t\t\t\t\t\t" };
+
+	private final TurtleOutput out;
+	// the namespace of every prefix, in the order they were declared
+	private final Map<String, String> prefixes = new LinkedHashMap<String, String>();
+	// the prefix of every namespace, the first one that is not empty
+	private final Map<String, String> namespaces = new HashMap<String, String>();
+	// the IRIs as they are written, prefixed or between < and >
+	private final Map<String, String> names = new HashMap<String, String>();
+	private List<Triple> block = new ArrayList<Triple>();
+	// true after @base or @prefix, for the empty line before the first triples
+	private boolean directives = false;
+
+	// the triples of the block that is rendered, by subject, and how often each blank node
+	// is an object
+	private final Map<Node, List<Triple>> bySubject = new LinkedHashMap<Node, List<Triple>>();
+	private final Map<Node, Integer> objectCount = new HashMap<Node, Integer>();
+	private final Set<Node> rendered = new HashSet<Node>();
+
+	public TurtleStreamWriter(TurtleOutput out) {
+		this.out = out;
+	}
+
+	// a writer for the blocks of a shard, with the prefixes of the writer of the header,
+	// which are not written again
+	public TurtleStreamWriter(TurtleOutput out, Map<String, String> prefixes) {
+		this.out = out;
+		for (Map.Entry<String, String> prefix : prefixes.entrySet())
+			addPrefix(prefix.getKey(), prefix.getValue());
+	}
+
+	public Map<String, String> getPrefixes() {
+		return prefixes;
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public void base(String base) {
+		try {
+			out.write("@base <").name(base).write("> .\r\n");
+			directives = true;
+		} catch (IOException e) {
+			IO.exception(e);
+		}
+	}
+
+	@Override
+	public void prefix(String prefix, String iri) {
+		try {
+			addPrefix(prefix, iri);
+			out.write("@prefix ").name(prefix).write(": <").name(iri).write("> .\r\n");
+			directives = true;
+		} catch (IOException e) {
+			IO.exception(e);
+		}
+	}
+
+	private void addPrefix(String prefix, String iri) {
+		prefixes.put(prefix, iri);
+		String known = namespaces.get(iri);
+		if (known == null || (known.isEmpty() && !prefix.isEmpty()))
+			namespaces.put(iri, prefix);
+		names.clear();
+	}
+
+	@Override
+	public void triple(Triple triple) {
+		block.add(triple);
+	}
+
+	@Override
+	public void quad(Quad quad) {
+		triple(quad.asTriple());
+	}
+
+	@Override
+	public void endBlock() throws IOException {
+		render();
+		out.startBlock();
+	}
+
+	@Override
+	public void finish() {
+		try {
+			render();
+		} catch (IOException e) {
+			IO.exception(e);
+		}
+	}
+
+	// writes the triples of the block by subject, the subjects in the order they came
+	private void render() throws IOException {
+		if (block.isEmpty())
+			return;
+		if (directives) {
+			out.write("\r\n");
+			directives = false;
+		}
+		for (Triple triple : block) {
+			List<Triple> triples = bySubject.get(triple.getSubject());
+			if (triples == null) {
+				triples = new ArrayList<Triple>(4);
+				bySubject.put(triple.getSubject(), triples);
+			}
+			triples.add(triple);
+			if (triple.getObject().isBlank())
+				objectCount.merge(triple.getObject(), 1, Integer::sum);
+		}
+		for (Map.Entry<Node, List<Triple>> entry : bySubject.entrySet())
+			if (!nested(entry.getKey()))
+				subject(entry.getKey(), entry.getValue());
+		// blank nodes in a cycle, which no subject above reaches
+		for (Map.Entry<Node, List<Triple>> entry : bySubject.entrySet())
+			if (!rendered.contains(entry.getKey()))
+				subject(entry.getKey(), entry.getValue());
+		bySubject.clear();
+		objectCount.clear();
+		rendered.clear();
+		block = new ArrayList<Triple>();
+	}
+
+	// true for a blank node that is written where it is the object
+	private boolean nested(Node node) {
+		return node.isBlank() && objectCount.getOrDefault(node, 0) == 1;
+	}
+
+	private void subject(Node subject, List<Triple> triples) throws IOException {
+		rendered.add(subject);
+		node(subject);
+		out.write("\r\n");
+		predicateObjects(triples, 1);
+		out.write(" .\r\n\r\n");
+	}
+
+	private void predicateObjects(List<Triple> triples, int level) throws IOException {
+		for (int n = 0; n < triples.size(); n++) {
+			if (n > 0)
+				out.write(" ;\r\n");
+			Triple triple = triples.get(n);
+			out.write(indent(level));
+			node(triple.getPredicate());
+			object(triple.getObject(), level);
+		}
+	}
+
+	private void object(Node object, int level) throws IOException {
+		if (nested(object) && !rendered.contains(object)) {
+			List<Triple> triples = bySubject.get(object);
+			if (triples != null && isCollection(object)) {
+				out.write(" (");
+				for (Node cell = object; !cell.equals(NIL); cell = rest(cell)) {
+					rendered.add(cell);
+					object(first(cell), level);
+				}
+				out.write(" )");
+				return;
+			}
+			rendered.add(object);
+			out.write("\r\n").write(indent(level + 1)).write("[");
+			if (triples != null) {
+				out.write("\r\n");
+				predicateObjects(triples, level + 2);
+				out.write("\r\n").write(indent(level + 1));
+			}
+			out.write("]");
+			return;
+		}
+		out.write(" ");
+		node(object);
+	}
+
+	// true for the first cell of an RDF collection whose cells are all nested
+	private boolean isCollection(Node cell) {
+		for (int cells = 0; !cell.equals(NIL); cells++) {
+			if (!nested(cell) || rendered.contains(cell) || cells > block.size())
+				return false;
+			List<Triple> triples = bySubject.get(cell);
+			if (triples == null || triples.size() != 2 || first(cell) == null || rest(cell) == null)
+				return false;
+			cell = rest(cell);
+		}
+		return true;
+	}
+
+	private Node first(Node cell) {
+		return value(cell, FIRST);
+	}
+
+	private Node rest(Node cell) {
+		return value(cell, REST);
+	}
+
+	private Node value(Node subject, Node predicate) {
+		for (Triple triple : bySubject.get(subject))
+			if (triple.getPredicate().equals(predicate))
+				return triple.getObject();
+		return null;
+	}
+
+	private static String indent(int level) {
+		if (level < INDENTS.length)
+			return INDENTS[level];
+		StringBuilder indent = new StringBuilder();
+		for (int n = 0; n < level; n++)
+			indent.append('\t');
+		return indent.toString();
+	}
+
+	private void node(Node node) throws IOException {
+		if (node.isURI())
+			out.name(iri(node.getURI()));
+		else if (node.isBlank())
+			out.write("_:").name(node.getBlankNodeLabel());
+		else if (node.isLiteral())
+			literal(node);
+		else
+			throw new IllegalArgumentException("Not a node of a triple: " + node);
+	}
+
+	// the IRI as a prefixed name, when it has a prefix and a simple local name
+	private String iri(String iri) {
+		String name = names.get(iri);
+		if (name != null)
+			return name;
+		int split = Math.max(iri.lastIndexOf('#'), iri.lastIndexOf('/')) + 1;
+		String prefix = namespaces.get(iri.substring(0, split));
+		String local = iri.substring(split);
+		name = prefix != null && isLocalName(local) ? prefix + ":" + local : "<" + iri + ">";
+		names.put(iri, name);
+		return name;
+	}
+
+	private static boolean isLocalName(String local) {
+		for (int n = 0; n < local.length(); n++) {
+			char c = local.charAt(n);
+			if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_'
+					|| (c == '-' && n > 0)))
+				return false;
+		}
+		return true;
+	}
+
+	private void literal(Node node) throws IOException {
+		out.write("\"").text(escape(node.getLiteralLexicalForm())).write("\"");
+		String language = node.getLiteralLanguage();
+		if (language != null && !language.isEmpty())
+			out.write("@").name(language);
+		else if (!XSDDatatype.XSDstring.getURI().equals(node.getLiteralDatatypeURI()))
+			out.write("^^").name(iri(node.getLiteralDatatypeURI()));
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = null;
+		for (int n = 0; n < text.length(); n++) {
+			char c = text.charAt(n);
+			String replacement = c == '"' ? "\\\"" : c == '\\' ? "\\\\" : c == '\n' ? "\\n" : c == '\r' ? "\\r"
+					: c == '\t' ? "\\t" : null;
+			if (replacement != null && escaped == null)
+				escaped = new StringBuilder(text.substring(0, n));
+			if (escaped != null) {
+				if (replacement != null)
+					escaped.append(replacement);
+				else
+					escaped.append(c);
+			}
+		}
+		return escaped == null ? text : escaped.toString();
+	}
+}
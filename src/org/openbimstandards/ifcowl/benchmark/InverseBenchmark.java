@@ -0,0 +1,120 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.openbimstandards.ifcowl.ConversionDiagnostics;
+import org.openbimstandards.ifcowl.ExpressReader;
+
+/*
+ * InverseBenchmark measures readAndBuild() on a synthetic EXPRESS schema with tens of
+ * thousands of INVERSE attributes, where the pairing of the inverses dominates.
+ * Every generated entity pair has an inverse of a single attribute, an inverse of a
+ * LIST attribute (which is paired and removed again) and, for every tenth pair, a
+ * second inverse of the same attribute (which removes both properties).
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.InverseBenchmark [numberOfEntityPairs]
+ *
+ * The number of entity pairs defaults to 20000.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class InverseBenchmark {
+
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		File schema = File.createTempFile("inverses", ".exp");
+		int inverses = generate(schema, pairs);
+		System.out.println(pairs + " entity pairs, " + inverses + " inverses, " + schema.length()
+				+ " bytes");
+
+		// the reader reports its progress on System.out
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		}));
+
+		for (int n = 0; n < WARMUP_ROUNDS; n++)
+			build(schema);
+		long start = System.nanoTime();
+		ConversionDiagnostics diagnostics = null;
+		for (int n = 0; n < ROUNDS; n++)
+			diagnostics = build(schema).getDiagnostics();
+		long nanos = System.nanoTime() - start;
+
+		System.setOut(console);
+		System.out.println("readAndBuild : " + nanos / ROUNDS / 1000000 + " ms per schema");
+		System.out.println("removed properties: "
+				+ diagnostics.getEntries(ConversionDiagnostics.Kind.REMOVED_PROPERTY).size()
+				+ ", removed inverses: "
+				+ diagnostics.getEntries(ConversionDiagnostics.Kind.REMOVED_INVERSE).size());
+		schema.delete();
+	}
+
+	private static ExpressReader build(File schema) {
+		ExpressReader er = new ExpressReader(schema);
+		er.readAndBuild();
+		return er;
+	}
+
+	// writes the synthetic schema and returns the number of inverses in it
+	private static int generate(File file, int pairs) throws IOException {
+		int inverses = 0;
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+				StandardCharsets.US_ASCII));
+		try {
+			out.write("SCHEMA SYNTHETIC;\n\n");
+			out.write("TYPE SynLabel = STRING;\nEND_TYPE;\n\n");
+			for (int n = 0; n < pairs; n++) {
+				out.write("ENTITY SynSource" + n + ";\n");
+				out.write("\tName : OPTIONAL SynLabel;\n");
+				out.write("\tTarget" + n + " : SynTarget" + n + ";\n");
+				out.write("\tTargets" + n + " : LIST [1:?] OF SynTarget" + n + ";\n");
+				out.write("END_ENTITY;\n\n");
+				out.write("ENTITY SynTarget" + n + ";\n");
+				out.write("\tName : OPTIONAL SynLabel;\n");
+				out.write(" INVERSE\n");
+				out.write("\tSources" + n + " : SET [0:?] OF SynSource" + n + " FOR Target" + n + ";\n");
+				out.write("\tListedIn" + n + " : SET [0:?] OF SynSource" + n + " FOR Targets" + n + ";\n");
+				inverses += 2;
+				if (n % 10 == 0) {
+					out.write("\tAlsoSources" + n + " : SET [0:1] OF SynSource" + n + " FOR Target" + n
+							+ ";\n");
+					inverses++;
+				}
+				out.write("END_ENTITY;\n\n");
+			}
+			out.write("END_SCHEMA;\n");
+		} finally {
+			out.close();
+		}
+		return inverses;
+	}
+}
@@ -0,0 +1,297 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openbimstandards.ifcowl.ExpressKeywords;
+import org.openbimstandards.ifcowl.ExpressLexer;
+import org.openbimstandards.ifcowl.ExpressReader;
+
+/*
+ * KeywordBenchmark measures how many schema tokens per second the state machine of the
+ * EXPRESS parser can recognize, once with the equalsIgnoreCase chains that every state
+ * ran before and once with the ExpressKeywords table. Both replay the same states over
+ * the same tokens: a chain compares a token only with the keywords of its state, in the
+ * order of the old state machine, and the primary types are checked on one cached
+ * formatClassName, so the only difference is how a keyword is recognized. The two
+ * have to reach the same states, or the benchmark stops.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.KeywordBenchmark [pathToSchema.exp]
+ *
+ * The schema defaults to data/IFC4_ADD2.exp.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class KeywordBenchmark {
+
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int ROUNDS = 50;
+
+	// the states of the state machine, by the keywords that they compare a token with
+	private static final int INIT = 0;
+	private static final int TYPE_NAME = 1;
+	private static final int TYPE_SWITCH = 2;
+	private static final int TYPE_BODY = 3;
+	private static final int ENTITY_NAME = 4;
+	private static final int ENTITY = 5;
+	private static final int READY = 6;
+	private static final int SUBTYPE = 7;
+	private static final int SUBTYPE_OF = 8;
+	private static final int SUPERTYPE = 9;
+	private static final int ONEOF = 10;
+	private static final int INVERSE = 11;
+	private static final int INVERSE_SET_OF = 12;
+	private static final int INVERSE_FOR = 13;
+	private static final int UNIQUE = 14;
+	private static final int UNIQUE_TYPE = 15;
+	private static final int WHERE = 16;
+	private static final int DERIVE = 17;
+
+	// the equalsIgnoreCase chain of every state, as in ExpressReader.state_machine before
+	// the keyword table
+	private static final String[][] CHAINS = {
+			{ "TYPE", "ENTITY", "FUNCTION", "RULE", "END_SCHEMA;" },
+			{},
+			{ "SELECT", "ENUMERATION" },
+			{},
+			{},
+			{ "SUBTYPE", "SUPERTYPE", "ABSTRACT", "INVERSE", "UNIQUE", "WHERE", "DERIVE", "END_ENTITY;" },
+			{ "END_ENTITY;", "OPTIONAL", "ARRAY", "SET", "LIST", "SUBTYPE" },
+			{ "OF" },
+			{},
+			{ "END_ENTITY;", "SUBTYPE", "(ONEOF" },
+			{ "END_ENTITY;", "SUBTYPE" },
+			{ "WHERE", "END_ENTITY;", "SUBTYPE", ":" },
+			{ "END_ENTITY;", "SUBTYPE", "SET", "FOR" },
+			{ "END_ENTITY;", "SUBTYPE" },
+			{ "END_ENTITY;", "WHERE", "SUBTYPE" },
+			{ "END_ENTITY;", "WHERE", "SUBTYPE" },
+			{ "END_ENTITY;", "SUBTYPE" },
+			{ "END_ENTITY;", "SUBTYPE", "INVERSE" } };
+	private static final String[] PRIMARY_TYPES = { "NUMBER", "REAL", "INTEGER", "LOGICAL", "BOOLEAN", "STRING",
+			"BINARY" };
+	// the keyword codes of the chains
+	private static final int[][] CODES = new int[CHAINS.length][];
+
+	static {
+		for (int state = 0; state < CHAINS.length; state++) {
+			CODES[state] = new int[CHAINS[state].length];
+			for (int n = 0; n < CHAINS[state].length; n++)
+				CODES[state][n] = ExpressKeywords.lookup(CHAINS[state][n]);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		File schema = new File(args.length > 0 ? args[0] : "data/IFC4_ADD2.exp");
+
+		List<String> tokens = new ArrayList<String>();
+		ExpressLexer lexer = ExpressLexer.open(schema);
+		while (lexer.next())
+			tokens.add(lexer.token().toString());
+		System.out.println(schema.getName() + ": " + tokens.size() + " tokens");
+
+		long chainSum = 0;
+		long tableSum = 0;
+		for (int n = 0; n < WARMUP_ROUNDS; n++) {
+			chainSum += run(tokens, false);
+			tableSum += run(tokens, true);
+		}
+		if (chainSum != tableSum)
+			throw new IllegalStateException("the chains and the table reach different states");
+
+		long start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			chainSum += run(tokens, false);
+		long chain = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			tableSum += run(tokens, true);
+		long table = System.nanoTime() - start;
+
+		long total = (long) tokens.size() * ROUNDS;
+		System.out.println("equalsIgnoreCase chains : " + tokensPerSecond(total, chain) + " tokens/s");
+		System.out.println("keyword table           : " + tokensPerSecond(total, table) + " tokens/s");
+		System.out.println("(checksum " + chainSum + " " + tableSum + ")");
+	}
+
+	private static long tokensPerSecond(long tokens, long nanos) {
+		return tokens * 1000000000L / Math.max(1, nanos);
+	}
+
+	// replays the states of the state machine over the tokens and returns the sum of the
+	// states and of the primary types that were found
+	private static long run(List<String> tokens, boolean table) {
+		long sum = 0;
+		int state = INIT;
+		for (int n = 0; n < tokens.size(); n++) {
+			String txt = tokens.get(n);
+			int kw = table ? ExpressKeywords.lookup(txt) : chain(state, txt);
+			switch (state) {
+			case INIT:
+				if (kw == ExpressKeywords.TYPE)
+					state = TYPE_NAME;
+				else if (kw == ExpressKeywords.ENTITY)
+					state = ENTITY_NAME;
+				break;
+			case TYPE_NAME:
+				if (txt.endsWith("="))
+					state = TYPE_SWITCH;
+				break;
+			case TYPE_SWITCH:
+				if (kw == ExpressKeywords.SELECT || kw == ExpressKeywords.ENUMERATION || txt.startsWith("ARRAY")
+						|| txt.startsWith("SET") || txt.startsWith("LIST"))
+					state = TYPE_BODY;
+				else {
+					if (isPrimaryType(txt, false, table))
+						sum++;
+					state = INIT;
+				}
+				break;
+			case TYPE_BODY:
+				if (txt.endsWith(";"))
+					state = INIT;
+				break;
+			case ENTITY_NAME:
+			case SUBTYPE_OF:
+				state = ENTITY;
+				break;
+			case ENTITY:
+				if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (kw == ExpressKeywords.SUPERTYPE || kw == ExpressKeywords.ABSTRACT)
+					state = SUPERTYPE;
+				else if (kw == ExpressKeywords.INVERSE)
+					state = INVERSE;
+				else if (kw == ExpressKeywords.UNIQUE)
+					state = UNIQUE;
+				else if (kw == ExpressKeywords.WHERE)
+					state = WHERE;
+				else if (kw == ExpressKeywords.DERIVE)
+					state = DERIVE;
+				else if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else
+					state = READY;
+				break;
+			case READY:
+				if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else if (kw == ExpressKeywords.OPTIONAL || kw == ExpressKeywords.ARRAY || kw == ExpressKeywords.SET
+						|| kw == ExpressKeywords.LIST || (txt.startsWith("[") && txt.endsWith("]")))
+					sum += kw;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (txt.contains(";")) {
+					if (isPrimaryType(txt, true, table))
+						sum++;
+					state = ENTITY;
+				}
+				break;
+			case SUBTYPE:
+				state = kw == ExpressKeywords.OF ? SUBTYPE_OF : ENTITY;
+				break;
+			case SUPERTYPE:
+			case ONEOF:
+				if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (state == SUPERTYPE && kw == ExpressKeywords.ONEOF)
+					state = ONEOF;
+				else if (txt.contains(";") || (state == ONEOF && txt.contains(")")))
+					state = ENTITY;
+				break;
+			case INVERSE:
+				if (kw == ExpressKeywords.WHERE)
+					state = WHERE;
+				else if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (kw == ExpressKeywords.COLON)
+					state = INVERSE_SET_OF;
+				break;
+			case INVERSE_SET_OF:
+				if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (kw == ExpressKeywords.SET)
+					sum += kw;
+				else if (kw == ExpressKeywords.FOR)
+					state = INVERSE_FOR;
+				break;
+			case INVERSE_FOR:
+				if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (txt.contains(";"))
+					state = INVERSE;
+				break;
+			case UNIQUE:
+			case UNIQUE_TYPE:
+				if (state == UNIQUE && txt.equals(":"))
+					state = UNIQUE_TYPE;
+				else if (kw == ExpressKeywords.END_ENTITY || kw == ExpressKeywords.WHERE)
+					state = INIT;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (state == UNIQUE_TYPE)
+					state = UNIQUE;
+				break;
+			case WHERE:
+			case DERIVE:
+				if (kw == ExpressKeywords.END_ENTITY)
+					state = INIT;
+				else if (kw == ExpressKeywords.SUBTYPE)
+					state = SUBTYPE;
+				else if (state == DERIVE && kw == ExpressKeywords.INVERSE)
+					state = INVERSE;
+				break;
+			}
+			sum += state;
+		}
+		return sum;
+	}
+
+	// the keyword of the chain of the state that the token equals, or NONE
+	private static int chain(int state, String txt) {
+		String[] chain = CHAINS[state];
+		for (int n = 0; n < chain.length; n++)
+			if (txt.equalsIgnoreCase(chain[n]))
+				return CODES[state][n];
+		return ExpressKeywords.NONE;
+	}
+
+	// the check of the primary types, on the class name of the token like in a TYPE, or
+	// without digits like in an attribute of an ENTITY
+	private static boolean isPrimaryType(String txt, boolean skipDigits, boolean table) {
+		if (table)
+			return ExpressKeywords.isPrimaryType(ExpressKeywords.lookupFiltered(txt, skipDigits));
+		String name = skipDigits ? ExpressReader.filter_PTypeExtras(txt) : ExpressReader.formatClassName(txt);
+		for (String primaryType : PRIMARY_TYPES)
+			if (name.equalsIgnoreCase(primaryType))
+				return true;
+		return false;
+	}
+}
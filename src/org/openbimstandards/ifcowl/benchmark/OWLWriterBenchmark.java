@@ -0,0 +1,163 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.openbimstandards.ifcowl.ExpressReader;
+import org.openbimstandards.ifcowl.OWLWriter;
+import org.openbimstandards.ifcowl.SchemaContext;
+
+/*
+ * OWLWriterBenchmark measures the throughput of the OWLWriter on the schemas in a
+ * directory: the rendering of the Turtle to a file with outputTurtle, on one thread and
+ * in shards on all processors, the streaming of the triples to a sink that drops them
+ * with outputOWL(sink), and the writing of the .ttl and .rdf files with
+ * outputOWL(filePath).
+ *
+ * Before it measures a schema, it checks that the Turtle is the same graph as the
+ * triples of outputOWL(sink), from which it is rendered, and that the Turtle rendered
+ * in shards has the same bytes as that rendered on one thread.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.OWLWriterBenchmark [schemaDirectory]
+ *
+ * The directory defaults to data, with the five IFC schemas. The files are written to
+ * a temporary directory.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class OWLWriterBenchmark {
+
+	private static final String[] SCHEMAS = { "IFC2X3_Final", "IFC2X3_TC1", "IFC4", "IFC4_ADD1", "IFC4_ADD2" };
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		File data = new File(args.length > 0 ? args[0] : "data");
+		File dir = Files.createTempDirectory("owlwriter").toFile();
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+		PrintStream console = System.out;
+		PrintStream quiet = new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		});
+		long totalBytes = 0;
+		long totalTurtle = 0;
+		long totalSharded = 0;
+		long totalStream = 0;
+		long totalFiles = 0;
+		for (String name : SCHEMAS) {
+			File schema = new File(data, name + ".exp");
+			if (!schema.exists())
+				continue;
+			System.setOut(quiet);
+			OWLWriter ow = build(schema, name);
+			File ttl = new File(dir, name + ".ttl");
+			String filePath = new File(dir, name).getPath();
+			check(ow, ttl, pool, name);
+			for (int n = 0; n < WARMUP_ROUNDS; n++) {
+				ow.outputTurtle(ttl);
+				ow.outputTurtle(ttl, pool);
+				ow.outputOWL(StreamRDFLib.sinkNull());
+				ow.outputOWL(filePath);
+			}
+
+			long start = System.nanoTime();
+			for (int n = 0; n < ROUNDS; n++)
+				ow.outputTurtle(ttl);
+			long turtle = (System.nanoTime() - start) / ROUNDS;
+			long bytes = ttl.length();
+
+			start = System.nanoTime();
+			for (int n = 0; n < ROUNDS; n++)
+				ow.outputTurtle(ttl, pool);
+			long sharded = (System.nanoTime() - start) / ROUNDS;
+
+			start = System.nanoTime();
+			for (int n = 0; n < ROUNDS; n++)
+				ow.outputOWL(StreamRDFLib.sinkNull());
+			long stream = (System.nanoTime() - start) / ROUNDS;
+
+			start = System.nanoTime();
+			for (int n = 0; n < ROUNDS; n++)
+				ow.outputOWL(filePath);
+			long files = (System.nanoTime() - start) / ROUNDS;
+			System.setOut(console);
+
+			System.out.println(name + ": " + bytes + " bytes of Turtle; outputTurtle " + turtle / 1000000
+					+ " ms (" + mbPerSecond(bytes, turtle) + " MB/s), on " + pool.getParallelism() + " threads "
+					+ sharded / 1000000 + " ms (" + mbPerSecond(bytes, sharded) + " MB/s), outputOWL(sink) " + stream / 1000000
+					+ " ms, outputOWL(filePath) " + files / 1000000 + " ms");
+			totalBytes += bytes;
+			totalTurtle += turtle;
+			totalSharded += sharded;
+			totalStream += stream;
+			totalFiles += files;
+			ttl.delete();
+			new File(filePath + ".rdf").delete();
+			new File(filePath + ".rt").delete();
+		}
+		System.out.println("all schemas: outputTurtle " + mbPerSecond(totalBytes, totalTurtle)
+				+ " MB/s, on " + pool.getParallelism() + " threads " + mbPerSecond(totalBytes, totalSharded)
+				+ " MB/s, outputOWL(sink) " + totalStream / 1000000 + " ms, outputOWL(filePath) "
+				+ totalFiles / 1000000 + " ms");
+		dir.delete();
+		pool.shutdown();
+	}
+
+	private static OWLWriter build(File schema, String name) throws IOException {
+		SchemaContext context = new SchemaContext(SchemaContext.DEFAULT_NAMESPACE + name);
+		InputStream in = new FileInputStream(schema);
+		try {
+			ExpressReader er = new ExpressReader(in, context);
+			er.readAndBuild();
+			return new OWLWriter(context, name, er.getEntities(), er.getTypes(), er.getSiblings(),
+					er.getEnumIndividuals(), er.getProperties());
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void check(OWLWriter ow, File ttl, ForkJoinPool pool, String name) throws IOException {
+		ow.outputTurtle(ttl);
+		byte[] turtle = Files.readAllBytes(ttl.toPath());
+		ow.outputTurtle(ttl, pool);
+		if (!Arrays.equals(turtle, Files.readAllBytes(ttl.toPath())))
+			throw new IllegalStateException("different Turtle on " + pool.getParallelism() + " threads for " + name);
+		Graph triples = GraphFactory.createDefaultGraph();
+		ow.outputOWL(StreamRDFLib.graph(triples));
+		if (!RDFDataMgr.loadGraph(ttl.getPath()).isIsomorphicWith(triples))
+			throw new IllegalStateException("different triples in the Turtle for " + name);
+	}
+
+	private static long mbPerSecond(long bytes, long nanos) {
+		return nanos == 0 ? 0 : bytes * 1000 / nanos;
+	}
+}
@@ -0,0 +1,127 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.openbimstandards.ifcowl.ExpressReader;
+import org.openbimstandards.ifcowl.OWLWriter;
+import org.openbimstandards.ifcowl.SchemaContext;
+
+/*
+ * OntologyLoadBenchmark compares the time to load the generated ontology into a Jena
+ * graph from each of the files that OWLWriter.outputOWL writes: the Turtle (.ttl), the
+ * RDF/XML (.rdf) and the RDF Thrift snapshot (.rt). The three files are written from one
+ * stream of triples, and it checks that they load as the same graph before it measures.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.OntologyLoadBenchmark [schemaDirectory]
+ *
+ * The directory defaults to data, with the five IFC schemas. The files are written to
+ * a temporary directory first.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class OntologyLoadBenchmark {
+
+	private static final String[] SCHEMAS = { "IFC2X3_Final", "IFC2X3_TC1", "IFC4", "IFC4_ADD1", "IFC4_ADD2" };
+	private static final String[] FORMATS = { ".ttl", ".rdf", ".rt" };
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		File data = new File(args.length > 0 ? args[0] : "data");
+		File dir = Files.createTempDirectory("ontologyload").toFile();
+
+		PrintStream console = System.out;
+		PrintStream quiet = new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		});
+		long[] totals = new long[FORMATS.length];
+		for (String name : SCHEMAS) {
+			File schema = new File(data, name + ".exp");
+			if (!schema.exists())
+				continue;
+			System.setOut(quiet);
+			String filePath = new File(dir, name).getPath();
+			build(schema, name).outputOWL(filePath);
+			System.setOut(console);
+			check(filePath, name);
+
+			StringBuilder line = new StringBuilder(name + ":");
+			int triples = -1;
+			for (int f = 0; f < FORMATS.length; f++) {
+				File file = new File(filePath + FORMATS[f]);
+				for (int n = 0; n < WARMUP_ROUNDS; n++)
+					load(file);
+
+				long start = System.nanoTime();
+				for (int n = 0; n < ROUNDS; n++)
+					triples = load(file);
+				long time = (System.nanoTime() - start) / ROUNDS;
+				totals[f] += time;
+				line.append(" ").append(FORMATS[f]).append(" ").append(file.length()).append(" bytes ")
+						.append(time / 1000000).append(" ms,");
+				file.delete();
+			}
+			line.append(" ").append(triples).append(" triples");
+			System.out.println(line);
+		}
+		StringBuilder line = new StringBuilder("all schemas:");
+		for (int f = 0; f < FORMATS.length; f++)
+			line.append(" ").append(FORMATS[f]).append(" ").append(totals[f] / 1000000).append(" ms (")
+					.append(String.format("%.1f", (double) totals[0] / Math.max(1, totals[f])))
+					.append("x as fast as the Turtle)").append(f + 1 < FORMATS.length ? "," : "");
+		System.out.println(line);
+		dir.delete();
+	}
+
+	private static void check(String filePath, String name) {
+		Graph turtle = RDFDataMgr.loadGraph(filePath + FORMATS[0]);
+		for (int f = 1; f < FORMATS.length; f++)
+			if (!RDFDataMgr.loadGraph(filePath + FORMATS[f]).isIsomorphicWith(turtle))
+				throw new IllegalStateException("different triples in the " + FORMATS[f] + " for " + name);
+	}
+
+	private static int load(File file) {
+		Graph graph = GraphFactory.createDefaultGraph();
+		RDFDataMgr.read(graph, file.getPath());
+		return graph.size();
+	}
+
+	private static OWLWriter build(File schema, String name) throws IOException {
+		SchemaContext context = new SchemaContext(SchemaContext.DEFAULT_NAMESPACE + name);
+		InputStream in = new FileInputStream(schema);
+		try {
+			ExpressReader er = new ExpressReader(in, context);
+			er.readAndBuild();
+			return new OWLWriter(context, name, er.getEntities(), er.getTypes(), er.getSiblings(),
+					er.getEnumIndividuals(), er.getProperties());
+		} finally {
+			in.close();
+		}
+	}
+}
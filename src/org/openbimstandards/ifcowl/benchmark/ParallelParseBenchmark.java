@@ -0,0 +1,117 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openbimstandards.ifcowl.ExpressLexer;
+import org.openbimstandards.ifcowl.ExpressListenerAdapter;
+import org.openbimstandards.ifcowl.ExpressParser;
+import org.openbimstandards.ifcowl.ParallelExpressParser;
+
+/*
+ * ParallelParseBenchmark measures the parse time of the sequential ExpressParser and
+ * of the ParallelExpressParser with 1, 2, 4, ... threads up to the number of cores.
+ * The given schemas are concatenated into one composite schema first.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.ParallelParseBenchmark [pathToSchema.exp ...]
+ *
+ * The schemas default to all the .exp files in the data directory.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class ParallelParseBenchmark {
+
+	private static final int WARMUP_ROUNDS = 10;
+	private static final int ROUNDS = 20;
+
+	private static final PrintStream console = System.out;
+
+	public static void main(String[] args) throws IOException {
+		File[] schemas;
+		if (args.length > 0) {
+			schemas = new File[args.length];
+			for (int n = 0; n < args.length; n++)
+				schemas[n] = new File(args[n]);
+		} else {
+			schemas = new File("data").listFiles((dir, name) -> name.endsWith(".exp"));
+		}
+
+		ByteBuffer composite = concatenate(schemas);
+		System.out.println(schemas.length + " schemas, " + composite.remaining() + " bytes");
+
+		// the parser reports every filtered primary type on System.out
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		}));
+
+		for (int n = 0; n < WARMUP_ROUNDS; n++)
+			parseSequential(composite);
+		long start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			parseSequential(composite);
+		report("sequential", System.nanoTime() - start);
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1;; threads = Math.min(threads * 2, cores)) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			for (int n = 0; n < WARMUP_ROUNDS; n++)
+				parseParallel(composite, pool);
+			start = System.nanoTime();
+			for (int n = 0; n < ROUNDS; n++)
+				parseParallel(composite, pool);
+			report("parallel, " + threads + " threads", System.nanoTime() - start);
+			pool.shutdown();
+			if (threads == cores)
+				break;
+		}
+	}
+
+	private static void report(String label, long nanos) {
+		console.println(label + " : " + (nanos / ROUNDS / 1000) + " us per parse");
+	}
+
+	private static void parseSequential(ByteBuffer schema) {
+		new ExpressParser(new ExpressListenerAdapter()).parse(new ExpressLexer(schema.duplicate()));
+	}
+
+	private static void parseParallel(ByteBuffer schema, ForkJoinPool pool) {
+		new ParallelExpressParser(new ExpressListenerAdapter(), pool).parse(schema.duplicate());
+	}
+
+	private static ByteBuffer concatenate(File[] schemas) throws IOException {
+		ByteBuffer[] parts = new ByteBuffer[schemas.length];
+		int size = 0;
+		for (int n = 0; n < schemas.length; n++) {
+			parts[n] = ExpressLexer.open(schemas[n]).getBuffer();
+			size += parts[n].remaining() + 1;
+		}
+		ByteBuffer composite = ByteBuffer.allocateDirect(size);
+		for (int n = 0; n < parts.length; n++) {
+			composite.put(parts[n]);
+			composite.put((byte) '\n');
+		}
+		composite.flip();
+		return composite;
+	}
+}
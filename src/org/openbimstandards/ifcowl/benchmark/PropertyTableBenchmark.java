@@ -0,0 +1,182 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openbimstandards.ifcowl.ExpressReader;
+import org.openbimstandards.ifcowl.PropertyTable;
+
+/*
+ * PropertyTableBenchmark compares reading proplistXXX.csv into maps with opening the
+ * property table proplistXXX.bin, both for the first lookup after startup and for a
+ * lookup of every attribute of every entity. It also checks that both files hold the
+ * same rows.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.PropertyTableBenchmark [pathToSchema.exp]
+ *
+ * The schema defaults to data/IFC4_ADD2.exp. Both files are written to a temporary
+ * directory first.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class PropertyTableBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 20;
+
+	public static void main(String[] args) throws Exception {
+		File schema = new File(args.length > 0 ? args[0] : "data/IFC4_ADD2.exp");
+		String name = schemaName(schema);
+		File dir = Files.createTempDirectory("proptable").toFile();
+		String filePathNoExt = new File(dir, name).getPath();
+
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		}));
+		ExpressReader er = new ExpressReader(schema);
+		er.readAndBuild();
+		er.outputEntityPropertyList(filePathNoExt, name);
+		er.outputPropertyTable(filePathNoExt, name);
+		System.setOut(console);
+
+		File csv = new File(dir, "proplist" + name + ".csv");
+		File bin = new File(dir, "proplist" + name + ".bin");
+		System.out.println(name + ": csv " + csv.length() + " bytes, table " + bin.length() + " bytes");
+
+		Map<String, List<String[]>> rows = readCsv(csv);
+		check(rows, PropertyTable.open(bin));
+		String[] names = rows.keySet().toArray(new String[0]);
+		String first = names[names.length / 2];
+
+		long checksum = 0;
+		for (int n = 0; n < WARMUP_ROUNDS; n++) {
+			checksum += lookupCsv(csv, names);
+			checksum += lookupTable(bin, names);
+		}
+
+		long start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			checksum += lookupCsv(csv, new String[] { first });
+		long csvFirst = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			checksum += lookupTable(bin, new String[] { first });
+		long tableFirst = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			checksum += lookupCsv(csv, names);
+		long csvAll = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			checksum += lookupTable(bin, names);
+		long tableAll = System.nanoTime() - start;
+
+		System.out.println("first lookup, csv   : " + csvFirst / ROUNDS / 1000 + " us");
+		System.out.println("first lookup, table : " + tableFirst / ROUNDS / 1000 + " us");
+		System.out.println("all lookups, csv    : " + csvAll / ROUNDS / 1000 + " us");
+		System.out.println("all lookups, table  : " + tableAll / ROUNDS / 1000 + " us");
+		System.out.println("(checksum " + checksum + ")");
+
+		csv.delete();
+		bin.delete();
+		dir.delete();
+	}
+
+	private static String schemaName(File schema) {
+		String name = schema.getName();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+
+	// the rows of the csv by entity name, in the order of the file
+	private static Map<String, List<String[]>> readCsv(File csv) throws IOException {
+		Map<String, List<String[]>> rows = new HashMap<String, List<String[]>>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(csv),
+				StandardCharsets.UTF_8));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] row = line.split(",");
+				List<String[]> list = rows.get(row[0]);
+				if (list == null) {
+					list = new ArrayList<String[]>();
+					rows.put(row[0], list);
+				}
+				list.add(row);
+			}
+		} finally {
+			in.close();
+		}
+		return rows;
+	}
+
+	private static void check(Map<String, List<String[]>> rows, PropertyTable table) {
+		for (String name : rows.keySet()) {
+			int entity = table.getEntity(name);
+			List<String[]> list = rows.get(name);
+			if (entity < 0 || table.getAttributeCount(entity) != list.size())
+				throw new IllegalStateException("different attributes for " + name);
+			for (int n = 0; n < list.size(); n++) {
+				String[] row = list.get(n);
+				if (!row[1].equals(table.getOriginalName(entity, n))
+						|| !row[2].equals(table.getPropertyName(entity, n))
+						|| !row[3].equals(PropertyTable.getKindName(table.getKind(entity, n))))
+					throw new IllegalStateException("different attribute " + n + " for " + name);
+			}
+		}
+		if (table.getEntity("IfcNoSuchEntity") != -1)
+			throw new IllegalStateException("unknown entity found");
+	}
+
+	private static long lookupCsv(File csv, String[] names) throws IOException {
+		Map<String, List<String[]>> rows = readCsv(csv);
+		long sum = 0;
+		for (String name : names)
+			for (String[] row : rows.get(name))
+				sum += row[2].length();
+		return sum;
+	}
+
+	private static long lookupTable(File bin, String[] names) throws IOException {
+		PropertyTable table = PropertyTable.open(bin);
+		long sum = 0;
+		for (String name : names) {
+			int entity = table.getEntity(name);
+			for (int n = 0; n < table.getAttributeCount(entity); n++)
+				sum += table.getPropertyName(entity, n).length();
+		}
+		return sum;
+	}
+}
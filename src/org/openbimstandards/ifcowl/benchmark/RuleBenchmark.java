@@ -0,0 +1,107 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openbimstandards.ifcowl.rules.EntityValidator;
+import org.openbimstandards.ifcowl.rules.EntityValue;
+import org.openbimstandards.ifcowl.rules.SchemaValidator;
+import org.openbimstandards.ifcowl.rules.Violation;
+
+/*
+ * RuleBenchmark measures the compiled WHERE rules of an IFC schema on synthetic
+ * placement data: IfcCartesianPoints, IfcDirections and IfcAxis2Placement3Ds, whose
+ * rules call FUNCTIONs like IfcCrossProduct and read DERIVE attributes, and
+ * IfcActorRoles with an enumeration rule. One in every hundred placements has a
+ * RefDirection parallel to its Axis and violates a rule.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.RuleBenchmark [schemaFile] [numberOfInstances]
+ *
+ * The schema defaults to data/IFC4_ADD2.exp and the number of instances to 1000000.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class RuleBenchmark {
+
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		File schema = new File(args.length > 0 ? args[0] : "data/IFC4_ADD2.exp");
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+		long start = System.nanoTime();
+		SchemaValidator validator = SchemaValidator.compile(schema);
+		System.out.println("compiled " + validator.getSchemaName() + " in " + (System.nanoTime() - start)
+				/ 1000000 + " ms, " + validator.getWarnings().size() + " warnings");
+
+		List<EntityValue> instances = generate(count);
+		EntityValidator[] validators = new EntityValidator[instances.size()];
+		for (int n = 0; n < validators.length; n++)
+			validators[n] = validator.getEntityValidator(instances.get(n).getEntityName());
+
+		for (int n = 0; n < WARMUP_ROUNDS; n++)
+			validate(instances, validators);
+		start = System.nanoTime();
+		int violations = 0;
+		for (int n = 0; n < ROUNDS; n++)
+			violations = validate(instances, validators);
+		long nanos = (System.nanoTime() - start) / ROUNDS;
+
+		System.out.println(instances.size() + " instances in " + nanos / 1000000 + " ms, "
+				+ (long) (instances.size() * 60e9 / nanos) + " instances per minute, " + violations
+				+ " violations");
+	}
+
+	private static int validate(List<EntityValue> instances, EntityValidator[] validators) {
+		List<Violation> violations = new ArrayList<Violation>();
+		for (int n = 0; n < validators.length; n++)
+			validators[n].validate(instances.get(n), violations);
+		return violations.size();
+	}
+
+	private static List<EntityValue> generate(int count) {
+		List<EntityValue> instances = new ArrayList<EntityValue>(count);
+		String[] roles = { "ARCHITECT", "ENGINEER", "OWNER", "USERDEFINED" };
+		for (int n = 0; instances.size() < count; n++) {
+			EntityValue point = entity("IfcCartesianPoint", "Coordinates", Arrays.asList((double) n, 1.0, 2.0));
+			EntityValue axis = entity("IfcDirection", "DirectionRatios", Arrays.asList(0.0, 0.0, 1.0));
+			EntityValue refDirection = entity("IfcDirection", "DirectionRatios", n % 100 == 0 ? Arrays.asList(
+					0.0, 0.0, 2.0) : Arrays.asList(1.0, (double) n, 0.0));
+			instances.add(point);
+			instances.add(axis);
+			instances.add(refDirection);
+			instances.add(entity("IfcAxis2Placement3D", "Location", point, "Axis", axis, "RefDirection",
+					refDirection));
+			instances.add(entity("IfcActorRole", "Role", roles[n % roles.length], "UserDefinedRole",
+					n % 8 == 3 ? "Surveyor" : null));
+		}
+		return instances.subList(0, count);
+	}
+
+	private static EntityValue entity(String name, Object... attributes) {
+		EntityValue value = new EntityValue(name);
+		for (int n = 0; n < attributes.length; n += 2)
+			value.set((String) attributes[n], attributes[n + 1]);
+		return value;
+	}
+}
@@ -0,0 +1,129 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.openbimstandards.ifcowl.CompiledSchema;
+import org.openbimstandards.ifcowl.ExpressReader;
+
+/*
+ * SchemaLoadBenchmark compares the time to load the schema metadata from the serialized
+ * entXXX.ser and typXXX.ser maps with the time to open the compiled schema and look up
+ * every entity and all of its attributes.
+ *
+ * The usage:
+ * java org.openbimstandards.ifcowl.benchmark.SchemaLoadBenchmark [pathToSchema.exp]
+ *
+ * The schema defaults to data/IFC4_ADD2.exp. Both files are written to a temporary
+ * directory first.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class SchemaLoadBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		File schema = new File(args.length > 0 ? args[0] : "data/IFC4_ADD2.exp");
+		String name = schemaName(schema);
+		File dir = Files.createTempDirectory("schemaload").toFile();
+		String filePathNoExt = new File(dir, name).getPath();
+
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		}));
+		ExpressReader er = new ExpressReader(schema);
+		er.readAndBuild();
+		er.outputEntitiesAndTypes(filePathNoExt, name);
+		er.outputCompiledSchema(filePathNoExt, name);
+		System.setOut(console);
+
+		File ent = new File(dir, "ent" + name + ".ser");
+		File typ = new File(dir, "typ" + name + ".ser");
+		File bin = new File(dir, "schema" + name + ".bin");
+		System.out.println(name + ": .ser " + (ent.length() + typ.length()) + " bytes, compiled "
+				+ bin.length() + " bytes");
+
+		long checksum = 0;
+		for (int n = 0; n < WARMUP_ROUNDS; n++) {
+			checksum += loadSerialized(ent, typ);
+			checksum += loadCompiled(bin);
+		}
+
+		long start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			checksum += loadSerialized(ent, typ);
+		long serialized = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int n = 0; n < ROUNDS; n++)
+			checksum += loadCompiled(bin);
+		long compiled = System.nanoTime() - start;
+
+		System.out.println("ObjectInputStream : " + serialized / ROUNDS / 1000 + " us per load");
+		System.out.println("CompiledSchema    : " + compiled / ROUNDS / 1000 + " us per load and lookup");
+		System.out.println("(checksum " + checksum + ")");
+
+		ent.delete();
+		typ.delete();
+		bin.delete();
+		new File(dir, "proplist" + name + ".csv").delete();
+		dir.delete();
+	}
+
+	private static String schemaName(File schema) {
+		String name = schema.getName();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+
+	private static long loadSerialized(File ent, File typ) throws IOException, ClassNotFoundException {
+		long size = 0;
+		for (File f : new File[] { ent, typ }) {
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(f)));
+			try {
+				size += ((Map<?, ?>) in.readObject()).size();
+			} finally {
+				in.close();
+			}
+		}
+		return size;
+	}
+
+	// opens the schema and reads the name of every attribute of every entity
+	private static long loadCompiled(File bin) throws IOException {
+		CompiledSchema schema = CompiledSchema.open(bin);
+		long sum = 0;
+		for (int e = 0; e < schema.getEntityCount(); e++) {
+			int entity = schema.getEntity(schema.getEntityKey(e));
+			for (int n = 0; n < schema.getAttributeCount(entity); n++)
+				sum += schema.getAttributeName(schema.getAttribute(entity, n)).length();
+		}
+		return sum;
+	}
+}
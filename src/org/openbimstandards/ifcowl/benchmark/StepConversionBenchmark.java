@@ -0,0 +1,192 @@
+package org.openbimstandards.ifcowl.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openbimstandards.ifcowl.CompiledSchema;
+import org.openbimstandards.ifcowl.ExpressReader;
+import org.openbimstandards.ifcowl.SchemaContext;
+import org.openbimstandards.ifcowl.StepConverter;
+
+/*
+ * StepConversionBenchmark converts a synthetic IFC4 model with the StepConverter and
+ * reports the throughput and the peak heap. Every generated wall has a placement,
+ * a cartesian point and a property set with three properties, nine instances in all;
+ * the wall and the relation to its property set are written before the instances
+ * they refer to, so every wall leaves forward references to be resolved. The names of
+ * the walls hold a ; so that the pieces of the parallel conversion must not be cut
+ * inside strings.
+ *
+ * The usage:
+ * java -Xmx256m org.openbimstandards.ifcowl.benchmark.StepConversionBenchmark [pathToSchema.exp] [numberOfWalls]
+ *
+ * The schema defaults to data/IFC4.exp and the number of walls to 200000. The model
+ * and the compiled schema are written to a temporary directory, the triples are
+ * counted but not stored. The model is converted as a stream first and then from the
+ * memory-mapped file on 1, 2, 4 ... up to the number of cores threads; every run must
+ * give the same number of triples.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class StepConversionBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		File schema = new File(args.length > 0 ? args[0] : "data/IFC4.exp");
+		int walls = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		String name = schema.getName().replaceAll("\\.exp$", "");
+		File dir = Files.createTempDirectory("stepconversion").toFile();
+
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		}));
+		ExpressReader er = new ExpressReader(schema, new SchemaContext(SchemaContext.DEFAULT_NAMESPACE + name));
+		er.readAndBuild();
+		er.outputCompiledSchema(new File(dir, name).getPath(), name);
+		System.setOut(console);
+		File bin = new File(dir, "schema" + name + ".bin");
+
+		File model = new File(dir, "model.ifc");
+		long start = System.nanoTime();
+		generate(model, walls, name);
+		System.out.println(walls * 9 + " instances, " + model.length() / 1024 / 1024 + " MB written in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+
+		CompiledSchema compiled = CompiledSchema.open(bin);
+		StepConverter converter = new StepConverter(compiled, SchemaContext.DEFAULT_NAMESPACE + name,
+				"http://example.org/model#");
+		CountingOutputStream out = new CountingOutputStream();
+		start = System.nanoTime();
+		InputStream in = new BufferedInputStream(new FileInputStream(model), 1 << 16);
+		try {
+			converter.convert(in, out);
+		} finally {
+			in.close();
+		}
+		long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+
+		System.out.println(converter.getInstanceCount() + " instances, " + converter.getTripleCount()
+				+ " triples, " + out.count / 1024 / 1024 + " MB of N-Triples in " + millis + " ms");
+		System.out.println(model.length() / 1024 / millis + " MB/s, " + converter.getInstanceCount() * 1000
+				/ millis + " instances/s");
+		System.out.println(converter.getForwardReferenceCount() + " forward references, at most "
+				+ converter.getMaxPendingCount() + " waiting at the same time, " + converter.getWarningCount()
+				+ " warnings");
+		System.out.println("peak heap " + peakHeap() / 1024 / 1024 + " MB of "
+				+ Runtime.getRuntime().maxMemory() / 1024 / 1024 + " MB");
+
+		long triples = converter.getTripleCount();
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1;; threads = Math.min(threads * 2, cores)) {
+			converter = new StepConverter(compiled, SchemaContext.DEFAULT_NAMESPACE + name,
+					"http://example.org/model#");
+			out = new CountingOutputStream();
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			start = System.nanoTime();
+			try {
+				converter.convert(model, out, pool);
+			} finally {
+				pool.shutdown();
+			}
+			millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+			System.out.println(threads + " threads: " + converter.getTripleCount() + " triples in " + millis
+					+ " ms, " + model.length() / 1024 / millis + " MB/s, " + converter.getWarningCount()
+					+ " warnings" + (converter.getTripleCount() == triples ? "" : ", NOT THE SAME AS THE STREAM"));
+			if (threads == cores)
+				break;
+		}
+
+		model.delete();
+		bin.delete();
+		dir.delete();
+	}
+
+	private static long peakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+
+	private static void generate(File file, int walls, String schemaName) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+				StandardCharsets.US_ASCII), 1 << 16);
+		try {
+			out.write("ISO-10303-21;\nHEADER;\nFILE_DESCRIPTION(('ViewDefinition [CoordinationView]'),'2;1');\n");
+			out.write("FILE_NAME('model.ifc','2016-01-01T00:00:00',(''),(''),'','','');\n");
+			out.write("FILE_SCHEMA(('" + schemaName + "'));\nENDSEC;\nDATA;\n");
+			long id = 1;
+			for (int n = 0; n < walls; n++, id += 9) {
+				out.write("#" + id + "=IFCWALL('" + guid(n) + "',$,'Wall " + n + ";A','Basic Wall:\\X2\\00C4\\X0\\',$,#"
+						+ (id + 1) + ",$,'" + n + "',.STANDARD.);\n");
+				out.write("#" + (id + 1) + "=IFCLOCALPLACEMENT($,#" + (id + 2) + ");\n");
+				out.write("#" + (id + 2) + "=IFCAXIS2PLACEMENT3D(#" + (id + 3) + ",$,$);\n");
+				out.write("#" + (id + 3) + "=IFCCARTESIANPOINT((" + n + ".,0.,3.5));\n");
+				out.write("#" + (id + 4) + "=IFCRELDEFINESBYPROPERTIES('" + guid(n + walls) + "',$,$,$,(#" + id
+						+ "),#" + (id + 5) + ");\n");
+				out.write("#" + (id + 5) + "=IFCPROPERTYSET('" + guid(n + 2 * walls) + "',$,'Pset_WallCommon',$,(#"
+						+ (id + 6) + ",#" + (id + 7) + "));\n");
+				out.write("#" + (id + 6) + "=IFCPROPERTYSINGLEVALUE('IsExternal',$,IFCBOOLEAN(.T.),$);\n");
+				out.write("#" + (id + 7) + "=IFCPROPERTYSINGLEVALUE('Width',$,IFCPOSITIVELENGTHMEASURE(200.),$);\n");
+				out.write("#" + (id + 8) + "=IFCPROPERTYSINGLEVALUE('Reference',$,IFCIDENTIFIER('W-" + n + "'),$);\n");
+			}
+			out.write("ENDSEC;\nEND-ISO-10303-21;\n");
+		} finally {
+			out.close();
+		}
+	}
+
+	// a 22 character id in the alphabet of the IFC GlobalId
+	private static String guid(long n) {
+		String digits = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_$";
+		char[] chars = new char[22];
+		for (int i = 21; i >= 0; i--, n >>>= 6)
+			chars[i] = digits.charAt((int) (n & 63));
+		return new String(chars);
+	}
+
+	// an OutputStream that only counts the bytes
+	private static class CountingOutputStream extends OutputStream {
+		long count;
+
+		public void write(int b) {
+			count++;
+		}
+
+		public void write(byte[] buffer, int offset, int length) {
+			count += length;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * EntityValidator checks the instances of one entity against the compiled WHERE rules of
+ * the entity and its supertypes and the WHERE rules of the defined types of its
+ * explicit attributes. A validator is compiled once per entity and holds no state of
+ * an evaluation, so it can be used for any number of instances and by several threads
+ * at the same time.
+ *
+ * The usage:
+ * EntityValidator validator = schemaValidator.getEntityValidator("IfcWall");
+ * List<Violation> violations = new ArrayList<Violation>();
+ * for (RuleInstance wall : walls)
+ *     validator.validate(wall, violations);
+ *
+ * A rule is violated only when it is FALSE; an UNKNOWN result, like a comparison with
+ * an attribute that is not set, satisfies the rule as the EXPRESS semantics prescribe.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class EntityValidator {
+
+	private final RuleCompiler.CompiledEntity entity;
+	private final RuleCompiler.CompiledRule[] wheres;
+	private final String[] attributes;
+	private final boolean[] aggregates;
+	private final RuleCompiler.CompiledRule[][] typeWheres;
+
+	EntityValidator(RuleCompiler compiler, RuleCompiler.CompiledEntity entity) {
+		this.entity = entity;
+		this.wheres = compiler.allWheres(entity).toArray(new RuleCompiler.CompiledRule[0]);
+		int size = entity.attributeChecks.size();
+		this.attributes = new String[size];
+		this.aggregates = new boolean[size];
+		this.typeWheres = new RuleCompiler.CompiledRule[size][];
+		for (int n = 0; n < size; n++) {
+			RuleCompiler.AttributeCheck check = entity.attributeChecks.get(n);
+			attributes[n] = check.attribute;
+			aggregates[n] = check.aggregate;
+			typeWheres[n] = compiler.allWheres(check.type).toArray(new RuleCompiler.CompiledRule[0]);
+		}
+	}
+
+	public String getEntityName() {
+		return entity.original;
+	}
+
+	// the number of rules that are checked for every instance
+	public int getRuleCount() {
+		int count = wheres.length;
+		for (RuleCompiler.CompiledRule[] rules : typeWheres)
+			count += rules.length;
+		return count;
+	}
+
+	public List<Violation> validate(RuleInstance instance) {
+		List<Violation> violations = new ArrayList<Violation>();
+		validate(instance, violations);
+		return violations;
+	}
+
+	// adds the violations to the list and returns whether there were none
+	public boolean validate(RuleInstance instance, List<Violation> violations) {
+		boolean valid = true;
+		for (RuleCompiler.CompiledRule rule : wheres)
+			valid &= check(rule, instance, instance, violations);
+		for (int n = 0; n < attributes.length; n++) {
+			Object value = Values.normalize(instance.get(attributes[n]));
+			if (value == null)
+				continue;
+			if (aggregates[n] && value instanceof List) {
+				for (Object element : (List<?>) value)
+					for (RuleCompiler.CompiledRule rule : typeWheres[n])
+						valid &= check(rule, element, instance, violations);
+			} else {
+				for (RuleCompiler.CompiledRule rule : typeWheres[n])
+					valid &= check(rule, value, instance, violations);
+			}
+		}
+		return valid;
+	}
+
+	public boolean isValid(RuleInstance instance) {
+		return validate(instance, null);
+	}
+
+	static boolean check(RuleCompiler.CompiledRule rule, Object self, RuleInstance instance,
+			List<Violation> violations) {
+		try {
+			Logical result = Values.logical(rule.condition.evaluate(self));
+			if (result != Logical.FALSE)
+				return true;
+			if (violations != null)
+				violations.add(new Violation(rule.declaration, rule.label, instance, result, null));
+		} catch (RuntimeException e) {
+			if (violations != null)
+				violations.add(new Violation(rule.declaration, rule.label, instance, Logical.UNKNOWN,
+						e.toString()));
+		}
+		return false;
+	}
+}
@@ -0,0 +1,73 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * EntityValue is an entity instance that is created while the rules are evaluated, by
+ * an entity constructor like IfcDirection([0.0, 0.0, 1.0]) in a FUNCTION or DERIVE
+ * expression, or by combining partial instances with the || operator. It is not part
+ * of the instance data, so nothing refers to it.
+ *
+ * The usage:
+ * EntityValue direction = new EntityValue("IfcDirection");
+ * direction.set("DirectionRatios", ratios);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class EntityValue implements RuleInstance {
+
+	private String entityName;
+	private final Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+
+	public EntityValue(String entityName) {
+		this.entityName = entityName;
+	}
+
+	public String getEntityName() {
+		return entityName;
+	}
+
+	void setEntityName(String entityName) {
+		this.entityName = entityName;
+	}
+
+	public Object get(String attribute) {
+		return attributes.get(attribute);
+	}
+
+	public Collection<? extends RuleInstance> usedIn(String role) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public void set(String attribute, Object value) {
+		attributes.put(attribute, value);
+	}
+
+	Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public String toString() {
+		return entityName + attributes.values();
+	}
+}
@@ -0,0 +1,33 @@
+package org.openbimstandards.ifcowl.rules;
+
+/*
+ * Evaluator is an EXPRESS expression compiled by the RuleCompiler into a JVM lambda.
+ * Names are resolved to slots of the Frame when the expression is compiled, so an
+ * evaluation does not look anything up by name.
+ *
+ * The usage:
+ * RuleCompiler.Compiled rule = compiler.getEntity("IfcWall").wheres.get(0).condition;
+ * Object value = rule.evaluator.evaluate(new Frame(rule.frameSize, instance));
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+@FunctionalInterface
+public interface Evaluator {
+
+	Object evaluate(Frame frame);
+}
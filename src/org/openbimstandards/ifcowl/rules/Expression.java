@@ -0,0 +1,195 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.List;
+
+/*
+ * Expression is a node of the abstract syntax tree of an EXPRESS expression, as read
+ * by the RuleParser from WHERE, UNIQUE and DERIVE clauses, FUNCTIONs and RULEs. The
+ * nodes only describe the expression; the RuleCompiler turns them into Evaluators.
+ *
+ * The usage:
+ * Expression e = parser.parseExpression();
+ * if (e instanceof Expression.Binary) ...
+ *
+ * Names are kept in upper case (EXPRESS is case-insensitive), except for the original
+ * spelling of attribute names that is needed to read the attributes of instances.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public abstract class Expression {
+
+	// the line in the schema, for the messages of the compiler
+	public final int line;
+
+	Expression(int line) {
+		this.line = line;
+	}
+
+	// a literal value: Long, Double, String, Logical or null for ?
+	public static class Literal extends Expression {
+		public final Object value;
+
+		public Literal(int line, Object value) {
+			super(line);
+			this.value = value;
+		}
+	}
+
+	// SELF
+	public static class Self extends Expression {
+		public Self(int line) {
+			super(line);
+		}
+	}
+
+	// a variable, attribute, constant, entity extent or enumeration item
+	public static class Name extends Expression {
+		public final String name;
+		public final String original;
+
+		public Name(int line, String name, String original) {
+			super(line);
+			this.name = name;
+			this.original = original;
+		}
+	}
+
+	// NOT, - and +
+	public static class Unary extends Expression {
+		public final String operator;
+		public final Expression operand;
+
+		public Unary(int line, String operator, Expression operand) {
+			super(line);
+			this.operator = operator;
+			this.operand = operand;
+		}
+	}
+
+	// arithmetic, logical, relational and aggregate operators, IN and LIKE
+	public static class Binary extends Expression {
+		public final String operator;
+		public final Expression left;
+		public final Expression right;
+
+		public Binary(int line, String operator, Expression left, Expression right) {
+			super(line);
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	// a call of a FUNCTION, a built-in function or an entity or type constructor
+	public static class Call extends Expression {
+		public final String function;
+		public final List<Expression> arguments;
+
+		public Call(int line, String function, List<Expression> arguments) {
+			super(line);
+			this.function = function;
+			this.arguments = arguments;
+		}
+	}
+
+	// value.attribute
+	public static class Attribute extends Expression {
+		public final Expression value;
+		public final String attribute;
+		public final String original;
+
+		public Attribute(int line, Expression value, String attribute, String original) {
+			super(line);
+			this.value = value;
+			this.attribute = attribute;
+			this.original = original;
+		}
+	}
+
+	// value\entity, which selects the partial entity value of a supertype
+	public static class Group extends Expression {
+		public final Expression value;
+		public final String entity;
+
+		public Group(int line, Expression value, String entity) {
+			super(line);
+			this.value = value;
+			this.entity = entity;
+		}
+	}
+
+	// value[index] or value[index : to]
+	public static class Index extends Expression {
+		public final Expression value;
+		public final Expression index;
+		public final Expression to;
+
+		public Index(int line, Expression value, Expression index, Expression to) {
+			super(line);
+			this.value = value;
+			this.index = index;
+			this.to = to;
+		}
+	}
+
+	// [a, b, c] or [element : repetition, ...]
+	public static class Aggregate extends Expression {
+		public final List<Expression> elements;
+		// the repetition of every element, null when the element is not repeated
+		public final List<Expression> repetitions;
+
+		public Aggregate(int line, List<Expression> elements, List<Expression> repetitions) {
+			super(line);
+			this.elements = elements;
+			this.repetitions = repetitions;
+		}
+	}
+
+	// {low < value <= high}
+	public static class Interval extends Expression {
+		public final Expression low;
+		public final String lowOperator;
+		public final Expression value;
+		public final String highOperator;
+		public final Expression high;
+
+		public Interval(int line, Expression low, String lowOperator, Expression value,
+				String highOperator, Expression high) {
+			super(line);
+			this.low = low;
+			this.lowOperator = lowOperator;
+			this.value = value;
+			this.highOperator = highOperator;
+			this.high = high;
+		}
+	}
+
+	// QUERY(variable <* aggregate | condition)
+	public static class Query extends Expression {
+		public final String variable;
+		public final Expression aggregate;
+		public final Expression condition;
+
+		public Query(int line, String variable, Expression aggregate, Expression condition) {
+			super(line);
+			this.variable = variable;
+			this.aggregate = aggregate;
+			this.condition = condition;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package org.openbimstandards.ifcowl.rules;
+
+/*
+ * Frame holds the state of one evaluation of a compiled expression, FUNCTION or RULE:
+ * SELF, the slots of the parameters, local variables and QUERY variables, and the
+ * value of RETURN.
+ *
+ * The usage:
+ * Frame frame = new Frame(size, instance);
+ * Object value = evaluator.evaluate(frame);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public final class Frame {
+
+	final Object self;
+	final Object[] slots;
+	Object result;
+
+	Frame(int size, Object self) {
+		this.self = self;
+		this.slots = new Object[size];
+	}
+}
@@ -0,0 +1,65 @@
+package org.openbimstandards.ifcowl.rules;
+
+/*
+ * Logical is the EXPRESS LOGICAL value, which is the result of every WHERE rule and of
+ * every comparison. A comparison with an indeterminate (?) value gives UNKNOWN, and a
+ * WHERE rule is only violated when it evaluates to FALSE.
+ *
+ * The usage:
+ * Logical result = Logical.and(Logical.TRUE, Logical.UNKNOWN);   // UNKNOWN
+ * Logical l = Logical.valueOf(Boolean.TRUE);                     // TRUE
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public enum Logical {
+	// in the order of EXPRESS, FALSE < UNKNOWN < TRUE
+	FALSE, UNKNOWN, TRUE;
+
+	public static Logical valueOf(boolean b) {
+		return b ? TRUE : FALSE;
+	}
+
+	// the logical value of a Logical, a Boolean or null (indeterminate, so UNKNOWN)
+	public static Logical valueOf(Object value) {
+		if (value instanceof Logical)
+			return (Logical) value;
+		if (value instanceof Boolean)
+			return ((Boolean) value).booleanValue() ? TRUE : FALSE;
+		if (value == null)
+			return UNKNOWN;
+		throw new IllegalArgumentException("not a LOGICAL value: " + value);
+	}
+
+	public static Logical not(Logical a) {
+		return a == TRUE ? FALSE : a == FALSE ? TRUE : UNKNOWN;
+	}
+
+	public static Logical and(Logical a, Logical b) {
+		return a.ordinal() < b.ordinal() ? a : b;
+	}
+
+	public static Logical or(Logical a, Logical b) {
+		return a.ordinal() > b.ordinal() ? a : b;
+	}
+
+	public static Logical xor(Logical a, Logical b) {
+		if (a == UNKNOWN || b == UNKNOWN)
+			return UNKNOWN;
+		return valueOf(a != b);
+	}
+}
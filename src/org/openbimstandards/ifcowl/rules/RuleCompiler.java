@@ -0,0 +1,1267 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * RuleCompiler compiles the abstract syntax tree of a RuleSchema into JVM lambdas: every
+ * Expression becomes an Evaluator and every Statement an Action. Names are resolved
+ * while compiling, to a slot of the Frame for parameters, local and QUERY variables,
+ * to an attribute of SELF, to a CONSTANT or to an enumeration item, and calls are
+ * bound to the compiled FUNCTION, built-in function or entity constructor. An attribute
+ * of SELF is bound to the derived attribute of the entity once all the entities are
+ * compiled, so evaluating a rule only runs the lambdas; the entity of the instance is
+ * looked up by name only for the attributes of other instances, and for an attribute
+ * of SELF that a subtype redeclares as derived. The values of the explicit attributes
+ * are asked from the RuleInstance by their declared name.
+ *
+ * The usage:
+ * RuleCompiler compiler = new RuleCompiler(schema);
+ * RuleCompiler.CompiledEntity wall = compiler.getEntity("IfcWall");
+ * for (RuleCompiler.CompiledRule rule : wall.wheres) rule.condition.evaluate(instance);
+ *
+ * SchemaValidator wraps the compiler; declarations that cannot be compiled, like calls
+ * of functions that do not exist, are left out and reported in getWarnings().
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class RuleCompiler {
+
+	// the outcome of an Action
+	static final int NORMAL = 0;
+	static final int RETURN = 1;
+	static final int ESCAPE = 2;
+	static final int SKIP = 3;
+
+	@FunctionalInterface
+	interface Action {
+		int run(Frame frame);
+	}
+
+	// an Evaluator together with the size of the Frame it needs
+	public static final class Compiled {
+		final Evaluator evaluator;
+		final int frameSize;
+
+		Compiled(Evaluator evaluator, int frameSize) {
+			this.evaluator = evaluator;
+			this.frameSize = frameSize;
+		}
+
+		public Object evaluate(Object self) {
+			return evaluator.evaluate(new Frame(frameSize, self));
+		}
+	}
+
+	// a WHERE rule of an entity, type or global rule
+	public static final class CompiledRule {
+		public final String declaration;
+		public final String label;
+		public final Compiled condition;
+
+		CompiledRule(String declaration, String label, Compiled condition) {
+			this.declaration = declaration;
+			this.label = label;
+			this.condition = condition;
+		}
+	}
+
+	// an attribute of SELF in a declaration of the entity, the derived attribute of the
+	// entity when it has one, unless a subtype redeclares the attribute as derived
+	private final class SelfAttribute {
+		final CompiledEntity entity;
+		final String name;
+		final String declared;
+		Compiled derived;
+		boolean overridden;
+
+		SelfAttribute(CompiledEntity entity, String name, String declared) {
+			this.entity = entity;
+			this.name = name;
+			this.declared = declared;
+		}
+
+		void bind() {
+			derived = entity.derived.get(name);
+			for (CompiledEntity sub : entities.values())
+				if (sub != entity && sub.ancestors.contains(entity.name) && sub.derived.get(name) != derived)
+					overridden = true;
+		}
+
+		Object get(Object self) {
+			if (!(self instanceof RuleInstance))
+				return null;
+			if (overridden)
+				return attribute(self, name, declared);
+			if (derived != null)
+				return derived.evaluate(self);
+			return Values.normalize(((RuleInstance) self).get(declared));
+		}
+	}
+
+	// the type WHERE rules that apply to the values of an explicit attribute
+	static final class AttributeCheck {
+		final String attribute;
+		final CompiledType type;
+		final boolean aggregate;
+
+		AttributeCheck(String attribute, CompiledType type, boolean aggregate) {
+			this.attribute = attribute;
+			this.type = type;
+			this.aggregate = aggregate;
+		}
+	}
+
+	public static final class CompiledEntity {
+		public final String name;
+		public final String original;
+		final RuleSchema.Entity declaration;
+		final List<CompiledEntity> supertypes = new ArrayList<CompiledEntity>();
+		// the upper case names of the entity and all its supertypes
+		final Set<String> ancestors = new LinkedHashSet<String>();
+		// SCHEMA.ENTITY for the entity, its supertypes and the selects they are part of
+		List<String> typeOf;
+		// upper case to declared name of all explicit, derived and inverse attributes
+		final Map<String, String> attributeNames = new HashMap<String, String>();
+		final List<String> ownAttributes = new ArrayList<String>();
+		final List<String> allAttributes = new ArrayList<String>();
+		// the derived attributes, by upper case name, including inherited ones
+		final Map<String, Compiled> derived = new HashMap<String, Compiled>();
+		// the WHERE rules, those of the supertypes first
+		public final List<CompiledRule> wheres = new ArrayList<CompiledRule>();
+		final List<AttributeCheck> attributeChecks = new ArrayList<AttributeCheck>();
+		boolean resolved;
+
+		CompiledEntity(RuleSchema.Entity declaration) {
+			this.declaration = declaration;
+			this.name = declaration.name;
+			this.original = declaration.original;
+		}
+	}
+
+	public static final class CompiledType {
+		public final String name;
+		public final String original;
+		final RuleSchema.Type declaration;
+		// SCHEMA.TYPE for the type, its underlying defined types and their selects
+		List<String> typeOf;
+		// the WHERE rules of the type and of its underlying defined types
+		public final List<CompiledRule> wheres = new ArrayList<CompiledRule>();
+
+		CompiledType(RuleSchema.Type declaration) {
+			this.declaration = declaration;
+			this.name = declaration.name;
+			this.original = declaration.original;
+		}
+	}
+
+	static final class CompiledFunction {
+		final String name;
+		final int parameterCount;
+		int frameSize;
+		Action[] locals;
+		Action body;
+
+		CompiledFunction(String name, int parameterCount) {
+			this.name = name;
+			this.parameterCount = parameterCount;
+		}
+
+		Object invoke(Object[] arguments) {
+			if (body == null)
+				throw new UnsupportedOperationException("FUNCTION " + name + " could not be compiled");
+			Frame frame = new Frame(frameSize, null);
+			System.arraycopy(arguments, 0, frame.slots, 0, arguments.length);
+			for (Action local : locals)
+				local.run(frame);
+			body.run(frame);
+			return frame.result;
+		}
+	}
+
+	public static final class CompiledGlobalRule {
+		public final String name;
+		final List<String> entities;
+		int frameSize;
+		Action[] locals;
+		Action body;
+		public final List<CompiledRule> wheres = new ArrayList<CompiledRule>();
+
+		CompiledGlobalRule(String name, List<String> entities) {
+			this.name = name;
+			this.entities = entities;
+		}
+	}
+
+	// the names that are visible in a declaration, and the slots of the variables
+	private static final class Scope {
+		final Scope parent;
+		final CompiledEntity entity;
+		final Map<String, Integer> slots = new HashMap<String, Integer>();
+		// the lower index of the variables that are declared as ARRAY [low:high]
+		final Map<String, Evaluator> lows = new HashMap<String, Evaluator>();
+		final int[] size;
+
+		Scope(CompiledEntity entity) {
+			this.parent = null;
+			this.entity = entity;
+			this.size = new int[1];
+		}
+
+		Scope(Scope parent) {
+			this.parent = parent;
+			this.entity = parent.entity;
+			this.size = parent.size;
+		}
+
+		int declare(String name) {
+			int slot = size[0]++;
+			slots.put(name, slot);
+			return slot;
+		}
+
+		Integer lookup(String name) {
+			for (Scope s = this; s != null; s = s.parent) {
+				Integer slot = s.slots.get(name);
+				if (slot != null)
+					return slot;
+			}
+			return null;
+		}
+
+		Evaluator low(String name) {
+			for (Scope s = this; s != null; s = s.parent) {
+				if (s.slots.containsKey(name))
+					return s.lows.get(name);
+			}
+			return null;
+		}
+	}
+
+	private static final Set<String> BUILTINS = new HashSet<String>(Arrays.asList("ABS", "ACOS",
+			"ASIN", "ATAN", "BLENGTH", "COS", "EXISTS", "EXP", "FORMAT", "HIBOUND", "HIINDEX",
+			"LENGTH", "LOBOUND", "LOINDEX", "LOG", "LOG2", "LOG10", "NVL", "ODD", "SIN", "SIZEOF",
+			"SQRT", "TAN", "TYPEOF", "USEDIN", "VALUE", "VALUE_IN", "VALUE_UNIQUE"));
+
+	private final RuleSchema schema;
+	private final String schemaName;
+	private final Map<String, CompiledEntity> entities = new LinkedHashMap<String, CompiledEntity>();
+	// the entities by their declared and by their upper case name
+	private final Map<String, CompiledEntity> entitiesByName = new HashMap<String, CompiledEntity>();
+	private final Map<String, CompiledType> types = new LinkedHashMap<String, CompiledType>();
+	private final Map<String, CompiledFunction> functions = new HashMap<String, CompiledFunction>();
+	private final Map<String, CompiledGlobalRule> rules = new LinkedHashMap<String, CompiledGlobalRule>();
+	private final Map<String, Object> constants = new HashMap<String, Object>();
+	// upper case to declared name of every attribute in the schema
+	private final Map<String, String> attributeNames = new HashMap<String, String>();
+	private final Set<String> enumerationItems = new HashSet<String>();
+	// the select types that an entity or type is an item of, directly or indirectly
+	private final Map<String, Set<String>> selects = new HashMap<String, Set<String>>();
+	private final List<String> warnings = new ArrayList<String>();
+	// the attributes of SELF, bound once all the entities are compiled
+	private final List<SelfAttribute> selfAttributes = new ArrayList<SelfAttribute>();
+
+	public RuleCompiler(RuleSchema schema) {
+		this.schema = schema;
+		this.schemaName = schema.name == null ? "" : schema.name;
+
+		for (RuleSchema.Type type : schema.types.values()) {
+			types.put(type.name, new CompiledType(type));
+			for (String item : type.enumerationItems)
+				enumerationItems.add(item.toUpperCase());
+			for (String item : type.selectItems)
+				add(selects, item.toUpperCase(), type.name);
+		}
+		closeSelects();
+		for (RuleSchema.Entity entity : schema.entities.values()) {
+			CompiledEntity ce = new CompiledEntity(entity);
+			entities.put(entity.name, ce);
+			entitiesByName.put(entity.name, ce);
+			entitiesByName.put(entity.original, ce);
+			for (RuleSchema.Attribute attr : entity.attributes)
+				putIfAbsent(attributeNames, attr.name, attr.original);
+			for (RuleSchema.Derived derived : entity.derived)
+				putIfAbsent(attributeNames, derived.name, derived.original);
+			for (RuleSchema.Inverse inverse : entity.inverses)
+				putIfAbsent(attributeNames, inverse.name, inverse.original);
+		}
+		for (CompiledEntity ce : entities.values())
+			resolve(ce, new HashSet<String>());
+		for (CompiledType ct : types.values())
+			ct.typeOf = typeOf(ct);
+
+		for (RuleSchema.Function function : schema.functions.values())
+			functions.put(function.name, new CompiledFunction(function.name, function.parameters.size()));
+		for (RuleSchema.Function function : schema.functions.values()) {
+			try {
+				compileFunction(function, functions.get(function.name));
+			} catch (RuntimeException e) {
+				warnings.add("FUNCTION " + function.name + ": " + e.getMessage());
+			}
+		}
+
+		for (CompiledEntity ce : entities.values())
+			compileEntity(ce);
+		for (SelfAttribute attribute : selfAttributes)
+			attribute.bind();
+		selfAttributes.clear();
+		for (CompiledType ct : types.values())
+			compileType(ct);
+		for (CompiledEntity ce : entities.values())
+			compileAttributeChecks(ce);
+		for (RuleSchema.Rule rule : schema.rules.values()) {
+			try {
+				rules.put(rule.name, compileGlobalRule(rule));
+			} catch (RuntimeException e) {
+				warnings.add("RULE " + rule.name + ": " + e.getMessage());
+			}
+		}
+	}
+
+	public String getSchemaName() {
+		return schemaName;
+	}
+
+	public List<String> getWarnings() {
+		return warnings;
+	}
+
+	public CompiledEntity getEntity(String name) {
+		CompiledEntity ce = entitiesByName.get(name);
+		if (ce == null && name != null)
+			ce = entitiesByName.get(name.toUpperCase());
+		return ce;
+	}
+
+	public Collection<CompiledEntity> getEntities() {
+		return entities.values();
+	}
+
+	public CompiledType getType(String name) {
+		return name == null ? null : types.get(name.toUpperCase());
+	}
+
+	public Collection<CompiledGlobalRule> getGlobalRules() {
+		return rules.values();
+	}
+
+	// METADATA
+	private static void add(Map<String, Set<String>> map, String key, String value) {
+		Set<String> set = map.get(key);
+		if (set == null) {
+			set = new LinkedHashSet<String>();
+			map.put(key, set);
+		}
+		set.add(value);
+	}
+
+	private static void putIfAbsent(Map<String, String> map, String key, String value) {
+		if (!map.containsKey(key))
+			map.put(key, value);
+	}
+
+	// a select that is an item of another select makes its items items of that one too
+	private void closeSelects() {
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Set<String> containing : selects.values()) {
+				for (String select : new ArrayList<String>(containing)) {
+					Set<String> outer = selects.get(select);
+					if (outer != null && containing.addAll(outer))
+						changed = true;
+				}
+			}
+		}
+	}
+
+	private void resolve(CompiledEntity ce, Set<String> visiting) {
+		if (ce.resolved)
+			return;
+		if (!visiting.add(ce.name)) {
+			warnings.add("ENTITY " + ce.original + ": cyclic SUBTYPE OF");
+			return;
+		}
+		for (String supertype : ce.declaration.supertypes) {
+			CompiledEntity sup = entities.get(supertype);
+			if (sup == null) {
+				warnings.add("ENTITY " + ce.original + ": unknown supertype " + supertype);
+				continue;
+			}
+			resolve(sup, visiting);
+			ce.supertypes.add(sup);
+			ce.ancestors.addAll(sup.ancestors);
+			ce.attributeNames.putAll(sup.attributeNames);
+			for (String attr : sup.allAttributes)
+				if (!ce.allAttributes.contains(attr))
+					ce.allAttributes.add(attr);
+		}
+		ce.ancestors.add(ce.name);
+		for (RuleSchema.Attribute attr : ce.declaration.attributes) {
+			ce.attributeNames.put(attr.name, attr.original);
+			ce.ownAttributes.add(attr.original);
+			ce.allAttributes.add(attr.original);
+		}
+		for (RuleSchema.Derived derived : ce.declaration.derived)
+			ce.attributeNames.put(derived.name, derived.original);
+		for (RuleSchema.Inverse inverse : ce.declaration.inverses)
+			ce.attributeNames.put(inverse.name, inverse.original);
+
+		Set<String> typeOf = new LinkedHashSet<String>();
+		for (String ancestor : ce.ancestors) {
+			typeOf.add(schemaName + "." + ancestor);
+			Set<String> s = selects.get(ancestor);
+			if (s != null)
+				for (String select : s)
+					typeOf.add(schemaName + "." + select);
+		}
+		ce.typeOf = Collections.unmodifiableList(new ArrayList<String>(typeOf));
+		ce.resolved = true;
+	}
+
+	private List<String> typeOf(CompiledType ct) {
+		Set<String> typeOf = new LinkedHashSet<String>();
+		Set<String> seen = new HashSet<String>();
+		for (CompiledType t = ct; t != null && seen.add(t.name); t = underlying(t)) {
+			typeOf.add(schemaName + "." + t.name);
+			Set<String> s = selects.get(t.name);
+			if (s != null)
+				for (String select : s)
+					typeOf.add(schemaName + "." + select);
+		}
+		return Collections.unmodifiableList(new ArrayList<String>(typeOf));
+	}
+
+	// the defined type that the type is based on, like IfcLengthMeasure for IfcPositiveLengthMeasure
+	private CompiledType underlying(CompiledType ct) {
+		RuleSchema.TypeSpec spec = ct.declaration.underlying;
+		return spec == null || spec.isAggregate() ? null : types.get(spec.kind);
+	}
+
+	// DECLARATIONS
+	private void compileEntity(CompiledEntity ce) {
+		for (CompiledEntity sup : ce.supertypes) {
+			for (Map.Entry<String, Compiled> e : sup.derived.entrySet())
+				if (!ce.derived.containsKey(e.getKey()))
+					ce.derived.put(e.getKey(), e.getValue());
+		}
+		for (RuleSchema.Derived derived : ce.declaration.derived) {
+			try {
+				Scope scope = new Scope(ce);
+				Evaluator e = compile(derived.value, scope);
+				ce.derived.put(derived.name, new Compiled(e, scope.size[0]));
+			} catch (RuntimeException e) {
+				warnings.add("ENTITY " + ce.original + " DERIVE " + derived.original + ": " + e.getMessage());
+				final String message = e.getMessage();
+				ce.derived.put(derived.name, new Compiled(f -> {
+					throw new UnsupportedOperationException(message);
+				}, 0));
+			}
+		}
+		// the derived attributes of the supertypes are compiled before their subtypes
+		// only if the entities are declared in that order, so inherit them again
+		for (CompiledEntity sub : entities.values())
+			if (sub != ce && sub.ancestors.contains(ce.name))
+				for (Map.Entry<String, Compiled> e : ce.derived.entrySet())
+					if (!sub.derived.containsKey(e.getKey()) && !ownDerived(sub, e.getKey()))
+						sub.derived.put(e.getKey(), e.getValue());
+
+		for (RuleSchema.Where where : ce.declaration.wheres) {
+			try {
+				Scope scope = new Scope(ce);
+				Evaluator e = compile(where.condition, scope);
+				ce.wheres.add(new CompiledRule(ce.original, where.label, new Compiled(e, scope.size[0])));
+			} catch (RuntimeException e) {
+				warnings.add("ENTITY " + ce.original + " WHERE " + where.label + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private static boolean ownDerived(CompiledEntity ce, String name) {
+		for (RuleSchema.Derived derived : ce.declaration.derived)
+			if (derived.name.equals(name))
+				return true;
+		return false;
+	}
+
+	// the WHERE rules of all supertypes, in the order of the supertypes
+	List<CompiledRule> allWheres(CompiledEntity ce) {
+		List<CompiledRule> all = new ArrayList<CompiledRule>();
+		for (String ancestor : ce.ancestors)
+			all.addAll(entities.get(ancestor).wheres);
+		return all;
+	}
+
+	private void compileType(CompiledType ct) {
+		for (RuleSchema.Where where : ct.declaration.wheres) {
+			try {
+				Scope scope = new Scope((CompiledEntity) null);
+				Evaluator e = compile(where.condition, scope);
+				ct.wheres.add(new CompiledRule(ct.original, where.label, new Compiled(e, scope.size[0])));
+			} catch (RuntimeException e) {
+				warnings.add("TYPE " + ct.original + " WHERE " + where.label + ": " + e.getMessage());
+			}
+		}
+	}
+
+	// the WHERE rules of a type and of the types it is based on
+	List<CompiledRule> allWheres(CompiledType ct) {
+		List<CompiledRule> all = new ArrayList<CompiledRule>();
+		Set<String> seen = new HashSet<String>();
+		for (CompiledType t = ct; t != null && seen.add(t.name); t = underlying(t))
+			all.addAll(t.wheres);
+		return all;
+	}
+
+	private void compileAttributeChecks(CompiledEntity ce) {
+		for (String ancestor : ce.ancestors) {
+			for (RuleSchema.Attribute attr : entities.get(ancestor).declaration.attributes) {
+				RuleSchema.TypeSpec spec = attr.type;
+				boolean aggregate = false;
+				if (spec.isAggregate()) {
+					spec = spec.element;
+					aggregate = true;
+				}
+				CompiledType ct = types.get(spec.kind);
+				if (ct != null && !allWheres(ct).isEmpty())
+					ce.attributeChecks.add(new AttributeCheck(attr.original, ct, aggregate));
+			}
+		}
+	}
+
+	private void compileFunction(RuleSchema.Function function, CompiledFunction cf) {
+		Scope scope = new Scope((CompiledEntity) null);
+		for (RuleSchema.Variable parameter : function.parameters)
+			scope.declare(parameter.name);
+		cf.locals = compileLocals(function.locals, scope);
+		cf.body = compileBlock(function.body, scope);
+		cf.frameSize = scope.size[0];
+	}
+
+	private CompiledGlobalRule compileGlobalRule(RuleSchema.Rule rule) {
+		CompiledGlobalRule cr = new CompiledGlobalRule(rule.name, rule.entities);
+		Scope scope = new Scope((CompiledEntity) null);
+		for (String entity : rule.entities)
+			scope.declare(entity);
+		cr.locals = compileLocals(rule.locals, scope);
+		cr.body = compileBlock(rule.body, scope);
+		for (RuleSchema.Where where : rule.wheres) {
+			Evaluator e = compile(where.condition, scope);
+			cr.wheres.add(new CompiledRule(rule.name, where.label, new Compiled(e, 0)));
+		}
+		cr.frameSize = scope.size[0];
+		return cr;
+	}
+
+	// initializes the local variables, aggregates start empty
+	private Action[] compileLocals(List<RuleSchema.Variable> locals, Scope scope) {
+		Action[] actions = new Action[locals.size()];
+		for (int n = 0; n < locals.size(); n++) {
+			RuleSchema.Variable local = locals.get(n);
+			final Evaluator init = local.initializer == null ? null : compile(local.initializer, scope);
+			final Evaluator low = local.type.kind.equals("ARRAY") && local.type.low != null
+					? compile(local.type.low, scope) : null;
+			final boolean aggregate = local.type.isAggregate();
+			final int slot = scope.declare(local.name);
+			if (low != null)
+				scope.lows.put(local.name, low);
+			actions[n] = f -> {
+				Object value = init == null ? null : init.evaluate(f);
+				if (value == null && aggregate)
+					value = new ArrayList<Object>();
+				f.slots[slot] = withLow(value, low, f);
+				return NORMAL;
+			};
+		}
+		return actions;
+	}
+
+	private static Object withLow(Object value, Evaluator low, Frame f) {
+		if (low == null || !(value instanceof List))
+			return value;
+		Object l = low.evaluate(f);
+		return l == null ? value : new Values.BoundedList((int) Values.integer(l), (List<?>) value);
+	}
+
+	// STATEMENTS
+	private Action compileBlock(List<Statement> statements, Scope scope) {
+		final Action[] actions = new Action[statements.size()];
+		for (int n = 0; n < actions.length; n++)
+			actions[n] = compile(statements.get(n), scope);
+		if (actions.length == 1)
+			return actions[0];
+		return f -> {
+			for (Action action : actions) {
+				int outcome = action.run(f);
+				if (outcome != NORMAL)
+					return outcome;
+			}
+			return NORMAL;
+		};
+	}
+
+	private Action compile(Statement statement, Scope scope) {
+		if (statement instanceof Statement.Null)
+			return f -> NORMAL;
+		if (statement instanceof Statement.Assignment)
+			return compileAssignment((Statement.Assignment) statement, scope);
+		if (statement instanceof Statement.If) {
+			Statement.If s = (Statement.If) statement;
+			final Evaluator condition = compile(s.condition, scope);
+			final Action then = compileBlock(s.then, scope);
+			final Action otherwise = compileBlock(s.otherwise, scope);
+			return f -> Values.logical(condition.evaluate(f)) == Logical.TRUE ? then.run(f) : otherwise.run(f);
+		}
+		if (statement instanceof Statement.Repeat)
+			return compileRepeat((Statement.Repeat) statement, scope);
+		if (statement instanceof Statement.Return) {
+			Statement.Return s = (Statement.Return) statement;
+			final Evaluator value = s.value == null ? null : compile(s.value, scope);
+			return f -> {
+				f.result = value == null ? null : value.evaluate(f);
+				return RETURN;
+			};
+		}
+		if (statement instanceof Statement.Escape)
+			return f -> ESCAPE;
+		if (statement instanceof Statement.Skip)
+			return f -> SKIP;
+		if (statement instanceof Statement.Compound)
+			return compileBlock(((Statement.Compound) statement).body, new Scope(scope));
+		if (statement instanceof Statement.Case)
+			return compileCase((Statement.Case) statement, scope);
+		if (statement instanceof Statement.Alias) {
+			Statement.Alias s = (Statement.Alias) statement;
+			final Evaluator target = compile(s.target, scope);
+			Scope inner = new Scope(scope);
+			final int slot = inner.declare(s.name);
+			final Action body = compileBlock(s.body, inner);
+			return f -> {
+				f.slots[slot] = target.evaluate(f);
+				return body.run(f);
+			};
+		}
+		if (statement instanceof Statement.ProcedureCall)
+			return compileProcedure(((Statement.ProcedureCall) statement).call, scope);
+		throw error(statement.line, "unsupported statement " + statement.getClass().getSimpleName());
+	}
+
+	private Action compileAssignment(Statement.Assignment s, Scope scope) {
+		final Evaluator value = compile(s.value, scope);
+		if (s.target instanceof Expression.Name) {
+			String name = ((Expression.Name) s.target).name;
+			Integer slot = scope.lookup(name);
+			if (slot == null)
+				throw error(s.line, "assignment to unknown variable " + name);
+			final int i = slot;
+			final Evaluator low = scope.low(name);
+			return f -> {
+				f.slots[i] = withLow(value.evaluate(f), low, f);
+				return NORMAL;
+			};
+		}
+		if (s.target instanceof Expression.Index) {
+			Expression.Index target = (Expression.Index) s.target;
+			final Evaluator aggregate = compile(target.value, scope);
+			final Evaluator index = compile(target.index, scope);
+			return f -> {
+				Values.setIndex(aggregate.evaluate(f), index.evaluate(f), value.evaluate(f));
+				return NORMAL;
+			};
+		}
+		if (s.target instanceof Expression.Attribute) {
+			Expression.Attribute target = (Expression.Attribute) s.target;
+			final Evaluator instance = compile(target.value, scope);
+			final String attribute = canonical(target.attribute, target.original);
+			return f -> {
+				((RuleInstance) instance.evaluate(f)).set(attribute, value.evaluate(f));
+				return NORMAL;
+			};
+		}
+		throw error(s.line, "unsupported assignment");
+	}
+
+	private Action compileRepeat(Statement.Repeat s, Scope scope) {
+		Scope inner = new Scope(scope);
+		final int slot = s.variable == null ? -1 : inner.declare(s.variable);
+		final Evaluator from = s.from == null ? null : compile(s.from, scope);
+		final Evaluator to = s.to == null ? null : compile(s.to, scope);
+		final Evaluator by = s.by == null ? null : compile(s.by, scope);
+		final Evaluator whileCondition = s.whileCondition == null ? null : compile(s.whileCondition, inner);
+		final Evaluator untilCondition = s.untilCondition == null ? null : compile(s.untilCondition, inner);
+		final Action body = compileBlock(s.body, inner);
+		return f -> {
+			long i = 0, end = 0, step = 1;
+			if (slot >= 0) {
+				Object start = from.evaluate(f);
+				Object stop = to.evaluate(f);
+				Object increment = by == null ? Long.valueOf(1) : by.evaluate(f);
+				if (start == null || stop == null || increment == null)
+					return NORMAL;
+				i = Values.integer(start);
+				end = Values.integer(stop);
+				step = Values.integer(increment);
+			}
+			while (slot < 0 || (step > 0 ? i <= end : i >= end)) {
+				if (slot >= 0)
+					f.slots[slot] = Long.valueOf(i);
+				if (whileCondition != null && Values.logical(whileCondition.evaluate(f)) != Logical.TRUE)
+					break;
+				int outcome = body.run(f);
+				if (outcome == RETURN)
+					return RETURN;
+				if (outcome == ESCAPE)
+					break;
+				if (untilCondition != null && Values.logical(untilCondition.evaluate(f)) == Logical.TRUE)
+					break;
+				i += step;
+			}
+			return NORMAL;
+		};
+	}
+
+	private Action compileCase(Statement.Case s, Scope scope) {
+		final Evaluator selector = compile(s.selector, scope);
+		final Evaluator[][] labels = new Evaluator[s.labels.size()][];
+		final Action[] actions = new Action[s.actions.size()];
+		for (int n = 0; n < labels.length; n++) {
+			labels[n] = new Evaluator[s.labels.get(n).size()];
+			for (int m = 0; m < labels[n].length; m++)
+				labels[n][m] = compile(s.labels.get(n).get(m), scope);
+			actions[n] = compile(s.actions.get(n), scope);
+		}
+		final Action otherwise = s.otherwise == null ? null : compile(s.otherwise, scope);
+		return f -> {
+			Object value = selector.evaluate(f);
+			for (int n = 0; n < labels.length; n++)
+				for (Evaluator label : labels[n])
+					if (Values.equal(value, label.evaluate(f)) == Logical.TRUE)
+						return actions[n].run(f);
+			return otherwise == null ? NORMAL : otherwise.run(f);
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private Action compileProcedure(Expression.Call call, Scope scope) {
+		final Evaluator[] args = compileArguments(call, scope);
+		if (call.function.equals("INSERT") && args.length == 3) {
+			return f -> {
+				List<Object> list = (List<Object>) args[0].evaluate(f);
+				Object element = args[1].evaluate(f);
+				long position = Values.integer(args[2].evaluate(f));
+				list.add((int) position - Values.lowIndex(list) + 1, element);
+				return NORMAL;
+			};
+		}
+		if (call.function.equals("REMOVE") && args.length == 2) {
+			return f -> {
+				List<Object> list = (List<Object>) args[0].evaluate(f);
+				list.remove((int) Values.integer(args[1].evaluate(f)) - Values.lowIndex(list));
+				return NORMAL;
+			};
+		}
+		throw error(call.line, "unsupported procedure " + call.function);
+	}
+
+	// EXPRESSIONS
+	Evaluator compile(Expression expression, Scope scope) {
+		if (expression instanceof Expression.Literal) {
+			final Object value = ((Expression.Literal) expression).value;
+			return f -> value;
+		}
+		if (expression instanceof Expression.Self)
+			return f -> f.self;
+		if (expression instanceof Expression.Name)
+			return compileName((Expression.Name) expression, scope);
+		if (expression instanceof Expression.Attribute)
+			return compileAttribute((Expression.Attribute) expression, scope);
+		if (expression instanceof Expression.Group)
+			return compile(((Expression.Group) expression).value, scope);
+		if (expression instanceof Expression.Index) {
+			Expression.Index e = (Expression.Index) expression;
+			final Evaluator value = compile(e.value, scope);
+			final Evaluator index = compile(e.index, scope);
+			if (e.to == null)
+				return f -> Values.index(value.evaluate(f), index.evaluate(f));
+			final Evaluator to = compile(e.to, scope);
+			return f -> Values.range(value.evaluate(f), index.evaluate(f), to.evaluate(f));
+		}
+		if (expression instanceof Expression.Unary)
+			return compileUnary((Expression.Unary) expression, scope);
+		if (expression instanceof Expression.Binary)
+			return compileBinary((Expression.Binary) expression, scope);
+		if (expression instanceof Expression.Call)
+			return compileCall((Expression.Call) expression, scope);
+		if (expression instanceof Expression.Aggregate)
+			return compileAggregate((Expression.Aggregate) expression, scope);
+		if (expression instanceof Expression.Interval) {
+			Expression.Interval e = (Expression.Interval) expression;
+			final Evaluator low = compile(e.low, scope);
+			final Evaluator value = compile(e.value, scope);
+			final Evaluator high = compile(e.high, scope);
+			final String lowOperator = e.lowOperator;
+			final String highOperator = e.highOperator;
+			return f -> {
+				Object v = value.evaluate(f);
+				return Logical.and(Values.compare(lowOperator, low.evaluate(f), v),
+						Values.compare(highOperator, v, high.evaluate(f)));
+			};
+		}
+		if (expression instanceof Expression.Query) {
+			Expression.Query e = (Expression.Query) expression;
+			final Evaluator aggregate = compile(e.aggregate, scope);
+			Scope inner = new Scope(scope);
+			final int slot = inner.declare(e.variable);
+			final Evaluator condition = compile(e.condition, inner);
+			return f -> {
+				Object a = Values.unwrap(aggregate.evaluate(f));
+				if (a == null)
+					return null;
+				List<Object> result = new ArrayList<Object>();
+				for (Object element : (List<?>) a) {
+					f.slots[slot] = element;
+					if (Values.logical(condition.evaluate(f)) == Logical.TRUE)
+						result.add(element);
+				}
+				return result;
+			};
+		}
+		throw error(expression.line, "unsupported expression " + expression.getClass().getSimpleName());
+	}
+
+	private Evaluator compileName(Expression.Name e, Scope scope) {
+		Integer slot = scope.lookup(e.name);
+		if (slot != null) {
+			final int i = slot;
+			return f -> f.slots[i];
+		}
+		if (scope.entity != null) {
+			final String attribute = scope.entity.attributeNames.get(e.name);
+			if (attribute != null)
+				return selfAttribute(scope.entity, e.name, attribute);
+		}
+		if (schema.constants.containsKey(e.name)) {
+			final String name = e.name;
+			return f -> constant(name);
+		}
+		if (!enumerationItems.contains(e.name))
+			warnings.add("line " + e.line + ": " + e.original + " is taken as an enumeration item");
+		final String item = e.name;
+		return f -> item;
+	}
+
+	private Evaluator compileAttribute(Expression.Attribute e, Scope scope) {
+		// Type.ITEM refers to an item of an enumeration type
+		if (e.value instanceof Expression.Name) {
+			String base = ((Expression.Name) e.value).name;
+			if (types.containsKey(base) && scope.lookup(base) == null
+					&& (scope.entity == null || !scope.entity.attributeNames.containsKey(base))) {
+				final String item = e.attribute;
+				return f -> item;
+			}
+		}
+		final String name = e.attribute;
+		final String attribute = canonical(e.attribute, e.original);
+		// SELF.attribute or SELF\Entity.attribute
+		Expression base = e.value instanceof Expression.Group ? ((Expression.Group) e.value).value : e.value;
+		if (base instanceof Expression.Self && scope.entity != null)
+			return selfAttribute(scope.entity, name, attribute);
+		final Evaluator value = compile(e.value, scope);
+		return f -> attribute(value.evaluate(f), name, attribute);
+	}
+
+	private Evaluator selfAttribute(CompiledEntity entity, String name, String declared) {
+		final SelfAttribute attribute = new SelfAttribute(entity, name, declared);
+		selfAttributes.add(attribute);
+		return f -> attribute.get(f.self);
+	}
+
+	private String canonical(String name, String original) {
+		String declared = attributeNames.get(name);
+		return declared == null ? original : declared;
+	}
+
+	private Evaluator compileUnary(Expression.Unary e, Scope scope) {
+		final Evaluator operand = compile(e.operand, scope);
+		switch (e.operator) {
+		case "NOT":
+			return f -> Logical.not(Values.logical(operand.evaluate(f)));
+		case "-":
+			return f -> Values.negate(operand.evaluate(f));
+		default:
+			return operand;
+		}
+	}
+
+	private Evaluator compileBinary(Expression.Binary e, Scope scope) {
+		final Evaluator left = compile(e.left, scope);
+		final Evaluator right = compile(e.right, scope);
+		final String operator = e.operator;
+		switch (operator) {
+		case "AND":
+			return f -> {
+				Logical l = Values.logical(left.evaluate(f));
+				return l == Logical.FALSE ? Logical.FALSE : Logical.and(l, Values.logical(right.evaluate(f)));
+			};
+		case "OR":
+			return f -> {
+				Logical l = Values.logical(left.evaluate(f));
+				return l == Logical.TRUE ? Logical.TRUE : Logical.or(l, Values.logical(right.evaluate(f)));
+			};
+		case "XOR":
+			return f -> Logical.xor(Values.logical(left.evaluate(f)), Values.logical(right.evaluate(f)));
+		case "=":
+		case "<>":
+		case "<":
+		case ">":
+		case "<=":
+		case ">=":
+		case ":=:":
+		case ":<>:":
+			return f -> Values.compare(operator, left.evaluate(f), right.evaluate(f));
+		case "IN":
+			return f -> Values.in(left.evaluate(f), right.evaluate(f));
+		case "LIKE":
+			return f -> Values.like(left.evaluate(f), right.evaluate(f));
+		case "+":
+			return f -> Values.add(left.evaluate(f), right.evaluate(f));
+		case "-":
+			return f -> Values.subtract(left.evaluate(f), right.evaluate(f));
+		case "*":
+			return f -> Values.multiply(left.evaluate(f), right.evaluate(f));
+		case "/":
+			return f -> Values.divide(left.evaluate(f), right.evaluate(f));
+		case "DIV":
+			return f -> Values.div(left.evaluate(f), right.evaluate(f));
+		case "MOD":
+			return f -> Values.mod(left.evaluate(f), right.evaluate(f));
+		case "**":
+			return f -> Values.power(left.evaluate(f), right.evaluate(f));
+		case "||":
+			return f -> combine(left.evaluate(f), right.evaluate(f));
+		default:
+			throw error(e.line, "unsupported operator " + operator);
+		}
+	}
+
+	private Evaluator compileAggregate(Expression.Aggregate e, Scope scope) {
+		final Evaluator[] elements = new Evaluator[e.elements.size()];
+		final Evaluator[] repetitions = new Evaluator[elements.length];
+		for (int n = 0; n < elements.length; n++) {
+			elements[n] = compile(e.elements.get(n), scope);
+			Expression repetition = e.repetitions.get(n);
+			repetitions[n] = repetition == null ? null : compile(repetition, scope);
+		}
+		return f -> {
+			List<Object> list = new ArrayList<Object>(elements.length);
+			for (int n = 0; n < elements.length; n++) {
+				Object element = elements[n].evaluate(f);
+				if (repetitions[n] == null)
+					list.add(element);
+				else {
+					Object count = repetitions[n].evaluate(f);
+					if (count == null)
+						return null;
+					for (long i = Values.integer(count); i > 0; i--)
+						list.add(element);
+				}
+			}
+			return list;
+		};
+	}
+
+	private Evaluator[] compileArguments(Expression.Call call, Scope scope) {
+		Evaluator[] args = new Evaluator[call.arguments.size()];
+		for (int n = 0; n < args.length; n++)
+			args[n] = compile(call.arguments.get(n), scope);
+		return args;
+	}
+
+	private Evaluator compileCall(Expression.Call call, Scope scope) {
+		final Evaluator[] args = compileArguments(call, scope);
+		final CompiledFunction function = functions.get(call.function);
+		if (function != null) {
+			if (args.length != function.parameterCount)
+				throw error(call.line, call.function + " takes " + function.parameterCount + " arguments");
+			return f -> {
+				Object[] values = new Object[args.length];
+				for (int n = 0; n < args.length; n++)
+					values[n] = args[n].evaluate(f);
+				return function.invoke(values);
+			};
+		}
+		final CompiledEntity entity = entities.get(call.function);
+		if (entity != null) {
+			final List<String> names = args.length == entity.ownAttributes.size() ? entity.ownAttributes
+					: entity.allAttributes;
+			if (args.length > names.size())
+				throw error(call.line, "too many arguments for " + entity.original);
+			return f -> {
+				EntityValue value = new EntityValue(entity.original);
+				for (int n = 0; n < args.length; n++)
+					value.set(names.get(n), args[n].evaluate(f));
+				return value;
+			};
+		}
+		final CompiledType type = types.get(call.function);
+		if (type != null && args.length == 1) {
+			return f -> {
+				Object value = args[0].evaluate(f);
+				return value == null ? null : new TypedValue(type.original, value);
+			};
+		}
+		if (BUILTINS.contains(call.function))
+			return compileBuiltin(call, args);
+		throw error(call.line, "unknown function " + call.function);
+	}
+
+	private Evaluator compileBuiltin(Expression.Call call, final Evaluator[] args) {
+		final Evaluator a = args.length > 0 ? args[0] : null;
+		final Evaluator b = args.length > 1 ? args[1] : null;
+		switch (call.function) {
+		case "ABS":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				return v == null ? null : v instanceof Long ? (Object) Math.abs((Long) v) : Math.abs(Values.number(v));
+			};
+		case "ACOS":
+			return math(a, Math::acos);
+		case "ASIN":
+			return math(a, Math::asin);
+		case "COS":
+			return math(a, Math::cos);
+		case "SIN":
+			return math(a, Math::sin);
+		case "TAN":
+			return math(a, Math::tan);
+		case "EXP":
+			return math(a, Math::exp);
+		case "LOG":
+			return math(a, Math::log);
+		case "LOG2":
+			return math(a, x -> Math.log(x) / Math.log(2));
+		case "LOG10":
+			return math(a, Math::log10);
+		case "SQRT":
+			return math(a, Math::sqrt);
+		case "ATAN":
+			return f -> {
+				Object y = a.evaluate(f);
+				Object x = b.evaluate(f);
+				return y == null || x == null ? null : (Object) Math.atan2(Values.number(y), Values.number(x));
+			};
+		case "EXISTS":
+			return f -> Logical.valueOf(a.evaluate(f) != null);
+		case "NVL":
+			return f -> {
+				Object v = a.evaluate(f);
+				return v != null ? v : b.evaluate(f);
+			};
+		case "SIZEOF":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				return v == null ? null : (Object) Long.valueOf(((List<?>) v).size());
+			};
+		case "HIINDEX":
+		case "HIBOUND":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				if (v == null)
+					return null;
+				if (v instanceof String)
+					return Long.valueOf(((String) v).length());
+				List<?> list = (List<?>) v;
+				return Long.valueOf(list.size() + Values.lowIndex(list) - 1);
+			};
+		case "LOINDEX":
+		case "LOBOUND":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				return v == null ? null : (Object) Long.valueOf(v instanceof List ? Values.lowIndex((List<?>) v) : 1);
+			};
+		case "LENGTH":
+		case "BLENGTH":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				return v == null ? null : (Object) Long.valueOf(((String) v).length());
+			};
+		case "ODD":
+			return f -> {
+				Object v = a.evaluate(f);
+				return v == null ? Logical.UNKNOWN : Logical.valueOf(Values.integer(v) % 2 != 0);
+			};
+		case "FORMAT":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				return v == null ? null : String.valueOf(v);
+			};
+		case "VALUE":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				if (v == null)
+					return null;
+				String s = ((String) v).trim();
+				try {
+					return s.contains(".") || s.contains("E") || s.contains("e") ? (Object) Double.valueOf(s)
+							: Long.valueOf(s);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			};
+		case "VALUE_IN":
+			return f -> Values.in(b.evaluate(f), a.evaluate(f));
+		case "VALUE_UNIQUE":
+			return f -> {
+				Object v = Values.unwrap(a.evaluate(f));
+				if (v == null)
+					return Logical.UNKNOWN;
+				List<?> list = (List<?>) v;
+				Logical result = Logical.TRUE;
+				for (int i = 0; i < list.size() && result != Logical.FALSE; i++)
+					for (int j = i + 1; j < list.size() && result != Logical.FALSE; j++)
+						result = Logical.and(result, Logical.not(Values.equal(list.get(i), list.get(j))));
+				return result;
+			};
+		case "TYPEOF":
+			return f -> typeOf(a.evaluate(f));
+		case "USEDIN":
+			return f -> usedIn(a.evaluate(f), b.evaluate(f));
+		default:
+			throw error(call.line, "unsupported function " + call.function);
+		}
+	}
+
+	private interface DoubleFunction {
+		double apply(double x);
+	}
+
+	private static Evaluator math(final Evaluator a, final DoubleFunction function) {
+		return f -> {
+			Object v = a.evaluate(f);
+			return v == null ? null : (Object) function.apply(Values.number(v));
+		};
+	}
+
+	// RUNTIME
+	// the value of an attribute, the derived attributes are evaluated on the instance
+	Object attribute(Object value, String name, String declared) {
+		if (!(value instanceof RuleInstance))
+			return null;
+		RuleInstance instance = (RuleInstance) value;
+		CompiledEntity ce = getEntity(instance.getEntityName());
+		if (ce != null) {
+			Compiled derived = ce.derived.get(name);
+			if (derived != null)
+				return derived.evaluate(instance);
+		}
+		return Values.normalize(instance.get(declared));
+	}
+
+	Object derivedAttribute(RuleInstance instance, String name) {
+		String upper = name.toUpperCase();
+		String declared = attributeNames.get(upper);
+		return attribute(instance, upper, declared == null ? name : declared);
+	}
+
+	private static final List<String> INTEGER_TYPES = Collections.unmodifiableList(Arrays.asList(
+			"INTEGER", "NUMBER"));
+	private static final List<String> REAL_TYPES = Collections.unmodifiableList(Arrays.asList("REAL",
+			"NUMBER"));
+	private static final List<String> STRING_TYPES = Collections.singletonList("STRING");
+	private static final List<String> LOGICAL_TYPES = Collections.singletonList("LOGICAL");
+	private static final List<String> BOOLEAN_TYPES = Collections.unmodifiableList(Arrays.asList(
+			"BOOLEAN", "LOGICAL"));
+	private static final List<String> AGGREGATE_TYPES = Collections.singletonList("AGGREGATE");
+
+	// TYPEOF: the upper case SCHEMA.NAME of the types of the value
+	List<String> typeOf(Object value) {
+		if (value == null)
+			return null;
+		if (value instanceof RuleInstance) {
+			String name = ((RuleInstance) value).getEntityName();
+			CompiledEntity ce = getEntity(name);
+			return ce != null ? ce.typeOf : Collections.singletonList(schemaName + "." + name.toUpperCase());
+		}
+		if (value instanceof TypedValue) {
+			String type = ((TypedValue) value).getType();
+			CompiledType ct = getType(type);
+			return ct != null ? ct.typeOf : Collections.singletonList(schemaName + "." + type.toUpperCase());
+		}
+		if (value instanceof Long)
+			return INTEGER_TYPES;
+		if (value instanceof Double)
+			return REAL_TYPES;
+		if (value instanceof String)
+			return STRING_TYPES;
+		if (value instanceof Logical)
+			return value == Logical.UNKNOWN ? LOGICAL_TYPES : BOOLEAN_TYPES;
+		return AGGREGATE_TYPES;
+	}
+
+	// USEDIN: the role is SCHEMA.ENTITY.ATTRIBUTE, the schema is not passed on
+	private List<Object> usedIn(Object value, Object role) {
+		if (!(value instanceof RuleInstance) || role == null)
+			return null;
+		String r = ((String) Values.unwrap(role)).toUpperCase();
+		if (r.indexOf('.') != r.lastIndexOf('.'))
+			r = r.substring(r.indexOf('.') + 1);
+		return new ArrayList<Object>(((RuleInstance) value).usedIn(r));
+	}
+
+	// the || operator, which combines partial entity values into one complex value
+	private Object combine(Object a, Object b) {
+		if (!(a instanceof EntityValue) || !(b instanceof EntityValue))
+			throw new IllegalArgumentException("|| needs two entity values");
+		EntityValue left = (EntityValue) a;
+		EntityValue right = (EntityValue) b;
+		CompiledEntity l = getEntity(left.getEntityName());
+		CompiledEntity r = getEntity(right.getEntityName());
+		EntityValue combined = new EntityValue(l != null && r != null
+				&& l.ancestors.size() > r.ancestors.size() ? left.getEntityName() : right.getEntityName());
+		combined.getAttributes().putAll(left.getAttributes());
+		combined.getAttributes().putAll(right.getAttributes());
+		return combined;
+	}
+
+	private Object constant(String name) {
+		synchronized (constants) {
+			if (constants.containsKey(name))
+				return constants.get(name);
+		}
+		RuleSchema.Variable declaration = schema.constants.get(name);
+		Scope scope = new Scope((CompiledEntity) null);
+		Object value = compile(declaration.initializer, scope).evaluate(new Frame(scope.size[0], null));
+		synchronized (constants) {
+			constants.put(name, value);
+		}
+		return value;
+	}
+
+	private static IllegalArgumentException error(int line, String message) {
+		return new IllegalArgumentException("line " + line + ": " + message);
+	}
+}
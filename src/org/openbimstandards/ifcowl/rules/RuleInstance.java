@@ -0,0 +1,56 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.Collection;
+
+/*
+ * RuleInstance is an entity instance as seen by the compiled rules of a
+ * SchemaValidator. Applications implement it on top of their own instance data, like
+ * the instances of an IFC file that is being converted.
+ *
+ * The usage:
+ * class MyInstance implements RuleInstance {
+ *     public String getEntityName() { return "IfcWall"; }
+ *     public Object get(String attribute) { return values.get(attribute); }
+ *     public Collection<RuleInstance> usedIn(String role) { return ...; }
+ * }
+ *
+ * Attributes are asked for by their name as declared in the schema, like
+ * "DirectionRatios". The values can be Long or Integer, Double or Float, String,
+ * Boolean or Logical, a List of values, another RuleInstance, a TypedValue, or null
+ * when the attribute is not set. Enumeration values are the upper case item names,
+ * like "USERDEFINED".
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public interface RuleInstance {
+
+	// the name of the entity of the instance, like IfcWall
+	String getEntityName();
+
+	// the value of an explicit or inverse attribute, null when it is not set
+	Object get(String attribute);
+
+	// the instances that refer to this instance through the attribute given as
+	// ENTITY.ATTRIBUTE in upper case, or through any attribute when the role is empty
+	Collection<? extends RuleInstance> usedIn(String role);
+
+	// only needed for instances that are created by the FUNCTIONs of the schema
+	default void set(String attribute, Object value) {
+		throw new UnsupportedOperationException("cannot assign " + attribute + " of " + getEntityName());
+	}
+}
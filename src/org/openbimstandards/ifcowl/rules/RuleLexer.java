@@ -0,0 +1,254 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.nio.ByteBuffer;
+
+/*
+ * RuleLexer splits an EXPRESS schema into the tokens of the EXPRESS grammar, as needed
+ * for the expressions and statements of WHERE, UNIQUE and DERIVE clauses, FUNCTIONs
+ * and RULEs. Unlike the ExpressLexer it does not split on whitespace only: operators
+ * and punctuation are tokens of their own, and remarks are skipped.
+ *
+ * The usage:
+ * RuleLexer lexer = new RuleLexer(ExpressLexer.open(schemaFile).getBuffer());
+ * while (lexer.next() != RuleLexer.EOF) {
+ *     int kind = lexer.kind();
+ *     String text = lexer.text();   // identifiers and keywords are upper case
+ * }
+ *
+ * Identifiers are case-insensitive in EXPRESS; text() gives them in upper case and
+ * original() as they were written.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class RuleLexer {
+
+	public static final int EOF = 0;
+	public static final int IDENTIFIER = 1;
+	public static final int INTEGER = 2;
+	public static final int REAL = 3;
+	public static final int STRING = 4;
+	public static final int BINARY = 5;
+	public static final int OPERATOR = 6;
+
+	// the operators of more than one character, longest first
+	private static final String[] OPERATORS = { ":<>:", ":=:", "<=", ">=", "<>", ":=", "<*", "||",
+			"**" };
+
+	private final ByteBuffer buffer;
+	private final int limit;
+	private int position;
+	private int line = 1;
+
+	private int kind;
+	private String text;
+	private String original;
+	private int tokenLine;
+
+	public RuleLexer(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.position = buffer.position();
+		this.limit = buffer.limit();
+	}
+
+	public int next() {
+		skipSpaceAndRemarks();
+		tokenLine = line;
+		if (position >= limit) {
+			kind = EOF;
+			text = original = "";
+			return kind;
+		}
+		int start = position;
+		char ch = charAt(position);
+		if (isLetter(ch)) {
+			while (position < limit && isIdentifierPart(charAt(position)))
+				position++;
+			original = substring(start, position);
+			text = original.toUpperCase();
+			kind = IDENTIFIER;
+		} else if (isDigit(ch)) {
+			kind = INTEGER;
+			while (position < limit && isDigit(charAt(position)))
+				position++;
+			if (position < limit && charAt(position) == '.' && isRealContinuation(position + 1)) {
+				kind = REAL;
+				position++;
+				while (position < limit && isDigit(charAt(position)))
+					position++;
+			}
+			if (position < limit && (charAt(position) == 'E' || charAt(position) == 'e')
+					&& isExponent(position + 1)) {
+				kind = REAL;
+				position++;
+				if (charAt(position) == '+' || charAt(position) == '-')
+					position++;
+				while (position < limit && isDigit(charAt(position)))
+					position++;
+			}
+			text = original = substring(start, position);
+		} else if (ch == '\'') {
+			StringBuilder sb = new StringBuilder();
+			position++;
+			while (position < limit) {
+				char c = charAt(position++);
+				if (c == '\'') {
+					if (position < limit && charAt(position) == '\'') {
+						sb.append('\'');
+						position++;
+					} else
+						break;
+				} else {
+					if (c == '\n')
+						line++;
+					sb.append(c);
+				}
+			}
+			kind = STRING;
+			text = original = sb.toString();
+		} else if (ch == '"') {
+			// encoded string, 8 hexadecimal digits per character
+			position++;
+			StringBuilder sb = new StringBuilder();
+			int hex = position;
+			while (position < limit && charAt(position) != '"')
+				position++;
+			String digits = substring(hex, position);
+			position++;
+			for (int n = 0; n + 8 <= digits.length(); n += 8)
+				sb.appendCodePoint(Integer.parseInt(digits.substring(n, n + 8), 16));
+			kind = STRING;
+			text = original = sb.toString();
+		} else if (ch == '%') {
+			position++;
+			while (position < limit && (charAt(position) == '0' || charAt(position) == '1'))
+				position++;
+			kind = BINARY;
+			text = original = substring(start + 1, position);
+		} else {
+			kind = OPERATOR;
+			text = null;
+			for (String op : OPERATORS)
+				if (matches(op)) {
+					text = op;
+					break;
+				}
+			if (text == null)
+				text = String.valueOf(ch);
+			position += text.length();
+			original = text;
+		}
+		return kind;
+	}
+
+	public int kind() {
+		return kind;
+	}
+
+	public String text() {
+		return text;
+	}
+
+	public String original() {
+		return original;
+	}
+
+	public int line() {
+		return tokenLine;
+	}
+
+	// the position after the current token
+	public int position() {
+		return position;
+	}
+
+	private void skipSpaceAndRemarks() {
+		while (position < limit) {
+			char ch = charAt(position);
+			if (ch == '\n') {
+				line++;
+				position++;
+			} else if (ch == ' ' || ch == '\t' || ch == '\r' || ch == '\f') {
+				position++;
+			} else if (ch == '(' && position + 1 < limit && charAt(position + 1) == '*') {
+				// embedded remarks can be nested
+				int depth = 0;
+				do {
+					if (charAt(position) == '(' && position + 1 < limit && charAt(position + 1) == '*') {
+						depth++;
+						position += 2;
+					} else if (charAt(position) == '*' && position + 1 < limit
+							&& charAt(position + 1) == ')') {
+						depth--;
+						position += 2;
+					} else {
+						if (charAt(position) == '\n')
+							line++;
+						position++;
+					}
+				} while (depth > 0 && position < limit);
+			} else if (ch == '-' && position + 1 < limit && charAt(position + 1) == '-') {
+				while (position < limit && charAt(position) != '\n')
+					position++;
+			} else
+				return;
+		}
+	}
+
+	private boolean matches(String op) {
+		if (position + op.length() > limit)
+			return false;
+		for (int n = 0; n < op.length(); n++)
+			if (charAt(position + n) != op.charAt(n))
+				return false;
+		return true;
+	}
+
+	private boolean isRealContinuation(int index) {
+		return index >= limit || isDigit(charAt(index)) || charAt(index) == 'E' || charAt(index) == 'e'
+				|| !isLetter(charAt(index));
+	}
+
+	private boolean isExponent(int index) {
+		if (index < limit && (charAt(index) == '+' || charAt(index) == '-'))
+			index++;
+		return index < limit && isDigit(charAt(index));
+	}
+
+	private char charAt(int index) {
+		return (char) (buffer.get(index) & 0xff);
+	}
+
+	private String substring(int start, int end) {
+		char[] chars = new char[end - start];
+		for (int n = start; n < end; n++)
+			chars[n - start] = charAt(n);
+		return new String(chars);
+	}
+
+	private static boolean isLetter(char ch) {
+		return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z');
+	}
+
+	private static boolean isDigit(char ch) {
+		return ch >= '0' && ch <= '9';
+	}
+
+	private static boolean isIdentifierPart(char ch) {
+		return isLetter(ch) || isDigit(ch) || ch == '_';
+	}
+}
@@ -0,0 +1,800 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * RuleParser reads the parts of an EXPRESS schema that the ExpressParser skips: the
+ * expressions of the DERIVE, UNIQUE and WHERE clauses of entities and types, the
+ * CONSTANTs, and the FUNCTIONs and RULEs with their statements. It builds a RuleSchema
+ * with an abstract syntax tree of Expressions and Statements, that the RuleCompiler
+ * turns into validators.
+ *
+ * The usage:
+ * RuleParser parser = new RuleParser(ExpressLexer.open(schemaFile).getBuffer());
+ * RuleSchema schema = parser.parseSchema();
+ * for (String warning : parser.getWarnings()) System.err.println(warning);
+ *
+ * A declaration that cannot be parsed is skipped up to its END_ keyword and reported
+ * in the warnings; the rest of the schema is still read. PROCEDUREs and
+ * SUBTYPE_CONSTRAINTs are skipped.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class RuleParser {
+
+	private static final Set<String> RELATIONAL = new HashSet<String>(Arrays.asList("<", ">", "<=",
+			">=", "<>", "=", ":<>:", ":=:"));
+	private static final Set<String> ENTITY_SECTIONS = new HashSet<String>(Arrays.asList("DERIVE",
+			"INVERSE", "UNIQUE", "WHERE", "END_ENTITY"));
+
+	private static class Token {
+		final int kind;
+		final String text;
+		final String original;
+		final int line;
+
+		Token(int kind, String text, String original, int line) {
+			this.kind = kind;
+			this.text = text;
+			this.original = original;
+			this.line = line;
+		}
+	}
+
+	private final List<Token> tokens = new ArrayList<Token>();
+	private final List<String> warnings = new ArrayList<String>();
+	private int pos = 0;
+
+	public RuleParser(ByteBuffer buffer) {
+		RuleLexer lexer = new RuleLexer(buffer.duplicate());
+		while (lexer.next() != RuleLexer.EOF)
+			tokens.add(new Token(lexer.kind(), lexer.text(), lexer.original(), lexer.line()));
+		tokens.add(new Token(RuleLexer.EOF, "", "", lexer.line()));
+	}
+
+	public List<String> getWarnings() {
+		return warnings;
+	}
+
+	// SCHEMA
+	public RuleSchema parseSchema() {
+		RuleSchema schema = new RuleSchema();
+		while (peek().kind != RuleLexer.EOF) {
+			if (isKeyword("SCHEMA")) {
+				next();
+				schema.name = next().text;
+				skipPast(";");
+			} else if (isKeyword("TYPE")) {
+				int start = pos;
+				try {
+					RuleSchema.Type type = parseType();
+					schema.types.put(type.name, type);
+				} catch (IllegalArgumentException e) {
+					recover(start, "END_TYPE", e);
+				}
+			} else if (isKeyword("ENTITY")) {
+				int start = pos;
+				try {
+					RuleSchema.Entity entity = parseEntity();
+					schema.entities.put(entity.name, entity);
+				} catch (IllegalArgumentException e) {
+					recover(start, "END_ENTITY", e);
+				}
+			} else if (isKeyword("FUNCTION")) {
+				int start = pos;
+				try {
+					RuleSchema.Function function = parseFunction();
+					schema.functions.put(function.name, function);
+				} catch (IllegalArgumentException e) {
+					recover(start, "END_FUNCTION", e);
+				}
+			} else if (isKeyword("RULE")) {
+				int start = pos;
+				try {
+					RuleSchema.Rule rule = parseRule();
+					schema.rules.put(rule.name.toUpperCase(), rule);
+				} catch (IllegalArgumentException e) {
+					recover(start, "END_RULE", e);
+				}
+			} else if (isKeyword("CONSTANT")) {
+				int start = pos;
+				try {
+					next();
+					for (RuleSchema.Variable constant : parseVariables("END_CONSTANT"))
+						schema.constants.put(constant.name, constant);
+				} catch (IllegalArgumentException e) {
+					recover(start, "END_CONSTANT", e);
+				}
+			} else if (isKeyword("PROCEDURE")) {
+				skipPast("END_PROCEDURE");
+				skipPast(";");
+			} else if (isKeyword("SUBTYPE_CONSTRAINT")) {
+				skipPast("END_SUBTYPE_CONSTRAINT");
+				skipPast(";");
+			} else if (isKeyword("END_SCHEMA")) {
+				break;
+			} else {
+				next();
+			}
+		}
+		return schema;
+	}
+
+	private void recover(int start, String end, IllegalArgumentException e) {
+		warnings.add(e.getMessage() + " (skipped the declaration at line " + tokens.get(start).line + ")");
+		pos = start + 1;
+		skipPast(end);
+		skipPast(";");
+	}
+
+	// TYPE name = underlying; WHERE ... END_TYPE;
+	private RuleSchema.Type parseType() {
+		expectKeyword("TYPE");
+		Token name = identifier();
+		expectOperator("=");
+		RuleSchema.Type type;
+		if (isKeyword("ENUMERATION")) {
+			next();
+			expectKeyword("OF");
+			type = new RuleSchema.Type(name.text, name.original, new RuleSchema.TypeSpec("ENUMERATION",
+					null, null, null));
+			type.enumerationItems.addAll(parseNameList());
+		} else if (isKeyword("EXTENSIBLE") || isKeyword("GENERIC_ENTITY") || isKeyword("SELECT")) {
+			while (!isKeyword("SELECT"))
+				if (next().kind == RuleLexer.EOF)
+					throw error("expected SELECT");
+			next();
+			type = new RuleSchema.Type(name.text, name.original, new RuleSchema.TypeSpec("SELECT", null,
+					null, null));
+			if (isOperator("("))
+				type.selectItems.addAll(parseNameList());
+		} else {
+			type = new RuleSchema.Type(name.text, name.original, parseTypeSpec());
+		}
+		expectOperator(";");
+		if (isKeyword("WHERE")) {
+			next();
+			parseWheres(type.wheres, "END_TYPE");
+		}
+		expectKeyword("END_TYPE");
+		expectOperator(";");
+		return type;
+	}
+
+	// ENTITY name ABSTRACT SUPERTYPE OF (...) SUBTYPE OF (...); ... END_ENTITY;
+	private RuleSchema.Entity parseEntity() {
+		expectKeyword("ENTITY");
+		Token name = identifier();
+		RuleSchema.Entity entity = new RuleSchema.Entity(name.text, name.original);
+		while (!isOperator(";")) {
+			if (isKeyword("ABSTRACT")) {
+				next();
+				entity.isAbstract = true;
+			} else if (isKeyword("SUPERTYPE")) {
+				next();
+				if (isKeyword("OF")) {
+					next();
+					skipBalanced();
+				}
+			} else if (isKeyword("SUBTYPE")) {
+				next();
+				expectKeyword("OF");
+				entity.supertypes.addAll(upperCase(parseNameList()));
+			} else
+				throw error("unexpected " + peek().original + " in the header of entity " + name.original);
+		}
+		next();
+
+		while (!isKeyword(ENTITY_SECTIONS)) {
+			List<Token> names = new ArrayList<Token>();
+			do {
+				names.add(attributeReference());
+			} while (acceptOperator(","));
+			expectOperator(":");
+			boolean optional = acceptKeyword("OPTIONAL");
+			RuleSchema.TypeSpec type = parseTypeSpec();
+			expectOperator(";");
+			for (Token attr : names)
+				if (attr != null)
+					entity.attributes.add(new RuleSchema.Attribute(attr.text, attr.original, type, optional));
+		}
+		if (acceptKeyword("DERIVE")) {
+			while (!isKeyword(ENTITY_SECTIONS)) {
+				Token attr = redeclarableReference();
+				expectOperator(":");
+				RuleSchema.TypeSpec type = parseTypeSpec();
+				expectOperator(":=");
+				Expression value = parseExpression();
+				expectOperator(";");
+				entity.derived.add(new RuleSchema.Derived(attr.text, attr.original, type, value));
+			}
+		}
+		if (acceptKeyword("INVERSE")) {
+			while (!isKeyword(ENTITY_SECTIONS)) {
+				Token attr = redeclarableReference();
+				expectOperator(":");
+				if (isKeyword("SET") || isKeyword("BAG")) {
+					next();
+					if (isOperator("["))
+						skipBalanced();
+					expectKeyword("OF");
+				}
+				Token target = identifier();
+				expectKeyword("FOR");
+				Token of = identifier();
+				if (acceptOperator("."))
+					of = identifier();
+				expectOperator(";");
+				entity.inverses.add(new RuleSchema.Inverse(attr.text, attr.original, target.text, of.original));
+			}
+		}
+		if (acceptKeyword("UNIQUE")) {
+			while (!isKeyword(ENTITY_SECTIONS)) {
+				String label = label();
+				List<String> attributes = new ArrayList<String>();
+				do {
+					attributes.add(redeclarableReference().original);
+				} while (acceptOperator(","));
+				expectOperator(";");
+				entity.uniques.add(new RuleSchema.Unique(label, attributes));
+			}
+		}
+		if (acceptKeyword("WHERE"))
+			parseWheres(entity.wheres, "END_ENTITY");
+		expectKeyword("END_ENTITY");
+		expectOperator(";");
+		return entity;
+	}
+
+	// an attribute name, or null for a redeclared SELF\Supertype.attribute
+	private Token attributeReference() {
+		if (isKeyword("SELF")) {
+			redeclarableReference();
+			return null;
+		}
+		return identifier();
+	}
+
+	// an attribute name or SELF\Supertype.attribute, which gives the attribute name
+	private Token redeclarableReference() {
+		if (acceptKeyword("SELF")) {
+			expectOperator("\\");
+			identifier();
+			expectOperator(".");
+		}
+		return identifier();
+	}
+
+	private void parseWheres(List<RuleSchema.Where> wheres, String end) {
+		while (!isKeyword(end)) {
+			String label = label();
+			Expression condition = parseExpression();
+			expectOperator(";");
+			wheres.add(new RuleSchema.Where(label, condition));
+		}
+	}
+
+	// label : , or null when there is no label
+	private String label() {
+		if (peek().kind == RuleLexer.IDENTIFIER && peek(1).kind == RuleLexer.OPERATOR
+				&& peek(1).text.equals(":")) {
+			String label = next().original;
+			next();
+			return label;
+		}
+		return null;
+	}
+
+	// FUNCTION name (parameters) : result; LOCAL ... END_LOCAL; statements END_FUNCTION;
+	private RuleSchema.Function parseFunction() {
+		expectKeyword("FUNCTION");
+		RuleSchema.Function function = new RuleSchema.Function(identifier().text);
+		if (acceptOperator("(")) {
+			do {
+				acceptKeyword("VAR");
+				List<Token> names = new ArrayList<Token>();
+				do {
+					names.add(identifier());
+				} while (acceptOperator(","));
+				expectOperator(":");
+				RuleSchema.TypeSpec type = parseTypeSpec();
+				for (Token name : names)
+					function.parameters.add(new RuleSchema.Variable(name.text, type, null));
+			} while (acceptOperator(";"));
+			expectOperator(")");
+		}
+		expectOperator(":");
+		function.result = parseTypeSpec();
+		expectOperator(";");
+		parseLocals(function.locals);
+		function.body.addAll(parseStatements("END_FUNCTION"));
+		expectKeyword("END_FUNCTION");
+		expectOperator(";");
+		return function;
+	}
+
+	// RULE name FOR (entities); LOCAL ... END_LOCAL; statements WHERE ... END_RULE;
+	private RuleSchema.Rule parseRule() {
+		expectKeyword("RULE");
+		RuleSchema.Rule rule = new RuleSchema.Rule(identifier().original);
+		expectKeyword("FOR");
+		rule.entities.addAll(upperCase(parseNameList()));
+		expectOperator(";");
+		parseLocals(rule.locals);
+		rule.body.addAll(parseStatements("WHERE"));
+		expectKeyword("WHERE");
+		parseWheres(rule.wheres, "END_RULE");
+		expectKeyword("END_RULE");
+		expectOperator(";");
+		return rule;
+	}
+
+	private void parseLocals(List<RuleSchema.Variable> locals) {
+		while (isKeyword("LOCAL") || isKeyword("CONSTANT")) {
+			String end = next().text.equals("LOCAL") ? "END_LOCAL" : "END_CONSTANT";
+			locals.addAll(parseVariables(end));
+		}
+	}
+
+	// name, name : type := initializer; ... END_xxx;
+	private List<RuleSchema.Variable> parseVariables(String end) {
+		List<RuleSchema.Variable> variables = new ArrayList<RuleSchema.Variable>();
+		while (!isKeyword(end)) {
+			List<Token> names = new ArrayList<Token>();
+			do {
+				names.add(identifier());
+			} while (acceptOperator(","));
+			expectOperator(":");
+			RuleSchema.TypeSpec type = parseTypeSpec();
+			Expression initializer = acceptOperator(":=") ? parseExpression() : null;
+			expectOperator(";");
+			for (Token name : names)
+				variables.add(new RuleSchema.Variable(name.text, type, initializer));
+		}
+		expectKeyword(end);
+		expectOperator(";");
+		return variables;
+	}
+
+	private RuleSchema.TypeSpec parseTypeSpec() {
+		if (isKeyword("ARRAY") || isKeyword("LIST") || isKeyword("SET") || isKeyword("BAG")) {
+			String kind = next().text;
+			Expression low = null;
+			Expression high = null;
+			if (acceptOperator("[")) {
+				low = parseSimpleExpression();
+				expectOperator(":");
+				high = parseSimpleExpression();
+				expectOperator("]");
+			}
+			expectKeyword("OF");
+			acceptKeyword("OPTIONAL");
+			acceptKeyword("UNIQUE");
+			return new RuleSchema.TypeSpec(kind, low, high, parseTypeSpec());
+		}
+		if (acceptKeyword("AGGREGATE")) {
+			if (acceptOperator(":"))
+				identifier();
+			expectKeyword("OF");
+			return new RuleSchema.TypeSpec("AGGREGATE", null, null, parseTypeSpec());
+		}
+		if (isKeyword("GENERIC") || isKeyword("GENERIC_ENTITY")) {
+			String kind = next().text;
+			if (acceptOperator(":"))
+				identifier();
+			return new RuleSchema.TypeSpec(kind, null, null, null);
+		}
+		Token name = identifier();
+		if ((name.text.equals("STRING") || name.text.equals("BINARY") || name.text.equals("REAL"))
+				&& isOperator("(")) {
+			skipBalanced();
+			acceptKeyword("FIXED");
+		}
+		return new RuleSchema.TypeSpec(name.text, null, null, null);
+	}
+
+	// STATEMENTS, up to one of the end keywords
+	private List<Statement> parseStatements(String... ends) {
+		List<Statement> statements = new ArrayList<Statement>();
+		while (!isKeyword(ends)) {
+			if (peek().kind == RuleLexer.EOF)
+				throw error("unexpected end of the schema, expected " + Arrays.toString(ends));
+			statements.add(parseStatement());
+		}
+		return statements;
+	}
+
+	private Statement parseStatement() {
+		int line = peek().line;
+		if (acceptOperator(";"))
+			return new Statement.Null(line);
+		if (acceptKeyword("IF")) {
+			Expression condition = parseExpression();
+			expectKeyword("THEN");
+			List<Statement> then = parseStatements("ELSE", "END_IF");
+			List<Statement> otherwise = Collections.emptyList();
+			if (acceptKeyword("ELSE"))
+				otherwise = parseStatements("END_IF");
+			expectKeyword("END_IF");
+			expectOperator(";");
+			return new Statement.If(line, condition, then, otherwise);
+		}
+		if (acceptKeyword("REPEAT")) {
+			String variable = null;
+			Expression from = null, to = null, by = null, whileCondition = null, untilCondition = null;
+			if (peek().kind == RuleLexer.IDENTIFIER && peek(1).text.equals(":=")) {
+				variable = next().text;
+				next();
+				from = parseSimpleExpression();
+				expectKeyword("TO");
+				to = parseSimpleExpression();
+				if (acceptKeyword("BY"))
+					by = parseSimpleExpression();
+			}
+			if (acceptKeyword("WHILE"))
+				whileCondition = parseExpression();
+			if (acceptKeyword("UNTIL"))
+				untilCondition = parseExpression();
+			expectOperator(";");
+			List<Statement> body = parseStatements("END_REPEAT");
+			expectKeyword("END_REPEAT");
+			expectOperator(";");
+			return new Statement.Repeat(line, variable, from, to, by, whileCondition, untilCondition, body);
+		}
+		if (acceptKeyword("RETURN")) {
+			Expression value = null;
+			if (acceptOperator("(")) {
+				value = parseExpression();
+				expectOperator(")");
+			}
+			expectOperator(";");
+			return new Statement.Return(line, value);
+		}
+		if (acceptKeyword("ESCAPE")) {
+			expectOperator(";");
+			return new Statement.Escape(line);
+		}
+		if (acceptKeyword("SKIP")) {
+			expectOperator(";");
+			return new Statement.Skip(line);
+		}
+		if (acceptKeyword("BEGIN")) {
+			List<Statement> body = parseStatements("END");
+			expectKeyword("END");
+			expectOperator(";");
+			return new Statement.Compound(line, body);
+		}
+		if (acceptKeyword("CASE")) {
+			Expression selector = parseExpression();
+			expectKeyword("OF");
+			List<List<Expression>> labels = new ArrayList<List<Expression>>();
+			List<Statement> actions = new ArrayList<Statement>();
+			Statement otherwise = null;
+			while (!isKeyword("END_CASE")) {
+				if (acceptKeyword("OTHERWISE")) {
+					expectOperator(":");
+					otherwise = parseStatement();
+					continue;
+				}
+				List<Expression> caseLabels = new ArrayList<Expression>();
+				do {
+					caseLabels.add(parseExpression());
+				} while (acceptOperator(","));
+				expectOperator(":");
+				labels.add(caseLabels);
+				actions.add(parseStatement());
+			}
+			expectKeyword("END_CASE");
+			expectOperator(";");
+			return new Statement.Case(line, selector, labels, actions, otherwise);
+		}
+		if (acceptKeyword("ALIAS")) {
+			String name = identifier().text;
+			expectKeyword("FOR");
+			Expression target = parsePrimary();
+			expectOperator(";");
+			List<Statement> body = parseStatements("END_ALIAS");
+			expectKeyword("END_ALIAS");
+			expectOperator(";");
+			return new Statement.Alias(line, name, target, body);
+		}
+		Expression target = parsePrimary();
+		if (acceptOperator(":=")) {
+			Expression value = parseExpression();
+			expectOperator(";");
+			return new Statement.Assignment(line, target, value);
+		}
+		if (target instanceof Expression.Call || target instanceof Expression.Name) {
+			expectOperator(";");
+			Expression.Call call = target instanceof Expression.Call ? (Expression.Call) target
+					: new Expression.Call(line, ((Expression.Name) target).name,
+							Collections.<Expression> emptyList());
+			return new Statement.ProcedureCall(line, call);
+		}
+		throw error("expected a statement at " + peek().original);
+	}
+
+	// EXPRESSIONS
+	public Expression parseExpression() {
+		Expression left = parseSimpleExpression();
+		Token t = peek();
+		if ((t.kind == RuleLexer.OPERATOR && RELATIONAL.contains(t.text)) || isKeyword("IN")
+				|| isKeyword("LIKE")) {
+			next();
+			return new Expression.Binary(t.line, t.text, left, parseSimpleExpression());
+		}
+		return left;
+	}
+
+	private Expression parseSimpleExpression() {
+		Expression left = parseTerm();
+		while (isOperator("+") || isOperator("-") || isKeyword("OR") || isKeyword("XOR")) {
+			Token op = next();
+			left = new Expression.Binary(op.line, op.text, left, parseTerm());
+		}
+		return left;
+	}
+
+	private Expression parseTerm() {
+		Expression left = parseFactor();
+		while (isOperator("*") || isOperator("/") || isOperator("||") || isKeyword("DIV")
+				|| isKeyword("MOD") || isKeyword("AND")) {
+			Token op = next();
+			left = new Expression.Binary(op.line, op.text, left, parseFactor());
+		}
+		return left;
+	}
+
+	private Expression parseFactor() {
+		Expression left = parseSimpleFactor();
+		if (isOperator("**")) {
+			Token op = next();
+			return new Expression.Binary(op.line, op.text, left, parseSimpleFactor());
+		}
+		return left;
+	}
+
+	private Expression parseSimpleFactor() {
+		Token t = peek();
+		if (isOperator("-") || isOperator("+") || isKeyword("NOT")) {
+			next();
+			return new Expression.Unary(t.line, t.text, parseSimpleFactor());
+		}
+		if (acceptOperator("[")) {
+			List<Expression> elements = new ArrayList<Expression>();
+			List<Expression> repetitions = new ArrayList<Expression>();
+			if (!isOperator("]")) {
+				do {
+					elements.add(parseExpression());
+					repetitions.add(acceptOperator(":") ? parseExpression() : null);
+				} while (acceptOperator(","));
+			}
+			expectOperator("]");
+			return new Expression.Aggregate(t.line, elements, repetitions);
+		}
+		if (acceptOperator("{")) {
+			Expression low = parseSimpleExpression();
+			String lowOperator = next().text;
+			Expression value = parseSimpleExpression();
+			String highOperator = next().text;
+			Expression high = parseSimpleExpression();
+			expectOperator("}");
+			return new Expression.Interval(t.line, low, lowOperator, value, highOperator, high);
+		}
+		if (acceptKeyword("QUERY")) {
+			expectOperator("(");
+			String variable = identifier().text;
+			expectOperator("<*");
+			Expression aggregate = parseSimpleExpression();
+			expectOperator("|");
+			Expression condition = parseExpression();
+			expectOperator(")");
+			return new Expression.Query(t.line, variable, aggregate, condition);
+		}
+		return parsePrimary();
+	}
+
+	// a literal or a name, call or parenthesized expression with its qualifiers
+	private Expression parsePrimary() {
+		Token t = next();
+		Expression e;
+		switch (t.kind) {
+		case RuleLexer.INTEGER:
+			return new Expression.Literal(t.line, Long.valueOf(t.text));
+		case RuleLexer.REAL:
+			return new Expression.Literal(t.line, Double.valueOf(t.text));
+		case RuleLexer.STRING:
+		case RuleLexer.BINARY:
+			return new Expression.Literal(t.line, t.text);
+		case RuleLexer.OPERATOR:
+			if (t.text.equals("?"))
+				return new Expression.Literal(t.line, null);
+			if (!t.text.equals("("))
+				throw error("unexpected " + t.text, t);
+			e = parseExpression();
+			expectOperator(")");
+			break;
+		case RuleLexer.IDENTIFIER:
+			if (t.text.equals("TRUE"))
+				return new Expression.Literal(t.line, Logical.TRUE);
+			if (t.text.equals("FALSE"))
+				return new Expression.Literal(t.line, Logical.FALSE);
+			if (t.text.equals("UNKNOWN"))
+				return new Expression.Literal(t.line, Logical.UNKNOWN);
+			if (t.text.equals("PI"))
+				return new Expression.Literal(t.line, Math.PI);
+			if (t.text.equals("CONST_E"))
+				return new Expression.Literal(t.line, Math.E);
+			if (t.text.equals("SELF"))
+				e = new Expression.Self(t.line);
+			else if (isOperator("(")) {
+				next();
+				List<Expression> arguments = new ArrayList<Expression>();
+				if (!isOperator(")")) {
+					do {
+						arguments.add(parseExpression());
+					} while (acceptOperator(","));
+				}
+				expectOperator(")");
+				e = new Expression.Call(t.line, t.text, arguments);
+			} else
+				e = new Expression.Name(t.line, t.text, t.original);
+			break;
+		default:
+			throw error("unexpected end of the schema", t);
+		}
+		while (true) {
+			Token q = peek();
+			if (acceptOperator(".")) {
+				Token attr = identifier();
+				e = new Expression.Attribute(q.line, e, attr.text, attr.original);
+			} else if (acceptOperator("\\")) {
+				e = new Expression.Group(q.line, e, identifier().text);
+			} else if (acceptOperator("[")) {
+				Expression index = parseSimpleExpression();
+				Expression to = acceptOperator(":") ? parseSimpleExpression() : null;
+				expectOperator("]");
+				e = new Expression.Index(q.line, e, index, to);
+			} else
+				return e;
+		}
+	}
+
+	// TOKENS
+	private List<String> parseNameList() {
+		expectOperator("(");
+		List<String> names = new ArrayList<String>();
+		do {
+			names.add(identifier().original);
+		} while (acceptOperator(","));
+		expectOperator(")");
+		return names;
+	}
+
+	private static List<String> upperCase(List<String> names) {
+		List<String> upper = new ArrayList<String>(names.size());
+		for (String name : names)
+			upper.add(name.toUpperCase());
+		return upper;
+	}
+
+	// skips a ( ... ) or [ ... ] group with everything in it
+	private void skipBalanced() {
+		int depth = 0;
+		do {
+			Token t = next();
+			if (t.kind == RuleLexer.EOF)
+				throw error("unexpected end of the schema", t);
+			if (t.kind == RuleLexer.OPERATOR) {
+				if (t.text.equals("(") || t.text.equals("["))
+					depth++;
+				else if (t.text.equals(")") || t.text.equals("]"))
+					depth--;
+			}
+		} while (depth > 0);
+	}
+
+	private void skipPast(String text) {
+		while (peek().kind != RuleLexer.EOF && !peek().text.equals(text))
+			next();
+		next();
+	}
+
+	private Token peek() {
+		return tokens.get(pos);
+	}
+
+	private Token peek(int ahead) {
+		return tokens.get(Math.min(pos + ahead, tokens.size() - 1));
+	}
+
+	private Token next() {
+		Token t = tokens.get(pos);
+		if (pos < tokens.size() - 1)
+			pos++;
+		return t;
+	}
+
+	private boolean isKeyword(String keyword) {
+		Token t = peek();
+		return t.kind == RuleLexer.IDENTIFIER && t.text.equals(keyword);
+	}
+
+	private boolean isKeyword(String... keywords) {
+		for (String keyword : keywords)
+			if (isKeyword(keyword))
+				return true;
+		return false;
+	}
+
+	private boolean isKeyword(Set<String> keywords) {
+		Token t = peek();
+		return t.kind == RuleLexer.IDENTIFIER && keywords.contains(t.text);
+	}
+
+	private boolean isOperator(String op) {
+		Token t = peek();
+		return t.kind == RuleLexer.OPERATOR && t.text.equals(op);
+	}
+
+	private boolean acceptKeyword(String keyword) {
+		if (isKeyword(keyword)) {
+			next();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean acceptOperator(String op) {
+		if (isOperator(op)) {
+			next();
+			return true;
+		}
+		return false;
+	}
+
+	private void expectKeyword(String keyword) {
+		if (!acceptKeyword(keyword))
+			throw error("expected " + keyword + " but found " + peek().original);
+	}
+
+	private void expectOperator(String op) {
+		if (!acceptOperator(op))
+			throw error("expected " + op + " but found " + peek().original);
+	}
+
+	private Token identifier() {
+		if (peek().kind != RuleLexer.IDENTIFIER)
+			throw error("expected a name but found " + peek().original);
+		return next();
+	}
+
+	private IllegalArgumentException error(String message) {
+		return error(message, peek());
+	}
+
+	private IllegalArgumentException error(String message, Token t) {
+		return new IllegalArgumentException("line " + t.line + ": " + message);
+	}
+}
@@ -0,0 +1,201 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * RuleSchema holds the declarations of an EXPRESS schema as far as they are needed to
+ * check instance data: the attributes, DERIVE, INVERSE, UNIQUE and WHERE clauses of
+ * the entities, the underlying types, select and enumeration items and WHERE rules of
+ * the types, the CONSTANTs, the FUNCTIONs and the global RULEs. It is filled by the
+ * RuleParser and compiled by the RuleCompiler.
+ *
+ * The usage:
+ * RuleSchema schema = new RuleParser(buffer).parseSchema();
+ * RuleSchema.Entity wall = schema.entities.get("IFCWALL");
+ * for (RuleSchema.Where where : wall.wheres) ...
+ *
+ * All maps are keyed on the upper case names of the declarations.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class RuleSchema {
+
+	public String name;
+	public final Map<String, Entity> entities = new LinkedHashMap<String, Entity>();
+	public final Map<String, Type> types = new LinkedHashMap<String, Type>();
+	public final Map<String, Variable> constants = new LinkedHashMap<String, Variable>();
+	public final Map<String, Function> functions = new LinkedHashMap<String, Function>();
+	public final Map<String, Rule> rules = new LinkedHashMap<String, Rule>();
+
+	// ARRAY, LIST, SET, BAG, AGGREGATE, GENERIC, GENERIC_ENTITY, a primary type or the
+	// upper case name of a defined type or entity
+	public static class TypeSpec {
+		public final String kind;
+		public final Expression low;
+		public final Expression high;
+		public final TypeSpec element;
+
+		public TypeSpec(String kind, Expression low, Expression high, TypeSpec element) {
+			this.kind = kind;
+			this.low = low;
+			this.high = high;
+			this.element = element;
+		}
+
+		public boolean isAggregate() {
+			return element != null;
+		}
+	}
+
+	public static class Entity {
+		public final String name;
+		public final String original;
+		public final List<String> supertypes = new ArrayList<String>();
+		public final List<Attribute> attributes = new ArrayList<Attribute>();
+		public final List<Derived> derived = new ArrayList<Derived>();
+		public final List<Inverse> inverses = new ArrayList<Inverse>();
+		public final List<Unique> uniques = new ArrayList<Unique>();
+		public final List<Where> wheres = new ArrayList<Where>();
+		public boolean isAbstract;
+
+		public Entity(String name, String original) {
+			this.name = name;
+			this.original = original;
+		}
+	}
+
+	// an explicit attribute; a redeclared attribute (SELF\Supertype.Attribute) is not listed
+	public static class Attribute {
+		public final String name;
+		public final String original;
+		public final TypeSpec type;
+		public final boolean optional;
+
+		public Attribute(String name, String original, TypeSpec type, boolean optional) {
+			this.name = name;
+			this.original = original;
+			this.type = type;
+			this.optional = optional;
+		}
+	}
+
+	public static class Derived {
+		public final String name;
+		public final String original;
+		public final TypeSpec type;
+		public final Expression value;
+
+		public Derived(String name, String original, TypeSpec type, Expression value) {
+			this.name = name;
+			this.original = original;
+			this.type = type;
+			this.value = value;
+		}
+	}
+
+	public static class Inverse {
+		public final String name;
+		public final String original;
+		public final String entity;
+		public final String attribute;
+
+		public Inverse(String name, String original, String entity, String attribute) {
+			this.name = name;
+			this.original = original;
+			this.entity = entity;
+			this.attribute = attribute;
+		}
+	}
+
+	public static class Unique {
+		public final String label;
+		// the original names of the attributes that are unique together
+		public final List<String> attributes;
+
+		public Unique(String label, List<String> attributes) {
+			this.label = label;
+			this.attributes = attributes;
+		}
+	}
+
+	public static class Where {
+		public final String label;
+		public final Expression condition;
+
+		public Where(String label, Expression condition) {
+			this.label = label;
+			this.condition = condition;
+		}
+	}
+
+	public static class Type {
+		public final String name;
+		public final String original;
+		public final TypeSpec underlying;
+		public final List<String> selectItems = new ArrayList<String>();
+		public final List<String> enumerationItems = new ArrayList<String>();
+		public final List<Where> wheres = new ArrayList<Where>();
+
+		public Type(String name, String original, TypeSpec underlying) {
+			this.name = name;
+			this.original = original;
+			this.underlying = underlying;
+		}
+	}
+
+	// a parameter, local variable or constant
+	public static class Variable {
+		public final String name;
+		public final TypeSpec type;
+		public final Expression initializer;
+
+		public Variable(String name, TypeSpec type, Expression initializer) {
+			this.name = name;
+			this.type = type;
+			this.initializer = initializer;
+		}
+	}
+
+	public static class Function {
+		public final String name;
+		public final List<Variable> parameters = new ArrayList<Variable>();
+		public final List<Variable> locals = new ArrayList<Variable>();
+		public final List<Statement> body = new ArrayList<Statement>();
+		public TypeSpec result;
+
+		public Function(String name) {
+			this.name = name;
+		}
+	}
+
+	// a global rule over the instances of the entities in its FOR list
+	public static class Rule {
+		public final String name;
+		public final List<String> entities = new ArrayList<String>();
+		public final List<Variable> locals = new ArrayList<Variable>();
+		public final List<Statement> body = new ArrayList<Statement>();
+		public final List<Where> wheres = new ArrayList<Where>();
+
+		public Rule(String name) {
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * SchemaValidator compiles the rules of an EXPRESS schema once and checks instance data
+ * against them: the WHERE rules of the entities and types, the UNIQUE rules over a
+ * population and the global RULEs. The DERIVE attributes are compiled as well and are
+ * evaluated whenever a rule reads them.
+ *
+ * The usage:
+ * SchemaValidator validator = SchemaValidator.compile(new File("IFC4_ADD1.exp"));
+ * for (Violation v : validator.validate(instance)) System.out.println(v);
+ * List<Violation> duplicates = validator.validateUnique(population);
+ *
+ * The schema is read by the RuleParser, separately from the ExpressReader that converts
+ * it to OWL. Declarations that could not be parsed or compiled are skipped and listed
+ * in getWarnings().
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class SchemaValidator {
+
+	private final RuleCompiler compiler;
+	private final List<String> warnings = new ArrayList<String>();
+	// the validators by the declared and by the upper case name of the entity
+	private final Map<String, EntityValidator> validators = new HashMap<String, EntityValidator>();
+
+	public SchemaValidator(RuleSchema schema) {
+		this(schema, Collections.<String> emptyList());
+	}
+
+	private SchemaValidator(RuleSchema schema, List<String> parserWarnings) {
+		this.compiler = new RuleCompiler(schema);
+		warnings.addAll(parserWarnings);
+		warnings.addAll(compiler.getWarnings());
+		for (RuleCompiler.CompiledEntity entity : compiler.getEntities()) {
+			EntityValidator validator = new EntityValidator(compiler, entity);
+			validators.put(entity.name, validator);
+			validators.put(entity.original, validator);
+		}
+	}
+
+	public static SchemaValidator compile(ByteBuffer buffer) {
+		RuleParser parser = new RuleParser(buffer);
+		RuleSchema schema = parser.parseSchema();
+		return new SchemaValidator(schema, parser.getWarnings());
+	}
+
+	public static SchemaValidator compile(File schemaFile) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(schemaFile, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return compile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	public String getSchemaName() {
+		return compiler.getSchemaName();
+	}
+
+	public List<String> getWarnings() {
+		return warnings;
+	}
+
+	public EntityValidator getEntityValidator(String entityName) {
+		EntityValidator validator = validators.get(entityName);
+		if (validator == null && entityName != null)
+			validator = validators.get(entityName.toUpperCase());
+		return validator;
+	}
+
+	public List<Violation> validate(RuleInstance instance) {
+		EntityValidator validator = getEntityValidator(instance.getEntityName());
+		if (validator == null)
+			return Collections.singletonList(new Violation(instance.getEntityName(), "", instance,
+					Logical.UNKNOWN, "unknown entity " + instance.getEntityName()));
+		return validator.validate(instance);
+	}
+
+	// the WHERE rules of a defined type, and of the types it is based on, for a value
+	public List<Violation> validateType(String typeName, Object value) {
+		List<Violation> violations = new ArrayList<Violation>();
+		RuleCompiler.CompiledType type = compiler.getType(typeName);
+		if (type == null)
+			violations.add(new Violation(typeName, "", null, Logical.UNKNOWN, "unknown type " + typeName));
+		else
+			for (RuleCompiler.CompiledRule rule : compiler.allWheres(type))
+				EntityValidator.check(rule, Values.normalize(value), null, violations);
+		return violations;
+	}
+
+	public Object getDerivedAttribute(RuleInstance instance, String attribute) {
+		return compiler.derivedAttribute(instance, attribute);
+	}
+
+	// the UNIQUE rules: a violation for every instance whose values repeat those of an
+	// earlier instance; instances with an attribute that is not set are not compared
+	public List<Violation> validateUnique(Collection<? extends RuleInstance> population) {
+		List<Violation> violations = new ArrayList<Violation>();
+		Map<String, Map<List<Object>, RuleInstance>> seen = new HashMap<String, Map<List<Object>, RuleInstance>>();
+		for (RuleInstance instance : population) {
+			RuleCompiler.CompiledEntity entity = compiler.getEntity(instance.getEntityName());
+			if (entity == null)
+				continue;
+			for (String ancestor : entity.ancestors) {
+				RuleCompiler.CompiledEntity declaring = compiler.getEntity(ancestor);
+				for (RuleSchema.Unique unique : declaring.declaration.uniques) {
+					List<Object> key = uniqueKey(instance, unique);
+					if (key == null)
+						continue;
+					String rule = declaring.original + "." + unique.label;
+					Map<List<Object>, RuleInstance> keys = seen.get(rule);
+					if (keys == null) {
+						keys = new HashMap<List<Object>, RuleInstance>();
+						seen.put(rule, keys);
+					}
+					if (keys.putIfAbsent(key, instance) != null)
+						violations.add(new Violation(declaring.original, unique.label, instance, Logical.FALSE,
+								null));
+				}
+			}
+		}
+		return violations;
+	}
+
+	private List<Object> uniqueKey(RuleInstance instance, RuleSchema.Unique unique) {
+		List<Object> key = new ArrayList<Object>(unique.attributes.size());
+		for (String attribute : unique.attributes) {
+			Object value = Values.unwrap(compiler.derivedAttribute(instance, attribute));
+			if (value == null)
+				return null;
+			key.add(value instanceof Long ? Double.valueOf((Long) value) : value);
+		}
+		return key;
+	}
+
+	// the global RULEs, each over the instances of the entities in its FOR list
+	public List<Violation> validateGlobalRules(Collection<? extends RuleInstance> population) {
+		List<Violation> violations = new ArrayList<Violation>();
+		for (RuleCompiler.CompiledGlobalRule rule : compiler.getGlobalRules()) {
+			Frame frame = new Frame(rule.frameSize, null);
+			for (int n = 0; n < rule.entities.size(); n++) {
+				String type = getSchemaName() + "." + rule.entities.get(n);
+				List<Object> extent = new ArrayList<Object>();
+				for (RuleInstance instance : population) {
+					List<String> typeOf = compiler.typeOf(instance);
+					if (typeOf.contains(type))
+						extent.add(instance);
+				}
+				frame.slots[n] = extent;
+			}
+			try {
+				for (RuleCompiler.Action local : rule.locals)
+					local.run(frame);
+				rule.body.run(frame);
+			} catch (RuntimeException e) {
+				violations.add(new Violation(rule.name, "", null, Logical.UNKNOWN, e.toString()));
+				continue;
+			}
+			for (RuleCompiler.CompiledRule where : rule.wheres) {
+				try {
+					Logical result = Values.logical(where.condition.evaluator.evaluate(frame));
+					if (result == Logical.FALSE)
+						violations.add(new Violation(rule.name, where.label, null, result, null));
+				} catch (RuntimeException e) {
+					violations.add(new Violation(rule.name, where.label, null, Logical.UNKNOWN, e.toString()));
+				}
+			}
+		}
+		return violations;
+	}
+}
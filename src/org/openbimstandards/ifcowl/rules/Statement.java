@@ -0,0 +1,169 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.List;
+
+/*
+ * Statement is a node of the abstract syntax tree of the statements in the body of an
+ * EXPRESS FUNCTION or RULE, as read by the RuleParser and compiled by the RuleCompiler.
+ *
+ * The usage:
+ * List<Statement> body = function.body;
+ * if (body.get(0) instanceof Statement.If) ...
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public abstract class Statement {
+
+	public final int line;
+
+	Statement(int line) {
+		this.line = line;
+	}
+
+	// ;
+	public static class Null extends Statement {
+		public Null(int line) {
+			super(line);
+		}
+	}
+
+	// target := value; the target is a Name, optionally with Attribute and Index qualifiers
+	public static class Assignment extends Statement {
+		public final Expression target;
+		public final Expression value;
+
+		public Assignment(int line, Expression target, Expression value) {
+			super(line);
+			this.target = target;
+			this.value = value;
+		}
+	}
+
+	// IF condition THEN ... ELSE ... END_IF;
+	public static class If extends Statement {
+		public final Expression condition;
+		public final List<Statement> then;
+		public final List<Statement> otherwise;
+
+		public If(int line, Expression condition, List<Statement> then, List<Statement> otherwise) {
+			super(line);
+			this.condition = condition;
+			this.then = then;
+			this.otherwise = otherwise;
+		}
+	}
+
+	// REPEAT variable := from TO to BY by WHILE condition UNTIL condition; ... END_REPEAT;
+	// every part of the control is optional
+	public static class Repeat extends Statement {
+		public final String variable;
+		public final Expression from;
+		public final Expression to;
+		public final Expression by;
+		public final Expression whileCondition;
+		public final Expression untilCondition;
+		public final List<Statement> body;
+
+		public Repeat(int line, String variable, Expression from, Expression to, Expression by,
+				Expression whileCondition, Expression untilCondition, List<Statement> body) {
+			super(line);
+			this.variable = variable;
+			this.from = from;
+			this.to = to;
+			this.by = by;
+			this.whileCondition = whileCondition;
+			this.untilCondition = untilCondition;
+			this.body = body;
+		}
+	}
+
+	// RETURN(value); or RETURN;
+	public static class Return extends Statement {
+		public final Expression value;
+
+		public Return(int line, Expression value) {
+			super(line);
+			this.value = value;
+		}
+	}
+
+	// ESCAPE;
+	public static class Escape extends Statement {
+		public Escape(int line) {
+			super(line);
+		}
+	}
+
+	// SKIP;
+	public static class Skip extends Statement {
+		public Skip(int line) {
+			super(line);
+		}
+	}
+
+	// CASE selector OF label, label : statement; ... OTHERWISE : statement; END_CASE;
+	public static class Case extends Statement {
+		public final Expression selector;
+		public final List<List<Expression>> labels;
+		public final List<Statement> actions;
+		public final Statement otherwise;
+
+		public Case(int line, Expression selector, List<List<Expression>> labels,
+				List<Statement> actions, Statement otherwise) {
+			super(line);
+			this.selector = selector;
+			this.labels = labels;
+			this.actions = actions;
+			this.otherwise = otherwise;
+		}
+	}
+
+	// BEGIN ... END;
+	public static class Compound extends Statement {
+		public final List<Statement> body;
+
+		public Compound(int line, List<Statement> body) {
+			super(line);
+			this.body = body;
+		}
+	}
+
+	// ALIAS name FOR target; ... END_ALIAS;
+	public static class Alias extends Statement {
+		public final String name;
+		public final Expression target;
+		public final List<Statement> body;
+
+		public Alias(int line, String name, Expression target, List<Statement> body) {
+			super(line);
+			this.name = name;
+			this.target = target;
+			this.body = body;
+		}
+	}
+
+	// a call of a procedure, like INSERT(list, element, position);
+	public static class ProcedureCall extends Statement {
+		public final Expression.Call call;
+
+		public ProcedureCall(int line, Expression.Call call) {
+			super(line);
+			this.call = call;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package org.openbimstandards.ifcowl.rules;
+
+/*
+ * TypedValue is a value together with the defined type it was given in the instance
+ * data, like IFCLENGTHMEASURE(2.5) in a select attribute. TYPEOF gives the type and its
+ * underlying types and selects; comparisons and arithmetic use the value.
+ *
+ * The usage:
+ * Object measure = new TypedValue("IfcLengthMeasure", 2.5);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public final class TypedValue {
+
+	private final String type;
+	private final Object value;
+
+	public TypedValue(String type, Object value) {
+		this.type = type;
+		this.value = value;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof TypedValue))
+			return false;
+		TypedValue t = (TypedValue) o;
+		return type.equalsIgnoreCase(t.type) && (value == null ? t.value == null : value.equals(t.value));
+	}
+
+	@Override
+	public int hashCode() {
+		return type.toUpperCase().hashCode() * 31 + (value == null ? 0 : value.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return type + "(" + value + ")";
+	}
+}
@@ -0,0 +1,398 @@
+package org.openbimstandards.ifcowl.rules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ * Values implements the operators of EXPRESS on the values that the compiled rules
+ * work with: Long, Double, String, Logical, List, RuleInstance, TypedValue and null for
+ * the indeterminate value ?. Every operator with an indeterminate operand gives an
+ * indeterminate result, and comparisons with it give UNKNOWN.
+ *
+ * The usage:
+ * Object sum = Values.add(Long.valueOf(1), Double.valueOf(2.5));   // 3.5
+ * Logical equal = Values.equal("A", null);                        // UNKNOWN
+ *
+ * Aggregates are java.util.Lists and are indexed from 1, except the ARRAYs that a
+ * FUNCTION declares with other bounds, which are kept as a BoundedList.
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+final class Values {
+
+	// an ARRAY with a lower index other than 1
+	static class BoundedList extends ArrayList<Object> {
+		private static final long serialVersionUID = 1L;
+		final int low;
+
+		BoundedList(int low, Collection<?> elements) {
+			super(elements);
+			this.low = low;
+		}
+	}
+
+	private Values() {
+	}
+
+	// the value of an attribute of the instance data in the types that the rules use
+	static Object normalize(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+			return Long.valueOf(((Number) value).longValue());
+		if (value instanceof Float)
+			return Double.valueOf(((Float) value).doubleValue());
+		if (value instanceof Boolean)
+			return Logical.valueOf(value);
+		if (value instanceof Object[]) {
+			List<Object> list = new ArrayList<Object>();
+			for (Object o : (Object[]) value)
+				list.add(normalize(o));
+			return list;
+		}
+		if (value instanceof Collection && !(value instanceof List))
+			return new ArrayList<Object>((Collection<?>) value);
+		return value;
+	}
+
+	static Object unwrap(Object value) {
+		while (value instanceof TypedValue)
+			value = ((TypedValue) value).getValue();
+		return value;
+	}
+
+	// LOGICAL
+	static Logical logical(Object value) {
+		return Logical.valueOf(unwrap(value));
+	}
+
+	// COMPARISON
+	static Logical equal(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null)
+			return Logical.UNKNOWN;
+		if (a instanceof Number && b instanceof Number)
+			return Logical.valueOf(compareNumbers((Number) a, (Number) b) == 0);
+		if (a instanceof List && b instanceof List) {
+			List<?> la = (List<?>) a;
+			List<?> lb = (List<?>) b;
+			if (la.size() != lb.size())
+				return Logical.FALSE;
+			Logical result = Logical.TRUE;
+			for (int n = 0; n < la.size(); n++) {
+				result = Logical.and(result, equal(la.get(n), lb.get(n)));
+				if (result == Logical.FALSE)
+					break;
+			}
+			return result;
+		}
+		return Logical.valueOf(a.equals(b));
+	}
+
+	// :=: , the same instance or an equal simple value
+	static Logical instanceEqual(Object a, Object b) {
+		if (a == null || b == null)
+			return Logical.UNKNOWN;
+		if (a instanceof RuleInstance || b instanceof RuleInstance)
+			return Logical.valueOf(a == b);
+		return equal(a, b);
+	}
+
+	// < 0, 0 or > 0, or null when the values cannot be compared
+	static Integer compare(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null)
+			return null;
+		if (a instanceof Number && b instanceof Number)
+			return compareNumbers((Number) a, (Number) b);
+		if (a instanceof String && b instanceof String)
+			return ((String) a).compareTo((String) b);
+		if (a instanceof Logical && b instanceof Logical)
+			return ((Logical) a).compareTo((Logical) b);
+		return null;
+	}
+
+	static Logical compare(String operator, Object a, Object b) {
+		if (operator.equals("="))
+			return equal(a, b);
+		if (operator.equals("<>"))
+			return Logical.not(equal(a, b));
+		if (operator.equals(":=:"))
+			return instanceEqual(a, b);
+		if (operator.equals(":<>:"))
+			return Logical.not(instanceEqual(a, b));
+		Integer c = compare(a, b);
+		if (c == null)
+			return Logical.UNKNOWN;
+		switch (operator) {
+		case "<":
+			return Logical.valueOf(c < 0);
+		case ">":
+			return Logical.valueOf(c > 0);
+		case "<=":
+			return Logical.valueOf(c <= 0);
+		case ">=":
+			return Logical.valueOf(c >= 0);
+		default:
+			throw new IllegalArgumentException("unknown comparison " + operator);
+		}
+	}
+
+	private static int compareNumbers(Number a, Number b) {
+		if (a instanceof Long && b instanceof Long)
+			return Long.compare(a.longValue(), b.longValue());
+		return Double.compare(a.doubleValue(), b.doubleValue());
+	}
+
+	// IN
+	static Logical in(Object element, Object aggregate) {
+		aggregate = unwrap(aggregate);
+		if (element == null || aggregate == null)
+			return Logical.UNKNOWN;
+		Logical result = Logical.FALSE;
+		for (Object o : (List<?>) aggregate) {
+			result = Logical.or(result, equal(element, o));
+			if (result == Logical.TRUE)
+				break;
+		}
+		return result;
+	}
+
+	// LIKE, with the pattern characters of EXPRESS
+	static Logical like(Object value, Object pattern) {
+		value = unwrap(value);
+		pattern = unwrap(pattern);
+		if (value == null || pattern == null)
+			return Logical.UNKNOWN;
+		StringBuilder regex = new StringBuilder();
+		String p = (String) pattern;
+		for (int n = 0; n < p.length(); n++) {
+			char ch = p.charAt(n);
+			switch (ch) {
+			case '@':
+				regex.append("\\p{Alpha}");
+				break;
+			case '^':
+				regex.append("\\p{Upper}");
+				break;
+			case '!':
+				regex.append("\\p{Lower}");
+				break;
+			case '#':
+				regex.append("\\p{Digit}");
+				break;
+			case '?':
+				regex.append('.');
+				break;
+			case '&':
+				regex.append(".*");
+				break;
+			case '*':
+				regex.append(".*?");
+				break;
+			case '$':
+				regex.append("\\S*");
+				break;
+			case '\\':
+				if (n + 1 < p.length())
+					regex.append(Pattern.quote(String.valueOf(p.charAt(++n))));
+				break;
+			default:
+				regex.append(Pattern.quote(String.valueOf(ch)));
+			}
+		}
+		return Logical.valueOf(Pattern.compile(regex.toString(), Pattern.DOTALL).matcher((String) value)
+				.matches());
+	}
+
+	// ARITHMETIC, and the union, difference and intersection of aggregates
+	static Object add(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null)
+			return null;
+		if (a instanceof List) {
+			List<Object> result = new ArrayList<Object>((List<?>) a);
+			if (b instanceof List)
+				result.addAll((List<?>) b);
+			else
+				result.add(b);
+			return result;
+		}
+		if (b instanceof List) {
+			List<Object> result = new ArrayList<Object>();
+			result.add(a);
+			result.addAll((List<?>) b);
+			return result;
+		}
+		if (a instanceof String && b instanceof String)
+			return (String) a + (String) b;
+		if (a instanceof Long && b instanceof Long)
+			return ((Long) a) + ((Long) b);
+		return number(a) + number(b);
+	}
+
+	static Object subtract(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null)
+			return null;
+		if (a instanceof List) {
+			List<Object> result = new ArrayList<Object>((List<?>) a);
+			if (b instanceof List)
+				for (Object o : (List<?>) b)
+					removeEqual(result, o);
+			else
+				removeEqual(result, b);
+			return result;
+		}
+		if (a instanceof Long && b instanceof Long)
+			return ((Long) a) - ((Long) b);
+		return number(a) - number(b);
+	}
+
+	static Object multiply(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null)
+			return null;
+		if (a instanceof List && b instanceof List) {
+			List<Object> result = new ArrayList<Object>();
+			for (Object o : (List<?>) a)
+				if (in(o, b) == Logical.TRUE)
+					result.add(o);
+			return result;
+		}
+		if (a instanceof Long && b instanceof Long)
+			return ((Long) a) * ((Long) b);
+		return number(a) * number(b);
+	}
+
+	static Object divide(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null || number(b) == 0.0)
+			return null;
+		return number(a) / number(b);
+	}
+
+	static Object div(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null || integer(b) == 0)
+			return null;
+		return Math.floorDiv(integer(a), integer(b));
+	}
+
+	static Object mod(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null || integer(b) == 0)
+			return null;
+		return Math.floorMod(integer(a), integer(b));
+	}
+
+	static Object power(Object a, Object b) {
+		a = unwrap(a);
+		b = unwrap(b);
+		if (a == null || b == null)
+			return null;
+		double result = Math.pow(number(a), number(b));
+		if (a instanceof Long && b instanceof Long && (Long) b >= 0)
+			return Long.valueOf((long) result);
+		return result;
+	}
+
+	static Object negate(Object a) {
+		a = unwrap(a);
+		if (a == null)
+			return null;
+		if (a instanceof Long)
+			return -((Long) a);
+		return -number(a);
+	}
+
+	static double number(Object value) {
+		value = unwrap(value);
+		if (!(value instanceof Number))
+			throw new IllegalArgumentException("not a number: " + value);
+		return ((Number) value).doubleValue();
+	}
+
+	static long integer(Object value) {
+		value = unwrap(value);
+		if (!(value instanceof Number))
+			throw new IllegalArgumentException("not an integer: " + value);
+		return ((Number) value).longValue();
+	}
+
+	private static void removeEqual(List<Object> list, Object element) {
+		for (int n = 0; n < list.size(); n++)
+			if (equal(list.get(n), element) == Logical.TRUE) {
+				list.remove(n);
+				return;
+			}
+	}
+
+	// INDEXING
+	static int lowIndex(List<?> list) {
+		return list instanceof BoundedList ? ((BoundedList) list).low : 1;
+	}
+
+	static Object index(Object aggregate, Object index) {
+		aggregate = unwrap(aggregate);
+		if (aggregate == null || index == null)
+			return null;
+		int i = (int) integer(index);
+		if (aggregate instanceof String) {
+			String s = (String) aggregate;
+			return i >= 1 && i <= s.length() ? s.substring(i - 1, i) : null;
+		}
+		List<?> list = (List<?>) aggregate;
+		int position = i - lowIndex(list);
+		return position >= 0 && position < list.size() ? list.get(position) : null;
+	}
+
+	static Object range(Object aggregate, Object from, Object to) {
+		aggregate = unwrap(aggregate);
+		if (aggregate == null || from == null || to == null)
+			return null;
+		int i = (int) integer(from);
+		int j = (int) integer(to);
+		if (aggregate instanceof String) {
+			String s = (String) aggregate;
+			return i >= 1 && j <= s.length() && i <= j ? s.substring(i - 1, j) : null;
+		}
+		List<?> list = (List<?>) aggregate;
+		int low = lowIndex(list);
+		if (i - low < 0 || j - low >= list.size() || i > j)
+			return null;
+		return new ArrayList<Object>(list.subList(i - low, j - low + 1));
+	}
+
+	@SuppressWarnings("unchecked")
+	static void setIndex(Object aggregate, Object index, Object value) {
+		List<Object> list = (List<Object>) unwrap(aggregate);
+		int position = (int) integer(index) - lowIndex(list);
+		while (list.size() <= position)
+			list.add(null);
+		list.set(position, value);
+	}
+}
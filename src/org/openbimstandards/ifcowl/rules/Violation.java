@@ -0,0 +1,76 @@
+package org.openbimstandards.ifcowl.rules;
+
+/*
+ * Violation is a rule that an instance does not satisfy: a WHERE rule of its entity, of
+ * the type of one of its attributes or of a global RULE, or a UNIQUE rule. The result
+ * is FALSE, or UNKNOWN when the rule could not be decided; error holds the message
+ * when the evaluation of the rule failed.
+ *
+ * The usage:
+ * for (Violation v : validator.validate(instance))
+ *     System.out.println(v);
+ */
+
+/*
+ * The GNU Affero General Public License
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ */
+
+public class Violation {
+
+	private final String declaration;
+	private final String label;
+	private final RuleInstance instance;
+	private final Logical result;
+	private final String error;
+
+	public Violation(String declaration, String label, RuleInstance instance, Logical result, String error) {
+		this.declaration = declaration;
+		this.label = label;
+		this.instance = instance;
+		this.result = result;
+		this.error = error;
+	}
+
+	// the entity, type or global rule that declares the rule
+	public String getDeclaration() {
+		return declaration;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public RuleInstance getInstance() {
+		return instance;
+	}
+
+	public Logical getResult() {
+		return result;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public boolean isError() {
+		return error != null;
+	}
+
+	@Override
+	public String toString() {
+		return declaration + "." + label + (error != null ? " failed: " + error : " is " + result)
+				+ (instance != null ? " for " + instance.getEntityName() : "");
+	}
+}